@@ -0,0 +1,153 @@
+// 파일 이름: ActiveRentalIndex.java
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 현재 대여 중인(아직 반납되지 않은) 대여 기록을 빠르게 찾기 위한 인메모리 인덱스 클래스입니다.
+ * 사용자 ID → 물품 이름 → 대여 중인 기록의 행 번호 목록 형태로 저장하여,
+ * 반납 시 전체 대여 기록을 훑지 않고도 상수 시간(O(1))에 해당 기록을 찾을 수 있습니다.
+ *
+ * 같은 사용자가 같은 물품을 여러 개 빌릴 수 있으므로, 행 번호는 대여 순서대로 큐(RowQueue)에 보관하고
+ * 반납 시에는 가장 먼저 빌린 기록부터 꺼냅니다. (기존 선형 탐색의 findFirst()와 같은 순서)
+ * 큐는 행 번호를 int 배열에 그대로 담고, 마지막 기록이 반납되어 비어도 인덱스 전체에서 MAX_IDLE_QUEUES개까지는 맵 항목과 함께
+ * 남겨 두었다가 같은 (사용자, 물품)의 다음 대여에 다시 씁니다. 따라서 대여/반납을 반복하는 조합은 객체를 만들지 않고,
+ * 빈 큐가 그보다 많아지면 새로 빈 큐는 지우므로 남는 메모리는 대여 중인 조합 수 + MAX_IDLE_QUEUES에 비례합니다.
+ * (사용자별 맵은 그 사용자의 큐가 모두 비어도 남습니다. 사용자 수만큼만 생김)
+ *
+ * 여러 스레드에서 사용할 수 있도록 ConcurrentHashMap을 사용합니다. 단, 같은 물품에 대한 add/find/remove는
+ * 해당 Item 객체의 잠금 안에서 호출되어야 합니다. (RentalService가 보장)
+ */
+public class ActiveRentalIndex {
+
+    // 비어도 인덱스에 남겨 둘 큐의 최대 개수 (인덱스 전체 기준)
+    private static final int MAX_IDLE_QUEUES = 65536;
+    // 비었을 때 남겨 둘 큐의 최대 용량 (한때 많이 빌려 배열이 커진 큐는 지움)
+    private static final int MAX_IDLE_CAPACITY = 16;
+
+    // 사용자 ID → (물품 이름 → 대여 중인 기록의 행 번호 큐)
+    private final Map<String, Map<String, RowQueue>> openRentals = new ConcurrentHashMap<>();
+    // 비었지만 인덱스에 남아 있는 큐의 수 (서로 다른 물품 잠금 안에서 바뀌므로 원자적으로 셈)
+    private final AtomicInteger idleQueues = new AtomicInteger();
+
+    /**
+     * 대여 기록 저장소에서 반납되지 않은 기록만 골라 인덱스를 만듭니다.
+     * 프로그램 시작 시 대여 기록을 연 직후 한 번 호출됩니다. (반납 시간 열만 훑으므로 객체를 만들지 않으며,
+     * 반납된 기록만 모아 둔 보관 구간은 건너뜀)
+     * @param history 대여 기록 저장소
+     */
+    public ActiveRentalIndex(HistoryStore history) {
+        history.forEachOpenRow(row -> add(history.getUserId(row), history.getItemName(row), row));
+    }
+
+    /**
+     * 새로 생성된(대여 중인) 기록을 인덱스에 추가합니다.
+     * @param userId 사용자 ID
+     * @param itemName 물품 이름
+     * @param row 대여 기록의 행 번호
+     */
+    public void add(String userId, String itemName, int row) {
+        RowQueue rows = openRentals.computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
+                                   .computeIfAbsent(itemName, name -> new RowQueue());
+        if (rows.idle) {
+            rows.idle = false; // 남겨 둔 빈 큐를 다시 씀
+            idleQueues.decrementAndGet();
+        }
+        rows.addLast(row);
+    }
+
+    /**
+     * 사용자가 해당 물품을 대여 중인 기록 중 가장 오래된 것의 행 번호를 반환합니다. (인덱스에서 제거하지 않음)
+     * @param userId 사용자 ID
+     * @param itemName 물품 이름
+     * @return 대여 중인 기록의 행 번호. 없으면 -1
+     */
+    public int find(String userId, String itemName) {
+        Map<String, RowQueue> byItem = openRentals.get(userId);
+        if (byItem == null) {
+            return -1;
+        }
+        RowQueue rows = byItem.get(itemName);
+        return (rows == null) ? -1 : rows.peekFirst();
+    }
+
+    /**
+     * 사용자가 해당 물품을 대여 중인 기록의 수를 반환합니다.
+     * @param userId 사용자 ID
+     * @param itemName 물품 이름
+     * @return 대여 중인 기록 수
+     */
+    public int count(String userId, String itemName) {
+        Map<String, RowQueue> byItem = openRentals.get(userId);
+        RowQueue rows = (byItem == null) ? null : byItem.get(itemName);
+        return (rows == null) ? 0 : rows.size;
+    }
+
+    /**
+     * 반납된 기록을 인덱스에서 제거합니다. find()로 찾은 기록을 반납 처리한 뒤 호출합니다.
+     * @param userId 사용자 ID
+     * @param itemName 물품 이름
+     */
+    public void remove(String userId, String itemName) {
+        Map<String, RowQueue> byItem = openRentals.get(userId);
+        if (byItem == null) {
+            return;
+        }
+        RowQueue rows = byItem.get(itemName);
+        if (rows != null) {
+            rows.pollFirst();
+            if (rows.size == 0) {
+                boolean keep = rows.rows.length <= MAX_IDLE_CAPACITY;
+                if (keep && idleQueues.incrementAndGet() > MAX_IDLE_QUEUES) {
+                    idleQueues.decrementAndGet(); // 남겨 둘 자리가 없음
+                    keep = false;
+                }
+                if (keep) {
+                    rows.idle = true; // 같은 (사용자, 물품)의 다음 대여에 다시 쓰도록 남김
+                } else {
+                    // 같은 (사용자, 물품)의 add도 같은 물품 잠금 안에서만 호출되므로 지우는 사이에 다시 채워지지 않음
+                    byItem.remove(itemName);
+                }
+            }
+        }
+    }
+
+    /**
+     * 대여 중인 행 번호의 큐. int 배열을 원형으로 사용합니다. (해당 Item 객체의 잠금 안에서만 사용)
+     */
+    private static class RowQueue {
+        private int[] rows = new int[2];
+        private int head; // 가장 오래된 행의 위치
+        private int size;
+        private boolean idle; // 비었지만 다시 쓰려고 인덱스에 남겨 둔 큐인지 여부 (idleQueues에 셈)
+
+        void addLast(int row) {
+            if (size == rows.length) {
+                // 원형 배열을 head부터 순서대로 펼쳐 두 배 크기로 옮김
+                int[] grown = new int[rows.length * 2];
+                int tail = rows.length - head;
+                System.arraycopy(rows, head, grown, 0, tail);
+                System.arraycopy(rows, 0, grown, tail, head);
+                rows = grown;
+                head = 0;
+            }
+            rows[(head + size) % rows.length] = row;
+            size++;
+        }
+
+        /**
+         * @return 가장 오래된 행 번호. 비어 있으면 -1
+         */
+        int peekFirst() {
+            return (size == 0) ? -1 : rows[head];
+        }
+
+        void pollFirst() {
+            if (size > 0) {
+                head = (head + 1) % rows.length;
+                size--;
+            }
+        }
+    }
+}
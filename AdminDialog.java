@@ -8,7 +8,8 @@
  * 주요 기능:
  * 1. 사용자 관리: 사용자 목록 조회, 신규 사용자 추가, 기존 사용자 삭제
  * 2. 물품 관리: 물품 목록 조회, 신규 물품 추가, 기존 물품 삭제
- * 3. 데이터 연동: 물품 데이터 변경 시 MainAppFrame의 UI를 갱신합니다.
+ * 3. 검색: 사용자(ID/이름)와 물품 이름을 입력하는 동안 목록을 좁힘 (앞부분/부분/초성 일치)
+ * 4. 데이터 연동: 물품 데이터 변경은 ItemCatalog의 알림으로 MainAppFrame의 UI에 반영됩니다.
  *
  * @author (작성자 이름)
  * @version 1.0
@@ -18,19 +19,23 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BooleanSupplier;
 
 /**
  * 관리자 기능을 제공하는 다이얼로그 창 클래스
  * 사용자 관리와 물품 관리 탭으로 구성
  */
 public class AdminDialog extends JDialog {
-    private MainAppFrame parentFrame; // 부모 프레임 참조 (MainAppFrame)
-    private List<User> users; // 전체 사용자 목록
-    private List<Item> items; // 전체 물품 목록
+    private UserDirectory users; // 전체 사용자 목록
+    private ItemCatalog items; // 전체 물품 목록
+    private RentalJournal journal; // 추가/삭제 작업을 기록할 저널
 
     private JTable userTable; // 사용자 정보를 표시할 테이블
     private JTable itemTable; // 물품 정보를 표시할 테이블
@@ -38,6 +43,11 @@ public class AdminDialog extends JDialog {
     private DefaultTableModel userTableModel; // 사용자 테이블의 데이터를 관리하는 모델
     private DefaultTableModel itemTableModel; // 물품 테이블의 데이터를 관리하는 모델
 
+    private final JTextField userSearchField = new JTextField(15); // 사용자 목록 검색 칸
+    private final JTextField itemSearchField = new JTextField(15); // 물품 목록 검색 칸
+    // 검색할 때 테이블에 보여줄 최대 행 수
+    private static final int TABLE_SEARCH_LIMIT = 500;
+
     // UI 스타일링을 위한 상수 색상 정의
     private static final Color DK_BLUE = new Color(0, 44, 122);             // 진한 파란색
     private static final Color BG_LIGHT_GRAY = new Color(245, 245, 245);    // 밝은 회색 배경
@@ -47,14 +57,15 @@ public class AdminDialog extends JDialog {
      * AdminDialog 생성자
      * @param parent 부모 프레임 (MainAppFrame)
      * @param users 사용자 데이터 리스트
-     * @param items 물품 데이터 리스트
+     * @param items 물품 목록
+     * @param journal 추가/삭제 작업을 기록할 저널
      */
-    public AdminDialog(MainAppFrame parent, List<User> users, List<Item> items) {
+    public AdminDialog(MainAppFrame parent, UserDirectory users, ItemCatalog items, RentalJournal journal) {
         super(parent, "관리자 패널", true); // JDialog의 생성자를 호출하여 타이틀과 Modal 설정
 
-        this.parentFrame = parent; 
         this.users = users; 
         this.items = items;
+        this.journal = journal;
 
         // 다이얼로그 기본 설정
         setSize(800, 600); 
@@ -167,7 +178,7 @@ public class AdminDialog extends JDialog {
         // 테이블을 스크롤 패널에 추가
         JScrollPane scrollPane = new JScrollPane(userTable);
         scrollPane.setBorder(createTitledBorder("사용자 목록"));
-        panel.add(scrollPane, BorderLayout.CENTER); // 메인 패널의 중앙에 추가
+        panel.add(createListPanel(userSearchField, this::refreshUserTable, scrollPane), BorderLayout.CENTER); // 메인 패널의 중앙에 추가
         
         // --- 하단: 사용자 삭제 버튼 ---
         JButton deleteUserButton = new JButton("선택한 사용자 삭제");
@@ -188,14 +199,24 @@ public class AdminDialog extends JDialog {
             }
 
             // ID 중복 검사
-            boolean idExists = users.stream().anyMatch(user -> user.getId().equals(newUserId));
-            if (idExists) { 
+            if (users.contains(newUserId)) { 
                 JOptionPane.showMessageDialog(this, "이미 존재하는 사용자 ID입니다.", "중복 오류", JOptionPane.ERROR_MESSAGE); 
                 return; 
             }
 
             // 새 사용자 추가
-            users.add(new User(newUserId, userNameField.getText(), (String)userTypeCombo.getSelectedItem(), userPassField.getText()));
+            User newUser = new User(newUserId, userNameField.getText(), (String)userTypeCombo.getSelectedItem(), userPassField.getText());
+            boolean added = applyChange(() -> {
+                if (!users.add(newUser)) { // 확인한 뒤 다른 곳(HTTP API 등)에서 같은 ID가 추가된 경우
+                    return false;
+                }
+                journal.logAddUser(newUser);
+                return true;
+            });
+            if (!added) {
+                JOptionPane.showMessageDialog(this, "이미 존재하는 사용자 ID입니다.", "중복 오류", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "사용자가 추가되었습니다.");
 
             // 입력 필드 초기화
@@ -226,7 +247,13 @@ public class AdminDialog extends JDialog {
             int confirm = JOptionPane.showConfirmDialog(this, "정말로 '" + userIdToDelete + "' 사용자를 삭제하시겠습니까?", "삭제 확인", JOptionPane.YES_NO_OPTION);
             // "예"를 선택한 경우에만 삭제 수행
             if (confirm == JOptionPane.YES_OPTION) { 
-                users.removeIf(user -> user.getId().equals(userIdToDelete)); 
+                applyChange(() -> {
+                    if (users.remove(userIdToDelete) == null) {
+                        return false;
+                    }
+                    journal.logDeleteUser(userIdToDelete);
+                    return true;
+                });
                 refreshUserTable(); 
             }
         });
@@ -292,7 +319,7 @@ public class AdminDialog extends JDialog {
         // 테이블을 스크롤 패널에 추가
         JScrollPane scrollPane = new JScrollPane(itemTable);
         scrollPane.setBorder(createTitledBorder("물품 목록"));
-        panel.add(scrollPane, BorderLayout.CENTER);      // 메인 패널의 중앙에 추가
+        panel.add(createListPanel(itemSearchField, this::refreshItemTable, scrollPane), BorderLayout.CENTER); // 메인 패널의 중앙에 추가
 
         // --- 하단: 물품 삭제 버튼 ---
         JButton deleteItemButton = new JButton("선택한 물품 삭제");
@@ -311,9 +338,8 @@ public class AdminDialog extends JDialog {
                     JOptionPane.showMessageDialog(this, "물품명을 입력해주세요.", "입력 오류", JOptionPane.WARNING_MESSAGE);
                     return;
                 }
-                // 물품명 중복 검사
-                boolean nameExists = items.stream().anyMatch(item -> item.getName().equalsIgnoreCase(newItemName));
-                if (nameExists) {
+                // 물품명 중복 검사 (대소문자 무시)
+                if (items.contains(newItemName)) {
                     JOptionPane.showMessageDialog(this, "이미 존재하는 물품 이름입니다.", "중복 오류", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
@@ -321,20 +347,33 @@ public class AdminDialog extends JDialog {
                 Item newItem = new Item(newItemName,
                         Integer.parseInt(itemStockField.getText()),
                         Double.parseDouble(itemFeeField.getText()));
-                
-                // MainAppFrame을 Observer로 등록하여 재고 변경 시 UI가 업데이트되도록 함
-                newItem.addObserver(parentFrame);
-                items.add(newItem);
+
+                // 목록에 추가되면 MainAppFrame이 알림을 받아 콤보박스와 재고 카드에 이 물품만 추가함
+                boolean added = applyChange(() -> {
+                    if (!items.add(newItem)) { // 확인한 뒤 다른 곳(HTTP API 등)에서 같은 이름이 추가된 경우
+                        return false;
+                    }
+                    journal.logAddItem(newItem); // 추가될 때 물품 번호가 부여되므로 저널에는 그 뒤에 기록
+                    return true;
+                });
+                if (!added) {
+                    JOptionPane.showMessageDialog(this, "이미 존재하는 물품 이름입니다.", "중복 오류", JOptionPane.ERROR_MESSAGE);
+                    refreshItemTable(); // 다른 곳에서 추가된 물품을 표시
+                    return;
+                }
                 JOptionPane.showMessageDialog(this, "물품이 추가되었습니다.");
 
                 // 입력 필드 초기화
                 itemNameField.setText("");
                 itemStockField.setText("");
                 itemFeeField.setText("");
-                
-                // 관련 UI 컴포넌트 새로고침
-                refreshItemTable(); // 관리자 패널의 물품 테이블
-                parentFrame.refreshItemComboBox(); // 메인 화면의 물품 콤보박스
+
+                // 관리자 패널의 물품 테이블에는 새 물품의 행만 추가 (검색 중이면 검색 결과를 다시 만듦)
+                if (itemSearchField.getText().isBlank()) {
+                    itemTableModel.addRow(toItemRow(newItem));
+                } else {
+                    refreshItemTable();
+                }
 
             } catch (NumberFormatException ex) {
                 // 재고와 요금이 숫자가 아닐 경우 예외 처리
@@ -359,37 +398,118 @@ public class AdminDialog extends JDialog {
 
             // "예"를 선택한 경우에만 삭제 수행
             if (confirm == JOptionPane.YES_OPTION) {
-                items.removeIf(item -> item.getName().equals(itemNameToDelete));
-                
-                // 관련 UI 컴포넌트 새로고침
-                refreshItemTable(); // 관리자 패널의 물품 테이블
-                parentFrame.refreshItemComboBox(); // 메인 화면의 물품 콤보박스
+                boolean removed = applyChange(() -> {
+                    if (items.remove(itemNameToDelete) == null) { // 다른 곳에서 이미 삭제된 경우
+                        return false;
+                    }
+                    journal.logDeleteItem(itemNameToDelete);
+                    return true;
+                });
+                if (!removed) {
+                    JOptionPane.showMessageDialog(this, "이미 삭제된 물품입니다.", "삭제 불가", JOptionPane.WARNING_MESSAGE);
+                    refreshItemTable(); // 현재 목록으로 다시 채움
+                    return;
+                }
+
+                // 관리자 패널의 물품 테이블에서는 삭제한 행만 제거 (메인 화면은 ItemCatalog 알림으로 갱신됨)
+                itemTableModel.removeRow(selectedRow);
             }
         });
         return panel;
     }
 
+    /**
+     * 목록 변경과 저널 기록을 하나의 작업으로 수행합니다.
+     * 백그라운드 체크포인트가 변경 도중의 목록을 저장하지 않도록 저널의 변경 잠금을 잡고 실행하며,
+     * 잠금을 푼 뒤 저널 기록이 디스크에 쓰일 때까지 기다립니다. 쓰지 못했으면 관리자에게 알립니다.
+     * @param change 목록을 바꾸고, 바뀐 경우에만 저널에 기록한 뒤 true를 반환하는 작업
+     * @return 목록이 바뀌었으면 true
+     */
+    private boolean applyChange(BooleanSupplier change) {
+        Lock lock = journal.mutationLock();
+        boolean changed;
+        lock.lock();
+        try {
+            changed = change.getAsBoolean();
+        } finally {
+            lock.unlock();
+        }
+        if (changed && !journal.sync()) {
+            JOptionPane.showMessageDialog(this, "변경 내용을 디스크에 기록하지 못했습니다. 저장 공간과 권한을 확인해주세요.",
+                    "저장 오류", JOptionPane.ERROR_MESSAGE);
+        }
+        return changed;
+    }
+
+    /**
+     * 검색 칸과 목록 테이블을 묶은 패널을 생성합니다. 검색 칸에 한 글자 입력할 때마다 refresh가 실행됩니다.
+     * @param searchField 검색 칸
+     * @param refresh 테이블을 검색 결과로 다시 채우는 작업
+     * @param tableScrollPane 목록 테이블의 스크롤 패널
+     * @return 생성된 JPanel
+     */
+    private JPanel createListPanel(JTextField searchField, Runnable refresh, JScrollPane tableScrollPane) {
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        searchPanel.setOpaque(false);
+        searchPanel.add(new JLabel("검색:"));
+        searchPanel.add(searchField);
+        searchField.setToolTipText("이름의 일부나 초성(예: ㄱㅁㅈ)을 입력하세요.");
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refresh.run();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refresh.run();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                refresh.run();
+            }
+        });
+
+        JPanel listPanel = new JPanel(new BorderLayout(5, 5));
+        listPanel.setOpaque(false);
+        listPanel.add(searchPanel, BorderLayout.NORTH);
+        listPanel.add(tableScrollPane, BorderLayout.CENTER);
+        return listPanel;
+    }
+
     /**
      * 사용자 목록 테이블의 내용을 최신 데이터로 새로고침합니다.
+     * 검색어가 있으면 ID 또는 이름이 일치하는 사용자만 표시합니다.
      */
     private void refreshUserTable() {
         userTableModel.setRowCount(0); // 기존의 모든 행을 삭제
-        // users 리스트의 모든 사용자 정보를 테이블에 다시 추가
-        for (User user : users) {
+        String query = userSearchField.getText();
+        List<User> shown = query.isBlank() ? users.toList() : users.search(query, TABLE_SEARCH_LIMIT);
+        for (User user : shown) {
             userTableModel.addRow(new Object[]{user.getId(), user.getName(), user.getType()});
         }
     }
 
     /**
      * 물품 목록 테이블의 내용을 최신 데이터로 새로고침합니다.
+     * 검색어가 있으면 이름이 일치하는 물품만 표시합니다.
      */
     private void refreshItemTable() {
         itemTableModel.setRowCount(0); // 기존의 모든 행을 삭제
-        // items 리스트의 모든 물품 정보를 테이블에 다시 추가
-        for (Item item : items) {
-            String stockInfo = item.getCurrentStock() + "/" + item.getMaxStock();
-            String feeInfo = String.format("%.0f", item.getBaseFee());
-            itemTableModel.addRow(new Object[]{item.getName(), stockInfo, feeInfo});
+        String query = itemSearchField.getText();
+        List<Item> shown = query.isBlank() ? items.toList() : items.search(query, TABLE_SEARCH_LIMIT);
+        for (Item item : shown) {
+            itemTableModel.addRow(toItemRow(item));
         }
     }
+
+    /**
+     * 물품 테이블의 한 행에 표시할 값을 만듭니다.
+     */
+    private Object[] toItemRow(Item item) {
+        String stockInfo = item.getCurrentStock() + "/" + item.getMaxStock();
+        String feeInfo = String.format("%.0f", item.getBaseFee());
+        return new Object[]{item.getName(), stockInfo, feeInfo};
+    }
 }
\ No newline at end of file
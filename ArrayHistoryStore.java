@@ -0,0 +1,149 @@
+// 파일 이름: ArrayHistoryStore.java
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 대여 기록을 힙 메모리의 기본형 배열에 열(column) 단위로 보관하는 저장소입니다. (struct-of-arrays)
+ * RentalRecord 객체 목록은 기록마다 객체 헤더, User 참조, LocalDateTime 두 개(각각 LocalDate/LocalTime 포함)를
+ * 따로 만들기 때문에 한 건에 약 180바이트를 쓰지만, 이 저장소는 사용자/물품을 사전(HistoryDictionary) 번호로 바꾸고
+ * 시간을 epoch 초로 저장하여 한 건에 24바이트(int 2개 + long 2개)만 사용하며, 기록 수와 관계없이 배열 4개만 만듭니다.
+ * 따라서 기록이 많아져도 GC가 훑어야 할 객체 수가 늘어나지 않습니다.
+ *
+ * 파일에 저장하지 않으므로 대여 기록 디렉터리를 열 수 없을 때의 대체 저장소나, 보고서처럼 잠시 쓰고 버리는 용도로 사용합니다.
+ * 기존 RentalRecord 기반 코드는 HistoryStore의 getRecord() 또는 asRecordList()로 읽을 수 있습니다.
+ */
+public class ArrayHistoryStore implements HistoryStore {
+
+    private static final int INITIAL_CAPACITY = 1024; // 처음 만들 배열 크기 (부족하면 두 배씩 늘림)
+
+    private final HistoryDictionary dictionary = new HistoryDictionary(); // 메모리 전용 사전
+
+    // 열 배열. 용량을 늘릴 때 더 큰 배열로 바꾸므로 volatile (쓰기는 this 잠금으로 보호)
+    private volatile int[] userCodes;
+    private volatile int[] itemCodes;
+    private volatile long[] rentalTimes;
+    private volatile long[] returnTimes;
+    private volatile int size; // 추가된 행 수. 모든 열을 쓴 뒤에 늘어나므로 size 미만의 행은 항상 완성된 행
+
+    public ArrayHistoryStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 기록 수를 미리 알 때 배열 크기를 지정하여 만듭니다. (벤치마크 등에서 배열을 늘리는 비용을 없앨 때 사용)
+     * @param initialCapacity 처음 만들 배열 크기 (행 수)
+     */
+    public ArrayHistoryStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        userCodes = new int[capacity];
+        itemCodes = new int[capacity];
+        rentalTimes = new long[capacity];
+        returnTimes = new long[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // --- 열 조회 메소드 ---
+
+    public int getUserCode(int row) {
+        return userCodes[row];
+    }
+
+    public int getItemCode(int row) {
+        return itemCodes[row];
+    }
+
+    @Override
+    public String getUserId(int row) {
+        return dictionary.user(userCodes[row]).getId();
+    }
+
+    @Override
+    public String getUserName(int row) {
+        return dictionary.user(userCodes[row]).getName();
+    }
+
+    @Override
+    public User getUser(int row) {
+        return dictionary.user(userCodes[row]);
+    }
+
+    @Override
+    public String getItemName(int row) {
+        return dictionary.itemName(itemCodes[row]);
+    }
+
+    @Override
+    public long getRentalTime(int row) {
+        return rentalTimes[row];
+    }
+
+    @Override
+    public long getReturnTime(int row) {
+        return returnTimes[row];
+    }
+
+    /**
+     * 사용자/물품 번호 사전을 반환합니다.
+     */
+    public HistoryDictionary getDictionary() {
+        return dictionary;
+    }
+
+    // --- 기록 메소드 ---
+
+    @Override
+    public synchronized int append(User user, String itemName, long rentalTime) {
+        int row = size;
+        if (row == userCodes.length) {
+            grow(row * 2);
+        }
+        userCodes[row] = dictionary.userCode(user);
+        itemCodes[row] = dictionary.itemCode(itemName);
+        rentalTimes[row] = rentalTime;
+        returnTimes[row] = NOT_RETURNED;
+        size = row + 1; // 모든 열을 쓴 뒤에 행 수를 늘림 (volatile 쓰기로 다른 스레드에 공개)
+        return row;
+    }
+
+    private void grow(int newCapacity) {
+        // 새 배열을 모두 만든 뒤 차례로 교체 (교체 전후 모두 size 미만의 행은 같은 값)
+        int[] users = Arrays.copyOf(userCodes, newCapacity);
+        int[] items = Arrays.copyOf(itemCodes, newCapacity);
+        long[] rentals = Arrays.copyOf(rentalTimes, newCapacity);
+        long[] returns = Arrays.copyOf(returnTimes, newCapacity);
+        userCodes = users;
+        itemCodes = items;
+        rentalTimes = rentals;
+        returnTimes = returns;
+    }
+
+    @Override
+    public synchronized void markReturned(int row, long returnTime) {
+        returnTimes[row] = returnTime;
+    }
+
+    @Override
+    public synchronized int[] appendAll(User user, List<String> itemNames, long rentalTime) {
+        return HistoryStore.super.appendAll(user, itemNames, rentalTime); // 한 번의 잠금으로 묶음 전체를 추가
+    }
+
+    @Override
+    public synchronized void markReturnedAll(int[] rows, long returnTime) {
+        HistoryStore.super.markReturnedAll(rows, returnTime);
+    }
+
+    @Override
+    public void flush() {
+        // 메모리 전용 저장소이므로 할 일 없음
+    }
+
+    @Override
+    public void close() {
+        // 메모리 전용 저장소이므로 할 일 없음
+    }
+}
@@ -0,0 +1,418 @@
+// 파일 이름: BinaryCodec.java
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 사용자(User), 물품(Item), 대여기록(RentalRecord)을 압축된 이진 형식으로 읽고 쓰는 코덱 클래스입니다.
+ * 자바 기본 직렬화(ObjectOutputStream)는 클래스 정보, LocalDateTime 객체 구조, 대여 기록마다 User 전체 복사본을
+ * 함께 저장하므로 파일이 크고 읽기가 느립니다. 이 코덱은 필요한 값만 다음과 같이 기록합니다.
+ *
+ *  - 정수는 가변 길이 정수(varint)로 기록하여 작은 값은 1바이트만 사용합니다.
+ *  - 시간은 초 단위 epoch 값으로 기록하며, 반납 시간은 대여 시간과의 차이만 기록합니다.
+ *  - 대여 기록의 사용자와 물품 이름은 사전(dictionary) 번호로 기록합니다.
+ *    처음 등장할 때만 전체 값을 쓰고, 이후에는 번호만 기록합니다.
+ *
+ * 파일 형식: [매직 넘버(4바이트)][버전(1바이트)][종류(1바이트)][저널 세대(varint)][개수(varint)][레코드...]
+ * 저널 세대는 버전 2부터 기록되며, 이 스냅샷 이후의 변경 사항이 담긴 첫 저널 세대입니다. (버전 1 파일은 0으로 간주)
+ * 버전 3부터 물품 파일에는 다음 물품 번호와 물품별 번호가 함께 기록됩니다. (이전 파일의 물품은 불러올 때 차례로 번호를 받음)
+ * 기록은 스트림으로 한 건씩 읽고 쓰므로 전체 파일을 메모리에 올릴 필요가 없습니다.
+ */
+public class BinaryCodec {
+
+    private static final int MAGIC = 0x444B5253; // "DKRS"
+    private static final byte VERSION = 3;
+
+    // 파일 종류
+    private static final byte KIND_USERS = 1;
+    private static final byte KIND_ITEMS = 2;
+    private static final byte KIND_HISTORY = 3;
+
+    // 자바 기본 직렬화 파일의 시작 2바이트 (이전 형식 판별용)
+    private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+
+    private BinaryCodec() {
+        // 정적 메소드만 제공하는 유틸리티 클래스
+    }
+
+    /**
+     * 파일이 자바 기본 직렬화(이전 형식)로 저장되어 있는지 확인합니다.
+     * @param file 확인할 파일
+     * @return 이전 형식이면 true
+     */
+    public static boolean isLegacyFormat(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readUnsignedShort() == JAVA_SERIALIZATION_MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 스냅샷 파일 헤더에 기록된 저널 세대를 읽습니다.
+     * @param file 확인할 파일
+     * @return 저널 세대. 버전 1 파일이거나 이전 형식(자바 직렬화)이면 0
+     */
+    public static int readGeneration(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return 0;
+            }
+            int version = in.readUnsignedByte();
+            in.readByte(); // 종류
+            return (version >= 2) ? readVarInt(in) : 0;
+        }
+    }
+
+    // --- 사용자 ---
+
+    /**
+     * @param generation 이 스냅샷 이후의 변경 사항이 담긴 첫 저널 세대
+     */
+    public static void writeUsers(OutputStream os, List<User> users, int generation) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        writeHeader(out, KIND_USERS, generation);
+        writeVarInt(out, users.size());
+        for (User user : users) {
+            writeUser(out, user);
+        }
+        out.flush();
+    }
+
+    public static List<User> readUsers(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        readHeader(in, KIND_USERS);
+        int count = readVarInt(in);
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(readUser(in));
+        }
+        return users;
+    }
+
+    // --- 물품 ---
+
+    /**
+     * @param generation 이 스냅샷 이후의 변경 사항이 담긴 첫 저널 세대
+     */
+    public static void writeItems(OutputStream os, ItemCatalog catalog, int generation) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        writeHeader(out, KIND_ITEMS, generation);
+        List<Item> items = catalog.toList();
+        writeVarInt(out, items.size());
+        writeVarInt(out, catalog.getNextId());
+        for (Item item : items) {
+            writeVarInt(out, item.getId());
+            writeString(out, item.getName());
+            writeVarInt(out, item.getMaxStock());
+            out.writeDouble(item.getBaseFee());
+            // 대여자는 User 객체가 아닌 ID와 수량만 기록
+            Map<String, Integer> renters = item.getRenterCounts();
+            writeVarInt(out, renters.size());
+            for (Map.Entry<String, Integer> entry : renters.entrySet()) {
+                writeString(out, entry.getKey());
+                writeVarInt(out, entry.getValue());
+            }
+        }
+        out.flush();
+    }
+
+    public static ItemCatalog readItems(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        int version = readHeader(in, KIND_ITEMS);
+        int count = readVarInt(in);
+        int nextId = (version >= 3) ? readVarInt(in) : 1;
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = (version >= 3) ? readVarInt(in) : 0;
+            Item item = new Item(readString(in), readVarInt(in), in.readDouble());
+            item.assignId(id);
+            int renterCount = readVarInt(in);
+            for (int r = 0; r < renterCount; r++) {
+                item.restoreRenter(readString(in), readVarInt(in));
+            }
+            items.add(item);
+        }
+        return new ItemCatalog(items, nextId);
+    }
+
+    // --- 대여 기록 ---
+
+    /**
+     * 대여 기록을 한 건씩 기록하는 스트리밍 Writer 클래스입니다.
+     * 사용자와 물품 이름은 처음 등장할 때만 전체 값을 쓰고, 이후에는 사전 번호로 기록합니다.
+     */
+    public static class HistoryWriter implements Closeable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> userCodes = new HashMap<>(); // 사용자 ID → 사전 번호
+        private final Map<String, Integer> itemCodes = new HashMap<>(); // 물품 이름 → 사전 번호
+
+        /**
+         * @param os 기록할 스트림
+         * @param count 기록할 대여 기록 수
+         */
+        public HistoryWriter(OutputStream os, int count) throws IOException {
+            this.out = new DataOutputStream(os);
+            writeHeader(out, KIND_HISTORY, 0);
+            writeVarInt(out, count);
+        }
+
+        public void write(RentalRecord record) throws IOException {
+            // 사용자: 사전에 있으면 (번호 + 1), 처음 등장하면 0과 함께 전체 정보 기록
+            User user = record.getUser();
+            Integer userCode = userCodes.get(user.getId());
+            if (userCode == null) {
+                writeVarInt(out, 0);
+                writeUser(out, user);
+                userCodes.put(user.getId(), userCodes.size());
+            } else {
+                writeVarInt(out, userCode + 1);
+            }
+
+            // 물품 이름: 같은 방식으로 사전 번호 사용
+            Integer itemCode = itemCodes.get(record.getItemName());
+            if (itemCode == null) {
+                writeVarInt(out, 0);
+                writeString(out, record.getItemName());
+                itemCodes.put(record.getItemName(), itemCodes.size());
+            } else {
+                writeVarInt(out, itemCode + 1);
+            }
+
+            // 시간: 대여 시간은 epoch 초, 반납 시간은 (대여 시간과의 차이 + 1). 대여 중이면 0
+            long rentalSeconds = toEpochSecond(record.getRentalTime());
+            writeVarLong(out, rentalSeconds);
+            LocalDateTime returnTime = record.getReturnTime();
+            writeVarLong(out, (returnTime == null) ? 0 : toEpochSecond(returnTime) - rentalSeconds + 1);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * 대여 기록을 한 건씩 읽는 스트리밍 Reader 클래스입니다.
+     */
+    public static class HistoryReader implements Closeable {
+        private final DataInputStream in;
+        private final List<User> users = new ArrayList<>();     // 사전 번호 → 사용자
+        private final List<String> itemNames = new ArrayList<>(); // 사전 번호 → 물품 이름
+        private final int count;
+        private int readCount = 0;
+
+        public HistoryReader(InputStream is) throws IOException {
+            this.in = new DataInputStream(is);
+            readHeader(in, KIND_HISTORY);
+            this.count = readVarInt(in);
+        }
+
+        /**
+         * @return 파일에 저장된 전체 대여 기록 수
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 다음 대여 기록을 읽습니다.
+         * @return 대여 기록. 더 이상 읽을 기록이 없으면 null
+         */
+        public RentalRecord next() throws IOException {
+            if (readCount >= count) {
+                return null;
+            }
+            readCount++;
+
+            int userRef = readVarInt(in);
+            User user;
+            if (userRef == 0) {
+                user = readUser(in);
+                users.add(user);
+            } else {
+                user = users.get(userRef - 1);
+            }
+
+            int itemRef = readVarInt(in);
+            String itemName;
+            if (itemRef == 0) {
+                itemName = readString(in);
+                itemNames.add(itemName);
+            } else {
+                itemName = itemNames.get(itemRef - 1);
+            }
+
+            long rentalSeconds = readVarLong(in);
+            long returnDelta = readVarLong(in);
+            LocalDateTime returnTime = (returnDelta == 0) ? null : fromEpochSecond(rentalSeconds + returnDelta - 1);
+            return new RentalRecord(user, itemName, fromEpochSecond(rentalSeconds), returnTime);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static void writeHistory(OutputStream os, List<RentalRecord> history) throws IOException {
+        HistoryWriter writer = new HistoryWriter(os, history.size());
+        for (RentalRecord record : history) {
+            writer.write(record);
+        }
+        writer.out.flush();
+    }
+
+    public static List<RentalRecord> readHistory(InputStream is) throws IOException {
+        HistoryReader reader = new HistoryReader(is);
+        List<RentalRecord> history = new ArrayList<>(reader.getCount());
+        RentalRecord record;
+        while ((record = reader.next()) != null) {
+            history.add(record);
+        }
+        return history;
+    }
+
+    // --- 공통 헬퍼 메소드 ---
+
+    private static void writeHeader(DataOutputStream out, byte kind, int generation) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(kind);
+        writeVarInt(out, generation);
+    }
+
+    /**
+     * @return 파일 버전
+     */
+    private static int readHeader(DataInputStream in, byte expectedKind) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("지원하지 않는 파일 형식입니다.");
+        }
+        int version = in.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException("지원하지 않는 파일 버전입니다: " + version);
+        }
+        if (in.readByte() != expectedKind) {
+            throw new IOException("파일 종류가 올바르지 않습니다.");
+        }
+        if (version >= 2) {
+            readVarInt(in); // 저널 세대 (readGeneration()으로 따로 읽음)
+        }
+        return version;
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        writeString(out, user.getId());
+        writeString(out, user.getName());
+        writeString(out, user.getType());
+        writeString(out, user.getPassword());
+    }
+
+    private static User readUser(DataInputStream in) throws IOException {
+        return new User(readString(in), readString(in), readString(in), readString(in));
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 0 이상의 정수를 7비트씩 나누어 기록합니다. (127 이하는 1바이트)
+     */
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80)); // 상위 비트 1 = 다음 바이트가 이어짐
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("잘못된 가변 길이 정수입니다.");
+    }
+
+    static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static LocalDateTime fromEpochSecond(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 현재 시간을 toEpochSecond(LocalDateTime.now())와 같은 값으로 반환합니다.
+     * 대여/반납마다 호출되므로 LocalDateTime을 만들지 않고, 시스템 시간에 현재 시간대의 오프셋을 더해 계산합니다.
+     * 오프셋은 다음 서머타임 전환 시각(최대 1시간)까지 재사용합니다.
+     */
+    static long currentEpochSecond() {
+        long millis = System.currentTimeMillis();
+        LocalOffset offset = localOffset;
+        if (millis >= offset.validUntil) {
+            offset = LocalOffset.at(millis);
+            localOffset = offset;
+        }
+        return Math.floorDiv(millis, 1000) + offset.seconds;
+    }
+
+    // 마지막으로 계산한 시간대 오프셋 (두 값을 함께 바꾸기 위해 불변 객체 하나로 보관)
+    private static volatile LocalOffset localOffset = new LocalOffset(0, Long.MIN_VALUE);
+
+    private static final class LocalOffset {
+        // 시간대가 바뀌었는지 다시 확인하는 최대 간격
+        private static final long RECHECK_MILLIS = 60 * 60 * 1000;
+
+        final int seconds;      // 현재 시간대의 UTC 오프셋 (초)
+        final long validUntil;  // 이 오프셋을 쓸 수 있는 시각 (epoch 밀리초, 이 시각 전까지)
+
+        LocalOffset(int seconds, long validUntil) {
+            this.seconds = seconds;
+            this.validUntil = validUntil;
+        }
+
+        static LocalOffset at(long millis) {
+            Instant now = Instant.ofEpochMilli(millis);
+            ZoneRules rules = ZoneId.systemDefault().getRules();
+            long validUntil = millis + RECHECK_MILLIS;
+            ZoneOffsetTransition next = rules.nextTransition(now);
+            if (next != null) {
+                validUntil = Math.min(validUntil, next.toEpochSecond() * 1000);
+            }
+            return new LocalOffset(rules.getOffset(now).getTotalSeconds(), validUntil);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+// 파일 이름: CheckoutBenchmark.java
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 묶음 대여/반납(RentalService.rentItems(), returnItems())과 물품을 하나씩 대여/반납하는 방식의 처리량을 비교하는 벤치마크입니다.
+ *
+ * 사용법: java CheckoutBenchmark [스레드 수] [방식별 시간(초)] [묶음 크기]
+ *  예) java CheckoutBenchmark 4 5 3
+ *
+ * 스레드마다 사용자 한 명이 물품 ITEM_COUNT개 중 서로 다른 물품을 무작위 순서로 골라 묶음을 만들고, 대여한 뒤 바로 반납하기를 반복합니다.
+ * 스레드들의 묶음이 서로 겹치므로 잠금 경쟁이 생기며, 묶음 방식은 물품 번호 순서로 잠그므로 교착 상태 없이 끝나야 합니다.
+ *  - basket: rentItems() + returnItems()
+ *  - sequential: 물품마다 rentItem() + returnItem() (원자적이지 않음. 비교 기준선)
+ * 임시 디렉터리에 저널을 두어 실제처럼 기록하고, 화면처럼 모든 물품을 관찰하는 옵저버를 하나 달아 알림 수도 셉니다.
+ * 묶음 하나당 처리량, 저널 레코드 수, 옵저버 알림 수를 출력하고, 끝난 뒤 모든 재고가 처음대로 돌아왔는지 확인합니다.
+ * 대여 기록은 메모리(ArrayHistoryStore)에만 두므로 실제 데이터 파일에는 영향을 주지 않습니다.
+ */
+public class CheckoutBenchmark {
+
+    private static final int ITEM_COUNT = 12;
+    private static final int WARMUP_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int basketSize = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        if (basketSize > ITEM_COUNT) {
+            System.err.println("묶음 크기는 " + ITEM_COUNT + " 이하여야 합니다.");
+            return;
+        }
+
+        Path dir = Files.createTempDirectory("checkout-bench");
+        RentalJournal journal = new RentalJournal(dir.resolve("journal.log").toString());
+        try {
+            User[] users = new User[threads];
+            for (int i = 0; i < threads; i++) {
+                users[i] = new User("bench" + i, "벤치마크" + i, "Student", "1234");
+            }
+            ItemCatalog catalog = new ItemCatalog();
+            // 화면처럼 모든 물품을 관찰하는 옵저버 하나. 알림을 받은 횟수를 셈
+            LongAdder notifications = new LongAdder();
+            Observer screen = new Observer() {
+                @Override
+                public void update(Item item) {
+                    notifications.increment();
+                }
+
+                @Override
+                public void updateAll(List<Item> changed) {
+                    notifications.increment();
+                }
+            };
+            for (int i = 0; i < ITEM_COUNT; i++) {
+                Item item = new Item("벤치마크 물품 " + i, threads, 1000.0); // 모든 스레드가 동시에 빌려도 재고가 남음
+                catalog.add(item);
+                item.addObserver(screen);
+            }
+            Item[] items = catalog.toList().toArray(new Item[0]);
+            RentalService rentalService = new RentalService(new ArrayHistoryStore(), journal);
+
+            System.out.printf("스레드 %d개, 물품 %d개, 묶음 크기 %d, 방식별 %d초 (예열 %d초)%n",
+                    threads, ITEM_COUNT, basketSize, seconds, WARMUP_SECONDS);
+            for (boolean basket : new boolean[]{true, false}) {
+                run(rentalService, users, items, basketSize, basket, WARMUP_SECONDS); // 예열
+            }
+            for (boolean basket : new boolean[]{true, false}) {
+                long recordsBefore = journal.getRecordsSinceRotate();
+                long notificationsBefore = notifications.sum();
+                long start = System.nanoTime();
+                long baskets = run(rentalService, users, items, basketSize, basket, seconds);
+                double elapsed = (System.nanoTime() - start) / 1e9;
+                if (baskets < 0) {
+                    System.err.println("제한 시간 안에 끝나지 않았습니다. (교착 상태 의심)");
+                    return;
+                }
+                System.out.printf("%-10s 묶음 %d개: %.0f묶음/초, 묶음당 저널 레코드 %.1f개, 묶음당 옵저버 알림 %.1f회%n",
+                        basket ? "basket" : "sequential", baskets, baskets / elapsed,
+                        (double) (journal.getRecordsSinceRotate() - recordsBefore) / baskets,
+                        (double) (notifications.sum() - notificationsBefore) / baskets);
+            }
+            for (Item item : items) {
+                if (item.getCurrentStock() != item.getMaxStock()) {
+                    System.err.println("재고가 맞지 않습니다: " + item.getName() + " " + item.getCurrentStock() + "/" + item.getMaxStock());
+                }
+            }
+        } finally {
+            journal.close();
+            deleteRecursively(dir.toFile());
+        }
+    }
+
+    /**
+     * 스레드마다 묶음을 대여하고 반납하기를 seconds초 동안 반복합니다.
+     * @param basket true면 묶음 처리, false면 물품마다 하나씩 처리
+     * @return 대여하고 반납한 묶음 수 (제한 시간 안에 끝나지 않으면 -1)
+     */
+    private static long run(RentalService rentalService, User[] users, Item[] items, int basketSize, boolean basket,
+                            int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        LongAdder completed = new LongAdder();
+        LongAdder failures = new LongAdder();
+        CountDownLatch done = new CountDownLatch(users.length);
+        DiscountStrategy strategy = new StudentDiscountStrategy();
+        for (User user : users) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        List<Item> picked = pick(items, basketSize);
+                        if (basket) {
+                            if (!rentalService.rentItems(user, picked, strategy).isSuccess()
+                                    || !rentalService.returnItems(user, picked).isSuccess()) {
+                                failures.increment();
+                            }
+                        } else {
+                            for (Item item : picked) {
+                                if (!rentalService.rentItem(user, item, strategy).isSuccess()) {
+                                    failures.increment();
+                                }
+                            }
+                            for (Item item : picked) {
+                                if (!rentalService.returnItem(user, item).isSuccess()) {
+                                    failures.increment();
+                                }
+                            }
+                        }
+                        completed.increment();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "checkout-" + user.getId());
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (!done.await(seconds + 30L, TimeUnit.SECONDS)) {
+            return -1;
+        }
+        if (failures.sum() > 0) {
+            System.err.println("실패한 대여/반납: " + failures.sum() + "건");
+        }
+        return completed.sum();
+    }
+
+    /**
+     * 서로 다른 물품 count개를 무작위 순서로 고릅니다. (잠금 순서와 관계없는 순서로 요청하기 위함)
+     */
+    private static List<Item> pick(Item[] items, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Item> remaining = new ArrayList<>(List.of(items));
+        List<Item> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(remaining.remove(random.nextInt(remaining.size())));
+        }
+        return picked;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (!file.delete()) {
+            System.err.println("임시 파일 삭제 중 오류 발생: " + file);
+        }
+    }
+}
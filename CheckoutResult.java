@@ -0,0 +1,58 @@
+// 파일 이름: CheckoutResult.java
+
+import java.util.List;
+
+/**
+ * 여러 물품을 한 번에 대여/반납한 결과입니다. (RentalService.rentItems(), returnItems()의 반환 값)
+ * 묶음은 전부 처리되거나 하나도 처리되지 않으므로, 결과는 성공 또는 처음 막힌 물품 하나로 나타냅니다.
+ * 모든 필드가 final인 불변(Immutable) 객체입니다.
+ */
+public final class CheckoutResult {
+
+    private final RentalResult result;   // RENTED/RETURNED 또는 실패 이유
+    private final List<Item> items;      // 요청한 묶음 (요청한 순서)
+    private final Item failedItem;       // 실패한 경우 막힌 물품 (성공이거나 NOT_SAVED면 null)
+
+    public CheckoutResult(RentalResult result, List<Item> items, Item failedItem) {
+        this.result = result;
+        this.items = List.copyOf(items);
+        this.failedItem = failedItem;
+    }
+
+    // --- Getter 메소드 ---
+    public RentalResult getResult() { return result; }
+    public List<Item> getItems() { return items; }
+    public Item getFailedItem() { return failedItem; }
+
+    /**
+     * @return 묶음 전체를 대여/반납했으면 true
+     */
+    public boolean isSuccess() {
+        return result.isSuccess();
+    }
+
+    /**
+     * 결과를 화면에 표시할 문구로 바꿉니다.
+     * 예: "[대여 성공] 홍길동 -> 3단 우산, 보조배터리" 또는 "[대여 실패] 보조배터리 재고가 없습니다. (묶음 2개 모두 처리하지 않음)"
+     * @param user 대여/반납한 사용자
+     * @return 처리 결과 메시지
+     */
+    public String message(User user) {
+        if (failedItem == null) { // 성공, 또는 묶음 전체가 반영되었지만 저장하지 못한 경우(NOT_SAVED)
+            StringBuilder names = new StringBuilder();
+            for (Item item : items) {
+                if (names.length() > 0) {
+                    names.append(", ");
+                }
+                names.append(item.getName());
+            }
+            return result.message(user.getName(), names.toString());
+        }
+        return result.message(user, failedItem) + " (묶음 " + items.size() + "개 모두 처리하지 않음)";
+    }
+
+    @Override
+    public String toString() {
+        return (failedItem == null) ? result + " " + items : result + " " + failedItem + " in " + items;
+    }
+}
@@ -0,0 +1,103 @@
+// 파일 이름: CheckpointService.java
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 백그라운드에서 주기적으로 체크포인트(스냅샷 저장)를 수행하는 클래스입니다.
+ * 마지막 체크포인트 이후 저널에 일정 개수 이상의 변경이 쌓였거나, 변경이 있는 채로 일정 시간이 지나면
+ * DataManager.saveData()를 호출합니다. 저장은 EDT가 아닌 별도 스레드에서 실행되므로 화면이 멈추지 않습니다.
+ *
+ * 체크포인트 사이의 변경 사항은 저널에 남아 있으므로, 프로그램 종료 시에는 저널의 남은 기록만 디스크에 쓰면 됩니다.
+ *
+ * 같은 스레드에서 ARCHIVE_INTERVAL_MILLIS마다 DataManager.archiveHistory()도 호출하여, 프로그램을 오래 켜 두어도
+ * 지난 달의 반납된 대여 기록이 보관소로 옮겨지도록 합니다. (달이 바뀐 뒤, 또는 앞쪽의 대여 중인 기록이 반납된 뒤)
+ */
+public class CheckpointService implements Closeable {
+
+    // 체크포인트가 필요한지 확인하는 주기(ms)
+    private static final long CHECK_INTERVAL_MILLIS = 1000;
+    // 대여 기록 보관(DataManager.archiveHistory())을 시도하는 주기(ms). 옮길 기록이 없으면 앞부분만 확인하고 끝남
+    private static final long ARCHIVE_INTERVAL_MILLIS = 60 * 60 * 1000;
+
+    private final DataManager dataManager;
+    private final RentalJournal journal;
+    private final UserDirectory users;
+    private final ItemCatalog items;
+    private final HistoryStore history;
+    private final long intervalMillis;      // 변경이 있을 때 체크포인트를 수행할 최대 간격
+    private final long mutationThreshold;   // 이 개수 이상의 변경이 쌓이면 간격과 관계없이 체크포인트 수행
+    private final ScheduledExecutorService scheduler;
+    private volatile long lastCheckpointNanos = System.nanoTime();
+    private long lastArchiveNanos = System.nanoTime(); // 프로그램 시작 시 openHistory()에서 한 번 보관함 (백그라운드 스레드 전용)
+
+    /**
+     * CheckpointService 생성자. 생성과 동시에 백그라운드 확인 작업을 시작합니다.
+     * @param dataManager 스냅샷을 저장할 DataManager
+     * @param users 저장할 사용자 목록
+     * @param items 저장할 물품 목록
+     * @param history 대여 기록 저장소
+     * @param intervalMillis 변경이 있을 때 체크포인트를 수행할 최대 간격(ms)
+     * @param mutationThreshold 즉시 체크포인트를 수행할 변경 개수
+     */
+    public CheckpointService(DataManager dataManager, UserDirectory users, ItemCatalog items, HistoryStore history,
+                             long intervalMillis, long mutationThreshold) {
+        this.dataManager = dataManager;
+        this.journal = dataManager.getJournal();
+        this.users = users;
+        this.items = items;
+        this.history = history;
+        this.intervalMillis = intervalMillis;
+        this.mutationThreshold = mutationThreshold;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rental-checkpoint");
+            t.setDaemon(true); // 프로그램 종료를 막지 않도록 데몬 스레드로 실행
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkIfNeeded, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 체크포인트가 필요한지 확인하고, 필요하면 수행합니다. (백그라운드 스레드에서 주기적으로 호출)
+     */
+    private void checkIfNeeded() {
+        try {
+            long records = journal.getRecordsSinceRotate();
+            long elapsedMillis = (System.nanoTime() - lastCheckpointNanos) / 1_000_000;
+            if (records > 0 && (records >= mutationThreshold || elapsedMillis >= intervalMillis)) {
+                checkpoint();
+            }
+            if ((System.nanoTime() - lastArchiveNanos) / 1_000_000 >= ARCHIVE_INTERVAL_MILLIS) {
+                lastArchiveNanos = System.nanoTime();
+                dataManager.archiveHistory();
+            }
+        } catch (RuntimeException e) {
+            // 예외가 전파되면 예약된 작업이 취소되므로 여기서 처리
+            System.err.println("체크포인트 중 오류 발생: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 즉시 체크포인트를 수행합니다.
+     */
+    public void checkpoint() {
+        dataManager.saveData(users, items, history);
+        lastCheckpointNanos = System.nanoTime();
+    }
+
+    /**
+     * 백그라운드 확인 작업을 멈춥니다. 진행 중인 체크포인트가 있으면 끝날 때까지 기다립니다.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
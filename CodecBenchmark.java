@@ -0,0 +1,137 @@
+// 파일 이름: CodecBenchmark.java
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대여 기록 파일을 BinaryCodec 형식과 기존 Java 직렬화(ObjectOutputStream/ObjectInputStream) 형식으로
+ * 저장하고 불러오는 시간과 파일 크기를 비교하는 벤치마크입니다.
+ *
+ * 사용법: java CodecBenchmark [대여 기록 수] [반복 횟수]
+ *  예) java CodecBenchmark 1000000 3
+ *
+ * 사용자 USER_COUNT명, 물품 ITEM_COUNT개로 만든 대여 기록(90%는 반납됨)을 임시 디렉터리에 저장한 뒤 다시 불러옵니다.
+ *  - serialization: 예전 DataManager처럼 List<RentalRecord>를 ObjectOutputStream.writeObject()로 저장하고 readObject()로 불러옴
+ *  - binary codec: 지금의 DataManager처럼 BinaryCodec.writeHistory()/readHistory()를 버퍼 스트림과 함께 사용
+ * 형식마다 반복 횟수만큼 저장과 불러오기를 번갈아 실행하고, 가장 빠른 시간을 출력합니다. (첫 번째 반복이 예열을 겸함)
+ * 불러온 기록 수와 몇 건의 값이 원본과 같은지도 확인합니다. 실행 후 임시 파일은 지웁니다.
+ */
+public class CodecBenchmark {
+
+    private static final int USER_COUNT = 1000;
+    private static final int ITEM_COUNT = 500;
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        List<RentalRecord> history = createHistory(records);
+        Path dir = Files.createTempDirectory("codec-bench");
+        try {
+            System.out.printf("대여 기록 %d건 (사용자 %d명, 물품 %d개), %d회 반복 중 가장 빠른 시간%n",
+                    records, USER_COUNT, ITEM_COUNT, rounds);
+            for (boolean binary : new boolean[]{false, true}) {
+                File file = dir.resolve(binary ? "history.bin" : "history.ser").toFile();
+                long bestSave = Long.MAX_VALUE;
+                long bestLoad = Long.MAX_VALUE;
+                List<RentalRecord> loaded = null;
+                for (int round = 0; round < rounds; round++) {
+                    long start = System.nanoTime();
+                    save(file, history, binary);
+                    bestSave = Math.min(bestSave, System.nanoTime() - start);
+
+                    loaded = null; // 이전에 불러온 기록이 힙에 남아 불러오기 시간에 영향을 주지 않도록
+                    System.gc();
+                    start = System.nanoTime();
+                    loaded = load(file, binary);
+                    bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+                }
+                System.out.printf("%-13s 파일 %7.1f MB, 저장 %6.2f초, 불러오기 %6.2f초, %s%n",
+                        binary ? "binary codec" : "serialization", file.length() / 1e6, bestSave / 1e9, bestLoad / 1e9,
+                        verify(history, loaded) ? "내용 일치" : "내용 불일치!");
+                file.delete();
+            }
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * 대여 기록을 만듭니다. 사용자와 물품을 돌아가며 쓰고, 대여 시간은 1분 간격, 10건 중 1건은 대여 중으로 둡니다.
+     */
+    private static List<RentalRecord> createHistory(int records) {
+        User[] users = new User[USER_COUNT];
+        for (int i = 0; i < USER_COUNT; i++) {
+            users[i] = new User("bench" + i, "벤치마크" + i, (i % 2 == 0) ? "Student" : "Staff", "1234");
+        }
+        String[] itemNames = new String[ITEM_COUNT];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            itemNames[i] = "벤치마크 물품 " + i;
+        }
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        List<RentalRecord> history = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            LocalDateTime rentalTime = base.plusMinutes(i);
+            LocalDateTime returnTime = (i % 10 == 0) ? null : rentalTime.plusHours(1 + i % 48);
+            history.add(new RentalRecord(users[i % USER_COUNT], itemNames[(i * 7) % ITEM_COUNT], rentalTime, returnTime));
+        }
+        return history;
+    }
+
+    private static void save(File file, List<RentalRecord> history, boolean binary) throws IOException {
+        if (binary) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                BinaryCodec.writeHistory(out, history);
+            }
+        } else {
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.writeObject(history);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked") // readObject()의 반환 타입을 캐스팅할 때 발생하는 경고를 무시합니다.
+    private static List<RentalRecord> load(File file, boolean binary) throws IOException, ClassNotFoundException {
+        if (binary) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                return BinaryCodec.readHistory(in);
+            }
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (List<RentalRecord>) in.readObject();
+        }
+    }
+
+    /**
+     * 불러온 기록 수가 같고, 고르게 뽑은 1000건의 값이 원본과 같은지 확인합니다.
+     */
+    private static boolean verify(List<RentalRecord> expected, List<RentalRecord> actual) {
+        if (actual == null || actual.size() != expected.size()) {
+            return false;
+        }
+        int step = Math.max(1, expected.size() / 1000);
+        for (int i = 0; i < expected.size(); i += step) {
+            RentalRecord e = expected.get(i);
+            RentalRecord a = actual.get(i);
+            if (!e.getUser().getId().equals(a.getUser().getId()) || !e.getItemName().equals(a.getItemName())
+                    || !e.getRentalTime().equals(a.getRentalTime())
+                    || (e.getReturnTime() == null ? a.getReturnTime() != null : !e.getReturnTime().equals(a.getReturnTime()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
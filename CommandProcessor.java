@@ -0,0 +1,399 @@
+// 파일 이름: CommandProcessor.java
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 화면 없이(headless) 대여/반납/관리 명령(RentalCommand)을 실행하는 클래스입니다.
+ * 대여/반납은 RentalService를 통해, 물품/사용자 추가·삭제는 관리자 창(AdminDialog)과 같은 방식으로
+ * ItemCatalog/UserDirectory를 바꾸고 저널에 기록하므로, GUI로 조작한 것과 같은 결과가 파일에 남습니다.
+ *
+ * run()은 JSONL 입력을 읽어 결과를 JSONL로 씁니다. 줄을 읽고 해석하는 작업은 별도 스레드(parser)가
+ * BATCH_SIZE 줄 단위로 묶어 넘겨 주므로(pipelining), 해석과 실행이 겹쳐 진행되고 스레드 간 전달 비용은 묶음마다 한 번만 듭니다.
+ * 입력이 더 이상 바로 읽히지 않으면(예: 표준 입력에서 다음 줄을 기다림) 모인 만큼만 넘기고 결과도 바로 내보냅니다.
+ * 결과는 묶음의 변경이 저널에 기록(fsync)된 뒤에 쓰며, fsync는 명령마다가 아니라 묶음마다 한 번 기다립니다.
+ *
+ * 결과 한 줄의 형식: {"line":줄 번호,"ok":성공 여부,"message":"처리 결과"} (해석 오류면 "error")
+ */
+public class CommandProcessor {
+
+    // 해석 스레드가 한 번에 넘기는 명령 수
+    private static final int BATCH_SIZE = 1024;
+    // 해석이 끝났지만 아직 실행되지 않은 묶음의 최대 개수 (넘으면 해석 스레드가 기다림)
+    private static final int QUEUE_BATCHES = 8;
+    // 입력의 끝을 알리는 빈 묶음
+    private static final RentalCommand[] END = new RentalCommand[0];
+
+    private final RentalService rentalService;
+    private final UserDirectory users;
+    private final ItemCatalog items;
+    private final RentalJournal journal;
+
+    // 할인 정책은 상태가 없으므로 사용자 타입별로 하나씩만 만들어 재사용
+    private final DiscountStrategy studentStrategy = new StudentDiscountStrategy();
+    private final DiscountStrategy defaultStrategy = new NoDiscountStrategy();
+
+    /**
+     * @param rentalService 대여/반납을 처리할 서비스
+     * @param users 전체 사용자 목록
+     * @param items 전체 물품 목록
+     * @param journal 물품/사용자 추가·삭제를 기록할 저널 (null이면 기록하지 않음)
+     */
+    public CommandProcessor(RentalService rentalService, UserDirectory users, ItemCatalog items, RentalJournal journal) {
+        this.rentalService = rentalService;
+        this.users = users;
+        this.items = items;
+        this.journal = journal;
+    }
+
+    // --- 명령 실행 ---
+
+    /**
+     * 명령 하나를 실행합니다. 여러 스레드에서 동시에 호출할 수 있습니다.
+     * 변경이 저널에 기록될 때까지 기다린 뒤 결과를 반환합니다.
+     * @param command 실행할 명령
+     * @return 실행 결과
+     */
+    public Result execute(RentalCommand command) {
+        Result result = execute(command, true);
+        if (result.ok && result.rental == null && journal != null && !journal.sync()) {
+            return result.unsaved(); // 물품/사용자 추가·삭제
+        }
+        return result;
+    }
+
+    /**
+     * 명령 하나를 실행합니다. awaitSaved가 false면 대여/반납이 저널에 기록될 때까지 기다리지 않습니다.
+     */
+    private Result execute(RentalCommand command, boolean awaitSaved) {
+        if (command.error != null) {
+            return new Result(false, command.error);
+        }
+        switch (command.op) {
+            case RENT:
+            case RETURN: {
+                User user = (command.user == null) ? null : users.find(command.user);
+                if (user == null) {
+                    return new Result(false, "사용자를 찾을 수 없습니다: " + command.user);
+                }
+                Item item = (command.item != null) ? items.find(command.item) : items.findById(command.itemId);
+                if (item == null) {
+                    return new Result(false, "물품을 찾을 수 없습니다: " + ((command.item != null) ? command.item : "#" + command.itemId));
+                }
+                RentalResult result = (command.op == RentalCommand.Op.RENT)
+                        ? rentalService.rentItem(user, item, strategyFor(user), awaitSaved)
+                        : rentalService.returnItem(user, item, awaitSaved);
+                return new Result(result, user, item);
+            }
+            case ADD_ITEM: {
+                if (command.name == null || command.name.isBlank() || command.stock < 0) {
+                    return new Result(false, "물품 이름과 0 이상의 재고가 필요합니다.");
+                }
+                Item item = new Item(command.name.trim(), command.stock, command.fee);
+                boolean added = applyChange(() -> {
+                    if (!items.add(item)) {
+                        return false;
+                    }
+                    if (journal != null) {
+                        journal.logAddItem(item);
+                    }
+                    return true;
+                });
+                return added ? new Result(true, "물품이 추가되었습니다: " + item.getName())
+                             : new Result(false, "이미 존재하는 물품 이름입니다: " + item.getName());
+            }
+            case DELETE_ITEM: {
+                String name = (command.name == null) ? "" : command.name;
+                boolean removed = applyChange(() -> {
+                    Item item = items.remove(name);
+                    if (item == null) {
+                        return false;
+                    }
+                    if (journal != null) {
+                        journal.logDeleteItem(item.getName());
+                    }
+                    return true;
+                });
+                return removed ? new Result(true, "물품이 삭제되었습니다: " + name)
+                               : new Result(false, "물품을 찾을 수 없습니다: " + name);
+            }
+            case ADD_USER: {
+                if (command.id == null || command.id.isBlank()) {
+                    return new Result(false, "사용자 ID가 필요합니다.");
+                }
+                User user = new User(command.id.trim(), nullToEmpty(command.name),
+                        (command.type == null) ? "Student" : command.type, nullToEmpty(command.password));
+                boolean added = applyChange(() -> {
+                    if (!users.add(user)) {
+                        return false;
+                    }
+                    if (journal != null) {
+                        journal.logAddUser(user);
+                    }
+                    return true;
+                });
+                return added ? new Result(true, "사용자가 추가되었습니다: " + user.getId())
+                             : new Result(false, "이미 존재하는 사용자 ID입니다: " + user.getId());
+            }
+            case DELETE_USER: {
+                String id = (command.id == null) ? "" : command.id;
+                if ("admin".equalsIgnoreCase(id)) {
+                    return new Result(false, "관리자(admin) 계정은 삭제할 수 없습니다.");
+                }
+                boolean removed = applyChange(() -> {
+                    if (users.remove(id) == null) {
+                        return false;
+                    }
+                    if (journal != null) {
+                        journal.logDeleteUser(id);
+                    }
+                    return true;
+                });
+                return removed ? new Result(true, "사용자가 삭제되었습니다: " + id)
+                               : new Result(false, "사용자를 찾을 수 없습니다: " + id);
+            }
+            default:
+                return new Result(false, "알 수 없는 명령입니다: " + command.op);
+        }
+    }
+
+    /**
+     * 사용자 타입에 맞는 할인 정책을 반환합니다. (MainAppFrame과 같은 기준)
+     */
+    private DiscountStrategy strategyFor(User user) {
+        return "Student".equals(user.getType()) ? studentStrategy : defaultStrategy;
+    }
+
+    /**
+     * 목록 변경과 저널 기록을 하나의 작업으로 수행합니다. (AdminDialog.applyChange()와 같은 이유로 저널의 변경 잠금을 잡음)
+     */
+    private boolean applyChange(Change change) {
+        if (journal == null) {
+            return change.apply();
+        }
+        Lock lock = journal.mutationLock();
+        lock.lock();
+        try {
+            return change.apply();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return (s == null) ? "" : s;
+    }
+
+    @FunctionalInterface
+    private interface Change {
+        boolean apply();
+    }
+
+    // --- JSONL 스트림 처리 ---
+
+    /**
+     * 입력의 명령을 끝까지 실행하고 결과를 씁니다. 빈 줄은 건너뜁니다.
+     * @param in JSONL 명령 입력 (파일 또는 표준 입력)
+     * @param out JSONL 결과 출력
+     * @return 처리 통계
+     */
+    public Stats run(BufferedReader in, Writer out) throws IOException {
+        BlockingQueue<RentalCommand[]> batches = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        IOException[] readError = new IOException[1];
+        Thread parser = new Thread(() -> {
+            try {
+                parse(in, batches);
+            } catch (IOException e) {
+                readError[0] = e;
+            } finally {
+                putQuietly(batches, END);
+            }
+        }, "command-parser");
+        parser.setDaemon(true);
+
+        Stats stats = new Stats();
+        StringBuilder sb = new StringBuilder(256);
+        Result[] results = new Result[BATCH_SIZE];
+        long[] latencies = new long[BATCH_SIZE];
+        long start = System.nanoTime();
+        parser.start();
+        try {
+            while (true) {
+                RentalCommand[] batch = batches.take();
+                if (batch == END) {
+                    break;
+                }
+                for (int i = 0; i < batch.length; i++) {
+                    long begin = System.nanoTime();
+                    results[i] = execute(batch[i], false);
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                // 묶음의 변경이 모두 디스크에 기록된 뒤에 결과를 씀 (실패하면 반영된 변경을 저장 실패로 알림)
+                boolean saved = rentalService.awaitSaved();
+                for (int i = 0; i < batch.length; i++) {
+                    RentalCommand command = batch[i];
+                    Result result = (saved || !results[i].ok) ? results[i] : results[i].unsaved();
+                    results[i] = null;
+                    stats.record(result.ok, latencies[i]);
+
+                    sb.setLength(0);
+                    sb.append("{\"line\":").append(command.line).append(",\"ok\":").append(result.ok)
+                      .append(command.error != null ? ",\"error\":" : ",\"message\":");
+                    RentalCommand.appendJsonString(sb, result.getMessage());
+                    sb.append("}\n");
+                    out.append(sb);
+                }
+                if (batches.isEmpty()) {
+                    out.flush(); // 다음 입력을 기다리는 중이면 지금까지의 결과를 바로 내보냄
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+        stats.elapsedNanos = System.nanoTime() - start;
+        if (readError[0] != null) {
+            throw readError[0];
+        }
+        return stats;
+    }
+
+    /**
+     * 입력을 줄 단위로 읽어 명령으로 해석하고, BATCH_SIZE개씩(또는 입력이 잠시 끊기면 모인 만큼) 묶어 넘깁니다. (해석 스레드)
+     */
+    private static void parse(BufferedReader in, BlockingQueue<RentalCommand[]> batches) throws IOException {
+        RentalCommand[] batch = new RentalCommand[BATCH_SIZE];
+        int size = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                batch[size++] = RentalCommand.parse(lineNumber, line);
+            }
+            if (size == BATCH_SIZE || (size > 0 && !in.ready())) {
+                putQuietly(batches, (size == BATCH_SIZE) ? batch : Arrays.copyOf(batch, size));
+                batch = new RentalCommand[BATCH_SIZE];
+                size = 0;
+            }
+        }
+        if (size > 0) {
+            putQuietly(batches, Arrays.copyOf(batch, size));
+        }
+    }
+
+    private static void putQuietly(BlockingQueue<RentalCommand[]> batches, RentalCommand[] batch) {
+        try {
+            batches.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 명령 실행 결과
+     */
+    public static class Result {
+        private final boolean ok;
+        private String message;
+        // 대여/반납 결과이면 메시지를 만드는 데 필요한 값 (메시지는 getMessage()에서 처음 필요할 때 만듦)
+        private final RentalResult rental;
+        private final User user;
+        private final Item item;
+
+        public Result(boolean ok, String message) {
+            this.ok = ok;
+            this.message = message;
+            this.rental = null;
+            this.user = null;
+            this.item = null;
+        }
+
+        public Result(RentalResult rental, User user, Item item) {
+            this.ok = rental.isSuccess();
+            this.rental = rental;
+            this.user = user;
+            this.item = item;
+        }
+
+        public boolean isOk() { return ok; }
+        public RentalResult getRentalResult() { return rental; }
+
+        /**
+         * 반영은 되었지만 저널을 디스크에 기록하지 못한 경우의 결과로 바꿉니다.
+         */
+        Result unsaved() {
+            if (rental != null) {
+                return new Result(RentalResult.NOT_SAVED, user, item);
+            }
+            return new Result(false, getMessage() + " (디스크에 기록하지 못했습니다)");
+        }
+
+        public String getMessage() {
+            if (message == null && rental != null) {
+                message = rental.message(user, item);
+            }
+            return message;
+        }
+    }
+
+    /**
+     * 처리량과 명령별 실행 시간(지연 시간) 통계
+     */
+    public static class Stats {
+        private long[] latencies = new long[1 << 16]; // 명령별 실행 시간 (ns)
+        private int count;
+        private int succeeded;
+        private long elapsedNanos;
+
+        void record(boolean ok, long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (ok) {
+                succeeded++;
+            }
+        }
+
+        public int getCount() { return count; }
+        public int getSucceeded() { return succeeded; }
+
+        /**
+         * @return 초당 처리한 명령 수 (입력을 읽기 시작해서 마지막 결과를 쓸 때까지 기준)
+         */
+        public double getThroughput() {
+            return (elapsedNanos == 0) ? 0 : count * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        /**
+         * 정렬된 지연 시간에서 백분위수를 찾습니다.
+         * @param percentile 0 ~ 100 (예: 99.9)
+         * @return 지연 시간 (ns)
+         */
+        private long percentile(long[] sorted, double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+
+        /**
+         * 처리 결과 요약 문자열 (예: 명령 1000000건 (성공 ...), 312,000건/초, 지연 p50 ... p99 ... 최대 ...)
+         */
+        public String summary() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return String.format("명령 %,d건 (성공 %,d, 실패 %,d), %.2f초, %,.0f건/초, 지연(µs) p50 %.1f / p90 %.1f / p99 %.1f / p99.9 %.1f / 최대 %.1f",
+                    count, succeeded, count - succeeded, elapsedNanos / 1e9, getThroughput(),
+                    percentile(sorted, 50) / 1e3, percentile(sorted, 90) / 1e3, percentile(sorted, 99) / 1e3,
+                    percentile(sorted, 99.9) / 1e3, (count == 0 ? 0 : sorted[count - 1]) / 1e3);
+        }
+    }
+}
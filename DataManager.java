@@ -1,95 +1,346 @@
 // 파일 이름: DataManager.java
 
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 애플리케이션의 데이터를 파일에 저장하고 불러오는 역할을 담당하는 클래스입니다.
- * 사용자(User), 물품(Item), 대여기록(RentalRecord) 객체 리스트를 직렬화(Serialization)하여
- * 각각 별도의 '.dat' 파일에 저장하고, 필요할 때 역직렬화하여 메모리로 불러옵니다.
+ * 사용자(UserDirectory), 물품(ItemCatalog) 목록을 BinaryCodec의 압축 이진 형식으로
+ * 각각 별도의 '.dat' 파일에 저장하고, 필요할 때 다시 메모리로 불러옵니다.
+ * 대여 기록은 'history' 디렉터리(PartitionedHistoryStore)에 보관합니다. 최근 기록은 메모리 매핑된 열 단위 파일로 바로 사용하고,
+ * 지난 달의 반납 완료된 기록은 프로그램 시작 시와 실행 중 주기적으로(CheckpointService) 달별 압축 세그먼트로 옮겨 보관합니다.
+ * 이전 버전에서 자바 기본 직렬화로 저장된 파일도 읽을 수 있으며, 다음 저장 시 새 형식으로 변환됩니다.
+ *
+ * 컬렉션(사용자/물품/대여 기록)마다 저널의 버전을 기억해 두었다가, 저장할 때 마지막 저장 이후 바뀐 컬렉션만 다시 씁니다.
+ * 예를 들어 대여/반납만 있었다면 users.dat은 다시 쓰지 않습니다.
+ * 스냅샷 파일은 임시 파일에 먼저 쓰고 디스크에 강제 기록(fsync)한 뒤 원래 이름으로 원자적으로 바꾸므로,
+ * 저장 도중 프로그램이 종료되어도 이전 스냅샷이 온전히 남습니다.
  */
 public class DataManager {
 
     // 데이터 저장을 위한 파일 이름 상수 정의
     private static final String USERS_FILE = "users.dat";       // 사용자 정보 파일
     private static final String ITEMS_FILE = "items.dat";       // 물품 정보 파일
-    private static final String HISTORY_FILE = "history.dat";   // 대여 기록 파일
+    private static final String HISTORY_DIR = "history";       // 대여 기록 저장소 디렉터리
+    private static final String HISTORY_FILE = "history.dat";   // 이전 버전의 대여 기록 파일 (변환용)
+    private static final String JOURNAL_FILE = "journal.log";   // 마지막 저장 이후의 변경 기록 파일
+    private static final String OFF_HEAP_PROPERTY = "rental.history.offheap"; // 대체 메모리 저장소를 힙 밖에 둘지 여부 (시스템 속성, 대체할 때만 사용)
+
+    // 대여/반납/관리 작업을 한 건씩 덧붙여 기록하는 저널
+    private final RentalJournal journal = new RentalJournal(JOURNAL_FILE);
+    // openHistory()로 연 대여 기록 저장소 (close() 시 함께 닫음)
+    private HistoryStore history;
+    // startCheckpoints()로 시작한 백그라운드 체크포인트 서비스 (close() 시 함께 멈춤)
+    private CheckpointService checkpoints;
+
+    // 불러온 스냅샷이 반영한 저널 세대. 이 세대부터의 저널 기록을 다시 적용합니다.
+    private volatile int usersGeneration = 0;
+    private volatile int itemsGeneration = 0;
+
+    // 마지막으로 파일에 저장된 컬렉션별 저널 버전 (RentalJournal.getUsersVersion() 등과 비교)
+    // UNSAVED이면 파일 내용과 메모리 내용이 다를 수 있으므로 다음 저장 시 반드시 다시 씀
+    private static final long UNSAVED = -1;
+    private volatile long savedUsersVersion = UNSAVED;
+    private volatile long savedItemsVersion = UNSAVED;
+    private volatile long savedHistoryVersion = UNSAVED;
 
     /**
-     * 현재 애플리케이션의 모든 데이터를 파일에 저장합니다.
-     * @param users 저장할 사용자 정보 리스트
-     * @param items 저장할 물품 정보 리스트
-     * @param history 저장할 대여 기록 리스트
+     * 변경 사항을 기록할 저널을 반환합니다.
+     * @return 이 DataManager가 관리하는 RentalJournal
      */
-    public void saveData(List<User> users, List<Item> items, List<RentalRecord> history) {
-        // try-with-resources 구문을 사용하여 AutoCloseable 스트림들을 안전하게 관리합니다.
-        try (ObjectOutputStream oosUsers = new ObjectOutputStream(new FileOutputStream(USERS_FILE));
-             ObjectOutputStream oosItems = new ObjectOutputStream(new FileOutputStream(ITEMS_FILE));
-             ObjectOutputStream oosHistory = new ObjectOutputStream(new FileOutputStream(HISTORY_FILE))) {
+    public RentalJournal getJournal() {
+        return journal;
+    }
 
-            // 각 리스트 객체를 해당하는 파일에 직렬화하여 쓴다.
-            oosUsers.writeObject(users);
-            oosItems.writeObject(items);
-            oosHistory.writeObject(history);
+    /**
+     * 현재 애플리케이션의 데이터 중 마지막 저장 이후 바뀐 컬렉션만 파일에 저장합니다. (스냅샷 / 체크포인트)
+     * 저널을 새 세대로 넘기면서 바뀐 목록만 메모리에 복사한 뒤, 파일 쓰기는 잠금 없이 수행합니다.
+     * 저장이 끝나면 스냅샷에 반영된 이전 세대의 저널 파일을 삭제합니다.
+     * 여러 스레드(체크포인트 서비스, 종료 처리 등)에서 동시에 호출되지 않도록 동기화되어 있습니다.
+     * @param users 저장할 사용자 목록
+     * @param items 저장할 물품 목록
+     * @param history 디스크에 반영할 대여 기록 저장소 (이미 파일에 기록되어 있으므로 다시 쓰지 않음)
+     * @return 저장에 성공하면 true
+     */
+    public synchronized boolean saveData(UserDirectory users, ItemCatalog items, HistoryStore history) {
+        Snapshot snapshot = new Snapshot();
+        try {
+            // 1. 변경 작업을 잠시 멈추고 저널 세대를 넘기면서, 바뀐 목록만 메모리에서 이진 형식으로 변환
+            //    (변경 작업이 멈춘 동안 읽으므로 버전과 복사된 내용이 정확히 일치함)
+            int generation = journal.rotate(gen -> {
+                try {
+                    snapshot.usersVersion = journal.getUsersVersion();
+                    snapshot.itemsVersion = journal.getItemsVersion();
+                    snapshot.historyVersion = journal.getHistoryVersion();
+                    if (snapshot.usersVersion != savedUsersVersion) {
+                        snapshot.users = new ByteArrayOutputStream();
+                        BinaryCodec.writeUsers(snapshot.users, users.toList(), gen);
+                    }
+                    if (snapshot.itemsVersion != savedItemsVersion) {
+                        snapshot.items = new ByteArrayOutputStream();
+                        BinaryCodec.writeItems(snapshot.items, items, gen);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
 
-            System.out.println("모든 데이터가 성공적으로 저장되었습니다.");
+            // 2. 대여 기록은 매핑된 파일에 바로 기록되므로, 바뀐 경우에만 디스크에 강제 기록
+            if (snapshot.historyVersion != savedHistoryVersion) {
+                history.flush();
+                savedHistoryVersion = snapshot.historyVersion;
+            }
 
-        } catch (IOException e) {
+            // 3. 바뀐 컬렉션만 임시 파일에 쓰고 원래 파일을 원자적으로 교체
+            if (snapshot.users != null) {
+                writeAtomically(USERS_FILE, snapshot.users.toByteArray());
+                savedUsersVersion = snapshot.usersVersion;
+            }
+            if (snapshot.items != null) {
+                writeAtomically(ITEMS_FILE, snapshot.items.toByteArray());
+                savedItemsVersion = snapshot.itemsVersion;
+            }
+            // 다시 쓰지 않은 파일도 이전 세대 저널에 해당 컬렉션의 변경 기록이 없으므로 새 세대까지 반영된 것과 같음
+            usersGeneration = generation;
+            itemsGeneration = generation;
+
+            // 4. 모든 스냅샷에 반영된 이전 세대 저널 삭제
+            journal.discardBefore(generation);
+            System.out.println("데이터가 저장되었습니다. (저널 세대 " + generation
+                    + ", 사용자 " + (snapshot.users != null ? "저장" : "변경 없음")
+                    + ", 물품 " + (snapshot.items != null ? "저장" : "변경 없음") + ")");
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            // 스냅샷 저장에 실패했다면 이전 세대 저널을 지우지 않고 남겨둠
             System.err.println("데이터 저장 중 오류 발생: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * saveData()가 저널 세대를 넘기는 순간에 복사해 둔 내용. 바뀌지 않은 컬렉션은 null
+     */
+    private static class Snapshot {
+        long usersVersion, itemsVersion, historyVersion;
+        ByteArrayOutputStream users, items;
+    }
+
+    /**
+     * 데이터를 임시 파일에 쓰고 디스크에 강제 기록한 뒤, 원래 파일을 원자적으로 교체합니다.
+     */
+    private static void writeAtomically(String fileName, byte[] data) throws IOException {
+        File target = new File(fileName).getAbsoluteFile();
+        File temp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+            out.getFD().sync();
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // 이름 변경 자체도 디스크에 남도록 디렉터리를 강제 기록 (지원하지 않는 운영체제에서는 생략)
+        try (FileChannel dir = FileChannel.open(target.getParentFile().toPath(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Windows 등에서는 디렉터리를 열 수 없음
+        }
+    }
+
+    /**
+     * 백그라운드 체크포인트 서비스를 시작합니다. 데이터 로딩과 저널 복원이 끝난 뒤 호출합니다.
+     * 마지막 체크포인트 이후 변경이 200건 이상 쌓이거나, 변경이 있는 채로 1분이 지나면 스냅샷을 저장합니다.
+     */
+    public void startCheckpoints(UserDirectory users, ItemCatalog items, HistoryStore history) {
+        if (checkpoints == null) {
+            checkpoints = new CheckpointService(this, users, items, history, 60_000, 200);
         }
     }
 
     /**
      * 파일에서 사용자 데이터를 불러옵니다.
-     * @return 불러온 사용자 정보 리스트. 파일이 없거나 오류 발생 시 비어있는 리스트를 반환합니다.
+     * @return 불러온 사용자 목록. 파일이 없거나 오류 발생 시 비어있는 목록을 반환합니다.
      */
-    @SuppressWarnings("unchecked") // readObject()의 반환 타입을 캐스팅할 때 발생하는 경고를 무시합니다.
-    public List<User> loadUsers() {
+    public UserDirectory loadUsers() {
         File file = new File(USERS_FILE);
         if (file.exists()) { // 파일이 존재하는 경우에만 로딩 시도
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                // 파일로부터 객체를 역직렬화하고 List<User> 타입으로 캐스팅하여 반환
-                return (List<User>) ois.readObject();
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                // 이전 형식(자바 직렬화)이면 ObjectInputStream으로, 아니면 이진 형식으로 읽음
+                if (BinaryCodec.isLegacyFormat(file)) {
+                    return new UserDirectory(DataManager.<User>readLegacy(in));
+                }
+                usersGeneration = BinaryCodec.readGeneration(file);
+                journal.advanceTo(usersGeneration);
+                UserDirectory users = new UserDirectory(BinaryCodec.readUsers(in));
+                savedUsersVersion = 0; // 파일 내용 그대로 (저널 복원 전)
+                return users;
             } catch (IOException | ClassNotFoundException e) {
                 System.err.println("사용자 데이터 로딩 중 오류 발생: " + e.getMessage());
             }
         }
-        // 파일이 없거나 로딩 중 오류가 발생하면 비어있는 새 리스트를 반환
-        return new ArrayList<>();
+        // 파일이 없거나 로딩 중 오류가 발생하면 비어있는 새 목록을 반환
+        return new UserDirectory();
     }
 
     /**
      * 파일에서 물품 데이터를 불러옵니다.
-     * @return 불러온 물품 정보 리스트. 파일이 없거나 오류 발생 시 비어있는 리스트를 반환합니다.
+     * 이전 형식(자바 직렬화) 파일의 물품에는 불러온 순서대로 물품 번호가 부여됩니다.
+     * @return 불러온 물품 목록. 파일이 없거나 오류 발생 시 비어있는 목록을 반환합니다.
      */
-    @SuppressWarnings("unchecked")
-    public List<Item> loadItems() {
+    public ItemCatalog loadItems() {
         File file = new File(ITEMS_FILE);
         if (file.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                return (List<Item>) ois.readObject();
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                if (BinaryCodec.isLegacyFormat(file)) {
+                    return new ItemCatalog(DataManager.<Item>readLegacy(in));
+                }
+                itemsGeneration = BinaryCodec.readGeneration(file);
+                journal.advanceTo(itemsGeneration);
+                ItemCatalog items = BinaryCodec.readItems(in);
+                savedItemsVersion = 0; // 파일 내용 그대로 (저널 복원 전)
+                return items;
             } catch (IOException | ClassNotFoundException e) {
                 System.err.println("물품 데이터 로딩 중 오류 발생: " + e.getMessage());
             }
         }
-        return new ArrayList<>();
+        return new ItemCatalog();
     }
 
     /**
-     * 파일에서 대여 기록 데이터를 불러옵니다.
-     * @return 불러온 대여 기록 리스트. 파일이 없거나 오류 발생 시 비어있는 리스트를 반환합니다.
+     * 대여 기록 저장소를 엽니다.
+     * 이전 버전의 대여 기록 파일(history.dat)이 있고 저장소가 비어 있으면, 기록을 저장소로 옮긴 뒤
+     * 기존 파일의 이름을 'history.dat.bak'으로 바꿉니다.
+     * 평소에는 항상 PartitionedHistoryStore를 사용합니다. 최근 기록은 메모리 매핑 파일, 지난 기록은 압축 세그먼트에 있으므로
+     * 이 저장소도 기록 대부분을 힙 밖에 둡니다. 메모리 저장소는 저장소 디렉터리를 열 수 없을 때만 대신 사용합니다.
+     * @return 대여 기록 저장소. 저장소를 열 수 없으면 메모리 저장소(ArrayHistoryStore, 시스템 속성 rental.history.offheap이 true이면 DirectHistoryStore)를 반환합니다. (종료 시 기록이 유지되지 않음)
      */
-    @SuppressWarnings("unchecked")
-    public List<RentalRecord> loadHistory() {
-        File file = new File(HISTORY_FILE);
-        if (file.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                return (List<RentalRecord>) ois.readObject();
-            } catch (IOException | ClassNotFoundException e) {
-                System.err.println("대여 기록 로딩 중 오류 발생: " + e.getMessage());
+    public HistoryStore openHistory() {
+        try {
+            PartitionedHistoryStore store = new PartitionedHistoryStore(new File(HISTORY_DIR));
+            history = store;
+            File oldFile = new File(HISTORY_FILE);
+            if (oldFile.exists() && store.size() == 0) {
+                migrateHistory(oldFile, store);
+            }
+            archiveHistory(store, Runnable::run); // 아직 다른 스레드와 공유하기 전이므로 멈출 필요 없음
+        } catch (IOException e) {
+            System.err.println("대여 기록 저장소 열기 중 오류 발생: " + e.getMessage());
+            // 기록이 매우 많은 환경에서는 -Drental.history.offheap=true로 대체 저장소를 힙 밖에 두어 GC 부담을 줄일 수 있음
+            history = Boolean.getBoolean(OFF_HEAP_PROPERTY) ? new DirectHistoryStore() : new ArrayHistoryStore();
+            System.err.println("대여 기록을 메모리(" + history.getClass().getSimpleName()
+                    + ")에만 보관합니다. 이번 실행의 대여 기록은 종료 후 남지 않습니다.");
+        }
+        return history;
+    }
+
+    /**
+     * 대여 기록 저장소에서 이번 달 이전에 대여되어 반납까지 끝난 기록을 보관소로 옮기고, 작은 세그먼트를 합칩니다.
+     * 실행 중에 CheckpointService가 주기적으로 호출합니다. 현재 구간을 교체하는 순간에만 저널로 변경 작업을 잠시 멈춥니다.
+     * 보관소를 쓰지 않는 저장소(openHistory()가 메모리 저장소를 반환한 경우)면 아무것도 하지 않습니다.
+     */
+    public synchronized void archiveHistory() {
+        if (history instanceof PartitionedHistoryStore) {
+            archiveHistory((PartitionedHistoryStore) history, journal::runExclusive);
+        }
+    }
+
+    /**
+     * @param pause 현재 구간을 교체하는 작업을 변경 작업을 멈춘 채 실행하는 방법
+     */
+    private static void archiveHistory(PartitionedHistoryStore store, Consumer<Runnable> pause) {
+        long cutoff = HistoryStore.toEpochSecond(java.time.LocalDate.now().withDayOfMonth(1).atStartOfDay());
+        try {
+            int archived = store.rollOver(cutoff, pause);
+            int merged = store.compact();
+            if (archived > 0 || merged > 0) {
+                System.out.println("대여 기록 " + archived + "건을 보관소로 옮겼습니다. (세그먼트 " + store.getSegmentCount() + "개, 합친 세그먼트 " + merged + "개)");
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("대여 기록 보관 중 오류 발생: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 이전 형식(BinaryCodec 또는 자바 직렬화)의 대여 기록 파일을 저장소로 옮깁니다.
+     */
+    private static void migrateHistory(File oldFile, HistoryStore store) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(oldFile))) {
+            List<RentalRecord> records = BinaryCodec.isLegacyFormat(oldFile) ? readLegacy(in) : BinaryCodec.readHistory(in);
+            for (RentalRecord record : records) {
+                int row = store.append(record.getUser(), record.getItemName(), HistoryStore.toEpochSecond(record.getRentalTime()));
+                if (record.getReturnTime() != null) {
+                    store.markReturned(row, HistoryStore.toEpochSecond(record.getReturnTime()));
+                }
             }
+            store.flush();
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("대여 기록 변환 중 오류 발생: " + e.getMessage());
+            return;
+        }
+        if (!oldFile.renameTo(new File(HISTORY_FILE + ".bak"))) {
+            System.err.println("이전 대여 기록 파일의 이름을 바꾸지 못했습니다: " + oldFile);
+        }
+    }
+
+    /**
+     * 이전 버전의 자바 기본 직렬화 형식으로 저장된 리스트를 읽습니다. (형식 변환용)
+     * 읽은 데이터는 다음 saveData() 호출 시 새 이진 형식으로 저장됩니다.
+     */
+    @SuppressWarnings("unchecked") // readObject()의 반환 타입을 캐스팅할 때 발생하는 경고를 무시합니다.
+    private static <T> List<T> readLegacy(InputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = new ObjectInputStream(in);
+        return (List<T>) ois.readObject();
+    }
+
+    /**
+     * 스냅샷 이후 저널에 기록된 사용자 추가/삭제를 불러온 사용자 목록에 다시 적용합니다.
+     * 로그인에 필요한 사용자 목록을 물품/대여 기록보다 먼저 복원하기 위해 replayJournal()과 분리되어 있습니다.
+     * @param users 불러온 사용자 목록
+     * @return 저널 복원 중 존재했던 사용자 맵 (replayJournal()에 전달)
+     */
+    public Map<String, User> replayUserJournal(UserDirectory users) {
+        Map<String, User> journalUsers = new HashMap<>();
+        int applied = journal.replayUsers(users, journalUsers, usersGeneration);
+        if (applied > 0) {
+            savedUsersVersion = UNSAVED; // 저널에서 복원한 내용은 아직 사용자 파일에 없음
+            System.out.println("저널에서 " + applied + "건의 사용자 변경 사항을 복원했습니다.");
+        }
+        return journalUsers;
+    }
+
+    /**
+     * 스냅샷 이후 저널에 기록된 대여/반납 및 물품 변경 사항을 불러온 데이터에 다시 적용합니다.
+     * 프로그램 시작 시 replayUserJournal/loadItems/openHistory 호출 후에 사용합니다.
+     * @param journalUsers replayUserJournal()이 반환한 사용자 맵
+     * @param items 불러온 물품 목록
+     * @param history 대여 기록 저장소
+     */
+    public void replayJournal(Map<String, User> journalUsers, ItemCatalog items, HistoryStore history) {
+        int applied = journal.replayData(journalUsers, items, history, itemsGeneration);
+        if (applied > 0) {
+            savedItemsVersion = UNSAVED; // 저널에서 복원한 내용은 아직 물품 파일에 없음
+            System.out.println("저널에서 " + applied + "건의 변경 사항을 복원했습니다.");
+        }
+    }
+
+    /**
+     * 체크포인트 서비스를 멈추고, 남아 있는 저널 기록과 대여 기록을 디스크에 기록한 뒤 파일을 닫습니다.
+     * 마지막 체크포인트 이후의 변경은 저널에 있으므로 전체 스냅샷을 다시 저장하지 않습니다.
+     * 로그아웃 또는 프로그램 종료 시 호출합니다.
+     */
+    public void close() {
+        if (checkpoints != null) {
+            checkpoints.close();
+            checkpoints = null;
+        }
+        journal.close();
+        if (history != null) {
+            history.close();
+            history = null;
         }
-        return new ArrayList<>();
     }
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+// 파일 이름: DirectHistoryStore.java
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 대여 기록을 힙 밖(off-heap)의 direct ByteBuffer에 고정 길이 레코드로 보관하는 메모리 저장소입니다.
+ * 기록은 CHUNK_ROWS 행 단위의 버퍼(chunk)에 차례로 쌓이며, 기록이 늘어나도 힙에는 chunk를 가리키는 배열 하나와
+ * 사전(HistoryDictionary)만 남습니다. 따라서 ArrayHistoryStore와 달리 기록 수가 늘어나도 힙 사용량과
+ * GC가 복사/검사할 데이터가 늘어나지 않고, 용량을 늘릴 때도 기존 기록을 복사하지 않습니다.
+ *
+ * 레코드 형식 (RECORD_SIZE = 24바이트):
+ *  [사용자 번호(int)][물품 번호(int)][대여 시간(long, epoch 초)][반납 시간(long, epoch 초 / 대여 중이면 NOT_RETURNED)]
+ *
+ * 파일에 저장하지 않으므로 종료 시 기록이 유지되지 않습니다. 기록이 매우 많은 환경에서
+ * 대여 기록 디렉터리를 열 수 없을 때의 대체 저장소로 사용합니다. (DataManager 참고)
+ * 많은 행을 읽을 때는 chunk를 직접 훑는 cursor()를 사용합니다.
+ */
+public class DirectHistoryStore implements HistoryStore {
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;      // chunk 하나의 행 수 (65,536행 = 1.5MB)
+    private static final int ROW_MASK = CHUNK_ROWS - 1;
+    private static final int RECORD_SIZE = 24;
+
+    // 레코드 안의 열 위치
+    private static final int USER_OFFSET = 0;
+    private static final int ITEM_OFFSET = 4;
+    private static final int RENTAL_OFFSET = 8;
+    private static final int RETURN_OFFSET = 16;
+
+    private final HistoryDictionary dictionary = new HistoryDictionary(); // 메모리 전용 사전
+
+    // chunk 목록. chunk를 추가할 때 더 큰 배열로 바꾸므로 volatile (쓰기는 this 잠금으로 보호)
+    private volatile ByteBuffer[] chunks = new ByteBuffer[16];
+    private volatile int size; // 추가된 행 수. 레코드를 모두 쓴 뒤에 늘어나므로 size 미만의 행은 항상 완성된 행
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private ByteBuffer chunkOf(int row) {
+        return chunks[row >>> CHUNK_SHIFT];
+    }
+
+    private static int offsetOf(int row) {
+        return (row & ROW_MASK) * RECORD_SIZE;
+    }
+
+    // --- 열 조회 메소드 (절대 위치로 읽으므로 여러 스레드에서 동시에 읽어도 안전) ---
+
+    public int getUserCode(int row) {
+        return chunkOf(row).getInt(offsetOf(row) + USER_OFFSET);
+    }
+
+    public int getItemCode(int row) {
+        return chunkOf(row).getInt(offsetOf(row) + ITEM_OFFSET);
+    }
+
+    @Override
+    public String getUserId(int row) {
+        return dictionary.user(getUserCode(row)).getId();
+    }
+
+    @Override
+    public String getUserName(int row) {
+        return dictionary.user(getUserCode(row)).getName();
+    }
+
+    @Override
+    public User getUser(int row) {
+        return dictionary.user(getUserCode(row));
+    }
+
+    @Override
+    public String getItemName(int row) {
+        return dictionary.itemName(getItemCode(row));
+    }
+
+    @Override
+    public long getRentalTime(int row) {
+        return chunkOf(row).getLong(offsetOf(row) + RENTAL_OFFSET);
+    }
+
+    @Override
+    public long getReturnTime(int row) {
+        return chunkOf(row).getLong(offsetOf(row) + RETURN_OFFSET);
+    }
+
+    /**
+     * 사용자/물품 번호 사전을 반환합니다.
+     */
+    public HistoryDictionary getDictionary() {
+        return dictionary;
+    }
+
+    // --- 기록 메소드 ---
+
+    @Override
+    public synchronized int append(User user, String itemName, long rentalTime) {
+        int row = size;
+        int chunkIndex = row >>> CHUNK_SHIFT;
+        if (chunkIndex == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2); // chunk 참조만 복사 (레코드는 그대로)
+        }
+        if (chunks[chunkIndex] == null) {
+            chunks[chunkIndex] = ByteBuffer.allocateDirect(CHUNK_ROWS * RECORD_SIZE);
+        }
+        ByteBuffer chunk = chunks[chunkIndex];
+        int offset = offsetOf(row);
+        chunk.putInt(offset + USER_OFFSET, dictionary.userCode(user));
+        chunk.putInt(offset + ITEM_OFFSET, dictionary.itemCode(itemName));
+        chunk.putLong(offset + RENTAL_OFFSET, rentalTime);
+        chunk.putLong(offset + RETURN_OFFSET, NOT_RETURNED);
+        size = row + 1; // 레코드를 모두 쓴 뒤에 행 수를 늘림 (volatile 쓰기로 다른 스레드에 공개)
+        return row;
+    }
+
+    @Override
+    public synchronized void markReturned(int row, long returnTime) {
+        chunkOf(row).putLong(offsetOf(row) + RETURN_OFFSET, returnTime);
+    }
+
+    @Override
+    public synchronized int[] appendAll(User user, List<String> itemNames, long rentalTime) {
+        return HistoryStore.super.appendAll(user, itemNames, rentalTime); // 한 번의 잠금으로 묶음 전체를 추가
+    }
+
+    @Override
+    public synchronized void markReturnedAll(int[] rows, long returnTime) {
+        HistoryStore.super.markReturnedAll(rows, returnTime);
+    }
+
+    @Override
+    public void flush() {
+        // 메모리 전용 저장소이므로 할 일 없음
+    }
+
+    /**
+     * chunk 참조를 놓아 줍니다. direct 버퍼의 메모리는 GC가 버퍼 객체를 회수할 때 반환됩니다.
+     */
+    @Override
+    public synchronized void close() {
+        chunks = new ByteBuffer[1];
+        size = 0;
+    }
+
+    /**
+     * chunk를 직접 훑는 커서를 반환합니다. 행마다 chunk 위치를 다시 계산하지 않고 다음 레코드로 이동합니다.
+     */
+    @Override
+    public HistoryCursor cursor(int from, int to) {
+        return new ChunkCursor(from, to);
+    }
+
+    /**
+     * chunk 안의 레코드를 차례로 읽는 커서
+     */
+    private class ChunkCursor implements HistoryCursor {
+        private final int end;
+        private int row;
+        private ByteBuffer chunk;
+        private int offset;
+
+        ChunkCursor(int from, int to) {
+            this.row = from - 1;
+            this.end = to;
+        }
+
+        @Override
+        public boolean next() {
+            if (row + 1 >= end) {
+                return false;
+            }
+            row++;
+            if (chunk == null || (row & ROW_MASK) == 0) {
+                chunk = chunkOf(row); // 첫 행이거나 다음 chunk로 넘어갈 때만 chunk를 찾음
+                offset = offsetOf(row);
+            } else {
+                offset += RECORD_SIZE;
+            }
+            return true;
+        }
+
+        @Override
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public String getUserId() {
+            return dictionary.user(chunk.getInt(offset + USER_OFFSET)).getId();
+        }
+
+        @Override
+        public String getUserName() {
+            return dictionary.user(chunk.getInt(offset + USER_OFFSET)).getName();
+        }
+
+        @Override
+        public String getItemName() {
+            return dictionary.itemName(chunk.getInt(offset + ITEM_OFFSET));
+        }
+
+        @Override
+        public long getRentalTime() {
+            return chunk.getLong(offset + RENTAL_OFFSET);
+        }
+
+        @Override
+        public long getReturnTime() {
+            return chunk.getLong(offset + RETURN_OFFSET);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+// 파일 이름: HistoryCursor.java
+
+/**
+ * 대여 기록 저장소의 행을 앞에서부터 차례로 읽는 커서(cursor) 인터페이스입니다.
+ * next()로 다음 행으로 이동한 뒤 각 열의 값을 읽으며, 행마다 객체를 만들지 않습니다.
+ * 보고서나 RentalHistoryDialog처럼 많은 행을 순서대로 읽을 때 사용합니다.
+ *
+ * 사용 예:
+ *   HistoryCursor cursor = history.cursor(0, history.size());
+ *   while (cursor.next()) {
+ *       ... cursor.getItemName() ...
+ *   }
+ */
+public interface HistoryCursor {
+
+    /**
+     * 다음 행으로 이동합니다. 처음 호출하면 첫 행으로 이동합니다.
+     * @return 이동할 행이 있으면 true, 끝에 도달했으면 false
+     */
+    boolean next();
+
+    /**
+     * @return 현재 행의 번호
+     */
+    int getRow();
+
+    // --- 현재 행의 열 값 ---
+    String getUserId();
+    String getUserName();
+    String getItemName();
+    long getRentalTime();   // 대여 시간 (epoch 초)
+    long getReturnTime();   // 반납 시간 (epoch 초). 대여 중이면 HistoryStore.NOT_RETURNED
+
+    /**
+     * 현재 행이 아직 반납되지 않은 기록인지 확인합니다.
+     */
+    default boolean isOpen() {
+        return getReturnTime() == HistoryStore.NOT_RETURNED;
+    }
+
+    /**
+     * 저장소의 열 조회 메소드로 값을 읽는 기본 커서 (HistoryStore.cursor()의 기본 구현)
+     */
+    class RowCursor implements HistoryCursor {
+        private final HistoryStore store;
+        private final int end;
+        private int row;
+
+        /**
+         * @param store 읽을 저장소
+         * @param from 첫 행 번호 (포함)
+         * @param to 끝 행 번호 (제외)
+         */
+        public RowCursor(HistoryStore store, int from, int to) {
+            this.store = store;
+            this.row = from - 1;
+            this.end = to;
+        }
+
+        @Override
+        public boolean next() {
+            if (row + 1 >= end) {
+                return false;
+            }
+            row++;
+            return true;
+        }
+
+        @Override
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public String getUserId() {
+            return store.getUserId(row);
+        }
+
+        @Override
+        public String getUserName() {
+            return store.getUserName(row);
+        }
+
+        @Override
+        public String getItemName() {
+            return store.getItemName(row);
+        }
+
+        @Override
+        public long getRentalTime() {
+            return store.getRentalTime(row);
+        }
+
+        @Override
+        public long getReturnTime() {
+            return store.getReturnTime(row);
+        }
+    }
+}
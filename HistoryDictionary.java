@@ -0,0 +1,177 @@
+// 파일 이름: HistoryDictionary.java
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 대여 기록에 반복해서 등장하는 사용자와 물품 이름을 정수 번호(code)로 바꾸어 주는 사전(dictionary) 클래스입니다.
+ * 대여 기록 저장소는 문자열 대신 이 번호만 저장하므로, 한 행의 크기가 고정되고 메모리와 파일 크기가 크게 줄어듭니다.
+ *
+ * 파일을 지정하면 새 항목이 추가될 때마다 파일 끝에 기록하고, 다시 열 때 같은 번호로 복원합니다.
+ * 사용자 항목에는 ID, 이름, 타입만 저장하며 비밀번호는 저장하지 않습니다.
+ */
+public class HistoryDictionary implements Closeable {
+
+    // 사전 파일의 항목 종류
+    private static final byte USER_ENTRY = 1;
+    private static final byte ITEM_ENTRY = 2;
+
+    private final Map<String, Integer> userCodes = new HashMap<>(); // 사용자 ID → 번호
+    private final List<User> users = new ArrayList<>();            // 번호 → 사용자
+    private final Map<String, Integer> itemCodes = new HashMap<>(); // 물품 이름 → 번호
+    private final List<String> itemNames = new ArrayList<>();       // 번호 → 물품 이름
+
+    private FileOutputStream logFile; // 사전 파일 (메모리 전용이면 null)
+    private DataOutputStream log;     // 새 항목을 기록할 스트림 (메모리 전용이면 null)
+
+    /**
+     * 메모리에서만 사용하는 사전을 생성합니다.
+     */
+    public HistoryDictionary() {
+    }
+
+    /**
+     * 파일에 저장되는 사전을 생성합니다. 파일이 이미 있으면 기존 항목을 불러옵니다.
+     * @param file 사전 파일
+     */
+    public HistoryDictionary(File file) throws IOException {
+        if (file.exists()) {
+            byte[] bytes = java.nio.file.Files.readAllBytes(file.toPath());
+            ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+            DataInputStream in = new DataInputStream(buffer);
+            int validLength = 0; // 온전히 읽힌 마지막 항목의 끝 위치
+            try {
+                while (buffer.available() > 0) {
+                    byte kind = in.readByte();
+                    if (kind == USER_ENTRY) {
+                        User user = new User(BinaryCodec.readString(in), BinaryCodec.readString(in), BinaryCodec.readString(in), "");
+                        userCodes.put(user.getId(), users.size());
+                        users.add(user);
+                    } else if (kind == ITEM_ENTRY) {
+                        String name = BinaryCodec.readString(in);
+                        itemCodes.put(name, itemNames.size());
+                        itemNames.add(name);
+                    } else {
+                        throw new IOException("사전 파일이 손상되었습니다.");
+                    }
+                    validLength = bytes.length - buffer.available();
+                }
+            } catch (EOFException e) {
+                // 마지막 항목을 쓰는 도중 종료된 경우: 잘린 부분을 잘라내고 그 전까지의 항목만 사용
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(validLength);
+                }
+            }
+        }
+        this.logFile = new FileOutputStream(file, true);
+        this.log = new DataOutputStream(logFile);
+    }
+
+    /**
+     * 사용자의 번호를 반환합니다. 처음 등장한 사용자라면 새 번호를 부여합니다.
+     * @param user 사용자
+     * @return 사용자 번호
+     */
+    public synchronized int userCode(User user) {
+        Integer code = userCodes.get(user.getId());
+        if (code != null) {
+            return code;
+        }
+        User entry = new User(user.getId(), user.getName(), user.getType(), ""); // 비밀번호는 저장하지 않음
+        if (log != null) {
+            try {
+                log.writeByte(USER_ENTRY);
+                BinaryCodec.writeString(log, entry.getId());
+                BinaryCodec.writeString(log, entry.getName());
+                BinaryCodec.writeString(log, entry.getType());
+                log.flush();
+            } catch (IOException e) {
+                System.err.println("사전 기록 중 오류 발생: " + e.getMessage());
+            }
+        }
+        userCodes.put(entry.getId(), users.size());
+        users.add(entry);
+        return users.size() - 1;
+    }
+
+    /**
+     * 물품 이름의 번호를 반환합니다. 처음 등장한 이름이라면 새 번호를 부여합니다.
+     * @param itemName 물품 이름
+     * @return 물품 번호
+     */
+    public synchronized int itemCode(String itemName) {
+        Integer code = itemCodes.get(itemName);
+        if (code != null) {
+            return code;
+        }
+        if (log != null) {
+            try {
+                log.writeByte(ITEM_ENTRY);
+                BinaryCodec.writeString(log, itemName);
+                log.flush();
+            } catch (IOException e) {
+                System.err.println("사전 기록 중 오류 발생: " + e.getMessage());
+            }
+        }
+        itemCodes.put(itemName, itemNames.size());
+        itemNames.add(itemName);
+        return itemNames.size() - 1;
+    }
+
+    /**
+     * 이미 등록된 사용자의 번호를 찾습니다. (새로 등록하지 않음)
+     * @return 사용자 번호. 없으면 -1
+     */
+    public synchronized int findUserCode(String userId) {
+        return userCodes.getOrDefault(userId, -1);
+    }
+
+    /**
+     * 이미 등록된 물품 이름의 번호를 찾습니다. (새로 등록하지 않음)
+     * @return 물품 번호. 없으면 -1
+     */
+    public synchronized int findItemCode(String itemName) {
+        return itemCodes.getOrDefault(itemName, -1);
+    }
+
+    public synchronized User user(int code) {
+        return users.get(code);
+    }
+
+    public synchronized String itemName(int code) {
+        return itemNames.get(code);
+    }
+
+    /**
+     * 사전 파일의 내용을 디스크에 강제 기록합니다.
+     */
+    public synchronized void sync() {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.flush();
+            logFile.getFD().sync();
+        } catch (IOException e) {
+            System.err.println("사전 저장 중 오류 발생: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (log == null) {
+            return;
+        }
+        sync();
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.err.println("사전 파일 닫기 중 오류 발생: " + e.getMessage());
+        }
+        log = null;
+        logFile = null;
+    }
+}
@@ -0,0 +1,124 @@
+// 파일 이름: HistoryFootprintBenchmark.java
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대여 기록을 메모리에 보관하는 방식별로 힙 사용량과 전체 GC 시간을 비교하는 벤치마크입니다.
+ *
+ * 사용법: java -Xmx3g HistoryFootprintBenchmark [대여 기록 수...]
+ *  예) java -Xmx3g HistoryFootprintBenchmark 1000000 10000000
+ * (List<RentalRecord>는 1000만 건에 약 1.8GB가 필요하므로 힙 크기를 충분히 지정해야 합니다)
+ *
+ * 비교하는 세 가지:
+ *  - records: 예전처럼 RentalRecord 객체를 ArrayList에 보관 (기록마다 RentalRecord와 LocalDateTime 두 개)
+ *  - array:   ArrayHistoryStore (사전 번호와 epoch 초를 기본형 배열에 보관. 배열을 두 배씩 늘리므로 여유 공간 포함)
+ *  - direct:  DirectHistoryStore (같은 값을 힙 밖의 direct ByteBuffer에 보관)
+ * 사용자 USER_COUNT명, 물품 ITEM_COUNT개로 기록을 만들고(90%는 반납됨), 전체 GC 후 남은 힙(과 direct 버퍼)을 잽니다.
+ * 기록을 들고 있는 채로 한 번 더 전체 GC를 실행해 걸린 시간도 출력합니다. (GC가 훑어야 할 객체 수에 비례)
+ */
+public class HistoryFootprintBenchmark {
+
+    private static final int USER_COUNT = 1000;
+    private static final int ITEM_COUNT = 500;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) {
+        List<Integer> counts = new ArrayList<>();
+        for (String arg : args) {
+            counts.add(Integer.parseInt(arg));
+        }
+        if (counts.isEmpty()) {
+            counts.add(1_000_000);
+            counts.add(10_000_000);
+        }
+
+        User[] users = new User[USER_COUNT];
+        for (int i = 0; i < USER_COUNT; i++) {
+            users[i] = new User("bench" + i, "벤치마크" + i, "Student", "1234");
+        }
+        String[] itemNames = new String[ITEM_COUNT];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            itemNames[i] = "벤치마크 물품 " + i;
+        }
+
+        System.out.printf("최대 힙 %d MB, 사용자 %d명, 물품 %d개%n",
+                Runtime.getRuntime().maxMemory() >> 20, USER_COUNT, ITEM_COUNT);
+        for (int records : counts) {
+            for (String kind : new String[]{"records", "array", "direct"}) {
+                long heapBefore = usedHeapAfterGc();
+                long directBefore = directMemoryUsed();
+
+                long start = System.nanoTime();
+                Object retained = build(kind, records, users, itemNames);
+                double buildSeconds = (System.nanoTime() - start) / 1e9;
+
+                long heap = usedHeapAfterGc() - heapBefore;
+                long direct = directMemoryUsed() - directBefore;
+                start = System.nanoTime();
+                System.gc(); // 기록을 들고 있는 채로 전체 GC
+                double gcMillis = (System.nanoTime() - start) / 1e6;
+
+                System.out.printf("%-8s %,11d건: 힙 %,7d MB (%5.1f B/건), direct %,5d MB, 만들기 %5.2f초, 전체 GC %7.1f ms%n",
+                        kind, records, heap >> 20, (double) heap / records, direct >> 20, buildSeconds, gcMillis);
+                if (retained instanceof HistoryStore) {
+                    ((HistoryStore) retained).close();
+                }
+                retained = null;
+            }
+        }
+    }
+
+    /**
+     * 대여 기록을 records건 만듭니다. 사용자와 물품을 돌아가며 쓰고, 대여 시간은 1분 간격, 10건 중 1건은 대여 중으로 둡니다.
+     */
+    private static Object build(String kind, int records, User[] users, String[] itemNames) {
+        long base = HistoryStore.toEpochSecond(LocalDateTime.of(2024, 1, 1, 9, 0));
+        if (kind.equals("records")) {
+            List<RentalRecord> history = new ArrayList<>();
+            for (int i = 0; i < records; i++) {
+                long rentalTime = base + i * 60L;
+                history.add(new RentalRecord(users[i % USER_COUNT], itemNames[(i * 7) % ITEM_COUNT],
+                        HistoryStore.toDateTime(rentalTime),
+                        (i % 10 == 0) ? null : HistoryStore.toDateTime(rentalTime + 3600L * (1 + i % 48))));
+            }
+            return history;
+        }
+        HistoryStore history = kind.equals("array") ? new ArrayHistoryStore() : new DirectHistoryStore();
+        for (int i = 0; i < records; i++) {
+            long rentalTime = base + i * 60L;
+            int row = history.append(users[i % USER_COUNT], itemNames[(i * 7) % ITEM_COUNT], rentalTime);
+            if (i % 10 != 0) {
+                history.markReturned(row, rentalTime + 3600L * (1 + i % 48));
+            }
+        }
+        return history;
+    }
+
+    /**
+     * 전체 GC를 몇 번 실행한 뒤 사용 중인 힙 크기를 반환합니다.
+     */
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * direct ByteBuffer가 사용 중인 메모리 크기를 반환합니다.
+     */
+    private static long directMemoryUsed() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,466 @@
+// 파일 이름: HistorySegment.java
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 보관소(archive)에 저장된, 더 이상 바뀌지 않는 대여 기록 묶음(segment) 파일 하나를 나타내는 클래스입니다.
+ * 한 세그먼트는 전체 대여 기록 중 연속된 행 구간 [시작 행, 끝 행)을 담으며, 보통 한 달 단위로 만들어집니다.
+ *
+ * 파일 형식 (버전 2):
+ *   [매직 넘버][버전][시작 행][행 수][최소 대여 시간][최대 대여 시간][블록 행 수][블록 수][블록 위치 × (블록 수 + 1)]
+ *   [블록 0][블록 1]...
+ * 본문은 BLOCK_ROWS행씩 나뉜 블록으로 따로 GZIP 압축되며(블록마다 독립된 BinaryCodec 대여 기록 스트림),
+ * 압축하지 않은 헤더에 각 블록의 파일 위치가 있으므로 행 하나를 읽을 때 그 행이 속한 블록만 풀면 됩니다.
+ * 헤더에 대여 시간 범위가 있으므로, 특정 기간을 조회할 때 본문을 풀지 않고도 읽을 필요가 있는지 판단할 수 있습니다.
+ *
+ * 이전 형식(버전 1)은 파일 전체가 GZIP 압축된 [매직 넘버][버전][시작 행(varint)][행 수(varint)][시간 범위][대여 기록 스트림]이며,
+ * 블록이 하나뿐인 세그먼트로 읽습니다. (PartitionedHistoryStore.compact()가 버전 2로 다시 씀)
+ * 세그먼트 파일은 임시 파일에 쓴 뒤 원자적으로 이름을 바꾸어 만들어지며, 만들어진 뒤에는 수정하지 않습니다.
+ * 버전 2 세그먼트는 블록을 읽기 위해 파일을 열어 두므로, 더 이상 쓰지 않으면 close()로 닫아야 합니다.
+ */
+public class HistorySegment {
+
+    private static final int MAGIC = 0x444B4853; // "DKHS"
+    private static final byte VERSION = 2;        // 2: 블록 단위 압축
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 4 + 8 + 8 + 4 + 4; // 블록 위치 표 앞까지
+    // 블록 하나의 행 수. 행 하나를 읽을 때 이만큼만 풀어서 캐시에 보관함
+    static final int BLOCK_ROWS = 4096;
+
+    private final File file;
+    private final int startRow;
+    private final int count;
+    private final long minTime;  // 가장 이른 대여 시간 (epoch 초)
+    private final long maxTime;  // 가장 늦은 대여 시간 (epoch 초)
+    private final int blockRows;     // 블록 하나의 행 수 (버전 1은 전체 행 수)
+    private final long[] offsets;    // 블록 i의 파일 위치는 [offsets[i], offsets[i+1]) (버전 1은 null)
+    private final FileChannel channel; // 블록을 읽기 위해 열어 둔 파일 (버전 1은 null)
+
+    private HistorySegment(File file, int startRow, int count, long minTime, long maxTime, int blockRows, long[] offsets,
+                           FileChannel channel) {
+        this.file = file;
+        this.startRow = startRow;
+        this.count = count;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        this.blockRows = blockRows;
+        this.offsets = offsets;
+        this.channel = channel;
+    }
+
+    // --- 생성 ---
+
+    /**
+     * 새 세그먼트 파일을 만듭니다.
+     * @param directory 보관소 디렉터리
+     * @param startRow 첫 기록의 (전체 대여 기록 기준) 행 번호
+     * @param count 기록 수
+     * @param records i번째(0부터) 기록을 돌려주는 함수. 한 건씩 읽어 바로 기록하므로 전체를 메모리에 올리지 않음
+     * @return 만들어진 세그먼트
+     */
+    public static HistorySegment write(File directory, int startRow, int count, IntFunction<RentalRecord> records) throws IOException {
+        // 헤더에 쓸 시간 범위를 먼저 계산
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            long time = HistoryStore.toEpochSecond(records.apply(i).getRentalTime());
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+        }
+
+        // 이름은 이전 형식(파일 전체가 GZIP)과 같게 유지
+        File target = new File(directory, String.format("seg-%010d-%010d.gz", startRow, startRow + count));
+        File temp = new File(directory, target.getName() + ".tmp");
+        int blocks = (count + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        long[] offsets = new long[blocks + 1];
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // 블록을 먼저 쓰고, 위치가 정해진 뒤에 헤더를 씀
+            offsets[0] = HEADER_SIZE + (long) (blocks + 1) * Long.BYTES;
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            for (int b = 0; b < blocks; b++) {
+                int first = b * BLOCK_ROWS;
+                int rows = Math.min(BLOCK_ROWS, count - first);
+                block.reset();
+                GZIPOutputStream gzip = new GZIPOutputStream(block);
+                BinaryCodec.HistoryWriter writer = new BinaryCodec.HistoryWriter(gzip, rows);
+                for (int i = 0; i < rows; i++) {
+                    writer.write(records.apply(first + i));
+                }
+                gzip.finish();
+                writeFully(out, ByteBuffer.wrap(block.toByteArray()), offsets[b]);
+                offsets[b + 1] = offsets[b] + block.size();
+            }
+            ByteBuffer header = ByteBuffer.allocate((int) offsets[0]);
+            header.putInt(MAGIC).put(VERSION).putInt(startRow).putInt(count).putLong(minTime).putLong(maxTime)
+                    .putInt(BLOCK_ROWS).putInt(blocks);
+            for (long offset : offsets) {
+                header.putLong(offset);
+            }
+            header.flip();
+            writeFully(out, header, 0);
+            out.force(true);
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new HistorySegment(target, startRow, count, minTime, maxTime, BLOCK_ROWS, offsets,
+                FileChannel.open(target.toPath(), StandardOpenOption.READ));
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+
+    /**
+     * 연속된 여러 세그먼트를 하나로 합친 새 세그먼트 파일을 만듭니다. (원본 파일은 호출한 쪽에서 삭제)
+     * @param directory 보관소 디렉터리
+     * @param parts 행 순서대로 이어지는 세그먼트 목록
+     * @return 합쳐진 세그먼트
+     */
+    public static HistorySegment merge(File directory, List<HistorySegment> parts) throws IOException {
+        int startRow = parts.get(0).startRow;
+        int total = 0;
+        for (HistorySegment part : parts) {
+            total += part.count;
+        }
+        // 원본 세그먼트를 차례로 한 건씩 읽어 새 파일에 씀 (write()가 시간 범위 계산과 기록을 위해 두 번 순회하므로 두 번 읽힘)
+        SequentialReader reader = new SequentialReader(parts);
+        try {
+            return write(directory, startRow, total, reader::get);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * 세그먼트 파일의 헤더만 읽어 엽니다. (본문은 필요할 때 readBlock() 또는 stream()으로 읽음)
+     */
+    public static HistorySegment open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getShort(0) == (short) 0x1F8B) { // GZIP 매직 넘버: 이전 형식(버전 1)
+                channel.close();
+                return openVersion1(file);
+            }
+            if (header.getInt() != MAGIC) {
+                throw new IOException("대여 기록 세그먼트 형식이 올바르지 않습니다: " + file.getName());
+            }
+            header.get(); // 버전
+            int startRow = header.getInt();
+            int count = header.getInt();
+            long minTime = header.getLong();
+            long maxTime = header.getLong();
+            int blockRows = header.getInt();
+            int blocks = header.getInt();
+            ByteBuffer table = ByteBuffer.allocate((blocks + 1) * Long.BYTES);
+            readFully(channel, table, HEADER_SIZE);
+            table.flip();
+            long[] offsets = new long[blocks + 1];
+            for (int i = 0; i <= blocks; i++) {
+                offsets[i] = table.getLong();
+            }
+            return new HistorySegment(file, startRow, count, minTime, maxTime, blockRows, offsets, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static HistorySegment openVersion1(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("대여 기록 세그먼트 형식이 올바르지 않습니다: " + file.getName());
+            }
+            in.readUnsignedByte(); // 버전
+            int startRow = BinaryCodec.readVarInt(in);
+            int count = BinaryCodec.readVarInt(in);
+            return new HistorySegment(file, startRow, count, in.readLong(), in.readLong(), Math.max(count, 1), null, null);
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("대여 기록 세그먼트가 잘렸습니다.");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * 블록을 읽기 위해 열어 둔 파일을 닫습니다.
+     */
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("대여 기록 세그먼트 닫기 중 오류 발생: " + e.getMessage());
+            }
+        }
+    }
+
+    // --- 조회 ---
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getStartRow() {
+        return startRow;
+    }
+
+    public int getEndRow() {
+        return startRow + count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return 이전 형식(파일 전체가 하나의 GZIP 스트림)이면 true
+     */
+    public boolean isLegacyFormat() {
+        return offsets == null;
+    }
+
+    /**
+     * @return 행이 속한 블록 번호
+     */
+    public int blockOf(int row) {
+        return (row - startRow) / blockRows;
+    }
+
+    /**
+     * @return 이 세그먼트가 속한 달 (가장 이른 대여 시간 기준)
+     */
+    public YearMonth getMonth() {
+        return YearMonth.from(HistoryStore.toDateTime(minTime));
+    }
+
+    /**
+     * @return 대여 시간이 [from, to) 구간에 속하는 기록이 있을 수 있으면 true
+     */
+    public boolean overlaps(long from, long to) {
+        return minTime < to && maxTime >= from;
+    }
+
+    /**
+     * @return 다른 세그먼트의 행 구간을 모두 포함하면 true (합치기 도중 종료되어 남은 원본 판별용)
+     */
+    public boolean contains(HistorySegment other) {
+        return startRow <= other.startRow && other.getEndRow() <= getEndRow();
+    }
+
+    /**
+     * 블록 하나를 풀어 열 배열로 읽습니다. 행 단위 조회를 위해 캐시에 보관하는 용도입니다. (이전 형식은 본문 전체)
+     * @param block 블록 번호 (blockOf()의 반환 값)
+     */
+    public Rows readBlock(int block) throws IOException {
+        int first = startRow + block * blockRows;
+        Rows rows = new Rows(first, Math.min(blockRows, getEndRow() - first));
+        try (InputStream in = openBlock(block)) {
+            BinaryCodec.HistoryReader reader = new BinaryCodec.HistoryReader(in);
+            RentalRecord record;
+            for (int i = 0; i < rows.count && (record = reader.next()) != null; i++) {
+                rows.userIds[i] = record.getUser().getId();
+                rows.userNames[i] = record.getUser().getName();
+                rows.itemNames[i] = record.getItemName();
+                rows.rentalTimes[i] = HistoryStore.toEpochSecond(record.getRentalTime());
+                rows.returnTimes[i] = returnTimeOf(record);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 본문을 한 건씩 풀면서 visitor에 전달합니다. (블록을 차례로 풀며, 전체를 메모리에 올리지 않음)
+     */
+    public void stream(HistoryStore.RowVisitor visitor) throws IOException {
+        try (RecordStream records = new RecordStream(this)) {
+            RentalRecord record;
+            int row = startRow;
+            while ((record = records.next()) != null) {
+                visitor.visit(row++, record.getUser().getId(), record.getUser().getName(), record.getItemName(),
+                        HistoryStore.toEpochSecond(record.getRentalTime()), returnTimeOf(record));
+            }
+        }
+    }
+
+    private static long returnTimeOf(RentalRecord record) {
+        return (record.getReturnTime() == null) ? HistoryStore.NOT_RETURNED : HistoryStore.toEpochSecond(record.getReturnTime());
+    }
+
+    private int blockCount() {
+        return (offsets == null) ? 1 : offsets.length - 1;
+    }
+
+    /**
+     * 블록 하나의 압축을 푸는 스트림을 엽니다. 스트림은 BinaryCodec 대여 기록 스트림의 처음에 위치합니다.
+     */
+    private InputStream openBlock(int block) throws IOException {
+        if (offsets == null) {
+            DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+            skipHeader(in);
+            return in;
+        }
+        ByteBuffer compressed = ByteBuffer.allocate((int) (offsets[block + 1] - offsets[block]));
+        readFully(channel, compressed, offsets[block]);
+        return new GZIPInputStream(new ByteArrayInputStream(compressed.array()));
+    }
+
+    private static void skipHeader(DataInputStream in) throws IOException {
+        in.readInt();
+        in.readUnsignedByte();
+        BinaryCodec.readVarInt(in);
+        BinaryCodec.readVarInt(in);
+        in.readLong();
+        in.readLong();
+    }
+
+    /**
+     * 풀어 놓은 블록 하나 (열 단위 배열). 보관된 기록은 바뀌지 않으므로 같은 행은 어느 세그먼트에서 읽어도 값이 같습니다.
+     */
+    public static class Rows {
+        final int firstRow;  // 0번 원소의 (전체 대여 기록 기준) 행 번호
+        final int count;
+        final String[] userIds;
+        final String[] userNames;
+        final String[] itemNames;
+        final long[] rentalTimes;
+        final long[] returnTimes;
+
+        Rows(int firstRow, int count) {
+            this.firstRow = firstRow;
+            this.count = count;
+            userIds = new String[count];
+            userNames = new String[count];
+            itemNames = new String[count];
+            rentalTimes = new long[count];
+            returnTimes = new long[count];
+        }
+
+        /**
+         * @return 이 블록에 행이 있으면 true
+         */
+        boolean contains(int row) {
+            return row >= firstRow && row - firstRow < count;
+        }
+    }
+
+    /**
+     * 세그먼트의 기록을 블록 순서대로 한 건씩 읽는 스트림
+     */
+    private static class RecordStream implements Closeable {
+        private final HistorySegment segment;
+        private int block = -1;
+        private InputStream in;
+        private BinaryCodec.HistoryReader reader;
+
+        RecordStream(HistorySegment segment) {
+            this.segment = segment;
+        }
+
+        /**
+         * @return 다음 기록. 더 이상 없으면 null
+         */
+        RentalRecord next() throws IOException {
+            RentalRecord record;
+            while (reader == null || (record = reader.next()) == null) {
+                if (block + 1 >= segment.blockCount()) {
+                    return null;
+                }
+                close();
+                in = segment.openBlock(++block);
+                reader = new BinaryCodec.HistoryReader(in);
+            }
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+
+    /**
+     * 여러 세그먼트를 순서대로 한 건씩 읽는 Reader (merge() 전용)
+     * 0번 기록부터 차례로 요청된다고 가정하며, 처음으로 되돌아가면 다시 열어 읽습니다.
+     */
+    private static class SequentialReader implements Closeable {
+        private final List<HistorySegment> parts;
+        private int partIndex;
+        private int position;   // 다음에 돌려줄 기록 번호
+        private RecordStream records;
+
+        SequentialReader(List<HistorySegment> parts) {
+            this.parts = parts;
+        }
+
+        RentalRecord get(int index) {
+            try {
+                if (index == 0 || index != position) {
+                    restart();
+                    while (position < index) {
+                        next();
+                    }
+                }
+                return next();
+            } catch (IOException e) {
+                throw new UncheckedIOException("대여 기록 세그먼트 읽기 중 오류 발생", e);
+            }
+        }
+
+        private RentalRecord next() throws IOException {
+            RentalRecord record;
+            while ((record = records.next()) == null) {
+                partIndex++;
+                openPart();
+            }
+            position++;
+            return record;
+        }
+
+        private void restart() throws IOException {
+            close();
+            partIndex = 0;
+            position = 0;
+            openPart();
+        }
+
+        private void openPart() {
+            close();
+            records = new RecordStream(parts.get(partIndex));
+        }
+
+        @Override
+        public void close() {
+            if (records != null) {
+                try {
+                    records.close();
+                } catch (IOException e) {
+                    System.err.println("대여 기록 세그먼트 닫기 중 오류 발생: " + e.getMessage());
+                }
+                records = null;
+            }
+        }
+    }
+}
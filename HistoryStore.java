@@ -0,0 +1,203 @@
+// 파일 이름: HistoryStore.java
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * 대여 기록 저장소 인터페이스입니다.
+ * 대여 기록을 RentalRecord 객체 목록으로 들고 있는 대신, 행(row) 번호와 열(column) 값으로 접근합니다.
+ * 구현체는 각 열을 기본형 배열이나 파일 등에 그대로 보관할 수 있으므로,
+ * 조회하는 쪽(RentalService, RentalHistoryDialog 등)은 객체를 만들지 않고 필요한 값만 읽을 수 있습니다.
+ *
+ * 시간 값은 초 단위 epoch 값(LocalDateTime을 UTC 기준으로 변환한 값)으로 다룹니다.
+ */
+public interface HistoryStore extends Closeable {
+
+    /**
+     * 아직 반납되지 않은 기록의 반납 시간 값
+     */
+    long NOT_RETURNED = Long.MIN_VALUE;
+
+    /**
+     * @return 저장된 전체 대여 기록 수
+     */
+    int size();
+
+    // --- 열(column) 조회 메소드 ---
+    String getUserId(int row);
+    String getUserName(int row);
+    String getItemName(int row);
+    long getRentalTime(int row);   // 대여 시간 (epoch 초)
+    long getReturnTime(int row);   // 반납 시간 (epoch 초). 대여 중이면 NOT_RETURNED
+
+    /**
+     * 새 대여 기록을 추가합니다.
+     * @param user 대여한 사용자
+     * @param itemName 대여한 물품 이름
+     * @param rentalTime 대여 시간 (epoch 초)
+     * @return 추가된 기록의 행 번호
+     */
+    int append(User user, String itemName, long rentalTime);
+
+    /**
+     * 대여 기록에 반납 시간을 기록합니다.
+     * @param row 행 번호
+     * @param returnTime 반납 시간 (epoch 초)
+     */
+    void markReturned(int row, long returnTime);
+
+    /**
+     * 한 사용자가 한 번에 대여한 여러 물품의 기록을 추가합니다. (묶음 대여)
+     * 잠금을 쓰는 구현은 이 메소드 전체를 한 번의 잠금으로 처리하므로, 묶음의 행 번호가 연속되고 다른 대여가 끼어들지 않습니다.
+     * @param user 대여한 사용자
+     * @param itemNames 대여한 물품 이름 (한 개당 하나씩, 같은 이름이 여러 번 올 수 있음)
+     * @param rentalTime 대여 시간 (epoch 초)
+     * @return 추가된 기록의 행 번호 (itemNames와 같은 순서)
+     */
+    default int[] appendAll(User user, List<String> itemNames, long rentalTime) {
+        int[] rows = new int[itemNames.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = append(user, itemNames.get(i), rentalTime);
+        }
+        return rows;
+    }
+
+    /**
+     * 여러 대여 기록에 같은 반납 시간을 기록합니다. (묶음 반납)
+     * @param rows 행 번호
+     * @param returnTime 반납 시간 (epoch 초)
+     */
+    default void markReturnedAll(int[] rows, long returnTime) {
+        for (int row : rows) {
+            markReturned(row, returnTime);
+        }
+    }
+
+    /**
+     * 기록된 내용을 디스크 등 영구 저장소에 반영합니다. (메모리 기반 구현은 아무것도 하지 않음)
+     */
+    void flush();
+
+    /**
+     * 저장소를 닫습니다. 닫기 전에 flush()가 수행됩니다.
+     */
+    @Override
+    void close();
+
+    /**
+     * 해당 행의 사용자를 반환합니다. 대여 기록에는 비밀번호가 저장되지 않으므로 비밀번호는 빈 문자열입니다.
+     */
+    default User getUser(int row) {
+        return new User(getUserId(row), getUserName(row), "", "");
+    }
+
+    /**
+     * 해당 행이 아직 반납되지 않은 기록인지 확인합니다.
+     */
+    default boolean isOpen(int row) {
+        return getReturnTime(row) == NOT_RETURNED;
+    }
+
+    /**
+     * 한 행을 RentalRecord 객체로 만들어 반환합니다. (기존 코드와의 호환용)
+     * 호출할 때마다 새 객체가 만들어지므로, 많은 행을 읽을 때는 열 조회 메소드를 사용하세요.
+     * 반환된 객체를 수정해도 저장소에는 반영되지 않습니다.
+     * @param row 행 번호
+     * @return 해당 행의 대여 기록
+     */
+    default RentalRecord getRecord(int row) {
+        long returnTime = getReturnTime(row);
+        return new RentalRecord(getUser(row), getItemName(row), toDateTime(getRentalTime(row)),
+                (returnTime == NOT_RETURNED) ? null : toDateTime(returnTime));
+    }
+
+    /**
+     * [from, to) 구간의 행을 차례로 읽는 커서를 반환합니다.
+     * 기본 구현은 열 조회 메소드를 행마다 호출하며, 구현체는 내부 구조에 맞게 더 빠른 커서를 제공할 수 있습니다.
+     * @param from 첫 행 번호 (포함)
+     * @param to 끝 행 번호 (제외). 보통 size()
+     * @return 첫 행 앞에 위치한 커서
+     */
+    default HistoryCursor cursor(int from, int to) {
+        return new HistoryCursor.RowCursor(this, from, to);
+    }
+
+    /**
+     * 저장소를 RentalRecord 목록처럼 읽을 수 있는 읽기 전용 뷰를 반환합니다. (List&lt;RentalRecord&gt;를 받는 기존 코드와의 호환용)
+     * 원소는 get() 할 때마다 getRecord()로 새로 만들어지므로 목록 자체는 메모리를 거의 쓰지 않으며, 이후 추가된 기록도 바로 보입니다.
+     */
+    default List<RentalRecord> asRecordList() {
+        return new AbstractList<RentalRecord>() {
+            @Override
+            public RentalRecord get(int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException("행 번호: " + index + ", 크기: " + size());
+                }
+                return getRecord(index);
+            }
+
+            @Override
+            public int size() {
+                return HistoryStore.this.size();
+            }
+        };
+    }
+
+    /**
+     * 아직 반납되지 않은 모든 행의 번호를 순서대로 전달합니다.
+     * 기본 구현은 전체 행을 훑으며, 반납된 기록만 따로 보관하는 구현체는 보관된 부분을 건너뛸 수 있습니다.
+     * @param action 행 번호를 받을 작업
+     */
+    default void forEachOpenRow(IntConsumer action) {
+        int size = size();
+        for (int row = 0; row < size; row++) {
+            if (isOpen(row)) {
+                action.accept(row);
+            }
+        }
+    }
+
+    /**
+     * 대여 시간이 [from, to) 구간에 속하는 기록을 행 순서대로 전달합니다.
+     * 기본 구현은 전체 행을 훑으며, 기간별로 나뉘어 보관하는 구현체는 해당 기간의 기록만 읽을 수 있습니다.
+     * @param from 시작 시간 (epoch 초, 포함)
+     * @param to 끝 시간 (epoch 초, 제외)
+     * @param visitor 각 기록을 받을 작업
+     */
+    default void forEachInPeriod(long from, long to, RowVisitor visitor) {
+        int size = size();
+        for (int row = 0; row < size; row++) {
+            long rentalTime = getRentalTime(row);
+            if (rentalTime >= from && rentalTime < to) {
+                visitor.visit(row, getUserId(row), getUserName(row), getItemName(row), rentalTime, getReturnTime(row));
+            }
+        }
+    }
+
+    /**
+     * forEachInPeriod()가 기록 한 건의 값을 전달할 때 사용하는 함수형 인터페이스
+     */
+    interface RowVisitor {
+        void visit(int row, String userId, String userName, String itemName, long rentalTime, long returnTime);
+    }
+
+    // --- 시간 변환 유틸리티 ---
+
+    static long toEpochSecond(LocalDateTime time) {
+        return BinaryCodec.toEpochSecond(time);
+    }
+
+    static LocalDateTime toDateTime(long epochSecond) {
+        return BinaryCodec.fromEpochSecond(epochSecond);
+    }
+
+    /**
+     * 현재 시간을 epoch 초로 반환합니다. (LocalDateTime.now() 기준. 대여/반납마다 호출되므로 객체를 만들지 않음)
+     */
+    static long now() {
+        return BinaryCodec.currentEpochSecond();
+    }
+}
@@ -0,0 +1,419 @@
+// 파일 이름: HistoryTableModel.java
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 대여 기록 저장소(HistoryStore)를 표에 바로 보여주는 테이블 모델입니다.
+ * DefaultTableModel처럼 모든 행을 미리 문자열로 만들어 복사해 두지 않고, JTable이 화면에 보이는 셀을 그릴 때
+ * getValueAt()에서 저장소의 값을 읽어 그때그때 문자열로 바꿉니다. 따라서 기록이 수십만 건이어도 창이 바로 열립니다.
+ *
+ * 필터와 정렬은 기록을 복사하지 않고 표시할 행 번호 배열(인덱스)만 만들어 처리합니다.
+ * 필터와 정렬이 모두 없으면 인덱스 없이 저장소의 행 번호를 그대로 사용합니다.
+ * 행 번호 배열은 기록 수에 비례하는 작업이므로 EDT가 아닌 작업 스레드(history-table)에서 만들고, 끝나면 EDT에서 표를 바꿉니다.
+ * 그동안 표는 이전 결과를 보여주며(isLoading()), 결과를 기다리는 사이에 조건이 다시 바뀌면 이전 결과는 버립니다.
+ * RentalHistoryQuery가 주어지면 대여 중 상태나 대여 기간 조건은 인덱스로 후보 행만 골라 검사하고, 그 밖의 경우에는 전체 기록을 훑습니다.
+ * 모델을 만든 뒤(또는 refresh() 이후)에 추가된 기록은 다음 refresh() 때 표시됩니다.
+ * 모든 public 메소드는 EDT에서 호출해야 합니다.
+ */
+public class HistoryTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    public static final int USER_COLUMN = 0;
+    public static final int ITEM_COLUMN = 1;
+    public static final int RENTAL_COLUMN = 2;
+    public static final int RETURN_COLUMN = 3;
+
+    private static final String[] COLUMN_NAMES = {"사용자", "물품명", "대여시간", "반납시간"};
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // 필터/정렬 결과를 만드는 작업 스레드 (모든 모델이 함께 사용, 프로그램 종료를 막지 않음)
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "history-table");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final HistoryStore history;
+    private final RentalHistoryQuery query; // 후보 행을 고르는 인덱스 (없으면 null)
+    private Filter filter = new Filter();
+    private int sortColumn = -1;     // 정렬 기준 열 (-1이면 저장된 순서)
+    private boolean ascending = true;
+
+    private int rowCount;            // 표시할 행 수
+    private int[] rows;              // 표시할 행 번호 (필터/정렬이 없으면 null = 0 ~ rowCount-1)
+    private int generation;          // refresh() 요청 번호 (늦게 끝난 이전 요청의 결과를 버리기 위함)
+    private boolean loading;         // 작업 스레드에서 결과를 만드는 중
+
+    /**
+     * @param history 표시할 대여 기록 저장소
+     */
+    public HistoryTableModel(HistoryStore history) {
+        this(history, null);
+    }
+
+    /**
+     * @param history 표시할 대여 기록 저장소
+     * @param query history의 대여 기록 인덱스 (RentalService.getHistoryQuery()). null이면 검색할 때 전체 기록을 훑음
+     */
+    public HistoryTableModel(HistoryStore history, RentalHistoryQuery query) {
+        this.history = history;
+        this.query = query;
+        refresh();
+    }
+
+    // --- AbstractTableModel 구현 ---
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column != sortColumn) {
+            return COLUMN_NAMES[column];
+        }
+        return COLUMN_NAMES[column] + (ascending ? " ▲" : " ▼");
+    }
+
+    /**
+     * 화면에 그려지는 셀의 값만 이 메소드로 요청되므로, 날짜 문자열도 이때 만듭니다.
+     */
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int row = toStoreRow(rowIndex);
+        switch (columnIndex) {
+            case USER_COLUMN:
+                return history.getUserName(row);
+            case ITEM_COLUMN:
+                return history.getItemName(row);
+            case RENTAL_COLUMN:
+                return HistoryStore.toDateTime(history.getRentalTime(row)).format(FORMATTER);
+            case RETURN_COLUMN:
+                // 반납된 기록이면 포맷에 맞게 변환하고, 대여 중이면 "(대여 중)"으로 표시
+                return history.isOpen(row) ? " (대여 중)" : HistoryStore.toDateTime(history.getReturnTime(row)).format(FORMATTER);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 표의 행 위치를 저장소의 행 번호로 바꿉니다.
+     */
+    public int toStoreRow(int rowIndex) {
+        return (rows == null) ? rowIndex : rows[rowIndex];
+    }
+
+    // --- 필터와 정렬 ---
+
+    /**
+     * 필터를 바꾸고 표를 다시 만듭니다.
+     */
+    public void setFilter(Filter filter) {
+        this.filter = filter;
+        refresh();
+    }
+
+    /**
+     * 열 기준으로 정렬합니다. 이미 그 열로 정렬되어 있으면 순서를 뒤집습니다.
+     * @param column 정렬할 열
+     */
+    public void sortBy(int column) {
+        if (column == sortColumn) {
+            ascending = !ascending;
+        } else {
+            sortColumn = column;
+            ascending = true;
+        }
+        refresh();
+        fireTableStructureChanged(); // 열 제목의 정렬 표시(▲/▼) 갱신
+    }
+
+    /**
+     * @return 작업 스레드에서 필터/정렬 결과를 만드는 중이면 true (그동안 표는 이전 결과를 보여줌)
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * 저장소의 현재 기록으로 필터와 정렬을 다시 적용합니다.
+     * 필터와 정렬이 없으면 바로 적용하고, 있으면 작업 스레드에서 행 번호 배열을 만든 뒤 EDT에서 표를 바꿉니다.
+     */
+    public void refresh() {
+        int size = history.size();
+        int requested = ++generation;
+        if (filter.isEmpty() && sortColumn < 0) {
+            loading = false;
+            rows = null;
+            rowCount = size;
+            fireTableDataChanged();
+            return;
+        }
+        loading = true;
+        Filter f = filter;
+        int column = sortColumn;
+        boolean asc = ascending;
+        CompletableFuture.supplyAsync(() -> compute(f, column, asc, size), WORKER)
+                .whenComplete((selected, error) -> SwingUtilities.invokeLater(() -> {
+                    if (requested != generation) {
+                        return; // 결과를 기다리는 사이에 다시 요청됨
+                    }
+                    loading = false;
+                    if (error != null) {
+                        System.err.println("대여 기록 검색 중 오류 발생: " + error.getMessage());
+                    }
+                    rows = (error != null) ? new int[0] : selected;
+                    rowCount = rows.length;
+                    fireTableDataChanged();
+                }));
+    }
+
+    /**
+     * 표시할 행 번호 배열을 만듭니다. (작업 스레드에서 실행되므로 모델의 필드 대신 인자만 사용)
+     */
+    private int[] compute(Filter filter, int sortColumn, boolean ascending, int size) {
+        int[] selected;
+        if (filter.isEmpty()) {
+            selected = new int[size];
+            for (int i = 0; i < size; i++) {
+                selected[i] = i;
+            }
+        } else {
+            selected = select(filter, size);
+        }
+        if (sortColumn >= 0) {
+            sort(selected, sortColumn, ascending);
+        }
+        return selected;
+    }
+
+    /**
+     * 필터에 맞는 행 번호를 모읍니다. 열 값만 읽으며, 같은 이름에 대한 검사 결과는 재사용합니다.
+     * 인덱스로 후보를 고를 수 있으면 후보만 검사하고, 아니면 커서로 전체 기록을 훑습니다.
+     */
+    private int[] select(Filter filter, int size) {
+        IntList result = new IntList();
+        Map<String, Boolean> userMatches = new HashMap<>();
+        Map<String, Boolean> itemMatches = new HashMap<>();
+        int[] candidates = candidates(filter);
+        if (candidates != null) {
+            for (int row : candidates) {
+                if (row < size && filter.matches(history.getRentalTime(row), history.isOpen(row), history.getUserName(row),
+                        history.getItemName(row), userMatches, itemMatches)) {
+                    result.add(row);
+                }
+            }
+            return result.toArray();
+        }
+        HistoryCursor cursor = history.cursor(0, size);
+        while (cursor.next()) {
+            if (filter.matches(cursor.getRentalTime(), cursor.isOpen(), cursor.getUserName(), cursor.getItemName(),
+                    userMatches, itemMatches)) {
+                result.add(cursor.getRow());
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * 인덱스(RentalHistoryQuery)로 필터의 후보 행을 저장소 순서로 고릅니다.
+     * @return 후보 행 번호. 인덱스가 없거나 인덱스로 좁힐 수 없는 조건이면 null (전체를 훑음)
+     */
+    private int[] candidates(Filter filter) {
+        if (query == null) {
+            return null;
+        }
+        RentalHistoryQuery.Cursor cursor;
+        if (filter.status == Status.OPEN) {
+            cursor = query.openRentals();
+        } else if (filter.from != Long.MIN_VALUE || filter.to != Long.MAX_VALUE) {
+            cursor = query.rentedBetween(filter.from, filter.to);
+        } else {
+            return null;
+        }
+        int[] candidates = cursor.nextPage(cursor.getCount());
+        Arrays.sort(candidates); // 대여 시간 순서 → 저장소 순서 (정렬하지 않았을 때의 표시 순서)
+        return candidates;
+    }
+
+    /**
+     * 행 번호 배열을 정렬 기준 열의 값으로 정렬합니다.
+     * 각 행의 정렬 키(시간, 또는 이름의 순위)를 long 배열로 한 번만 만든 뒤 기본형끼리 비교합니다.
+     */
+    private void sort(int[] selected, int sortColumn, boolean ascending) {
+        long[] keys = new long[selected.length];
+        if (sortColumn == USER_COLUMN || sortColumn == ITEM_COLUMN) {
+            // 이름 → 순위. 서로 다른 이름만 정렬하므로 기록 수가 많아도 문자열 비교는 적음
+            Map<String, Integer> ranks = new HashMap<>();
+            String[] names = new String[selected.length];
+            for (int i = 0; i < selected.length; i++) {
+                names[i] = (sortColumn == USER_COLUMN) ? history.getUserName(selected[i]) : history.getItemName(selected[i]);
+                ranks.putIfAbsent(names[i], 0);
+            }
+            List<String> distinct = new ArrayList<>(ranks.keySet());
+            Collections.sort(distinct);
+            for (int rank = 0; rank < distinct.size(); rank++) {
+                ranks.put(distinct.get(rank), rank);
+            }
+            for (int i = 0; i < selected.length; i++) {
+                keys[i] = ranks.get(names[i]);
+            }
+        } else {
+            for (int i = 0; i < selected.length; i++) {
+                keys[i] = (sortColumn == RENTAL_COLUMN) ? history.getRentalTime(selected[i]) : history.getReturnTime(selected[i]);
+            }
+        }
+        mergeSort(selected, keys, new int[selected.length], new long[selected.length], 0, selected.length);
+        if (!ascending) {
+            for (int i = 0, j = selected.length - 1; i < j; i++, j--) {
+                int tmp = selected[i];
+                selected[i] = selected[j];
+                selected[j] = tmp;
+            }
+        }
+    }
+
+    /**
+     * keys 기준으로 rows와 keys를 함께 정렬하는 안정 정렬 (같은 값이면 원래 순서 = 대여 순서 유지)
+     */
+    private static void mergeSort(int[] rows, long[] keys, int[] rowBuffer, long[] keyBuffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(rows, keys, rowBuffer, keyBuffer, from, mid);
+        mergeSort(rows, keys, rowBuffer, keyBuffer, mid, to);
+        if (keys[mid - 1] <= keys[mid]) {
+            return; // 이미 정렬됨 (대여 시간 정렬은 대부분 여기서 끝남)
+        }
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            if (keys[j] < keys[i]) {
+                rowBuffer[k] = rows[j];
+                keyBuffer[k++] = keys[j++];
+            } else {
+                rowBuffer[k] = rows[i];
+                keyBuffer[k++] = keys[i++];
+            }
+        }
+        while (i < mid) {
+            rowBuffer[k] = rows[i];
+            keyBuffer[k++] = keys[i++];
+        }
+        while (j < to) {
+            rowBuffer[k] = rows[j];
+            keyBuffer[k++] = keys[j++];
+        }
+        System.arraycopy(rowBuffer, from, rows, from, to - from);
+        System.arraycopy(keyBuffer, from, keys, from, to - from);
+    }
+
+    /**
+     * 대여 상태 필터
+     */
+    public enum Status {
+        ALL("전체"), OPEN("대여 중"), RETURNED("반납 완료");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * 표에 보여줄 기록의 조건. 빈 문자열 조건은 적용하지 않습니다.
+     */
+    public static class Filter {
+        final String user;    // 사용자 이름의 일부 (대소문자 무시)
+        final String item;    // 물품 이름의 일부 (대소문자 무시)
+        final long from;      // 대여 시간 시작 (epoch 초, 포함)
+        final long to;        // 대여 시간 끝 (epoch 초, 제외)
+        final Status status;
+
+        /**
+         * 조건이 없는 필터 (모든 기록)
+         */
+        public Filter() {
+            this("", "", Long.MIN_VALUE, Long.MAX_VALUE, Status.ALL);
+        }
+
+        public Filter(String user, String item, long from, long to, Status status) {
+            this.user = user.trim().toLowerCase();
+            this.item = item.trim().toLowerCase();
+            this.from = from;
+            this.to = to;
+            this.status = status;
+        }
+
+        boolean isEmpty() {
+            return user.isEmpty() && item.isEmpty() && from == Long.MIN_VALUE && to == Long.MAX_VALUE && status == Status.ALL;
+        }
+
+        /**
+         * 기록 하나가 조건에 맞는지 검사합니다. 이름 검사 결과는 userMatches/itemMatches에 모아 같은 이름에 다시 쓰입니다.
+         */
+        boolean matches(long rentalTime, boolean open, String userName, String itemName,
+                        Map<String, Boolean> userMatches, Map<String, Boolean> itemMatches) {
+            if (rentalTime < from || rentalTime >= to) {
+                return false;
+            }
+            if (status != Status.ALL && open != (status == Status.OPEN)) {
+                return false;
+            }
+            if (!user.isEmpty() && !userMatches.computeIfAbsent(userName, this::matchesUser)) {
+                return false;
+            }
+            return item.isEmpty() || itemMatches.computeIfAbsent(itemName, this::matchesItem);
+        }
+
+        boolean matchesUser(String userName) {
+            return userName.toLowerCase().contains(user);
+        }
+
+        boolean matchesItem(String itemName) {
+            return itemName.toLowerCase().contains(item);
+        }
+    }
+
+    /**
+     * 크기가 늘어나는 int 배열 (Integer 객체를 만들지 않기 위해 사용)
+     */
+    private static class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
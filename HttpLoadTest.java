@@ -0,0 +1,235 @@
+// 파일 이름: HttpLoadTest.java
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RentalHttpServer의 부하 테스트 클라이언트입니다. 실행 중인 서버에 동시 연결 N개로 요청을 계속 보내고,
+ * 초당 처리 요청 수와 지연 시간(p50/p99/최대)을 출력합니다.
+ *
+ * 사용법: java HttpLoadTest [호스트] [포트] [동시 연결 수] [시간(초)]
+ *  예) java HttpLoadTest localhost 8080 2000 10
+ *
+ * 키오스크처럼 연결마다 keep-alive 소켓 하나를 열어 두고, 응답을 받으면 바로 다음 요청을 보냅니다.
+ * (java.net.http.HttpClient는 연결이 수천 개일 때 클라이언트 쪽이 먼저 한계에 닿아 서버를 측정할 수 없으므로,
+ *  요청/응답을 소켓에 직접 쓰고 읽음)
+ * 요청은 물품 목록 조회 8회마다 대여/반납(student1 계정)을 한 번씩 섞습니다.
+ * 대여 실패(재고 없음 등)도 정상 응답(200)이므로 지연 시간에 포함됩니다.
+ */
+public class HttpLoadTest {
+
+    // 연결마다 스레드 하나를 쓰므로 스택을 작게 잡아 수천 개를 띄울 수 있게 함
+    private static final long WORKER_STACK_SIZE = 256 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        InetSocketAddress address = new InetSocketAddress(host, port);
+
+        // 대여/반납에 쓸 토큰을 먼저 받아 둠
+        String token;
+        try (Connection connection = new Connection(address)) {
+            String body = connection.exchange(request(host, "POST", "/api/login", null,
+                    "{\"id\":\"student1\",\"password\":\"1234\"}"));
+            token = extractToken(body);
+            if (token == null) {
+                System.err.println("로그인 중 오류 발생: " + body);
+                return;
+            }
+        }
+        byte[] items = request(host, "GET", "/api/items?limit=50", null, null);
+        byte[] rent = request(host, "POST", "/api/rent", token, "{\"item\":\"C타입 충전기\"}");
+        byte[] giveBack = request(host, "POST", "/api/return", token, "{\"item\":\"C타입 충전기\"}");
+        byte[][] mix = {items, items, items, items, items, items, items, items, rent,
+                items, items, items, items, items, items, items, items, giveBack};
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Worker> workers = new ArrayList<>(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(address, mix, i, deadline);
+            workers.add(worker);
+            Thread thread = new Thread(null, worker, "load-" + i, WORKER_STACK_SIZE);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            thread.start();
+        }
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        // 작업자마다 따로 모은 지연 시간을 합쳐 정렬
+        long failures = 0;
+        int total = 0;
+        for (Worker worker : workers) {
+            failures += worker.failures;
+            total += worker.count;
+        }
+        long[] latencies = new long[total];
+        int filled = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, filled, worker.count);
+            filled += worker.count;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("동시 연결 %d개, %.1f초: 요청 %d건 (실패 %d건), %.0f 요청/초%n",
+                concurrency, elapsed, total, failures, total / elapsed);
+        if (total > 0) {
+            System.out.printf("지연 시간: p50 %.2fms, p99 %.2fms, 최대 %.2fms%n",
+                    percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                    latencies[total - 1] / 1e6);
+        }
+    }
+
+    /**
+     * HTTP/1.1 요청 바이트를 만듭니다. (반복해서 보내므로 한 번만 만들어 둠)
+     */
+    private static byte[] request(String host, String method, String path, String token, String json) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(method).append(' ').append(path).append(" HTTP/1.1\r\nHost: ").append(host).append("\r\n");
+        if (token != null) {
+            sb.append("Authorization: Bearer ").append(token).append("\r\n");
+        }
+        byte[] body = (json == null) ? new byte[0] : json.getBytes(StandardCharsets.UTF_8);
+        if (json != null) {
+            sb.append("Content-Type: application/json\r\nContent-Length: ").append(body.length).append("\r\n");
+        }
+        byte[] head = sb.append("\r\n").toString().getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = Arrays.copyOf(head, head.length + body.length);
+        System.arraycopy(body, 0, bytes, head.length, body.length);
+        return bytes;
+    }
+
+    private static String extractToken(String json) {
+        int start = json.indexOf("\"token\":\"");
+        if (start < 0) {
+            return null;
+        }
+        start += "\"token\":\"".length();
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    /**
+     * keep-alive 연결 하나. 요청을 보내고 Content-Length만큼 응답 본문을 읽습니다.
+     */
+    private static class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final InputStream in;
+        private int status;
+
+        Connection(InetSocketAddress address) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(address, 10_000);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream(), 8192);
+        }
+
+        /**
+         * @return 응답 본문
+         */
+        String exchange(byte[] request) throws IOException {
+            out.write(request);
+            out.flush();
+            String statusLine = readLine();
+            status = Integer.parseInt(statusLine.substring(9, 12)); // "HTTP/1.1 200 OK"
+            int length = 0;
+            String line;
+            while (!(line = readLine()).isEmpty()) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    length = Integer.parseInt(line.substring(15).trim());
+                }
+            }
+            return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder(64);
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new EOFException("서버가 연결을 닫았습니다.");
+                }
+                if (c != '\r') {
+                    sb.append((char) c);
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * 연결 하나를 맡는 작업자. 응답을 받을 때마다 순서표(mix)의 다음 요청을 보냅니다.
+     */
+    private static class Worker implements Runnable {
+        private final InetSocketAddress address;
+        private final byte[][] mix;
+        private final long deadline;
+        private int next;
+        Thread thread;
+
+        // 결과 (스레드가 끝난 뒤 join()을 거쳐 읽음)
+        long[] latencies = new long[256];
+        int count;
+        long failures;
+
+        Worker(InetSocketAddress address, byte[][] mix, int offset, long deadline) {
+            this.address = address;
+            this.mix = mix;
+            this.next = offset % mix.length; // 작업자마다 다른 위치에서 시작하여 대여/반납이 몰리지 않게 함
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                try (Connection connection = new Connection(address)) {
+                    while (System.nanoTime() < deadline) {
+                        byte[] request = mix[next];
+                        next = (next + 1) % mix.length;
+                        long sentAt = System.nanoTime();
+                        connection.exchange(request);
+                        if (connection.getStatus() != 200) {
+                            failures++;
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sentAt;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failures++; // 연결이 끊기면 다시 연결
+                }
+            }
+        }
+    }
+}
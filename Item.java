@@ -2,15 +2,24 @@
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 대여 가능한 물품의 정보를 담는 데이터 모델 클래스
  * Serializable 인터페이스를 구현하여 객체 상태를 파일에 저장하고 불러올 수 있습니다. (직렬화)
  * 또한, 옵저버 패턴(Observer Pattern)을 사용하여 물품의 상태(예: 재고)가 변경될 때마다
  * 등록된 옵저버(주로 UI 컴포넌트)에게 변경 사실을 알려 UI를 자동으로 업데이트합니다.
+ *
+ * 여러 스레드(키오스크, API 등)가 동시에 대여/반납할 수 있도록, 재고를 확인하고 변경하는 작업은
+ * 물품 객체 자신의 잠금(synchronized)으로 보호됩니다. 서로 다른 물품은 서로 다른 잠금을 사용하므로
+ * 다른 물품에 대한 대여는 서로 기다리지 않고 병렬로 처리됩니다.
  */
 
 public class Item implements Serializable {
@@ -19,16 +28,38 @@ public class Item implements Serializable {
     private static final long serialVersionUID = 1L;
 
     // --- 필드(Fields) ---
+    private int id;                     // 물품 번호 (ItemCatalog에 추가될 때 부여되며 이후 바뀌지 않음. 0이면 미부여)
     private final String name;          // 물품의 이름 (변경 불가)
     private final int maxStock;         // 최대 재고량 (변경 불가)
     private final double baseFee;       // 기본 대여 요금
-    private List<User> renters;         // 현재 이 물품을 대여 중인 사용자 목록
+
+    /**
+     * 현재 이 물품을 대여 중인 사용자 ID → 대여 수량. (this 잠금으로 보호)
+     * 같은 사용자가 여러 개를 빌릴 수 있으므로 사용자 목록 대신 ID별 개수를 저장합니다.
+     * 해시 기반이므로 대여/반납/대여 여부 확인이 모두 O(1)이며, 파일에는 User 객체 대신 ID 문자열만 저장됩니다.
+     * 모두 반납한 사용자의 항목은 MAX_IDLE_RENTERS개까지 0으로 남겨, 같은 사용자가 다시 빌릴 때 맵 항목을 새로 만들지 않습니다.
+     * 그보다 많으면 지우므로, 맵의 크기는 지금 대여 중인 사용자 수 + MAX_IDLE_RENTERS를 넘지 않습니다.
+     * (0인 항목은 getRenterCounts()와 저장 시에 빠짐)
+     */
+    private Map<String, Integer> renterCounts;
+    private int rentedCount;            // 전체 대여 수량 (renterCounts 값의 합)
+    private transient int idleRenters;  // renterCounts에서 값이 0인 항목 수
+
+    // 모두 반납한 사용자의 항목을 0으로 남겨 둘 최대 개수
+    private static final int MAX_IDLE_RENTERS = 64;
+
+    /**
+     * (이전 버전 호환용) 예전 items.dat에는 대여자 User 객체 목록이 이 필드로 저장되어 있습니다.
+     * 불러올 때 renterCounts로 옮긴 뒤 null로 비우므로, 다시 저장할 때는 기록되지 않습니다.
+     */
+    private List<User> renters;
 
     /**
      * 옵저버(Observer) 목록. 'transient' 키워드는 이 필드가 직렬화(파일 저장) 과정에서
      * 제외됨을 의미합니다. UI 컴포넌트와 같은 객체는 저장할 필요가 없기 때문입니다.
+     * 알림 도중 다른 스레드가 옵저버를 추가해도 안전하도록 CopyOnWriteArrayList를 사용합니다.
      */
-    private transient List<Observer> observers = new ArrayList<>();
+    private transient List<Observer> observers = new CopyOnWriteArrayList<>();
 
     /**
      * Item 객체 생성자
@@ -40,23 +71,78 @@ public class Item implements Serializable {
         this.name = name;
         this.maxStock = initialStock;
         this.baseFee = baseFee;
-        this.renters = new ArrayList<>();
+        this.renterCounts = new HashMap<>();
     }
     
     // --- Getter 메소드 ---
+    public int getId() { return id; }
     public String getName() { return name; }
     public int getMaxStock() { return maxStock; }
     public double getBaseFee() { return baseFee; }
 
     /**
      * 현재 대여 가능한 재고량을 계산하여 반환합니다.
-     * (최대 재고 - 현재 대여자 수)
+     * (최대 재고 - 현재 대여 수량)
      * @return 현재 재고량
      */
-    public int getCurrentStock() {
-        return maxStock - renters.size();
+    public synchronized int getCurrentStock() {
+        return maxStock - rentedCount;
+    }
+
+    /**
+     * 특정 사용자가 이 물품을 몇 개 대여 중인지 반환합니다.
+     * @param userId 사용자 ID
+     * @return 대여 수량 (대여 중이 아니면 0)
+     */
+    public synchronized int getRentedCountBy(String userId) {
+        return renterCounts.getOrDefault(userId, 0);
+    }
+    
+    /**
+     * 현재 대여자 ID별 대여 수량의 복사본을 반환합니다. (파일 저장용)
+     * @return 사용자 ID → 대여 수량
+     */
+    public synchronized Map<String, Integer> getRenterCounts() {
+        Map<String, Integer> copy = new HashMap<>(renterCounts);
+        copy.values().removeIf(count -> count == 0);
+        return copy;
+    }
+
+    /**
+     * 물품 번호를 부여합니다. (ItemCatalog, BinaryCodec, 저널 복원에서 사용)
+     * @param id 1 이상의 물품 번호
+     */
+    void assignId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * 파일에서 불러온 대여 상태를 복원합니다. (BinaryCodec에서 사용)
+     * 옵저버에게 알리지 않으며, 최대 재고 검사도 하지 않습니다.
+     * @param userId 사용자 ID
+     * @param count 대여 수량
+     */
+    synchronized void restoreRenter(String userId, int count) {
+        renterCounts.merge(userId, count, Integer::sum);
+        rentedCount += count;
     }
     
+    /**
+     * 서버에서 받은 재고를 반영합니다. (키오스크 클라이언트가 서버 물품의 사본으로 만든 물품에서 사용)
+     * 사본에는 대여자 정보가 없으므로 대여 수량만 맞추고, 재고가 바뀌었을 때만 옵저버에게 알립니다.
+     * @param stock 서버의 현재 재고
+     */
+    void applyRemoteStock(int stock) {
+        synchronized (this) {
+            int rented = maxStock - stock;
+            if (rented == rentedCount) {
+                return;
+            }
+            rentedCount = rented;
+        }
+        notifyObservers();
+    }
+
     // --- 핵심 로직 메소드 (대여/반납) ---
     
     /**
@@ -65,12 +151,30 @@ public class Item implements Serializable {
      * @return 대여 성공 시 true, 재고가 없어 실패 시 false
      */
     public boolean rentTo(User user) {
-        if (getCurrentStock() > 0) {
-            renters.add(user);
-            notifyObservers(); // 상태 변경을 옵저버에게 알림
-            return true;
+        if (!rentWithoutNotify(user, 1)) {
+            return false;
         }
-        return false;
+        notifyObservers(); // 상태 변경을 옵저버에게 알림
+        return true;
+    }
+
+    /**
+     * 재고가 충분하면 count개를 대여 처리하되, 옵저버에게 알리지 않습니다.
+     * (RentalService에서 사용. 잠금을 모두 푼 뒤 한 건이면 notifyObservers(), 묶음이면 notifyObservers(List)로 한 번에 알림)
+     * @return 대여했으면 true, 재고가 count개보다 적으면 false (아무것도 바꾸지 않음)
+     */
+    synchronized boolean rentWithoutNotify(User user, int count) {
+        // 재고 확인과 대여 수량 증가를 하나의 원자적 작업으로 처리 (0 <= 재고 <= 최대 재고 보장)
+        if (maxStock - rentedCount < count) {
+            return false;
+        }
+        Integer rented = renterCounts.get(user.getId());
+        if (rented != null && rented == 0) {
+            idleRenters--; // 남겨 둔 항목을 다시 씀
+        }
+        renterCounts.put(user.getId(), (rented == null) ? count : rented + count);
+        rentedCount += count;
+        return true;
     }
     
     /**
@@ -79,22 +183,61 @@ public class Item implements Serializable {
      * @return 반납 성공 시 true, 해당 사용자가 대여 중이 아닐 경우 false
      */
     public boolean returnBy(User user) {
-        if (renters.contains(user)) {
-            renters.remove(user);
-            notifyObservers(); // 상태 변경을 옵저버에게 알림
-            return true;
+        if (!returnWithoutNotify(user, 1)) {
+            return false;
         }
-        return false;
+        notifyObservers(); // 상태 변경을 옵저버에게 알림
+        return true;
+    }
+
+    /**
+     * 사용자가 count개 이상 대여 중이면 count개를 반납 처리하되, 옵저버에게 알리지 않습니다. (RentalService에서 사용, 알림은 rentWithoutNotify()와 같음)
+     * @return 반납했으면 true, 대여 수량이 count개보다 적으면 false (아무것도 바꾸지 않음)
+     */
+    synchronized boolean returnWithoutNotify(User user, int count) {
+        Integer rented = renterCounts.get(user.getId());
+        if (rented == null || rented < count) { // 대여 중이 아니거나 수량이 모자람
+            return false;
+        }
+        if (rented == count && idleRenters >= MAX_IDLE_RENTERS) {
+            renterCounts.remove(user.getId()); // 남겨 둔 항목이 이미 많으면 지움
+        } else {
+            renterCounts.put(user.getId(), rented - count); // 0이 되어도 남겨 다음 대여에 재사용
+            if (rented == count) {
+                idleRenters++;
+            }
+        }
+        rentedCount -= count;
+        return true;
     }
 
     // --- 옵저버 패턴 관련 메소드 ---
 
     /**
      * 이 물품의 상태 변화를 감지할 옵저버를 추가합니다.
+     * 나중에 해제가 필요하다면 subscribe()가 반환하는 핸들을 사용하세요.
      * @param observer 추가할 옵저버 객체
      */
     public void addObserver(Observer observer) {
+        subscribe(observer);
+    }
+
+    /**
+     * 옵저버를 등록하고, 등록을 해제할 수 있는 핸들을 반환합니다.
+     * @param observer 추가할 옵저버 객체
+     * @return 구독 해제 핸들
+     */
+    public Subscription subscribe(Observer observer) {
         getObservers().add(observer);
+        return () -> removeObserver(observer);
+    }
+
+    /**
+     * 등록된 옵저버를 제거합니다.
+     * @param observer 제거할 옵저버 객체
+     */
+    public void removeObserver(Observer observer) {
+        getObservers().remove(observer);
     }
     
     /**
@@ -106,6 +249,30 @@ public class Item implements Serializable {
         getObservers().forEach(observer -> observer.update(this));
     }
 
+    /**
+     * 한 작업으로 여러 물품이 바뀌었을 때, 옵저버마다 자신이 관찰하는 물품들을 모아 updateAll()을 한 번씩 호출합니다.
+     * (여러 물품을 관찰하는 화면 등이 물품마다 따로 알림을 받지 않도록 함)
+     * @param changed 상태가 변경된 물품 목록
+     */
+    static void notifyObservers(List<Item> changed) {
+        Map<Observer, List<Item>> byObserver = new IdentityHashMap<>();
+        List<Observer> order = new ArrayList<>(); // 알림 순서는 처음 등장한 순서대로
+        for (Item item : changed) {
+            for (Observer observer : item.getObservers()) {
+                List<Item> observed = byObserver.get(observer);
+                if (observed == null) {
+                    observed = new ArrayList<>();
+                    byObserver.put(observer, observed);
+                    order.add(observer);
+                }
+                observed.add(item);
+            }
+        }
+        for (Observer observer : order) {
+            observer.updateAll(byObserver.get(observer));
+        }
+    }
+
     // --- 유틸리티 및 재정의 메소드 ---
 
     /**
@@ -122,7 +289,7 @@ public class Item implements Serializable {
      */
     private List<Observer> getObservers() {
         if (observers == null) {
-            observers = new ArrayList<>();
+            observers = new CopyOnWriteArrayList<>();
         }
         return observers;
     }
@@ -133,11 +300,28 @@ public class Item implements Serializable {
      */
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject(); // 기본 역직렬화 수행
-        this.observers = new ArrayList<>(); // observers 리스트 초기화
+        this.observers = new CopyOnWriteArrayList<>(); // observers 리스트 초기화
 
-        // 데이터 무결성을 위한 방어 코드
-        if (this.renters == null) {
-            this.renters = new ArrayList<>();
+        // 이전 버전 파일 마이그레이션: User 객체 목록을 사용자 ID별 수량으로 변환
+        if (this.renterCounts == null) {
+            this.renterCounts = new HashMap<>();
+            if (this.renters != null) {
+                for (User user : this.renters) {
+                    renterCounts.merge(user.getId(), 1, Integer::sum);
+                }
+                this.rentedCount = this.renters.size();
+            }
         }
+        this.renters = null; // 다음 저장부터는 User 객체를 기록하지 않음
+    }
+
+    /**
+     * 직렬화(파일에 저장) 시 호출되는 특별 메소드입니다.
+     * 다른 스레드가 대여/반납 중에 저장하더라도 일관된 대여자 목록이 기록되도록 잠금을 잡고 저장합니다.
+     */
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        renterCounts.values().removeIf(count -> count == 0); // 모두 반납한 사용자는 저장하지 않음
+        idleRenters = 0;
+        out.defaultWriteObject();
     }
 }
\ No newline at end of file
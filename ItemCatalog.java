@@ -0,0 +1,186 @@
+// 파일 이름: ItemCatalog.java
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 전체 물품 목록을 관리하는 클래스입니다.
+ * 물품 번호와 대소문자를 무시한 물품 이름으로 해시 인덱스를 유지하므로, 이름 중복 검사, 추가, 삭제, 조회를
+ * 물품 수와 관계없이 상수 시간(O(1))에 처리합니다. (기존 List&lt;Item&gt;는 매번 전체를 훑어야 했음)
+ *
+ * 물품 번호는 추가될 때 한 번 부여되며, 물품이 삭제되어도 같은 번호를 다른 물품에 다시 쓰지 않습니다.
+ * 이름은 대소문자를 무시하고 중복을 허용하지 않습니다. ("USB"와 "usb"는 같은 물품)
+ * 물품 선택 상자와 관리자 창의 입력 중 검색(search())을 위해 이름 검색 인덱스(NameSearchIndex)도 함께 갱신합니다.
+ *
+ * 물품이 추가/삭제되면 등록된 Listener에게 해당 물품과 함께 알리므로, 화면은 목록 전체를 다시 만들지 않고
+ * 바뀐 물품만 반영할 수 있습니다. 알림은 잠금을 푼 뒤 변경한 스레드에서 호출됩니다.
+ * 관리자 창(EDT), 대여 서비스, 체크포인트 스레드에서 함께 사용하므로 모든 메소드는 this 잠금으로 동기화되어 있습니다.
+ */
+public class ItemCatalog {
+
+    // 물품 번호 → 물품 (추가된 순서 유지)
+    private final Map<Integer, Item> byId = new LinkedHashMap<>();
+    // 대소문자를 무시한 이름 → 물품
+    private final Map<String, Item> byName = new HashMap<>();
+    private int nextId = 1; // 다음에 부여할 물품 번호
+    // 이름의 앞부분/부분/초성 검색용 인덱스
+    private final NameSearchIndex<Item> searchIndex = new NameSearchIndex<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 빈 물품 목록을 생성합니다.
+     */
+    public ItemCatalog() {
+    }
+
+    /**
+     * 주어진 물품들로 목록을 생성합니다. 이름이 중복되면 먼저 나온 물품만 추가됩니다.
+     * @param items 초기 물품 목록 (파일에서 불러온 목록 등). 번호가 없는 물품에는 차례로 번호를 부여
+     */
+    public ItemCatalog(Collection<Item> items) {
+        this(items, 1);
+    }
+
+    /**
+     * 파일에서 불러온 물품과 다음 물품 번호로 목록을 생성합니다. (BinaryCodec에서 사용)
+     * @param nextId 저장 당시의 다음 물품 번호. 삭제된 물품의 번호를 다시 쓰지 않기 위해 함께 저장됨
+     */
+    ItemCatalog(Collection<Item> items, int nextId) {
+        this.nextId = Math.max(1, nextId);
+        for (Item item : items) {
+            add(item);
+        }
+    }
+
+    /**
+     * 물품 이름을 인덱스 키로 바꿉니다. (대소문자 무시, 기본 로케일의 영향을 받지 않도록 Locale.ROOT 사용)
+     */
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 물품을 추가합니다. 번호가 없는 물품(0)에는 새 번호를 부여합니다.
+     * @param item 추가할 물품
+     * @return 추가했으면 true, 같은 이름(대소문자 무시) 또는 같은 번호의 물품이 이미 있으면 false
+     */
+    public boolean add(Item item) {
+        synchronized (this) {
+            String key = fold(item.getName());
+            if (byName.containsKey(key) || (item.getId() != 0 && byId.containsKey(item.getId()))) {
+                return false;
+            }
+            if (item.getId() == 0) {
+                item.assignId(nextId);
+            }
+            nextId = Math.max(nextId, item.getId() + 1);
+            byId.put(item.getId(), item);
+            byName.put(key, item);
+            searchIndex.add(item, item.getName());
+        }
+        listeners.forEach(listener -> listener.itemAdded(item));
+        return true;
+    }
+
+    /**
+     * 이름으로 물품을 삭제합니다. (대소문자 무시)
+     * @param name 삭제할 물품 이름
+     * @return 삭제된 물품. 없으면 null
+     */
+    public Item remove(String name) {
+        Item item;
+        synchronized (this) {
+            item = byName.remove(fold(name));
+            if (item == null) {
+                return null;
+            }
+            byId.remove(item.getId());
+            searchIndex.remove(item);
+        }
+        listeners.forEach(listener -> listener.itemRemoved(item));
+        return item;
+    }
+
+    /**
+     * 이름으로 물품을 찾습니다. (대소문자 무시)
+     * @return 물품. 없으면 null
+     */
+    public synchronized Item find(String name) {
+        return byName.get(fold(name));
+    }
+
+    /**
+     * 번호로 물품을 찾습니다.
+     * @return 물품. 없으면 null
+     */
+    public synchronized Item findById(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * 이름으로 물품을 검색합니다. (입력 중 검색용. 앞부분/부분/초성 일치, 예: "ㅂㅈ" → "보조배터리")
+     * @param query 검색어. 비어 있으면 추가된 순서대로 반환
+     * @param limit 최대 결과 수
+     * @return 앞부분이 일치하는 물품이 먼저 나오는 검색 결과
+     */
+    public synchronized List<Item> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * 같은 이름(대소문자 무시)의 물품이 있는지 확인합니다. (관리자 창의 이름 중복 검사용)
+     */
+    public synchronized boolean contains(String name) {
+        return byName.containsKey(fold(name));
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    /**
+     * 다음에 부여할 물품 번호를 반환합니다. (파일 저장용)
+     */
+    synchronized int getNextId() {
+        return nextId;
+    }
+
+    /**
+     * 전체 물품 목록을 추가된 순서대로 복사하여 반환합니다. (화면 표시, 파일 저장용)
+     * 반환된 목록을 수정해도 이 객체에는 반영되지 않습니다.
+     */
+    public synchronized List<Item> toList() {
+        return new ArrayList<>(byId.values());
+    }
+
+    // --- 변경 알림 ---
+
+    /**
+     * 물품 추가/삭제 알림을 받을 리스너를 등록합니다.
+     * @return 구독 해제 핸들
+     */
+    public Subscription subscribe(Listener listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * 물품 목록의 변경을 전달받는 리스너. 변경한 스레드에서 호출되므로, 화면을 바꾸려면 EDT로 넘겨야 합니다.
+     */
+    public interface Listener {
+        void itemAdded(Item item);
+
+        void itemRemoved(Item item);
+    }
+}
@@ -0,0 +1,311 @@
+// 파일 이름: KioskBenchmark.java
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 키오스크 서버(KioskServer)의 루프백 벤치마크입니다.
+ * 같은 프로토콜과 같은 요청 처리(KioskServer.handleRequest)를 두 가지 방식으로 서비스하여 비교합니다.
+ *  - selector: KioskServer. 스레드 하나가 Selector로 모든 연결을 처리 (대여/반납만 작업 스레드 하나로 넘김)
+ *  - thread-per-request: 연결마다 읽기 스레드를 두고, 요청이 올 때마다 새 스레드를 만들어 처리 (기존 방식의 기준선)
+ *
+ * 사용법: java KioskBenchmark [동시 연결 수] [단계별 시간(초)]
+ *  예) java KioskBenchmark 200 5
+ *
+ * 각 연결은 로그인한 뒤 응답을 받을 때마다 다음 요청을 보냅니다. 요청 종류별로 단계를 나눠 측정합니다.
+ *  - stock: 재고 조회만 (RentalService를 거치지 않는 순수 프로토콜 처리)
+ *  - rent/return: 같은 물품의 대여와 반납을 번갈아 (재고가 줄지 않음)
+ * selector 방식은 선택 루프 스레드가 요청 하나당 할당한 메모리(바이트)도 함께 출력합니다.
+ * (JDK의 epoll Selector는 준비된 연결을 찾을 때 파일 번호를 Integer로 바꾸므로, 연결이 많으면 번호가 127을 넘어
+ *  요청마다 수 바이트가 할당됩니다. -XX:AutoBoxCacheMax=65536으로 실행하면 이것까지 없앨 수 있습니다.)
+ * 데이터는 메모리(ArrayHistoryStore)에만 두고 저널을 쓰지 않으므로, 실제 파일에는 영향을 주지 않습니다.
+ */
+public class KioskBenchmark {
+
+    private static final int ITEM_COUNT = 16;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        UserDirectory users = new UserDirectory();
+        for (int i = 0; i < connections; i++) {
+            users.add(new User("kiosk" + i, "키오스크" + i, "Student", "1234"));
+        }
+        ItemCatalog items = new ItemCatalog();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(new Item("벤치마크 물품 " + i, connections, 1000.0)); // 모든 연결이 동시에 빌려도 재고가 남음
+        }
+        RentalService rentalService = new RentalService(new ArrayHistoryStore());
+
+        try (KioskServer server = new KioskServer(rentalService, users, items);
+             ThreadPerRequestServer baseline = new ThreadPerRequestServer(server)) {
+            server.start(0);
+            System.out.printf("동시 연결 %d개, 단계별 %d초 (처음 한 번은 JIT 예열)%n", connections, seconds);
+            run("selector", server.getPort(), connections, 1, KioskProtocol.STOCK, null); // 예열
+            run("thread-per-request", baseline.getPort(), connections, 1, KioskProtocol.STOCK, null);
+            for (byte phase : new byte[]{KioskProtocol.STOCK, KioskProtocol.RENT}) {
+                run("selector", server.getPort(), connections, seconds, phase, server.getLoopThread()).print();
+                run("thread-per-request", baseline.getPort(), connections, seconds, phase, null).print();
+            }
+        }
+    }
+
+    /**
+     * 한 단계를 실행합니다.
+     * @param phase STOCK이면 재고 조회만, RENT면 대여/반납을 번갈아 보냄
+     * @param serverThread 할당량을 잴 서버 스레드 (없으면 null)
+     */
+    private static Result run(String name, int port, int connections, int seconds, byte phase, Thread serverThread)
+            throws InterruptedException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Client> clients = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            Client client = new Client(port, "kiosk" + i, 1 + i % ITEM_COUNT, phase, deadline);
+            client.thread = new Thread(null, client, "bench-" + i, 256 * 1024);
+            clients.add(client);
+        }
+        clients.forEach(client -> client.thread.start());
+        // 모든 연결이 로그인한 뒤부터 요청을 다 보낼 때까지의 할당량을 잼 (로그인과 연결 종료 처리의 할당은 제외)
+        long allocatedBefore = 0;
+        for (Client client : clients) {
+            client.ready.await();
+        }
+        if (serverThread != null) {
+            allocatedBefore = threads.getThreadAllocatedBytes(serverThread.getId());
+        }
+        long start = System.nanoTime();
+        for (Client client : clients) {
+            client.done.await();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long allocated = (serverThread == null) ? -1 : threads.getThreadAllocatedBytes(serverThread.getId()) - allocatedBefore;
+        for (Client client : clients) {
+            client.thread.join();
+        }
+
+        int total = 0;
+        int failures = 0;
+        for (Client client : clients) {
+            total += client.count;
+            failures += client.failures;
+        }
+        long[] latencies = new long[total];
+        int filled = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, filled, client.count);
+            filled += client.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(name, (phase == KioskProtocol.STOCK) ? "stock" : "rent/return", total, failures, elapsed, latencies, allocated);
+    }
+
+    /**
+     * 한 단계의 측정 결과
+     */
+    private static class Result {
+        final String server;
+        final String phase;
+        final int total;
+        final int failures;
+        final double elapsed;
+        final long[] latencies;
+        final long allocated;
+
+        Result(String server, String phase, int total, int failures, double elapsed, long[] latencies, long allocated) {
+            this.server = server;
+            this.phase = phase;
+            this.total = total;
+            this.failures = failures;
+            this.elapsed = elapsed;
+            this.latencies = latencies;
+            this.allocated = allocated;
+        }
+
+        void print() {
+            String allocation = (allocated < 0 || total == 0) ? "-" : String.format("%.1f바이트/요청", (double) allocated / total);
+            System.out.printf("%-18s %-11s %9.0f 요청/초  p50 %7.3fms  p99 %7.3fms  실패 %d  서버 할당 %s%n",
+                    server, phase, total / elapsed, percentile(0.50) / 1e6, percentile(0.99) / 1e6, failures, allocation);
+        }
+
+        private long percentile(double p) {
+            return (total == 0) ? 0 : latencies[Math.min(total - 1, (int) Math.ceil(p * total) - 1)];
+        }
+    }
+
+    /**
+     * 연결 하나를 맡는 벤치마크 클라이언트. 응답을 받을 때마다 다음 요청을 보냅니다.
+     */
+    private static class Client implements Runnable {
+        private final int port;
+        private final String userId;
+        private final int itemId;
+        private final byte phase;
+        private final long deadline;
+        final CountDownLatch ready = new CountDownLatch(1); // 로그인을 마침
+        final CountDownLatch done = new CountDownLatch(1);  // 요청을 모두 보냄
+        Thread thread;
+
+        long[] latencies = new long[1024];
+        int count;
+        int failures;
+
+        Client(int port, String userId, int itemId, byte phase, long deadline) {
+            this.port = port;
+            this.userId = userId;
+            this.itemId = itemId;
+            this.phase = phase;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            try (Socket socket = new Socket()) {
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress("localhost", port));
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                login(out, in);
+                ready.countDown();
+
+                // 요청 프레임은 미리 만들어 두고 그대로 다시 보냄
+                byte[] first = frame(phase, itemId);
+                byte[] second = frame((phase == KioskProtocol.RENT) ? KioskProtocol.RETURN : phase, itemId);
+                byte[] response = new byte[KioskProtocol.RESULT_SIZE];
+                boolean useFirst = true;
+                while (System.nanoTime() < deadline) {
+                    long sentAt = System.nanoTime();
+                    out.write(useFirst ? first : second);
+                    in.readFully(response);
+                    long latency = System.nanoTime() - sentAt;
+                    useFirst = !useFirst;
+                    if (response[6] != KioskProtocol.OK) { // 길이(4) + RESULT(1) + 요청 종류(1) 다음이 상태
+                        failures++;
+                        continue;
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = latency;
+                }
+                done.countDown(); // 연결을 닫기 전에 알림 (연결 종료 처리의 할당은 제외)
+            } catch (IOException e) {
+                failures++;
+                System.err.println("벤치마크 연결 중 오류 발생: " + e.getMessage());
+            } finally {
+                ready.countDown();
+                done.countDown();
+            }
+        }
+
+        private void login(DataOutputStream out, DataInputStream in) throws IOException {
+            byte[] id = userId.getBytes(StandardCharsets.UTF_8);
+            byte[] password = "1234".getBytes(StandardCharsets.UTF_8);
+            out.writeInt(1 + 2 + id.length + 2 + password.length);
+            out.writeByte(KioskProtocol.LOGIN);
+            out.writeShort(id.length);
+            out.write(id);
+            out.writeShort(password.length);
+            out.write(password);
+            out.flush();
+            int length = in.readInt();
+            byte type = in.readByte();
+            in.skipNBytes(length - 1);
+            if (type != KioskProtocol.LOGIN_OK) {
+                throw new IOException(userId + " 로그인 실패");
+            }
+        }
+
+        private static byte[] frame(byte type, int itemId) {
+            return ByteBuffer.allocate(KioskProtocol.HEADER_SIZE + 1 + 4).putInt(1 + 4).put(type).putInt(itemId).array();
+        }
+    }
+
+    /**
+     * 비교 기준선: 블로킹 소켓으로 연결마다 읽기 스레드를 두고, 요청마다 새 스레드를 만들어 처리하는 서버.
+     * 요청 처리는 KioskServer.handleRequest()를 그대로 사용하므로 차이는 연결/스레드 처리 방식뿐입니다. (대여/반납도 요청 스레드에서 바로 실행)
+     */
+    private static class ThreadPerRequestServer implements AutoCloseable {
+        private final KioskServer handler;
+        private final ServerSocket serverSocket;
+
+        ThreadPerRequestServer(KioskServer handler) throws IOException {
+            this.handler = handler;
+            this.serverSocket = new ServerSocket(0, 4096);
+            Thread acceptor = new Thread(this::acceptLoop, "thread-per-request-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    socket.setTcpNoDelay(true);
+                    Thread reader = new Thread(() -> serve(socket), "thread-per-request-reader");
+                    reader.setDaemon(true);
+                    reader.start();
+                } catch (IOException e) {
+                    return; // 서버 소켓이 닫힘
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            KioskServer.Session session = new KioskServer.Session(null, null, null);
+            try (socket) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                OutputStream out = socket.getOutputStream();
+                while (true) {
+                    int length = in.readInt();
+                    byte[] request = new byte[length];
+                    in.readFully(request);
+                    // 요청마다 새 스레드에서 처리하고 응답을 씀 (같은 연결의 요청은 순서대로 처리되도록 끝날 때까지 기다림)
+                    Thread worker = new Thread(() -> respond(session, request, out), "thread-per-request-worker");
+                    worker.start();
+                    worker.join();
+                }
+            } catch (IOException e) {
+                // 클라이언트가 연결을 닫음
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void respond(KioskServer.Session session, byte[] request, OutputStream out) {
+            ByteBuffer in = ByteBuffer.wrap(request);
+            ByteBuffer response = ByteBuffer.allocate(KioskProtocol.MAX_REQUEST_SIZE);
+            byte type = in.get();
+            handler.handleRequest(session, type, in, response);
+            try {
+                out.write(response.array(), 0, response.position());
+            } catch (IOException e) {
+                // 클라이언트가 연결을 닫음
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
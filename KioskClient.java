@@ -0,0 +1,315 @@
+// 파일 이름: KioskClient.java
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 키오스크 서버(KioskServer)에 접속하는 클라이언트입니다. (MainAppFrame의 키오스크 모드에서 사용)
+ * 서버의 물품 목록을 받아 이 클라이언트의 ItemCatalog에 사본으로 유지하고, 구독한 뒤에는 서버가 보내는
+ * 재고/물품 목록 변경을 사본에 반영합니다. 사본의 Item과 ItemCatalog는 평소처럼 옵저버/리스너에게 알리므로,
+ * 화면은 로컬 목록을 쓸 때와 같은 방식으로 갱신됩니다.
+ *
+ * 요청은 한 번에 하나씩 보내고 응답을 기다립니다. 서버가 보내는 프레임은 수신 스레드가 읽어,
+ * 응답은 기다리는 요청에 넘기고 알림은 바로 사본에 반영합니다.
+ */
+public class KioskClient implements AutoCloseable {
+
+    // 응답을 기다리는 최대 시간 (초)
+    private static final int RESPONSE_TIMEOUT_SECONDS = 10;
+
+    private final String host;
+    private final int port;
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+
+    // 서버 물품 목록의 사본
+    private final ItemCatalog catalog = new ItemCatalog();
+    private final CountDownLatch catalogLoaded = new CountDownLatch(1);
+    // 수신 스레드가 받은 응답 (요청 순서대로 옴)
+    private final BlockingQueue<Response> responses = new LinkedBlockingQueue<>();
+    private volatile boolean closed;
+
+    /**
+     * 서버에 접속합니다.
+     * @param host 서버 주소
+     * @param port 서버 포트
+     */
+    public KioskClient(String host, int port) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), RESPONSE_TIMEOUT_SECONDS * 1000);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        Thread reader = new Thread(this::readLoop, "kiosk-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * @return "호스트:포트" 형식의 서버 주소
+     */
+    public String getAddress() {
+        return host + ":" + port;
+    }
+
+    /**
+     * @return 서버 물품 목록의 사본 (subscribe() 이후 서버의 변경이 반영됨)
+     */
+    public ItemCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * 서버에 로그인합니다. 이후 대여/반납은 이 사용자로 처리됩니다.
+     * @return 로그인한 사용자. ID/비밀번호가 틀리거나 서버와 통신할 수 없으면 비어 있음
+     */
+    public Optional<User> login(String id, String password) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] passwordBytes = password.getBytes(StandardCharsets.UTF_8);
+        try {
+            Response response = request(KioskProtocol.LOGIN, 2 + idBytes.length + 2 + passwordBytes.length, out -> {
+                out.writeShort(idBytes.length);
+                out.write(idBytes);
+                out.writeShort(passwordBytes.length);
+                out.write(passwordBytes);
+            });
+            if (response.type != KioskProtocol.LOGIN_OK) {
+                return Optional.empty();
+            }
+            return Optional.of(new User(id, response.name, response.userType, "")); // 비밀번호는 보관하지 않음
+        } catch (IOException e) {
+            System.err.println("키오스크 로그인 중 오류 발생: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 재고/물품 목록 변경을 구독하고, 현재 물품 목록을 받아 사본을 채울 때까지 기다립니다.
+     */
+    public void subscribe() throws IOException {
+        Response response = request(KioskProtocol.SUBSCRIBE, 0, out -> { });
+        if (response.status != KioskProtocol.OK) {
+            throw new IOException("구독 실패: " + KioskProtocol.describe(response.status));
+        }
+        synchronized (this) {
+            writeFrame(KioskProtocol.CATALOG, 0, out -> { }); // 응답은 CATALOG 프레임으로 옴 (수신 스레드가 반영)
+        }
+        try {
+            if (!catalogLoaded.await(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("물품 목록을 받지 못했습니다.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("물품 목록을 기다리는 중 중단되었습니다.");
+        }
+    }
+
+    /**
+     * 물품을 대여합니다. (로그인한 사용자로 처리됨)
+     * @return 처리 결과 (RENTED, OUT_OF_STOCK, UNKNOWN_ITEM 또는 NOT_SAVED)
+     * @throws IOException 서버와 통신할 수 없거나 서버가 요청을 거절한 경우
+     */
+    public RentalResult rent(Item item) throws IOException {
+        return toResult(request(KioskProtocol.RENT, 4, out -> out.writeInt(item.getId())), RentalResult.RENTED);
+    }
+
+    /**
+     * 물품을 반납합니다. (로그인한 사용자로 처리됨)
+     * @return 처리 결과 (RETURNED, NOT_RENTED, UNKNOWN_ITEM 또는 NOT_SAVED)
+     * @throws IOException 서버와 통신할 수 없거나 서버가 요청을 거절한 경우
+     */
+    public RentalResult returnItem(Item item) throws IOException {
+        return toResult(request(KioskProtocol.RETURN, 4, out -> out.writeInt(item.getId())), RentalResult.RETURNED);
+    }
+
+    private static RentalResult toResult(Response response, RentalResult success) throws IOException {
+        switch (response.status) {
+            case KioskProtocol.OK: return success;
+            case KioskProtocol.OUT_OF_STOCK: return RentalResult.OUT_OF_STOCK;
+            case KioskProtocol.NOT_RENTED: return RentalResult.NOT_RENTED;
+            case KioskProtocol.UNKNOWN_ITEM: return RentalResult.UNKNOWN_ITEM;
+            case KioskProtocol.NOT_SAVED: return RentalResult.NOT_SAVED;
+            default: throw new IOException(KioskProtocol.describe(response.status)); // 로그인 필요, 잘못된 요청
+        }
+    }
+
+    /**
+     * 연결을 닫습니다. 수신 스레드도 함께 끝납니다.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("키오스크 연결 닫기 중 오류 발생: " + e.getMessage());
+        }
+    }
+
+    // --- 송수신 ---
+
+    @FunctionalInterface
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * 요청을 보내고 응답(RESULT 또는 LOGIN_OK)을 기다립니다. 요청은 한 번에 하나씩만 보냅니다.
+     */
+    private synchronized Response request(byte type, int payloadLength, PayloadWriter payload) throws IOException {
+        writeFrame(type, payloadLength, payload);
+        Response response;
+        try {
+            response = responses.poll(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("응답을 기다리는 중 중단되었습니다.");
+        }
+        if (response == null) {
+            throw new IOException("서버 응답 시간이 초과되었습니다.");
+        }
+        if (response == Response.CLOSED) {
+            responses.add(Response.CLOSED); // 다음 요청도 바로 실패하도록 남겨 둠
+            throw new IOException("서버 연결이 끊겼습니다.");
+        }
+        return response;
+    }
+
+    private void writeFrame(byte type, int payloadLength, PayloadWriter payload) throws IOException {
+        out.writeInt(1 + payloadLength);
+        out.writeByte(type);
+        payload.write(out);
+        out.flush();
+    }
+
+    /**
+     * 수신 스레드. 응답은 대기 중인 요청에 넘기고, 알림과 물품 목록은 사본에 반영합니다.
+     */
+    private void readLoop() {
+        try {
+            while (true) {
+                int length = in.readInt();
+                byte type = in.readByte();
+                switch (type) {
+                    case KioskProtocol.RESULT: {
+                        Response response = new Response(type);
+                        in.readByte(); // 요청 종류 (요청은 한 번에 하나이므로 확인하지 않음)
+                        response.status = in.readByte();
+                        response.itemId = in.readInt();
+                        response.stock = in.readInt();
+                        // 응답에 담긴 재고도 받은 순서대로 사본에 반영 (뒤따라 온 알림보다 늦게 덮어쓰지 않도록 수신 스레드에서 처리)
+                        Item item = catalog.findById(response.itemId);
+                        if (item != null && response.stock >= 0) {
+                            item.applyRemoteStock(response.stock);
+                        }
+                        responses.add(response);
+                        break;
+                    }
+                    case KioskProtocol.LOGIN_OK: {
+                        Response response = new Response(type);
+                        response.name = readString();
+                        response.userType = readString();
+                        responses.add(response);
+                        break;
+                    }
+                    case KioskProtocol.STOCK_CHANGED: {
+                        Item item = catalog.findById(in.readInt());
+                        int stock = in.readInt();
+                        if (item != null) {
+                            item.applyRemoteStock(stock);
+                        }
+                        break;
+                    }
+                    case KioskProtocol.CATALOG_DATA:
+                        readCatalog();
+                        catalogLoaded.countDown();
+                        break;
+                    default:
+                        in.skipNBytes(length - 1); // 모르는 프레임은 건너뜀
+                }
+            }
+        } catch (IOException e) {
+            if (!closed && !(e instanceof EOFException)) {
+                System.err.println("키오스크 서버 수신 중 오류 발생: " + e.getMessage());
+            }
+        } finally {
+            responses.add(Response.CLOSED);
+        }
+    }
+
+    /**
+     * 물품 목록 프레임을 읽어 사본에 반영합니다. 목록에 없는 물품은 삭제하고, 새 물품은 추가하고, 나머지는 재고만 맞춥니다.
+     * (삭제된 물품과 이름이 같은 새 물품이 있을 수 있으므로 삭제를 먼저 함)
+     */
+    private void readCatalog() throws IOException {
+        int count = in.readInt();
+        Item[] received = new Item[count];
+        int[] stocks = new int[count];
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            int id = in.readInt();
+            int maxStock = in.readInt();
+            stocks[i] = in.readInt();
+            double fee = in.readDouble();
+            received[i] = new Item(readString(), maxStock, fee);
+            received[i].assignId(id);
+            ids.add(id);
+        }
+        for (Item item : catalog.toList()) {
+            if (!ids.contains(item.getId())) {
+                catalog.remove(item.getName());
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Item item = catalog.findById(received[i].getId());
+            if (item == null) {
+                item = received[i];
+                item.applyRemoteStock(stocks[i]); // 추가하기 전에 재고를 맞춰 화면에 처음부터 올바른 재고가 보이게 함
+                catalog.add(item);
+            } else {
+                item.applyRemoteStock(stocks[i]);
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        byte[] bytes = in.readNBytes(in.readUnsignedShort());
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 서버의 응답 한 건
+     */
+    private static class Response {
+        // 연결이 끊겼음을 알리는 표시
+        static final Response CLOSED = new Response((byte) 0);
+
+        final byte type;
+        byte status = KioskProtocol.OK;
+        int itemId;
+        int stock;
+        String name;      // LOGIN_OK: 사용자 이름
+        String userType;  // LOGIN_OK: 사용자 타입
+
+        Response(byte type) {
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+// 파일 이름: KioskProtocol.java
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 키오스크 단말용 이진(binary) 프로토콜의 상수와 인코딩 도우미입니다. (KioskServer, KioskClient에서 사용)
+ * HTTP/JSON보다 가볍게, 요청 하나를 고정된 몇 바이트로 주고받습니다. 숫자는 모두 빅엔디언입니다.
+ *
+ * 프레임: int 길이(이 필드 뒤의 바이트 수) | byte 종류 | 내용
+ * 문자열: unsigned short 바이트 수 | UTF-8 바이트
+ *
+ * 요청 (키오스크 → 서버)
+ *  LOGIN     문자열 ID, 문자열 비밀번호   → LOGIN_OK 또는 RESULT(LOGIN_FAILED). 이후 요청은 이 사용자로 처리
+ *  CATALOG   (없음)                       → CATALOG
+ *  STOCK     int 물품 번호                → RESULT (stock에 현재 재고)
+ *  RENT      int 물품 번호                → RESULT
+ *  RETURN    int 물품 번호                → RESULT
+ *  SUBSCRIBE (없음)                       → RESULT(OK). 이후 재고가 바뀌면 STOCK_CHANGED, 물품이 추가/삭제되면 CATALOG를 보냄
+ *
+ * 응답/알림 (서버 → 키오스크)
+ *  RESULT        byte 요청 종류, byte 상태, int 물품 번호, int 현재 재고 (물품을 모르면 -1)
+ *  LOGIN_OK      문자열 이름, 문자열 사용자 타입
+ *  CATALOG       int 물품 수, (int 번호, int 최대 재고, int 현재 재고, double 기본 요금, 문자열 이름) × 물품 수
+ *  STOCK_CHANGED int 물품 번호, int 현재 재고
+ *
+ * 응답은 요청 순서대로 오지만, 구독 중이면 그 사이에 알림(STOCK_CHANGED, CATALOG)이 끼어들 수 있습니다.
+ */
+public final class KioskProtocol {
+
+    // --- 요청 종류 ---
+    public static final byte LOGIN = 0x01;
+    public static final byte CATALOG = 0x02;
+    public static final byte STOCK = 0x03;
+    public static final byte RENT = 0x04;
+    public static final byte RETURN = 0x05;
+    public static final byte SUBSCRIBE = 0x06;
+
+    // --- 응답/알림 종류 ---
+    public static final byte RESULT = 0x41;
+    public static final byte LOGIN_OK = 0x42;
+    public static final byte CATALOG_DATA = 0x43;
+    public static final byte STOCK_CHANGED = 0x44;
+
+    // --- RESULT의 상태 ---
+    public static final byte OK = 0;
+    public static final byte OUT_OF_STOCK = 1;
+    public static final byte NOT_RENTED = 2;
+    public static final byte UNKNOWN_ITEM = 3;
+    public static final byte NOT_LOGGED_IN = 4;
+    public static final byte LOGIN_FAILED = 5;
+    public static final byte BAD_REQUEST = 6;
+    public static final byte NOT_SAVED = 7; // 처리는 되었지만 서버가 디스크에 기록하지 못함
+
+    // 프레임 길이 필드(int)의 크기
+    public static final int HEADER_SIZE = 4;
+    // RESULT, STOCK_CHANGED 프레임의 전체 크기 (길이 필드 포함)
+    public static final int RESULT_SIZE = HEADER_SIZE + 1 + 1 + 1 + 4 + 4;
+    public static final int STOCK_CHANGED_SIZE = HEADER_SIZE + 1 + 4 + 4;
+    // 요청 프레임의 최대 길이. 이보다 길면 잘못된 연결로 보고 끊음
+    public static final int MAX_REQUEST_SIZE = 1024;
+
+    private KioskProtocol() {
+    }
+
+    /**
+     * RESULT 프레임을 씁니다. (공간이 충분한지는 호출하는 쪽에서 확인)
+     */
+    public static void putResult(ByteBuffer out, byte requestType, byte status, int itemId, int stock) {
+        out.putInt(RESULT_SIZE - HEADER_SIZE).put(RESULT).put(requestType).put(status).putInt(itemId).putInt(stock);
+    }
+
+    /**
+     * STOCK_CHANGED 프레임을 씁니다. (공간이 충분한지는 호출하는 쪽에서 확인)
+     */
+    public static void putStockChanged(ByteBuffer out, int itemId, int stock) {
+        out.putInt(STOCK_CHANGED_SIZE - HEADER_SIZE).put(STOCK_CHANGED).putInt(itemId).putInt(stock);
+    }
+
+    /**
+     * 문자열을 (unsigned short 길이 + UTF-8) 형식으로 씁니다.
+     */
+    public static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("문자열이 너무 깁니다: " + bytes.length + "바이트");
+        }
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    /**
+     * (unsigned short 길이 + UTF-8) 형식의 문자열을 읽습니다.
+     * @throws BufferUnderflowException 프레임 안에 문자열이 다 들어 있지 않으면
+     */
+    public static String getString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 문자열이 프레임에서 차지하는 바이트 수를 반환합니다. (버퍼 공간 계산용)
+     */
+    public static int stringSize(String value) {
+        int size = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                size += 4;
+                i++; // 서로게이트 쌍은 4바이트
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * RESULT 상태를 화면에 표시할 문구로 바꿉니다.
+     */
+    public static String describe(byte status) {
+        switch (status) {
+            case OK: return "성공";
+            case OUT_OF_STOCK: return "재고 없음";
+            case NOT_RENTED: return "대여 중이 아님";
+            case UNKNOWN_ITEM: return "없는 물품";
+            case NOT_LOGGED_IN: return "로그인 필요";
+            case LOGIN_FAILED: return "로그인 실패";
+            case BAD_REQUEST: return "잘못된 요청";
+            case NOT_SAVED: return "저장 실패";
+            default: return "알 수 없는 상태(" + status + ")";
+        }
+    }
+}
@@ -0,0 +1,702 @@
+// 파일 이름: KioskServer.java
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * 키오스크 단말용 이진 프로토콜(KioskProtocol) 서버입니다.
+ * 스레드 하나가 java.nio Selector로 모든 연결을 처리합니다. 로그인, 재고 조회처럼 메모리만 읽는 요청은 선택 루프에서 바로 처리하고,
+ * 대여/반납은 작업 스레드(kiosk-worker)로 넘깁니다. 대여/반납은 저널이 디스크에 기록될 때까지 기다리고(fsync),
+ * 체크포인트 중에는 변경 잠금을 기다릴 수 있으므로, 선택 루프에서 실행하면 그동안 모든 연결이 멈추기 때문입니다.
+ * 작업 스레드는 모인 요청을 차례로 처리한 뒤 저널 기록을 한 번만 기다리고(RentalService.awaitSaved()), 결과를 선택 루프에 돌려줍니다.
+ * 한 연결의 대여/반납이 처리되는 동안에는 그 연결의 다음 요청을 처리하지 않으므로 응답 순서는 요청 순서와 같습니다.
+ *
+ * 요청 처리 경로에서는 새 객체를 만들지 않습니다.
+ *  - 연결마다 읽기/쓰기용 direct 버퍼를 풀(BufferPool)에서 빌려 쓰고, 연결이 끊기면 돌려줍니다.
+ *  - 요청은 읽기 버퍼에서 바로 해석하고, 응답은 쓰기 버퍼에 바로 씁니다. 물품은 번호로 배열에서 찾습니다.
+ *  - Selector.select(Consumer)를 사용하여 선택된 키 집합의 반복자도 만들지 않습니다.
+ * (로그인과 물품 목록 전송은 문자열을 만들지만, 연결마다 한 번뿐이므로 처리 경로에서 제외)
+ *
+ * 구독(SUBSCRIBE)한 연결에는 재고 변경을 STOCK_CHANGED로 보냅니다. Item의 옵저버 알림은 어느 스레드에서 오든
+ * 바뀐 물품 번호만 기록해 두고(coalescing), 선택 루프에서 한 번에 모아 보냅니다. 느린 단말의 쓰기 버퍼가 가득 차면
+ * 알림을 쌓지 않고, 자리가 나면 물품 목록(CATALOG) 전체를 한 번 보내 최신 상태로 맞춥니다.
+ * 한 연결의 쓰기 버퍼가 가득 차면 그 연결의 요청 읽기를 멈추므로(배압), 응답을 받지 않는 단말이 서버 메모리를 늘리지 않습니다.
+ */
+public class KioskServer implements Observer, AutoCloseable {
+
+    // 연결마다 빌려 쓰는 읽기/쓰기 버퍼 크기
+    private static final int BUFFER_SIZE = 16 * 1024;
+    // 풀에 보관할 최대 버퍼 수 (연결이 많이 끊겨도 이 이상은 GC에 맡김)
+    private static final int POOL_LIMIT = 4096;
+    // 요청 하나를 처리하기 전에 쓰기 버퍼에 남아 있어야 할 공간 (RESULT, LOGIN_OK 한 개가 들어가는 크기)
+    private static final int MIN_RESPONSE_SPACE = KioskProtocol.MAX_REQUEST_SIZE;
+
+    private final RentalService rentalService;
+    private final UserDirectory users;
+    private final ItemCatalog items;
+
+    // 물품 번호 → 물품. 물품 추가/삭제 시에만 새 배열로 바꿈 (읽는 쪽은 잠금 없이 사용)
+    private volatile Item[] itemTable = new Item[0];
+    // 이 서버가 각 물품에 등록한 옵저버 구독 (this 잠금으로 보호)
+    private final Map<Item, Subscription> itemSubscriptions = new HashMap<>();
+    private final Subscription catalogSubscription;
+
+    // --- 대여/반납 작업 스레드 ---
+    private Thread workerThread;
+    private final Object workLock = new Object();
+    private final ArrayDeque<Session> submitted = new ArrayDeque<>(); // 작업 스레드에 넘긴 연결 (workLock으로 보호)
+    private final ArrayDeque<Session> completed = new ArrayDeque<>(); // 처리가 끝난 연결 (workLock으로 보호)
+    private Session[] workBatch = new Session[64];                    // 작업 스레드가 한 번에 꺼낸 연결 (작업 스레드 전용)
+
+    // --- 선택 루프 ---
+    private volatile Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile Thread loopThread;
+    private volatile boolean running;
+    private final BufferPool pool = new BufferPool();
+    private final List<Session> sessions = new ArrayList<>(); // 선택 루프 스레드에서만 사용
+    private final Consumer<SelectionKey> keyHandler = this::handleKey;
+
+    // --- 아직 보내지 않은 변경 (pendingLock으로 보호) ---
+    private final Object pendingLock = new Object();
+    private BitSet pendingStock = new BitSet();  // 재고가 바뀐 물품 번호
+    private BitSet drainingStock = new BitSet(); // 보내는 중인 물품 번호 (pendingStock과 번갈아 사용)
+    private boolean catalogChanged;
+    private boolean wakeupScheduled;
+
+    /**
+     * 요청을 처리할 서버를 만듭니다. 연결을 받으려면 start()를 호출합니다.
+     */
+    public KioskServer(RentalService rentalService, UserDirectory users, ItemCatalog items) {
+        this.rentalService = rentalService;
+        this.users = users;
+        this.items = items;
+        // 먼저 구독한 뒤 현재 물품을 등록 (그 사이에 추가된 물품도 놓치지 않도록)
+        this.catalogSubscription = items.subscribe(new ItemCatalog.Listener() {
+            @Override
+            public void itemAdded(Item item) {
+                watch(item);
+                onCatalogChanged();
+            }
+
+            @Override
+            public void itemRemoved(Item item) {
+                unwatch(item);
+                onCatalogChanged();
+            }
+        });
+        items.toList().forEach(this::watch);
+    }
+
+    /**
+     * 포트를 열고 선택 루프 스레드를 시작합니다.
+     * @param port 포트 번호 (0이면 빈 포트를 자동 선택)
+     */
+    public synchronized void start(int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 4096);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        workerThread = new Thread(this::runWorker, "kiosk-worker");
+        workerThread.start();
+        loopThread = new Thread(this::runLoop, "kiosk-server");
+        loopThread.start();
+    }
+
+    /**
+     * @return 서버가 연결을 받는 포트 번호
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * 선택 루프 스레드를 반환합니다. (벤치마크에서 스레드별 메모리 할당량을 재기 위해 사용)
+     */
+    Thread getLoopThread() {
+        return loopThread;
+    }
+
+    /**
+     * 모든 연결을 닫고 선택 루프를 멈춥니다.
+     */
+    @Override
+    public void close() {
+        catalogSubscription.unsubscribe();
+        synchronized (this) {
+            itemSubscriptions.values().forEach(Subscription::unsubscribe);
+            itemSubscriptions.clear();
+        }
+        if (loopThread == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        synchronized (workLock) {
+            workLock.notifyAll();
+        }
+        try {
+            loopThread.join();
+            workerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- 물품 목록/재고 변경 감지 ---
+
+    private synchronized void watch(Item item) {
+        if (!itemSubscriptions.containsKey(item)) {
+            itemSubscriptions.put(item, item.subscribe(this));
+            rebuildItemTable();
+        }
+    }
+
+    private synchronized void unwatch(Item item) {
+        Subscription subscription = itemSubscriptions.remove(item);
+        if (subscription != null) {
+            subscription.unsubscribe();
+            rebuildItemTable();
+        }
+    }
+
+    /**
+     * 물품 번호로 바로 찾을 수 있는 배열을 다시 만듭니다. (물품이 추가/삭제될 때만 호출, this 잠금 안에서 실행)
+     */
+    private void rebuildItemTable() {
+        int maxId = 0;
+        for (Item item : itemSubscriptions.keySet()) {
+            maxId = Math.max(maxId, item.getId());
+        }
+        Item[] table = new Item[maxId + 1];
+        for (Item item : itemSubscriptions.keySet()) {
+            table[item.getId()] = item;
+        }
+        itemTable = table;
+    }
+
+    private Item itemById(int id) {
+        Item[] table = itemTable;
+        return (id > 0 && id < table.length) ? table[id] : null;
+    }
+
+    /**
+     * Observer 구현. 어느 스레드에서 호출되든 바뀐 물품 번호만 기록하고, 전송은 선택 루프에 맡깁니다.
+     */
+    @Override
+    public void update(Item item) {
+        synchronized (pendingLock) {
+            pendingStock.set(item.getId());
+            if (wakeupScheduled) {
+                return; // 이미 깨운 선택 루프가 이 변경도 함께 보냄
+            }
+            wakeupScheduled = true;
+        }
+        wakeUp();
+    }
+
+    /**
+     * 묶음 대여/반납으로 바뀐 물품을 한 번에 기록하고, 선택 루프도 한 번만 깨웁니다.
+     */
+    @Override
+    public void updateAll(List<Item> items) {
+        synchronized (pendingLock) {
+            for (Item item : items) {
+                pendingStock.set(item.getId());
+            }
+            if (wakeupScheduled) {
+                return;
+            }
+            wakeupScheduled = true;
+        }
+        wakeUp();
+    }
+
+    private void onCatalogChanged() {
+        synchronized (pendingLock) {
+            catalogChanged = true;
+            if (wakeupScheduled) {
+                return;
+            }
+            wakeupScheduled = true;
+        }
+        wakeUp();
+    }
+
+    private void wakeUp() {
+        // 선택 루프 스레드 자신이 대여/반납한 경우에는 이번 반복이 끝날 때 보내므로 깨울 필요 없음
+        if (selector != null && Thread.currentThread() != loopThread) {
+            selector.wakeup();
+        }
+    }
+
+    // --- 선택 루프 ---
+
+    private void runLoop() {
+        while (running) {
+            try {
+                selector.select(keyHandler);
+                completeRentals();
+                sendPendingChanges();
+            } catch (IOException e) {
+                System.err.println("키오스크 서버 처리 중 오류 발생: " + e.getMessage());
+            }
+        }
+        for (int i = sessions.size() - 1; i >= 0; i--) {
+            closeSession(sessions.get(i));
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("키오스크 서버 종료 중 오류 발생: " + e.getMessage());
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (key.isValid() && key.isAcceptable()) {
+            accept();
+            return;
+        }
+        if (!key.isValid()) {
+            return; // 같은 반복에서 이미 닫힌 연결
+        }
+        Session session = (Session) key.attachment();
+        try {
+            if (key.isReadable() && session.channel.read(session.in) < 0) {
+                closeSession(session);
+                return;
+            }
+            // 읽은 요청을 처리하고, 쓰기가 가능해져 공간이 생겼으면 멈췄던 목록 전송과 요청 처리도 이어서 함
+            writeCatalogIfPending(session);
+            processRequests(session);
+            flush(session);
+        } catch (IOException | CancelledKeyException e) {
+            closeSession(session);
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Session session = new Session(channel, pool.acquire(), pool.acquire());
+                session.key = channel.register(selector, SelectionKey.OP_READ, session);
+                session.index = sessions.size();
+                sessions.add(session);
+            }
+        } catch (IOException e) {
+            System.err.println("키오스크 연결 수락 중 오류 발생: " + e.getMessage());
+        }
+    }
+
+    private void closeSession(Session session) {
+        if (session.index < 0) {
+            return; // 이미 닫힘
+        }
+        // 마지막 연결을 빈자리로 옮겨 O(1)에 제거
+        Session last = sessions.remove(sessions.size() - 1);
+        if (last != session) {
+            sessions.set(session.index, last);
+            last.index = session.index;
+        }
+        session.index = -1;
+        session.key.cancel();
+        try {
+            session.channel.close();
+        } catch (IOException e) {
+            System.err.println("키오스크 연결 닫기 중 오류 발생: " + e.getMessage());
+        }
+        pool.release(session.in);
+        pool.release(session.out);
+    }
+
+    /**
+     * 읽기 버퍼에 온전히 들어온 요청 프레임을 차례로 처리합니다.
+     * 쓰기 버퍼에 응답 공간이 부족하거나, 아직 보내지 못한 물품 목록이 있으면 멈추고 나머지는 버퍼에 남겨 둡니다.
+     */
+    private void processRequests(Session session) throws IOException {
+        ByteBuffer in = session.in;
+        in.flip();
+        try {
+            while (!session.busy && in.remaining() >= KioskProtocol.HEADER_SIZE) {
+                int length = in.getInt(in.position());
+                if (length < 1 || length > KioskProtocol.MAX_REQUEST_SIZE - KioskProtocol.HEADER_SIZE) {
+                    throw new IOException("잘못된 프레임 길이: " + length);
+                }
+                // 물품 목록을 아직 못 보냈으면 뒤의 응답이 먼저 가지 않도록 멈춤
+                if (in.remaining() < KioskProtocol.HEADER_SIZE + length
+                        || !writeCatalogIfPending(session) || session.out.remaining() < MIN_RESPONSE_SPACE) {
+                    break;
+                }
+                int frameEnd = in.position() + KioskProtocol.HEADER_SIZE + length;
+                int limit = in.limit();
+                in.position(in.position() + KioskProtocol.HEADER_SIZE).limit(frameEnd);
+                byte type = in.get();
+                try {
+                    if (type == KioskProtocol.RENT || type == KioskProtocol.RETURN) {
+                        submitRental(session, type, in.getInt()); // 결과는 작업 스레드가 처리한 뒤에 씀
+                    } else {
+                        handleRequest(session, type, in, session.out);
+                    }
+                } catch (BufferUnderflowException e) {
+                    KioskProtocol.putResult(session.out, type, KioskProtocol.BAD_REQUEST, 0, -1);
+                }
+                in.limit(limit).position(frameEnd);
+            }
+        } finally {
+            in.compact();
+        }
+    }
+
+    /**
+     * 요청 하나를 실행하고 응답을 씁니다. 호출하는 쪽에서 응답 공간(MIN_RESPONSE_SPACE)을 확인해야 합니다.
+     * 대여/반납도 호출한 스레드에서 바로 실행하므로, 선택 루프는 대여/반납을 이 메소드 대신 submitRental()로 처리합니다.
+     * @param request 요청 내용 (종류 바이트 다음부터 프레임 끝까지)
+     */
+    void handleRequest(Session session, byte type, ByteBuffer request, ByteBuffer response) {
+        switch (type) {
+            case KioskProtocol.LOGIN:
+                login(session, KioskProtocol.getString(request), KioskProtocol.getString(request), response);
+                break;
+            case KioskProtocol.CATALOG:
+                session.catalogPending = true; // 공간이 나는 대로 보냄
+                break;
+            case KioskProtocol.STOCK: {
+                int itemId = request.getInt();
+                Item item = itemById(itemId);
+                KioskProtocol.putResult(response, type, (item == null) ? KioskProtocol.UNKNOWN_ITEM : KioskProtocol.OK,
+                        itemId, (item == null) ? -1 : item.getCurrentStock());
+                break;
+            }
+            case KioskProtocol.RENT:
+            case KioskProtocol.RETURN: {
+                int itemId = request.getInt();
+                Item item = itemById(itemId);
+                byte status;
+                if (session.user == null) {
+                    status = KioskProtocol.NOT_LOGGED_IN;
+                } else if (item == null) {
+                    status = KioskProtocol.UNKNOWN_ITEM;
+                } else if (type == KioskProtocol.RENT) {
+                    status = toStatus(rentalService.rentItem(session.user, item, session.strategy));
+                } else {
+                    status = toStatus(rentalService.returnItem(session.user, item));
+                }
+                KioskProtocol.putResult(response, type, status, itemId, (item == null) ? -1 : item.getCurrentStock());
+                break;
+            }
+            case KioskProtocol.SUBSCRIBE:
+                session.subscribed = true;
+                KioskProtocol.putResult(response, type, KioskProtocol.OK, 0, -1);
+                break;
+            default:
+                KioskProtocol.putResult(response, type, KioskProtocol.BAD_REQUEST, 0, -1);
+        }
+    }
+
+    /**
+     * 대여/반납 요청을 작업 스레드에 넘깁니다. 로그인하지 않았거나 없는 물품이면 바로 결과를 씁니다. (선택 루프 스레드에서 호출)
+     * 넘긴 연결은 결과를 받을 때까지(completeRentals()) 다음 요청을 처리하지 않습니다.
+     */
+    private void submitRental(Session session, byte type, int itemId) {
+        Item item = itemById(itemId);
+        if (session.user == null || item == null) {
+            KioskProtocol.putResult(session.out, type,
+                    (session.user == null) ? KioskProtocol.NOT_LOGGED_IN : KioskProtocol.UNKNOWN_ITEM, itemId, -1);
+            return;
+        }
+        session.busy = true;
+        session.workType = type;
+        session.workItemId = itemId;
+        session.workItem = item;
+        synchronized (workLock) {
+            submitted.addLast(session);
+            workLock.notifyAll();
+        }
+    }
+
+    /**
+     * 작업 스레드: 넘겨받은 대여/반납을 모인 만큼 처리하고, 저널 기록을 한 번 기다린 뒤 결과를 선택 루프에 돌려줍니다.
+     * 저널 기록을 기다리는 동안 들어온 요청은 다음 묶음으로 모이므로, 요청이 몰릴수록 fsync 한 번에 더 많은 요청이 기록됩니다.
+     */
+    private void runWorker() {
+        while (true) {
+            int count;
+            synchronized (workLock) {
+                while (running && submitted.isEmpty()) {
+                    try {
+                        workLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                count = submitted.size();
+                if (workBatch.length < count) {
+                    workBatch = new Session[Integer.highestOneBit(count) * 2];
+                }
+                for (int i = 0; i < count; i++) {
+                    workBatch[i] = submitted.pollFirst();
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                Session session = workBatch[i];
+                RentalResult result = (session.workType == KioskProtocol.RENT)
+                        ? rentalService.rentItem(session.user, session.workItem, session.strategy, false)
+                        : rentalService.returnItem(session.user, session.workItem, false);
+                session.workStatus = toStatus(result);
+            }
+            boolean saved = rentalService.awaitSaved();
+            synchronized (workLock) {
+                for (int i = 0; i < count; i++) {
+                    Session session = workBatch[i];
+                    if (!saved && session.workStatus == KioskProtocol.OK) {
+                        session.workStatus = KioskProtocol.NOT_SAVED; // 반영은 되었지만 디스크에 기록하지 못함
+                    }
+                    completed.addLast(session);
+                    workBatch[i] = null;
+                }
+            }
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * 작업 스레드가 처리를 끝낸 대여/반납의 결과를 쓰고, 그 연결에 남아 있던 요청을 이어서 처리합니다. (선택 루프 스레드에서 호출)
+     */
+    private void completeRentals() {
+        while (true) {
+            Session session;
+            synchronized (workLock) {
+                session = completed.pollFirst();
+            }
+            if (session == null) {
+                return;
+            }
+            session.busy = false;
+            Item item = session.workItem;
+            session.workItem = null;
+            if (session.index < 0) {
+                continue; // 처리하는 동안 연결이 끊김
+            }
+            // 요청을 넘길 때 확보한 응답 공간(MIN_RESPONSE_SPACE)은 그동안 RESULT_SIZE만큼 남겨 둠
+            KioskProtocol.putResult(session.out, session.workType, session.workStatus, session.workItemId, item.getCurrentStock());
+            try {
+                processRequests(session);
+                flush(session);
+            } catch (IOException | CancelledKeyException e) {
+                closeSession(session);
+            }
+        }
+    }
+
+    private static byte toStatus(RentalResult result) {
+        switch (result) {
+            case RENTED:
+            case RETURNED: return KioskProtocol.OK;
+            case OUT_OF_STOCK: return KioskProtocol.OUT_OF_STOCK;
+            case NOT_RENTED: return KioskProtocol.NOT_RENTED;
+            case NOT_SAVED: return KioskProtocol.NOT_SAVED;
+            default: return KioskProtocol.UNKNOWN_ITEM;
+        }
+    }
+
+    private void login(Session session, String id, String password, ByteBuffer response) {
+        Optional<User> user = users.authenticate(id, password);
+        if (user.isPresent()) {
+            int length = 1 + KioskProtocol.stringSize(user.get().getName()) + KioskProtocol.stringSize(user.get().getType());
+            if (KioskProtocol.HEADER_SIZE + length <= response.remaining()) {
+                session.user = user.get();
+                // 전략 패턴: 사용자 타입에 맞는 할인 정책 (MainAppFrame과 같은 기준)
+                session.strategy = "Student".equals(user.get().getType()) ? new StudentDiscountStrategy() : new NoDiscountStrategy();
+                response.putInt(length).put(KioskProtocol.LOGIN_OK);
+                KioskProtocol.putString(response, user.get().getName());
+                KioskProtocol.putString(response, user.get().getType());
+                return;
+            }
+        }
+        KioskProtocol.putResult(response, KioskProtocol.LOGIN, KioskProtocol.LOGIN_FAILED, 0, -1);
+    }
+
+    /**
+     * 보내야 할 물품 목록이 있으면 쓰기 버퍼에 씁니다. 목록이 버퍼보다 크면 이 연결의 쓰기 버퍼를 키웁니다.
+     * @return 보낼 목록이 없거나 다 썼으면 true, 공간이 부족해 아직 못 썼으면 false
+     */
+    private boolean writeCatalogIfPending(Session session) {
+        if (!session.catalogPending) {
+            return true;
+        }
+        List<Item> snapshot = items.toList();
+        int length = 1 + 4;
+        for (Item item : snapshot) {
+            length += 4 + 4 + 4 + 8 + KioskProtocol.stringSize(item.getName());
+        }
+        int size = KioskProtocol.HEADER_SIZE + length;
+        if (size + MIN_RESPONSE_SPACE > session.out.capacity()) {
+            // 물품이 많아 기본 버퍼에 들어가지 않음. 이 연결만 큰 버퍼로 바꿈 (풀에는 돌려주지 않음)
+            ByteBuffer larger = ByteBuffer.allocateDirect(Integer.highestOneBit(size + MIN_RESPONSE_SPACE) * 2);
+            session.out.flip();
+            larger.put(session.out);
+            pool.release(session.out);
+            session.out = larger;
+        }
+        // 작업 스레드에서 처리 중인 대여/반납의 결과 자리는 남겨 둠
+        if (size + (session.busy ? KioskProtocol.RESULT_SIZE : 0) > session.out.remaining()) {
+            return false;
+        }
+        ByteBuffer out = session.out;
+        out.putInt(length).put(KioskProtocol.CATALOG_DATA).putInt(snapshot.size());
+        for (Item item : snapshot) {
+            out.putInt(item.getId()).putInt(item.getMaxStock()).putInt(item.getCurrentStock()).putDouble(item.getBaseFee());
+            KioskProtocol.putString(out, item.getName());
+        }
+        session.catalogPending = false;
+        return true;
+    }
+
+    /**
+     * 쓰기 버퍼의 내용을 가능한 만큼 보내고, 남은 내용과 읽기 버퍼 공간에 맞게 관심 이벤트를 바꿉니다.
+     */
+    private void flush(Session session) throws IOException {
+        ByteBuffer out = session.out;
+        if (out.position() > 0) {
+            out.flip();
+            session.channel.write(out);
+            out.compact();
+        }
+        // 보낼 내용이 남았거나 보낼 목록이 있으면 쓰기 가능 이벤트를, 읽기 버퍼에 자리가 있으면 읽기 이벤트를 기다림
+        int ops = (session.in.hasRemaining() ? SelectionKey.OP_READ : 0)
+                | ((out.position() > 0 || session.catalogPending) ? SelectionKey.OP_WRITE : 0);
+        if (session.key.interestOps() != ops) {
+            session.key.interestOps(ops);
+        }
+    }
+
+    /**
+     * 선택 루프의 한 반복이 끝날 때, 모아 둔 재고/물품 목록 변경을 구독 중인 연결에 보냅니다.
+     */
+    private void sendPendingChanges() {
+        BitSet changed;
+        boolean catalog;
+        synchronized (pendingLock) {
+            changed = pendingStock;
+            pendingStock = drainingStock;
+            drainingStock = changed;
+            catalog = catalogChanged;
+            catalogChanged = false;
+            wakeupScheduled = false;
+        }
+        if (changed.isEmpty() && !catalog) {
+            return;
+        }
+        int count = sessions.size();
+        for (int i = 0; i < count; i++) {
+            Session session = sessions.get(i);
+            if (catalog && session.subscribed) {
+                session.catalogPending = true;
+            }
+        }
+        for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+            Item item = itemById(id);
+            if (item == null) {
+                continue; // 그사이 삭제됨 (물품 목록 변경으로 전달)
+            }
+            int stock = item.getCurrentStock();
+            for (int i = 0; i < count; i++) {
+                Session session = sessions.get(i);
+                if (!session.subscribed || session.catalogPending) {
+                    continue; // 곧 보낼 물품 목록에 최신 재고가 들어 있음
+                }
+                if (session.out.remaining() >= KioskProtocol.STOCK_CHANGED_SIZE + (session.busy ? KioskProtocol.RESULT_SIZE : 0)) {
+                    KioskProtocol.putStockChanged(session.out, id, stock);
+                } else {
+                    session.catalogPending = true; // 느린 단말: 알림을 쌓지 않고 나중에 목록 전체로 맞춤
+                }
+            }
+        }
+        changed.clear();
+        for (int i = sessions.size() - 1; i >= 0; i--) {
+            Session session = sessions.get(i);
+            if (!session.subscribed) {
+                continue;
+            }
+            try {
+                writeCatalogIfPending(session);
+                flush(session);
+            } catch (IOException | CancelledKeyException e) {
+                closeSession(session);
+            }
+        }
+    }
+
+    /**
+     * 연결 하나의 상태. 선택 루프 스레드에서만 사용합니다. (대여/반납을 넘긴 동안의 work* 필드는 작업 스레드도 사용)
+     */
+    static class Session {
+        final SocketChannel channel;
+        final ByteBuffer in;   // 쓰기 모드로 유지 (읽은 만큼 position이 늘어남)
+        ByteBuffer out;        // 쓰기 모드로 유지 (보낼 내용만큼 position이 늘어남)
+        SelectionKey key;
+        int index = -1;        // sessions 목록에서의 위치 (닫히면 -1)
+        User user;             // 로그인한 사용자 (없으면 null)
+        DiscountStrategy strategy;
+        boolean subscribed;
+        boolean catalogPending; // 물품 목록을 보내야 함 (요청 또는 알림 누락 보정)
+        // 작업 스레드에 넘긴 대여/반납 (busy는 선택 루프 전용, 나머지는 workLock을 거쳐 작업 스레드와 주고받음)
+        boolean busy;
+        byte workType;
+        int workItemId;
+        Item workItem;
+        byte workStatus;
+
+        Session(SocketChannel channel, ByteBuffer in, ByteBuffer out) {
+            this.channel = channel;
+            this.in = in;
+            this.out = out;
+        }
+    }
+
+    /**
+     * 연결별 direct 버퍼를 재사용하는 풀. direct 버퍼는 만들고 해제하는 비용이 크므로 연결이 끊겨도 버리지 않습니다.
+     * 선택 루프 스레드에서만 사용하므로 동기화하지 않습니다.
+     */
+    private static class BufferPool {
+        private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+        ByteBuffer acquire() {
+            ByteBuffer buffer = free.poll();
+            return (buffer != null) ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        void release(ByteBuffer buffer) {
+            if (buffer.capacity() == BUFFER_SIZE && free.size() < POOL_LIMIT) {
+                buffer.clear();
+                free.push(buffer);
+            }
+        }
+    }
+}
@@ -3,8 +3,9 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 
 /**
  * 사용자 로그인을 위한 GUI 대화 상자(Dialog) 클래스입니다.
@@ -25,7 +26,30 @@ public class LoginDialog extends JDialog {
      * @param parent 부모 프레임
      * @param users 로그인 인증에 사용할 전체 사용자 목록
      */
-    public LoginDialog(Frame parent, List<User> users) {
+    public LoginDialog(Frame parent, UserDirectory users) {
+        this(parent, users, null);
+    }
+
+    /**
+     * LoginDialog 생성자. 로그인 창이 떠 있는 동안 백그라운드에서 진행 중인 데이터 로딩 상태를 함께 표시합니다.
+     * @param parent 부모 프레임
+     * @param users 로그인 인증에 사용할 전체 사용자 목록
+     * @param loading 백그라운드 데이터 로딩 작업 (null이면 표시하지 않음)
+     */
+    public LoginDialog(Frame parent, UserDirectory users, CompletableFuture<?> loading) {
+        this(parent, users::authenticate, loading);
+    }
+
+    /**
+     * 사용자 목록 대신 인증 방법을 받는 LoginDialog 생성자. (키오스크 모드처럼 서버에 로그인하는 경우에 사용)
+     * @param parent 부모 프레임
+     * @param authenticator (ID, 비밀번호) → 로그인한 사용자. 실패하면 비어 있음
+     */
+    public LoginDialog(Frame parent, BiFunction<String, String, Optional<User>> authenticator) {
+        this(parent, authenticator, null);
+    }
+
+    private LoginDialog(Frame parent, BiFunction<String, String, Optional<User>> authenticator, CompletableFuture<?> loading) {
         super(parent, "시스템 로그인", true); // 부모, 타이틀, 모달 설정
 
         // --- 1. 다이얼로그 기본 설정 ---
@@ -116,7 +140,14 @@ public class LoginDialog extends JDialog {
         buttonPanel.add(loginButton);
         buttonPanel.add(cancelButton);
 
-        add(buttonPanel, BorderLayout.SOUTH); // 버튼 패널을 다이얼로그 하단에 추가
+        // 버튼 패널과 로딩 진행 표시줄을 묶어 다이얼로그 하단에 추가
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.setBackground(BG_LIGHT_GRAY);
+        southPanel.add(buttonPanel, BorderLayout.CENTER);
+        if (loading != null && !loading.isDone()) {
+            southPanel.add(createLoadingBar(loading), BorderLayout.SOUTH);
+        }
+        add(southPanel, BorderLayout.SOUTH);
 
         // Enter 키를 누르면 로그인 버튼이 클릭되도록 설정
         getRootPane().setDefaultButton(loginButton);
@@ -124,10 +155,8 @@ public class LoginDialog extends JDialog {
         // --- 5. 이벤트 리스너 설정 ---
         // "로그인" 버튼 클릭 시 동작
         loginButton.addActionListener(e -> {
-            // 입력된 ID와 비밀번호가 일치하는 사용자를 users 리스트에서 찾음 (Java Stream API 사용)
-            Optional<User> user = users.stream()
-                    .filter(u -> u.getId().equals(idField.getText()) && u.getPassword().equals(new String(passwordField.getPassword())))
-                    .findFirst();
+            // 입력된 ID와 비밀번호가 일치하는 사용자를 ID 인덱스로 바로 찾음
+            Optional<User> user = authenticator.apply(idField.getText(), new String(passwordField.getPassword()));
 
             if (user.isPresent()) { // 사용자를 찾았다면
                 this.loggedInUser = user.get(); // 로그인 성공한 사용자 정보 저장
@@ -147,6 +176,25 @@ public class LoginDialog extends JDialog {
         setLocationRelativeTo(parent);
     }
 
+    /**
+     * 백그라운드 데이터 로딩 상태를 보여주는 진행 표시줄을 만듭니다.
+     * 로딩이 끝나면 EDT에서 완료 상태로 바뀝니다.
+     */
+    private static JProgressBar createLoadingBar(CompletableFuture<?> loading) {
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true); // 끝날 때까지 진행률을 알 수 없으므로 움직이는 막대로 표시
+        progressBar.setStringPainted(true);
+        progressBar.setString("물품 및 대여 기록을 불러오는 중...");
+        progressBar.setFont(new Font("맑은 고딕", Font.PLAIN, 12));
+
+        loading.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(progressBar.getMaximum());
+            progressBar.setString(error == null ? "데이터 준비 완료" : "데이터 로딩 실패");
+        }));
+        return progressBar;
+    }
+
     /**
      * 로그인 결과를 반환합니다.
      * @return 로그인에 성공한 User 객체. 로그인 실패 또는 취소 시 null을 반환합니다.
@@ -4,50 +4,110 @@ import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
  * 물품 대여 시스템의 메인 애플리케이션 프레임(창) 클래스입니다.
  * 사용자가 로그인한 후 보게 되는 주 화면을 구성하고 관리합니다.
  * Observer 인터페이스를 구현하여, Item 객체의 상태(재고) 변경을 감지하고
  * 실시간으로 UI를 업데이트하는 역할을 합니다.
+ * 로컬 모드에서는 RentalEventBus의 구독자로 등록되어 대여/반납 이벤트를 버스의 스레드에서 비동기로 받고,
+ * 키오스크 모드에서는 서버에서 받은 재고를 반영하는 물품 사본에 옵저버로 등록됩니다.
+ *
+ * 재고 변경 알림은 바로 화면을 다시 그리지 않고 모아 두었다가(coalescing), 이벤트 디스패치 스레드(EDT)에서
+ * 한 번에 처리합니다. 이때 전체 카드를 다시 만들지 않고 변경된 물품 카드의 재고 라벨만 갱신합니다.
+ * 물품이 추가/삭제되면 ItemCatalog의 알림을 받아 해당 물품의 콤보박스 항목과 카드만 추가/제거합니다.
+ * 물품 검색 칸에 입력하면 ItemCatalog의 검색 인덱스로 물품 선택 상자를 바로 좁힙니다. (앞부분/부분/초성 일치)
+ *
+ * 키오스크 모드(KioskClient로 생성)에서는 로컬 데이터 대신 키오스크 서버의 물품 목록 사본을 표시하고,
+ * 대여/반납은 서버에 요청합니다. 사본도 ItemCatalog/Item이므로 화면 갱신 방식은 같으며, 관리자 메뉴는 표시하지 않습니다.
  */
 public class MainAppFrame extends JFrame implements Observer {
     // --- 필드(Fields) ---
     private final DataManager dataManager;
     private final RentalService rentalService;
     private final User loggedInUser;
-    private final List<Item> items;
-    private final List<User> users;
-    private final List<RentalRecord> rentalHistory;
+    private final ItemCatalog items;
+    private final UserDirectory users;
+    private final HistoryStore rentalHistory;
+    private final KioskClient kioskClient; // 키오스크 모드의 서버 연결 (로컬 모드에서는 null)
 
     // UI 컴포넌트 참조
     private JComboBox<Item> itemComboBox;
+    private JTextField itemSearchField; // 물품 선택 상자를 좁히는 검색 칸
     private JLabel strategyLabel;
     private JPanel itemListPanel;
     private JTextArea logArea;
+    private JButton rentButton;
+    private JButton returnButton;
     private DiscountStrategy userStrategy;
 
+    // 물품 → 화면에 표시 중인 재고 라벨. 재고가 바뀐 물품의 라벨만 찾아서 갱신하기 위해 사용
+    private final Map<Item, JLabel> stockLabels = new HashMap<>();
+    // 물품 → 화면에 표시 중인 카드. 삭제된 물품의 카드만 제거하기 위해 사용
+    private final Map<Item, JPanel> itemCards = new HashMap<>();
+    // 아직 화면에 반영되지 않은 재고 변경 물품 목록 (pendingUpdates 잠금으로 보호)
+    private final Set<Item> pendingUpdates = new LinkedHashSet<>();
+    private boolean flushScheduled = false; // EDT에 반영 작업이 이미 예약되었는지 여부
+
+    // 이 창이 Item에 등록한 옵저버 구독 (물품 → 구독). 물품이 삭제되거나 창이 닫힐 때(dispose) 해제
+    // 대여/반납 이벤트를 이벤트 버스로 받는 경우(로컬 모드)에는 물품에 옵저버로 등록하지 않으므로 비어 있음
+    private final Map<Item, Subscription> itemSubscriptions = new HashMap<>();
+    private Subscription catalogSubscription; // 물품 목록의 추가/삭제 알림 구독
+    private final RentalEventBus eventBus;    // 재고 변경을 받는 이벤트 버스 (키오스크 모드 등 버스가 없으면 null)
+    private Subscription eventSubscription;   // 이벤트 버스 구독
+    private Timer dropCheckTimer;             // 버스에서 버려진 이벤트가 있는지 확인하는 타이머
+    private long seenDrops = 0;               // 이미 확인한, 이 창에 전달되지 못하고 버려진 이벤트 수
+
     // UI 스타일링을 위한 상수 색상 정의
     private static final Color DK_BLUE = new Color(0, 44, 122);
     private static final Color BG_LIGHT_GRAY = new Color(245, 245, 245);
+    // 검색할 때 물품 선택 상자에 보여줄 최대 물품 수
+    private static final int ITEM_SEARCH_LIMIT = 200;
+    // 이벤트 버스 지표에 표시할 이 창의 구독자 이름
+    private static final String EVENT_SUBSCRIBER = "ui";
+    // 버려진 이벤트를 확인하는 주기 (밀리초)
+    private static final int DROP_CHECK_MILLIS = 1000;
 
     /**
      * MainAppFrame 생성자
      */
-    public MainAppFrame(DataManager dataManager, RentalService rentalService, User loggedInUser, List<User> users, List<Item> items, List<RentalRecord> rentalHistory) {
+    public MainAppFrame(DataManager dataManager, RentalService rentalService, User loggedInUser, UserDirectory users, ItemCatalog items, HistoryStore rentalHistory) {
+        this(dataManager, rentalService, null, loggedInUser, users, items, rentalHistory);
+    }
+
+    /**
+     * 키오스크 모드의 MainAppFrame 생성자. 물품과 재고는 서버에서 받은 사본을 표시하고, 대여/반납은 서버에 요청합니다.
+     * @param kioskClient 로그인과 구독(subscribe())을 마친 키오스크 서버 연결
+     * @param loggedInUser 서버에 로그인한 사용자
+     */
+    public MainAppFrame(KioskClient kioskClient, User loggedInUser) {
+        this(null, null, kioskClient, loggedInUser, null, kioskClient.getCatalog(), null);
+    }
+
+    private MainAppFrame(DataManager dataManager, RentalService rentalService, KioskClient kioskClient, User loggedInUser,
+                         UserDirectory users, ItemCatalog items, HistoryStore rentalHistory) {
         this.dataManager = dataManager;
         this.rentalService = rentalService;
+        this.kioskClient = kioskClient;
         this.loggedInUser = loggedInUser;
         this.users = users;
         this.items = items;
         this.rentalHistory = rentalHistory;
-
-        // 옵저버 패턴: 현재 프레임(this)을 모든 아이템의 옵저버로 등록
-        items.forEach(item -> item.addObserver(this));
+        this.eventBus = (rentalService != null) ? rentalService.getEventBus() : null;
 
         // 전략 패턴: 로그인한 사용자의 타입에 따라 적절한 할인 정책을 설정
         if ("Student".equals(loggedInUser.getType())) {
@@ -58,7 +118,30 @@ public class MainAppFrame extends JFrame implements Observer {
 
         // UI 초기 설정 및 데이터 표시
         setupUI();
-        updateItemDisplay();
+
+        // 물품 추가/삭제 알림을 먼저 구독한 뒤 현재 물품을 표시 (그 사이에 추가된 물품도 놓치지 않도록)
+        // 알림은 EDT로 넘겨 처리하며, 이미 표시 중인 물품이면 무시함
+        catalogSubscription = items.subscribe(new ItemCatalog.Listener() {
+            @Override
+            public void itemAdded(Item item) {
+                SwingUtilities.invokeLater(() -> showItem(item));
+            }
+
+            @Override
+            public void itemRemoved(Item item) {
+                SwingUtilities.invokeLater(() -> hideItem(item));
+            }
+        });
+        items.toList().forEach(this::showItem);
+
+        // 로컬 모드에서는 재고 변경을 물품의 옵저버가 아니라 이벤트 버스의 구독자로 받습니다.
+        // 화면 갱신이 버스의 스레드에서 비동기로 실행되므로, 대여/반납 처리가 화면 갱신을 기다리지 않습니다.
+        if (eventBus != null) {
+            eventSubscription = eventBus.subscribe(EVENT_SUBSCRIBER, this);
+            // 이 창의 큐가 가득 차서 버려진 이벤트가 있으면 그 물품의 재고가 화면에 반영되지 않았을 수 있으므로 전체를 다시 읽음
+            dropCheckTimer = new Timer(DROP_CHECK_MILLIS, e -> refreshIfEventsDropped());
+            dropCheckTimer.start();
+        }
     }
 
     /**
@@ -74,7 +157,13 @@ public class MainAppFrame extends JFrame implements Observer {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                dataManager.saveData(users, items, rentalHistory);
+                // 마지막 체크포인트 이후의 변경은 저널에 있으므로, 저널의 남은 기록만 디스크에 쓰고 종료
+                // (키오스크 모드에서는 데이터가 서버에 있으므로 연결만 닫음)
+                if (kioskClient != null) {
+                    kioskClient.close();
+                } else {
+                    dataManager.close();
+                }
                 System.exit(0);
             }
         });
@@ -93,7 +182,14 @@ public class MainAppFrame extends JFrame implements Observer {
 
         // 로그아웃 메뉴 아이템 액션
         logoutItem.addActionListener(e -> {
-            dataManager.saveData(users, items, rentalHistory);
+            if (kioskClient != null) {
+                kioskClient.close();
+                dispose();
+                RentalSystem_Final.main(new String[]{"--kiosk", kioskClient.getAddress()}); // 같은 서버로 다시 로그인
+                return;
+            }
+            dataManager.close();
+            closeEventBus();
             dispose();
             RentalSystem_Final.main(null);
         });
@@ -104,20 +200,26 @@ public class MainAppFrame extends JFrame implements Observer {
         });
 
         systemMenu.add(logoutItem);
+        if (eventBus != null) {
+            // 이벤트 버스의 발행/전달/버림 지표 보기
+            JMenuItem eventMetricsItem = new JMenuItem("이벤트 전달 현황");
+            eventMetricsItem.addActionListener(e -> JOptionPane.showMessageDialog(this, eventBus.getMetricsSummary(), "이벤트 전달 현황", JOptionPane.INFORMATION_MESSAGE));
+            systemMenu.add(eventMetricsItem);
+        }
         systemMenu.add(exitItem);
         menuBar.add(systemMenu);
 
-        // 관리자(Admin)일 경우에만 관리 메뉴를 추가
-        if ("Admin".equals(loggedInUser.getType())) {
+        // 관리자(Admin)일 경우에만 관리 메뉴를 추가 (사용자/대여 기록은 로컬 데이터가 있어야 하므로 키오스크 모드에서는 제외)
+        if ("Admin".equals(loggedInUser.getType()) && kioskClient == null) {
             JMenu adminMenu = new JMenu("관리 (Admin)");
             adminMenu.setForeground(DK_BLUE);
             adminMenu.setFont(new Font("맑은 고딕", Font.BOLD, 12));
 
             JMenuItem manageUsersItems = new JMenuItem("사용자/물품 관리...");
-            manageUsersItems.addActionListener(e -> new AdminDialog(this, users, items).setVisible(true));
+            manageUsersItems.addActionListener(e -> new AdminDialog(this, users, items, dataManager.getJournal()).setVisible(true));
 
             JMenuItem viewHistory = new JMenuItem("전체 대여 기록 보기...");
-            viewHistory.addActionListener(e -> new RentalHistoryDialog(this, rentalHistory).setVisible(true));
+            viewHistory.addActionListener(e -> new RentalHistoryDialog(this, rentalHistory, rentalService.getHistoryQuery()).setVisible(true));
 
             adminMenu.add(manageUsersItems);
             adminMenu.add(viewHistory);
@@ -192,15 +294,36 @@ public class MainAppFrame extends JFrame implements Observer {
         JLabel userLabel = new JLabel("<html><b>" + loggedInUser.getName() + "</b> 님, 환영합니다.</html>");
         userLabel.setFont(new Font("맑은 고딕", Font.PLAIN, 16));
 
-        itemComboBox = new JComboBox<>(items.toArray(new Item[0]));
+        itemComboBox = new JComboBox<>(new DefaultComboBoxModel<>()); // 물품은 showItem()으로 추가
         itemComboBox.setFont(new Font("맑은 고딕", Font.PLAIN, 14));
         itemComboBox.setRenderer(new ItemRenderer());
 
+        itemSearchField = new JTextField();
+        itemSearchField.setFont(new Font("맑은 고딕", Font.PLAIN, 14));
+        itemSearchField.setToolTipText("물품 이름의 일부나 초성(예: ㅂㅈ)을 입력하세요.");
+        // 한 글자 입력할 때마다 선택 상자를 검색 결과로 바꿈
+        itemSearchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterItemComboBox();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterItemComboBox();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterItemComboBox();
+            }
+        });
+
         strategyLabel = new JLabel("적용 정책: " + userStrategy.getStrategyName());
         strategyLabel.setFont(new Font("맑은 고딕", Font.PLAIN, 14));
 
-        JButton rentButton = new JButton("대여하기");
-        JButton returnButton = new JButton("반납하기");
+        rentButton = new JButton("대여하기");
+        returnButton = new JButton("반납하기");
         Font btnFont = new Font("맑은 고딕", Font.BOLD, 14);
 
         rentButton.setBackground(DK_BLUE);
@@ -221,12 +344,18 @@ public class MainAppFrame extends JFrame implements Observer {
         panel.add(userLabel, gbc);
 
         gbc.gridy = 1; gbc.gridwidth = 1; gbc.anchor = GridBagConstraints.EAST;
+        panel.add(new JLabel("물품 검색:"), gbc);
+
+        gbc.gridx = 1; gbc.weightx = 1.0;
+        panel.add(itemSearchField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 2; gbc.weightx = 0.0;
         panel.add(new JLabel("물품 선택:"), gbc);
 
         gbc.gridx = 1; gbc.weightx = 1.0;
         panel.add(itemComboBox, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2; gbc.weightx = 0.0; gbc.anchor = GridBagConstraints.WEST;
+        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2; gbc.weightx = 0.0; gbc.anchor = GridBagConstraints.WEST;
         panel.add(strategyLabel, gbc);
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
@@ -234,7 +363,7 @@ public class MainAppFrame extends JFrame implements Observer {
         buttonPanel.add(rentButton);
         buttonPanel.add(returnButton);
 
-        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2; gbc.anchor = GridBagConstraints.EAST;
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2; gbc.anchor = GridBagConstraints.EAST;
         panel.add(buttonPanel, gbc);
 
         return panel;
@@ -296,8 +425,22 @@ public class MainAppFrame extends JFrame implements Observer {
         card.add(nameLabel, BorderLayout.CENTER);
 
         int currentStock = item.getCurrentStock();
-        JLabel stockLabel = new JLabel("재고: " + currentStock + "개");
+        JLabel stockLabel = new JLabel();
         stockLabel.setFont(new Font("맑은 고딕", Font.BOLD, 15));
+        applyStock(stockLabel, currentStock);
+        card.add(stockLabel, BorderLayout.EAST);
+        stockLabels.put(item, stockLabel); // 이후 재고 변경 시 이 라벨만 갱신
+
+        return card;
+    }
+
+    /**
+     * 재고 라벨의 문구와 글자색을 재고 수량에 맞게 설정합니다.
+     * @param stockLabel 갱신할 재고 라벨
+     * @param currentStock 현재 재고량
+     */
+    private void applyStock(JLabel stockLabel, int currentStock) {
+        stockLabel.setText("재고: " + currentStock + "개");
 
         // 재고 수량에 따라 글자색 변경
         if (currentStock == 0) {
@@ -307,30 +450,130 @@ public class MainAppFrame extends JFrame implements Observer {
         } else {
             stockLabel.setForeground(DK_BLUE);
         }
-        card.add(stockLabel, BorderLayout.EAST);
-
-        return card;
     }
 
     /**
-     * '실시간 물품 재고' 패널의 내용을 최신 데이터로 업데이트(다시 그리기)합니다.
+     * 물품을 콤보박스와 '실시간 물품 재고' 패널의 끝에 추가하고, 재고 변경을 감지하도록 옵저버로 등록합니다. (EDT에서 실행)
+     * 다른 물품의 카드는 그대로 두고 이 물품의 카드만 만듭니다.
+     * @param item 추가된 물품
      */
-    private void updateItemDisplay() {
-        itemListPanel.removeAll(); // 기존의 모든 아이템 카드를 제거
-        for (Item item : items) {
-            itemListPanel.add(createItemCardPanel(item)); // 최신 정보로 카드 다시 생성 및 추가
+    private void showItem(Item item) {
+        if (itemCards.containsKey(item)) {
+            return; // 이미 표시 중
+        }
+        if (itemSearchField.getText().isBlank()) {
+            ((DefaultComboBoxModel<Item>) itemComboBox.getModel()).addElement(item);
+        } else {
+            filterItemComboBox(); // 검색 중이면 새 물품이 검색 결과에 들어가는지 다시 확인
         }
+        JPanel card = createItemCardPanel(item);
+        itemCards.put(item, card);
+        itemListPanel.add(card);
         itemListPanel.revalidate(); // 레이아웃을 다시 계산
         itemListPanel.repaint();    // 화면을 다시 그림
+        if (eventBus == null) {
+            itemSubscriptions.put(item, item.subscribe(this)); // 옵저버 패턴: 이 물품의 재고 변경 감지
+        }
+    }
+
+    /**
+     * 물품 선택 상자를 검색 칸의 검색어와 일치하는 물품으로 바꿉니다. (EDT에서 실행)
+     * 검색어가 비어 있으면 전체 물품을 보여줍니다. 선택되어 있던 물품이 결과에 있으면 선택을 유지합니다.
+     * 항목을 하나씩 지우고 넣지 않고, 결과로 만든 모델로 한 번에 바꿉니다.
+     */
+    private void filterItemComboBox() {
+        String query = itemSearchField.getText();
+        List<Item> matches = query.isBlank() ? items.toList() : items.search(query, ITEM_SEARCH_LIMIT);
+        Object selected = itemComboBox.getSelectedItem();
+        DefaultComboBoxModel<Item> model = new DefaultComboBoxModel<>(matches.toArray(new Item[0]));
+        if (selected != null && matches.contains(selected)) {
+            model.setSelectedItem(selected);
+        }
+        itemComboBox.setModel(model);
+    }
+
+    /**
+     * 삭제된 물품을 콤보박스와 '실시간 물품 재고' 패널에서 제거하고, 옵저버 등록을 해제합니다. (EDT에서 실행)
+     * @param item 삭제된 물품
+     */
+    private void hideItem(Item item) {
+        JPanel card = itemCards.remove(item);
+        if (card == null) {
+            return; // 표시 중이 아님
+        }
+        ((DefaultComboBoxModel<Item>) itemComboBox.getModel()).removeElement(item);
+        stockLabels.remove(item);
+        itemListPanel.remove(card);
+        itemListPanel.revalidate();
+        itemListPanel.repaint();
+        Subscription subscription = itemSubscriptions.remove(item);
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
     }
 
     /**
      * Observer 인터페이스의 구현 메소드.
      * 관찰하던 Item 객체의 상태가 변경되면 이 메소드가 실행됩니다.
+     * 어느 스레드에서 호출되든 변경된 물품만 기록해 두고, 화면 반영은 EDT에서 한 번에 처리합니다.
+     * 따라서 짧은 시간에 대여가 몰려도 EDT 작업은 몇 번으로 합쳐집니다.
      */
     @Override
     public void update(Item item) {
-        updateItemDisplay();
+        synchronized (pendingUpdates) {
+            pendingUpdates.add(item);
+            if (flushScheduled) {
+                return; // 이미 예약된 반영 작업이 이 변경도 함께 처리함
+            }
+            flushScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::flushPendingUpdates);
+    }
+
+    /**
+     * 묶음 대여/반납으로 여러 물품이 한 번에 바뀐 경우. 모두 기록한 뒤 화면 반영은 한 번만 예약합니다.
+     */
+    @Override
+    public void updateAll(List<Item> items) {
+        synchronized (pendingUpdates) {
+            pendingUpdates.addAll(items);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::flushPendingUpdates);
+    }
+
+    /**
+     * 이벤트 버스에서 이 창에 전달되지 못하고 버려진 이벤트가 늘었으면, 표시 중인 모든 물품의 재고를 다시 읽어 반영합니다. (EDT에서 실행)
+     */
+    private void refreshIfEventsDropped() {
+        long drops = eventBus.getDroppedCount(EVENT_SUBSCRIBER);
+        if (drops != seenDrops) {
+            seenDrops = drops;
+            updateAll(new ArrayList<>(stockLabels.keySet()));
+        }
+    }
+
+    /**
+     * 모아 둔 재고 변경을 화면에 반영합니다. (EDT에서 실행)
+     * 변경된 물품 카드의 재고 라벨만 제자리에서 갱신하므로 패널 재구성(revalidate)이 필요 없습니다.
+     */
+    private void flushPendingUpdates() {
+        List<Item> changed;
+        synchronized (pendingUpdates) {
+            changed = new ArrayList<>(pendingUpdates);
+            pendingUpdates.clear();
+            flushScheduled = false;
+        }
+        for (Item item : changed) {
+            JLabel stockLabel = stockLabels.get(item);
+            if (stockLabel != null) {
+                applyStock(stockLabel, item.getCurrentStock()); // 값이 바뀐 라벨만 다시 그려짐
+            }
+        }
+        itemComboBox.repaint(); // 콤보박스의 "(대여 불가)" 표시도 최신 재고로 갱신
     }
 
     /**
@@ -339,8 +582,9 @@ public class MainAppFrame extends JFrame implements Observer {
     private void rentAction() {
         Item selectedItem = (Item) itemComboBox.getSelectedItem();
         if (selectedItem != null) {
-            String result = rentalService.rentItem(loggedInUser, selectedItem, userStrategy);
-            logArea.append(result + "\n");
+            runRental(selectedItem, "[대여 실패]", () -> (kioskClient != null)
+                    ? kioskClient.rent(selectedItem)
+                    : rentalService.rentItem(loggedInUser, selectedItem, userStrategy));
         }
     }
 
@@ -350,20 +594,75 @@ public class MainAppFrame extends JFrame implements Observer {
     private void returnAction() {
         Item selectedItem = (Item) itemComboBox.getSelectedItem();
         if (selectedItem != null) {
-            String result = rentalService.returnItem(loggedInUser, selectedItem);
-            logArea.append(result + "\n");
+            runRental(selectedItem, "[반납 실패]", () -> (kioskClient != null)
+                    ? kioskClient.returnItem(selectedItem)
+                    : rentalService.returnItem(loggedInUser, selectedItem));
+        }
+    }
+
+    /**
+     * 대여/반납을 백그라운드 스레드(SwingWorker)에서 실행하고, 끝나면 결과를 EDT에서 로그에 표시합니다.
+     * 키오스크 모드의 서버 요청과 로컬 모드의 저널 디스크 기록 대기가 EDT를 막지 않도록 하기 위함입니다.
+     * 실행하는 동안에는 같은 요청이 겹치지 않도록 대여/반납 버튼을 비활성화합니다.
+     * @param item 대여/반납할 물품
+     * @param failurePrefix 실패 메시지 앞에 붙일 문구
+     * @param action 실행할 대여/반납
+     */
+    private void runRental(Item item, String failurePrefix, Callable<RentalResult> action) {
+        rentButton.setEnabled(false);
+        returnButton.setEnabled(false);
+        new SwingWorker<RentalResult, Void>() {
+            @Override
+            protected RentalResult doInBackground() throws Exception {
+                return action.call();
+            }
+
+            @Override
+            protected void done() {
+                rentButton.setEnabled(true);
+                returnButton.setEnabled(true);
+                try {
+                    logArea.append(get().message(loggedInUser, item) + "\n"); // 메시지는 화면에 표시할 때 만듦
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        logArea.append(failurePrefix + " 서버와 통신할 수 없습니다: " + cause.getMessage() + "\n");
+                    } else {
+                        System.err.println("대여/반납 처리 중 오류 발생: " + cause);
+                        logArea.append(failurePrefix + " 처리 중 오류가 발생했습니다: " + cause.getMessage() + "\n");
+                    }
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * 로그아웃 시 이전 세션의 이벤트 버스를 닫습니다. (새 로그인 시 새 버스가 만들어짐)
+     */
+    private void closeEventBus() {
+        if (rentalService.getEventBus() != null) {
+            rentalService.getEventBus().close();
         }
     }
 
     /**
-     * 관리자 패널에서 물품 정보가 변경되었을 때,
-     * 메인 화면의 물품 선택 콤보박스를 새로고침합니다.
+     * 창을 닫을 때, 이 창이 등록한 모든 옵저버 구독을 해제합니다.
+     * 로그아웃 후 새 창이 만들어져도 닫힌 창이 계속 알림을 받거나 메모리에 남지 않습니다.
      */
-    public void refreshItemComboBox() {
-        DefaultComboBoxModel<Item> model = (DefaultComboBoxModel<Item>) itemComboBox.getModel();
-        model.removeAllElements(); // 기존 항목 모두 제거
-        items.forEach(model::addElement); // 최신 items 리스트로 다시 채움
-        updateItemDisplay(); // 재고 표시 패널도 함께 갱신
+    @Override
+    public void dispose() {
+        if (catalogSubscription != null) {
+            catalogSubscription.unsubscribe();
+        }
+        itemSubscriptions.values().forEach(Subscription::unsubscribe);
+        itemSubscriptions.clear();
+        if (eventSubscription != null) {
+            eventSubscription.unsubscribe();
+            dropCheckTimer.stop();
+        }
+        super.dispose();
     }
 
     /**
@@ -0,0 +1,250 @@
+// 파일 이름: MappedHistoryStore.java
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 대여 기록을 열(column) 단위 파일에 저장하고, 메모리 매핑(memory-mapped)으로 바로 읽고 쓰는 저장소입니다.
+ * 기록을 RentalRecord 객체로 힙 메모리에 올리지 않으므로, 수백만 건의 기록도 프로그램 시작 시
+ * 역직렬화 없이 즉시 열리고 힙 메모리를 거의 사용하지 않습니다.
+ *
+ * 디렉터리 구성:
+ *  - meta.bin   : [매직 넘버][버전][행 수][시작 행 번호]
+ *  - user.col   : 사용자 번호 (int, 4바이트)
+ *  - item.col   : 물품 번호 (int, 4바이트)
+ *  - rental.col : 대여 시간 (long, 8바이트, epoch 초)
+ *  - return.col : 반납 시간 (long, 8바이트, epoch 초 / 대여 중이면 NOT_RETURNED)
+ *  - dict.bin   : 사용자/물품 이름 사전 (HistoryDictionary)
+ *
+ * 모든 열이 고정 길이이므로 n번째 행의 값은 (n × 열 크기) 위치에서 바로 읽을 수 있습니다.
+ * meta.bin의 행 수가 곧 커밋 지점이며, flush()가 모든 열과 사전을 디스크에 강제 기록한 뒤에만 늘어납니다.
+ * 매핑된 페이지는 운영체제가 아무 순서로나 디스크에 쓰므로, 추가할 때마다 행 수를 고치면 운영체제가 비정상 종료된 경우
+ * 행 수는 기록되었는데 열 값은 기록되지 않은 행(0으로 채워진 행)이 생길 수 있기 때문입니다.
+ * 마지막 flush() 이후에 추가된 행은 다시 열 때 버려지며, 저널(RentalJournal)을 다시 적용하여 저널에 기록된 순서대로 다시 추가됩니다.
+ * 서로 다른 물품의 대여는 행 번호 순서와 다르게 저널에 기록될 수 있으므로, 다시 추가된 행의 번호는 원래와 다를 수 있습니다.
+ * (복원 중의 반납은 저널의 행 번호를 다시 추가된 행 번호로 바꾸어 적용하므로 결과는 같음)
+ * (DataManager.saveData()는 저널 세대를 넘긴 뒤 flush()하고 나서야 이전 세대의 저널을 지우므로, 버려진 행은 항상 저널에 남아 있음)
+ *
+ * 시작 행 번호(base row)는 오래된 기록을 보관소(PartitionedHistoryStore의 archive)로 옮긴 뒤 남은 기록으로
+ * 새 저장소를 만들 때 사용합니다. 이 저장소의 0번 행이 전체 대여 기록에서 몇 번째 행인지를 나타내며,
+ * 이 클래스의 메소드는 모두 이 저장소 안의 행 번호(0부터)를 사용합니다.
+ */
+public class MappedHistoryStore implements HistoryStore {
+
+    private static final int MAGIC = 0x444B4843; // "DKHC"
+    private static final int VERSION = 2;   // 2: 시작 행 번호 추가
+    private static final int META_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 1024; // 처음 매핑할 행 수 (부족하면 두 배씩 늘림)
+
+    private final File directory;
+    private final HistoryDictionary dictionary;
+    private final FileChannel metaChannel, userChannel, itemChannel, rentalChannel, returnChannel;
+    private final MappedByteBuffer meta;
+
+    // 열 매핑 버퍼. 용량을 늘릴 때 더 큰 영역으로 다시 매핑하므로 volatile
+    private volatile MappedByteBuffer userColumn, itemColumn, rentalColumn, returnColumn;
+    private volatile int size;     // 커밋된 행 수
+    private final int baseRow;     // 이 저장소의 0번 행이 전체 대여 기록에서 갖는 행 번호
+    private int capacity;          // 현재 매핑된 행 수 (this 잠금으로 보호)
+
+    /**
+     * 저장소를 엽니다. 디렉터리가 없으면 새로 만듭니다.
+     * @param directory 열 파일이 저장될 디렉터리
+     */
+    public MappedHistoryStore(File directory) throws IOException {
+        this(directory, 0);
+    }
+
+    /**
+     * 저장소를 엽니다. 디렉터리가 없으면 지정한 시작 행 번호로 새로 만듭니다.
+     * @param directory 열 파일이 저장될 디렉터리
+     * @param newBaseRow 새로 만드는 경우의 시작 행 번호 (이미 있는 저장소는 파일에 기록된 값을 사용)
+     */
+    public MappedHistoryStore(File directory, int newBaseRow) throws IOException {
+        this.directory = directory;
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("대여 기록 디렉터리를 만들 수 없습니다: " + directory);
+        }
+        this.dictionary = new HistoryDictionary(new File(directory, "dict.bin"));
+
+        this.metaChannel = open("meta.bin");
+        this.meta = metaChannel.map(FileChannel.MapMode.READ_WRITE, 0, META_SIZE);
+        if (meta.getInt(0) == 0) { // 새 파일
+            meta.putInt(0, MAGIC);
+            meta.putInt(4, VERSION);
+            meta.putInt(8, 0);
+            meta.putInt(12, newBaseRow);
+        } else if (meta.getInt(0) != MAGIC) {
+            throw new IOException("대여 기록 파일 형식이 올바르지 않습니다: " + directory);
+        } else if (meta.getInt(4) < VERSION) {
+            meta.putInt(4, VERSION); // 버전 1 파일: 늘어난 영역이 0으로 채워지므로 시작 행 번호는 0
+        }
+        this.size = meta.getInt(8);
+        this.baseRow = meta.getInt(12);
+
+        this.userChannel = open("user.col");
+        this.itemChannel = open("item.col");
+        this.rentalChannel = open("rental.col");
+        this.returnChannel = open("return.col");
+
+        int initial = INITIAL_CAPACITY;
+        while (initial < size) {
+            initial *= 2;
+        }
+        remap(initial);
+    }
+
+    /**
+     * 이 저장소가 사용하는 디렉터리를 반환합니다.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 이 저장소의 0번 행이 전체 대여 기록에서 갖는 행 번호를 반환합니다.
+     */
+    public int getBaseRow() {
+        return baseRow;
+    }
+
+    private FileChannel open(String fileName) throws IOException {
+        return FileChannel.open(new File(directory, fileName).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 각 열 파일을 newCapacity 행 크기로 다시 매핑합니다. (필요하면 파일 크기도 늘어남)
+     */
+    private void remap(int newCapacity) throws IOException {
+        userColumn = userChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * Integer.BYTES);
+        itemColumn = itemChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * Integer.BYTES);
+        rentalColumn = rentalChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * Long.BYTES);
+        returnColumn = returnChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newCapacity * Long.BYTES);
+        capacity = newCapacity;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // --- 열 조회 메소드 (객체를 만들지 않고 매핑된 파일에서 바로 읽음) ---
+
+    public int getUserCode(int row) {
+        return userColumn.getInt(row * Integer.BYTES);
+    }
+
+    public int getItemCode(int row) {
+        return itemColumn.getInt(row * Integer.BYTES);
+    }
+
+    @Override
+    public String getUserId(int row) {
+        return dictionary.user(getUserCode(row)).getId();
+    }
+
+    @Override
+    public String getUserName(int row) {
+        return dictionary.user(getUserCode(row)).getName();
+    }
+
+    @Override
+    public User getUser(int row) {
+        return dictionary.user(getUserCode(row));
+    }
+
+    @Override
+    public String getItemName(int row) {
+        return dictionary.itemName(getItemCode(row));
+    }
+
+    @Override
+    public long getRentalTime(int row) {
+        return rentalColumn.getLong(row * Long.BYTES);
+    }
+
+    @Override
+    public long getReturnTime(int row) {
+        return returnColumn.getLong(row * Long.BYTES);
+    }
+
+    /**
+     * 사용자/물품 번호 사전을 반환합니다.
+     */
+    public HistoryDictionary getDictionary() {
+        return dictionary;
+    }
+
+    // --- 기록 메소드 ---
+
+    @Override
+    public synchronized int append(User user, String itemName, long rentalTime) {
+        int row = size;
+        if (row == capacity) {
+            try {
+                remap(capacity * 2);
+            } catch (IOException e) {
+                throw new UncheckedIOException("대여 기록 파일 확장 중 오류 발생", e);
+            }
+        }
+        userColumn.putInt(row * Integer.BYTES, dictionary.userCode(user));
+        itemColumn.putInt(row * Integer.BYTES, dictionary.itemCode(itemName));
+        rentalColumn.putLong(row * Long.BYTES, rentalTime);
+        returnColumn.putLong(row * Long.BYTES, NOT_RETURNED);
+
+        // meta.bin의 행 수는 flush()에서 열을 강제 기록한 뒤에 늘림 (여기서는 메모리의 행 수만)
+        size = row + 1;
+        return row;
+    }
+
+    @Override
+    public synchronized void markReturned(int row, long returnTime) {
+        returnColumn.putLong(row * Long.BYTES, returnTime);
+    }
+
+    @Override
+    public synchronized int[] appendAll(User user, List<String> itemNames, long rentalTime) {
+        return HistoryStore.super.appendAll(user, itemNames, rentalTime); // 한 번의 잠금으로 묶음 전체를 추가
+    }
+
+    @Override
+    public synchronized void markReturnedAll(int[] rows, long returnTime) {
+        HistoryStore.super.markReturnedAll(rows, returnTime);
+    }
+
+    /**
+     * 매핑된 내용을 디스크에 강제 기록하고, 그 뒤에 meta.bin의 행 수를 늘려 지금까지 추가된 행을 커밋합니다.
+     * 사전과 열이 모두 디스크에 기록된 뒤에 행 수를 쓰므로, 커밋된 행은 운영체제가 비정상 종료되어도 온전합니다.
+     */
+    @Override
+    public synchronized void flush() {
+        dictionary.sync();
+        userColumn.force();
+        itemColumn.force();
+        rentalColumn.force();
+        returnColumn.force();
+        meta.putInt(8, size);
+        meta.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        dictionary.close();
+        try {
+            metaChannel.close();
+            userChannel.close();
+            itemChannel.close();
+            rentalChannel.close();
+            returnChannel.close();
+        } catch (IOException e) {
+            System.err.println("대여 기록 파일 닫기 중 오류 발생: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,323 @@
+// 파일 이름: NameSearchIndex.java
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 물품 이름, 사용자 이름처럼 짧은 한글 이름을 입력하는 동안 바로 찾기(type-ahead) 위한 메모리 검색 인덱스입니다.
+ * 검색어는 대소문자와 공백을 무시하고 다음과 같이 맞춰 봅니다.
+ *
+ *  - 앞부분 일치: "보조" → "보조배터리"
+ *  - 부분 일치: "배터" → "보조배터리", "우산" → "3단 우산"
+ *  - 초성 일치: "ㅂㅈㅂ" → "보조배터리". 초성과 글자를 섞어 쓸 수도 있음: "ㅂ조" → "보조배터리"
+ *
+ * 이름마다 다음 인덱스를 유지하므로 검색 시간은 전체 이름 수가 아니라 후보 수에 비례합니다.
+ *  - 정규화한 이름과 초성 이름의 정렬 맵 (앞부분 일치를 이름 순서로 바로 찾음)
+ *  - 정규화한 이름과 초성 이름의 글자 1-gram/2-gram → 이름 번호 목록 (부분 일치 후보)
+ *    검색어의 gram 중 후보가 가장 적은 목록만 확인합니다.
+ *
+ * 번호 목록은 int 배열이며, 이름을 삭제하면 번호만 비워 두었다가 삭제된 이름이 절반을 넘으면 인덱스를 다시 만듭니다.
+ * 한 값에 여러 이름(예: 사용자 ID와 이름)을 등록할 수 있으며, 결과에는 값이 한 번만 나옵니다.
+ * 모든 메소드는 this 잠금으로 동기화되어 있습니다.
+ *
+ * @param <T> 검색 결과로 돌려줄 값 (Item, User 등)
+ */
+public class NameSearchIndex<T> {
+
+    // 한글 음절의 초성 (유니코드 한글 음절 = 0xAC00 + (초성 * 21 + 중성) * 28 + 종성)
+    private static final String INITIALS = "ㄱㄲㄴㄷㄸㄹㅁㅂㅃㅅㅆㅇㅈㅉㅊㅋㅌㅍㅎ";
+    private static final char HANGUL_FIRST = '가';
+    private static final char HANGUL_LAST = '힣';
+    private static final int SYLLABLES_PER_INITIAL = 21 * 28;
+
+    private final Map<T, List<Entry<T>>> byValue = new LinkedHashMap<>();   // 값 → 등록된 이름 (등록 순서)
+    private final NavigableMap<String, Entry<T>> byKey = new TreeMap<>();       // 정규화한 이름 → 이름
+    private final NavigableMap<String, Entry<T>> byInitials = new TreeMap<>();  // 초성 이름 → 이름
+    private final Map<Integer, IntList> grams = new HashMap<>();                // 이름의 gram → 이름 번호
+    private final Map<Integer, IntList> initialGrams = new HashMap<>();         // 초성 이름의 gram → 이름 번호
+    private final List<Entry<T>> entries = new ArrayList<>();                   // 이름 번호 → 이름 (삭제되면 null)
+    private int removedCount;
+
+    /**
+     * 값을 이름과 함께 등록합니다. 이미 등록된 값이면 이름이 추가됩니다.
+     * @param value 검색 결과로 돌려줄 값
+     * @param names 검색할 이름 (빈 이름은 무시)
+     */
+    public synchronized void add(T value, String... names) {
+        List<Entry<T>> valueEntries = byValue.computeIfAbsent(value, v -> new ArrayList<>(names.length));
+        for (String name : names) {
+            String key = normalize(name);
+            if (!key.isEmpty()) {
+                Entry<T> entry = new Entry<>(value, key, initialsOf(key), entries.size());
+                valueEntries.add(entry);
+                index(entry);
+            }
+        }
+    }
+
+    /**
+     * 값을 등록한 모든 이름과 함께 삭제합니다.
+     * @return 삭제했으면 true, 등록되지 않은 값이면 false
+     */
+    public synchronized boolean remove(T value) {
+        List<Entry<T>> valueEntries = byValue.remove(value);
+        if (valueEntries == null) {
+            return false;
+        }
+        for (Entry<T> entry : valueEntries) {
+            byKey.remove(entry.sortedKey);
+            byInitials.remove(entry.sortedInitials);
+            entries.set(entry.id, null); // 번호 목록에는 남아 있지만 검색 시 건너뜀
+            removedCount++;
+        }
+        if (removedCount > entries.size() / 2) {
+            rebuild();
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return byValue.size();
+    }
+
+    /**
+     * 검색어와 일치하는 값을 찾습니다. 앞부분이 일치하는 이름이 먼저(이름 순서), 그다음 중간이 일치하는 이름이 등록 순서로 나옵니다.
+     * @param query 검색어. 비어 있으면 등록 순서대로 반환
+     * @param limit 최대 결과 수
+     * @return 일치하는 값 목록
+     */
+    public synchronized List<T> search(String query, int limit) {
+        String q = normalize(query);
+        List<T> result = new ArrayList<>(Math.min(limit, 64));
+        if (q.isEmpty()) {
+            for (T value : byValue.keySet()) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(value);
+            }
+            return result;
+        }
+
+        // 초성이 하나라도 있으면 초성 이름으로 후보를 찾음 (글자는 그 글자의 초성으로 바꿔서 찾은 뒤 확인)
+        boolean initialQuery = hasInitial(q);
+        String probe = initialQuery ? initialsOf(q) : q;
+        NavigableMap<String, Entry<T>> sorted = initialQuery ? byInitials : byKey;
+        Map<Integer, IntList> postings = initialQuery ? initialGrams : grams;
+        Set<T> found = new LinkedHashSet<>();
+
+        // 1. 앞부분 일치
+        for (Entry<T> entry : sorted.subMap(probe, true, probe + Character.MAX_VALUE, true).values()) {
+            if (found.size() >= limit) {
+                break;
+            }
+            if (entry.matchesAt(q, 0)) {
+                found.add(entry.value);
+            }
+        }
+
+        // 2. 부분 일치: 검색어의 gram 중 후보가 가장 적은 번호 목록만 확인
+        IntList candidates = null;
+        for (int gram : gramsOf(probe)) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                candidates = null; // 이 gram이 들어 있는 이름이 없으므로 부분 일치도 없음
+                break;
+            }
+            if (candidates == null || list.size < candidates.size) {
+                candidates = list;
+            }
+        }
+        if (candidates != null) {
+            for (int i = 0; i < candidates.size && found.size() < limit; i++) {
+                Entry<T> entry = entries.get(candidates.values[i]);
+                if (entry != null && !found.contains(entry.value) && entry.matches(q)) {
+                    found.add(entry.value);
+                }
+            }
+        }
+        result.addAll(found);
+        return result;
+    }
+
+    // --- 인덱스 관리 ---
+
+    private void index(Entry<T> entry) {
+        entries.add(entry);
+        // 같은 이름이 여러 개일 수 있으므로 정렬 맵의 키는 이름 뒤에 번호를 붙여 구분
+        entry.sortedKey = entry.key + '\0' + entry.id;
+        entry.sortedInitials = entry.initials + '\0' + entry.id;
+        byKey.put(entry.sortedKey, entry);
+        byInitials.put(entry.sortedInitials, entry);
+        for (int gram : gramsOf(entry.key)) {
+            grams.computeIfAbsent(gram, g -> new IntList()).addOnce(entry.id);
+        }
+        for (int gram : gramsOf(entry.initials)) {
+            initialGrams.computeIfAbsent(gram, g -> new IntList()).addOnce(entry.id);
+        }
+    }
+
+    /**
+     * 삭제된 이름을 빼고 번호를 다시 매겨 인덱스를 새로 만듭니다.
+     */
+    private void rebuild() {
+        List<Entry<T>> live = new ArrayList<>(entries.size() - removedCount);
+        for (Entry<T> entry : entries) {
+            if (entry != null) {
+                live.add(entry);
+            }
+        }
+        entries.clear();
+        byKey.clear();
+        byInitials.clear();
+        grams.clear();
+        initialGrams.clear();
+        removedCount = 0;
+        for (Entry<T> entry : live) {
+            entry.id = entries.size();
+            index(entry);
+        }
+    }
+
+    /**
+     * 문자열의 1-gram과 2-gram을 int로 만듭니다. 2-gram은 (앞 글자 &lt;&lt; 16 | 뒤 글자)이므로 1-gram과 겹치지 않습니다.
+     */
+    private static int[] gramsOf(String s) {
+        int length = s.length();
+        if (length == 1) {
+            return new int[]{s.charAt(0)};
+        }
+        int[] result = new int[length * 2 - 1];
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            result[n++] = s.charAt(i);
+            if (i + 1 < length) {
+                result[n++] = (s.charAt(i) << 16) | s.charAt(i + 1);
+            }
+        }
+        return result;
+    }
+
+    // --- 정규화와 초성 ---
+
+    /**
+     * 공백을 지우고 소문자로 바꿉니다. 글자 단위로 바꾸므로 길이가 늘어나지 않습니다. (초성 이름과 위치가 맞아야 함)
+     */
+    static String normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 한글 음절을 초성으로 바꿉니다. 음절이 아닌 글자는 그대로 둡니다. ("3단우산" → "3ㄷㅇㅅ")
+     */
+    static String initialsOf(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = initialOf(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static char initialOf(char c) {
+        if (c < HANGUL_FIRST || c > HANGUL_LAST) {
+            return c;
+        }
+        return INITIALS.charAt((c - HANGUL_FIRST) / SYLLABLES_PER_INITIAL);
+    }
+
+    private static boolean isInitial(char c) {
+        return INITIALS.indexOf(c) >= 0;
+    }
+
+    private static boolean hasInitial(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (isInitial(s.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 등록된 이름 하나
+     */
+    private static class Entry<T> {
+        final T value;
+        final String key;      // 정규화한 이름
+        final String initials; // 초성 이름 (key와 길이가 같음)
+        int id;                // 이름 번호 (인덱스를 다시 만들면 바뀜)
+        String sortedKey;      // 정렬 맵의 키 (index()에서 설정)
+        String sortedInitials;
+
+        Entry(T value, String key, String initials, int id) {
+            this.value = value;
+            this.key = key;
+            this.initials = initials;
+            this.id = id;
+        }
+
+        /**
+         * 정규화한 검색어가 이름의 중간 어딘가와 일치하는지 확인합니다.
+         */
+        boolean matches(String q) {
+            for (int p = 0; p + q.length() <= key.length(); p++) {
+                if (matchesAt(q, p)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 검색어가 이름의 from 위치부터 일치하는지 확인합니다. 검색어의 초성은 이름 글자의 초성과, 나머지 글자는 이름 글자와 비교합니다.
+         */
+        boolean matchesAt(String q, int from) {
+            if (from + q.length() > key.length()) {
+                return false;
+            }
+            for (int i = 0; i < q.length(); i++) {
+                char c = q.charAt(i);
+                if (c != (isInitial(c) ? initials.charAt(from + i) : key.charAt(from + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 크기가 늘어나는 이름 번호 목록 (Integer 객체를 만들지 않기 위해 사용)
+     */
+    private static class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        /**
+         * 번호를 추가합니다. 한 이름의 gram은 연달아 추가되므로, 같은 이름 안에서 반복된 gram은 마지막 값만 보면 걸러집니다.
+         */
+        void addOnce(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
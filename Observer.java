@@ -1,5 +1,7 @@
 // 파일 이름: Observer.java
 
+import java.util.List;
+
 /**
  * 옵저버 디자인 패턴(Observer Design Pattern)을 구현하기 위한 인터페이스입니다.
  * * 이 인터페이스를 구현하는 클래스(Observer, 관찰자)는 특정 객체(Subject, 관찰 대상)의
@@ -17,4 +19,17 @@ public interface Observer {
      * @param item 상태가 변경된 Item 객체. 옵저버는 이 객체를 통해 최신 정보를 얻을 수 있습니다.
      */
     void update(Item item);
+
+    /**
+     * 여러 물품의 상태가 한 번에 변경되었을 때 호출되는 메소드입니다. (묶음 대여/반납 등)
+     * 한 작업으로 바뀐 물품 중 이 옵저버가 관찰하는 물품들을 모아 한 번만 호출됩니다.
+     * 기본 구현은 물품마다 update()를 호출하므로, 변경을 한 번에 처리하고 싶은 옵저버만 재정의하면 됩니다.
+     *
+     * @param items 상태가 변경된 Item 객체 목록
+     */
+    default void updateAll(List<Item> items) {
+        for (Item item : items) {
+            update(item);
+        }
+    }
 }
\ No newline at end of file
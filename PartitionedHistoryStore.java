@@ -0,0 +1,570 @@
+// 파일 이름: PartitionedHistoryStore.java
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * 대여 기록을 기간별로 나누어 보관하는 저장소입니다.
+ * 최근 기록과 아직 반납되지 않은 기록은 메모리 매핑된 현재 구간(live, MappedHistoryStore)에 두고,
+ * 지난 달의 반납 완료된 기록은 달마다 압축된 세그먼트 파일(HistorySegment)로 옮겨 보관소(archive)에 둡니다.
+ * 보관된 세그먼트는 더 이상 바뀌지 않으며, 행을 조회할 때는 그 행이 속한 블록(HistorySegment.BLOCK_ROWS행)만 풀어서 읽습니다.
+ *
+ * 디렉터리 구성:
+ *  - live/    : 현재 구간 (MappedHistoryStore). 시작 행 번호가 보관된 행 수와 같음
+ *  - archive/ : seg-시작행-끝행.gz 세그먼트 파일들
+ *
+ * 행 번호는 전체 기록 기준으로 유지됩니다. 보관소로 옮겨도 번호가 바뀌지 않으므로 저널과 인덱스가 그대로 동작합니다.
+ * 기록은 행 순서대로 앞에서부터만 보관되므로, 지난 달의 기록이라도 그보다 앞에 반납되지 않은 기록이 있으면
+ * 그 기록이 반납될 때까지 현재 구간에 남습니다.
+ *
+ * 현재 구간, 세그먼트 목록, 보관된 행 수는 하나의 불변 객체(Layout)로 묶어 volatile 필드 하나로 교체하므로,
+ * 조회는 잠금 없이 항상 서로 맞는 세 값을 봅니다. rollOver()와 compact()는 실행 중에도 호출할 수 있으며(CheckpointService),
+ * rollOver()는 현재 구간을 교체하는 짧은 순간에만 호출한 쪽이 넘겨준 방법으로 기록 추가를 멈춥니다.
+ */
+public class PartitionedHistoryStore implements HistoryStore {
+
+    // 이 행 수보다 작은 세그먼트는 이웃 세그먼트와 달이 달라도 합칩니다.
+    private static final int SMALL_SEGMENT_ROWS = 256;
+    // 행 단위 조회를 위해 풀어서 보관할 블록 수 (블록 하나는 HistorySegment.BLOCK_ROWS행)
+    private static final int CACHED_BLOCKS = 64;
+
+    private final File directory;
+    private final File liveDir;
+    private final File archiveDir;
+
+    private volatile Layout layout;                                        // 현재 구간과 보관소 (교체할 때만 바뀜)
+    private final List<Runnable> retired = new ArrayList<>();              // 목록에서 빠졌지만 아직 읽는 중일 수 있는 세그먼트/현재 구간을 닫는 작업 (this 잠금)
+
+    // 최근에 풀어 본 블록 (접근 순서 LRU, cache 잠금으로 보호). 키는 (세그먼트 시작 행, 블록 번호)
+    private final Map<Long, HistorySegment.Rows> cache = new LinkedHashMap<Long, HistorySegment.Rows>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, HistorySegment.Rows> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+    private volatile HistorySegment.Rows lastBlock; // 마지막으로 읽은 블록 (차례로 읽을 때 캐시 잠금 없이 바로 사용)
+
+    /**
+     * 현재 구간, 보관된 세그먼트 목록(행 순서), 보관된 마지막 행 + 1을 한 번에 바꾸기 위한 불변 객체
+     */
+    private static final class Layout {
+        final MappedHistoryStore live;
+        final List<HistorySegment> segments;
+        final int archivedEnd;
+
+        Layout(MappedHistoryStore live, List<HistorySegment> segments, int archivedEnd) {
+            this.live = live;
+            this.segments = List.copyOf(segments);
+            this.archivedEnd = archivedEnd;
+        }
+    }
+
+    /**
+     * 저장소를 엽니다. 디렉터리가 없으면 새로 만듭니다.
+     * 이전 버전(디렉터리에 열 파일이 바로 있는 형식)이면 현재 구간 디렉터리로 옮깁니다.
+     * @param directory 저장소 디렉터리
+     */
+    public PartitionedHistoryStore(File directory) throws IOException {
+        this.directory = directory;
+        this.liveDir = new File(directory, "live");
+        this.archiveDir = new File(directory, "archive");
+        if (!archiveDir.exists() && !archiveDir.mkdirs()) {
+            throw new IOException("대여 기록 보관소 디렉터리를 만들 수 없습니다: " + archiveDir);
+        }
+        migrateFlatLayout();
+        recoverLive();
+        List<HistorySegment> segments = loadSegments();
+        int archivedEnd = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).getEndRow();
+
+        MappedHistoryStore live = new MappedHistoryStore(liveDir, archivedEnd);
+        if (live.getBaseRow() > archivedEnd) {
+            throw new IOException("보관된 대여 기록이 누락되었습니다. (보관: " + archivedEnd + "행, 현재 구간 시작: " + live.getBaseRow() + "행)");
+        }
+        this.layout = new Layout(live, segments, archivedEnd);
+    }
+
+    /**
+     * 이전 버전의 MappedHistoryStore 파일(directory/meta.bin 등)을 live 디렉터리로 옮깁니다.
+     */
+    private void migrateFlatLayout() throws IOException {
+        if (!new File(directory, "meta.bin").exists() || liveDir.exists()) {
+            return;
+        }
+        if (!liveDir.mkdirs()) {
+            throw new IOException("대여 기록 디렉터리를 만들 수 없습니다: " + liveDir);
+        }
+        for (String name : new String[]{"meta.bin", "user.col", "item.col", "rental.col", "return.col", "dict.bin"}) {
+            File file = new File(directory, name);
+            if (file.exists() && !file.renameTo(new File(liveDir, name))) {
+                throw new IOException("대여 기록 파일을 옮기지 못했습니다: " + file);
+            }
+        }
+    }
+
+    /**
+     * 현재 구간을 교체하던 도중 종료된 경우를 복구합니다.
+     */
+    private void recoverLive() {
+        File next = new File(directory, "live.new");
+        File old = new File(directory, "live.old");
+        if (!liveDir.exists() && next.exists()) {
+            next.renameTo(liveDir); // 교체 직전에 종료: 새 구간이 완성되어 있으므로 사용
+        }
+        deleteDirectory(next); // 만들다 만 새 구간
+        deleteDirectory(old);  // 교체 후 지우지 못한 이전 구간
+    }
+
+    /**
+     * 보관소의 세그먼트 헤더를 읽어 목록을 만듭니다. 합치기 도중 종료되어 남은 원본 세그먼트는 삭제합니다.
+     */
+    private List<HistorySegment> loadSegments() throws IOException {
+        File[] files = archiveDir.listFiles((dir, name) -> name.startsWith("seg-") && name.endsWith(".gz"));
+        List<HistorySegment> segments = new ArrayList<>();
+        int archivedEnd = 0;
+        List<HistorySegment> found = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                found.add(HistorySegment.open(file));
+            }
+        }
+        // 시작 행 순서, 같으면 큰 세그먼트 먼저
+        found.sort(Comparator.comparingInt(HistorySegment::getStartRow).thenComparing(Comparator.comparingInt(HistorySegment::getCount).reversed()));
+        for (HistorySegment segment : found) {
+            HistorySegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last != null && last.contains(segment)) {
+                segment.close();
+                segment.getFile().delete(); // 이미 합쳐진 원본
+                continue;
+            }
+            if (segment.getStartRow() != archivedEnd) {
+                for (HistorySegment opened : found) {
+                    opened.close();
+                }
+                throw new IOException("대여 기록 보관소의 행 구간이 이어지지 않습니다: " + segment.getFile().getName());
+            }
+            segments.add(segment);
+            archivedEnd = segment.getEndRow();
+        }
+        return segments;
+    }
+
+    // --- HistoryStore 구현 ---
+
+    @Override
+    public int size() {
+        MappedHistoryStore live = layout.live;
+        return live.getBaseRow() + live.size();
+    }
+
+    @Override
+    public String getUserId(int row) {
+        Layout l = layout;
+        if (row < l.archivedEnd) {
+            HistorySegment.Rows rows = archived(l, row);
+            return rows.userIds[row - rows.firstRow];
+        }
+        return l.live.getUserId(row - l.live.getBaseRow());
+    }
+
+    @Override
+    public String getUserName(int row) {
+        Layout l = layout;
+        if (row < l.archivedEnd) {
+            HistorySegment.Rows rows = archived(l, row);
+            return rows.userNames[row - rows.firstRow];
+        }
+        return l.live.getUserName(row - l.live.getBaseRow());
+    }
+
+    @Override
+    public User getUser(int row) {
+        Layout l = layout;
+        return (row < l.archivedEnd) ? HistoryStore.super.getUser(row) : l.live.getUser(row - l.live.getBaseRow());
+    }
+
+    @Override
+    public String getItemName(int row) {
+        Layout l = layout;
+        if (row < l.archivedEnd) {
+            HistorySegment.Rows rows = archived(l, row);
+            return rows.itemNames[row - rows.firstRow];
+        }
+        return l.live.getItemName(row - l.live.getBaseRow());
+    }
+
+    @Override
+    public long getRentalTime(int row) {
+        Layout l = layout;
+        if (row < l.archivedEnd) {
+            HistorySegment.Rows rows = archived(l, row);
+            return rows.rentalTimes[row - rows.firstRow];
+        }
+        return l.live.getRentalTime(row - l.live.getBaseRow());
+    }
+
+    @Override
+    public long getReturnTime(int row) {
+        Layout l = layout;
+        if (row < l.archivedEnd) {
+            HistorySegment.Rows rows = archived(l, row);
+            return rows.returnTimes[row - rows.firstRow];
+        }
+        return l.live.getReturnTime(row - l.live.getBaseRow());
+    }
+
+    // 기록 추가와 반납은 현재 구간 교체(rollOver()의 pause) 중에는 호출되지 않음
+
+    @Override
+    public int append(User user, String itemName, long rentalTime) {
+        MappedHistoryStore live = layout.live;
+        return live.getBaseRow() + live.append(user, itemName, rentalTime);
+    }
+
+    @Override
+    public int[] appendAll(User user, List<String> itemNames, long rentalTime) {
+        MappedHistoryStore current = layout.live;
+        int[] rows = current.appendAll(user, itemNames, rentalTime);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] += current.getBaseRow();
+        }
+        return rows;
+    }
+
+    @Override
+    public void markReturned(int row, long returnTime) {
+        Layout l = layout;
+        if (row < l.archivedEnd) {
+            return; // 보관된 기록은 모두 반납이 끝난 기록 (저널 복원 시 같은 반납을 다시 적용하는 경우)
+        }
+        l.live.markReturned(row - l.live.getBaseRow(), returnTime);
+    }
+
+    @Override
+    public void flush() {
+        layout.live.flush();
+    }
+
+    @Override
+    public synchronized void close() {
+        Layout l = layout;
+        l.live.close();
+        for (HistorySegment segment : l.segments) {
+            segment.close();
+        }
+        closeRetired();
+        synchronized (cache) {
+            cache.clear();
+        }
+        lastBlock = null;
+    }
+
+    /**
+     * 보관된 기록은 모두 반납된 기록이므로 현재 구간만 훑습니다.
+     */
+    @Override
+    public void forEachOpenRow(IntConsumer action) {
+        Layout l = layout;
+        int base = l.live.getBaseRow();
+        int size = base + l.live.size();
+        for (int row = Math.max(l.archivedEnd, base); row < size; row++) {
+            if (l.live.isOpen(row - base)) {
+                action.accept(row);
+            }
+        }
+    }
+
+    /**
+     * 기간이 겹치는 세그먼트만 풀어서 읽고, 나머지 세그먼트는 건너뜁니다. (블록은 캐시에 남기지 않음)
+     */
+    @Override
+    public void forEachInPeriod(long from, long to, RowVisitor visitor) {
+        Layout l = layout;
+        for (HistorySegment segment : l.segments) {
+            if (!segment.overlaps(from, to)) {
+                continue;
+            }
+            try {
+                segment.stream((row, userId, userName, itemName, rentalTime, returnTime) -> {
+                    if (rentalTime >= from && rentalTime < to) {
+                        visitor.visit(row, userId, userName, itemName, rentalTime, returnTime);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("대여 기록 보관소 읽기 중 오류 발생", e);
+            }
+        }
+        MappedHistoryStore live = l.live;
+        int base = live.getBaseRow();
+        int size = base + live.size();
+        for (int row = Math.max(l.archivedEnd, base); row < size; row++) {
+            int local = row - base;
+            long rentalTime = live.getRentalTime(local);
+            if (rentalTime >= from && rentalTime < to) {
+                visitor.visit(row, live.getUserId(local), live.getUserName(local), live.getItemName(local), rentalTime,
+                        live.getReturnTime(local));
+            }
+        }
+    }
+
+    // --- 보관소 조회 ---
+
+    /**
+     * 행이 속한 세그먼트를 이진 탐색으로 찾습니다.
+     */
+    private static HistorySegment segmentOf(List<HistorySegment> segments, int row) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (segments.get(mid).getStartRow() <= row) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return segments.get(low);
+    }
+
+    /**
+     * 행이 속한 블록을 풀어서 반환합니다. 마지막으로 읽은 블록이면 잠금 없이, 최근에 읽은 블록이면 캐시에서 바로 돌려줍니다.
+     * 보관된 행은 바뀌지 않으므로, 합치기 전의 세그먼트에서 읽은 블록이라도 행이 들어 있으면 그대로 씁니다.
+     */
+    private HistorySegment.Rows archived(Layout l, int row) {
+        HistorySegment.Rows last = lastBlock;
+        if (last != null && last.contains(row)) {
+            return last;
+        }
+        HistorySegment segment = segmentOf(l.segments, row);
+        int block = segment.blockOf(row);
+        Long key = ((long) segment.getStartRow() << 32) | block;
+        HistorySegment.Rows rows;
+        synchronized (cache) {
+            rows = cache.get(key);
+        }
+        if (rows == null || !rows.contains(row)) { // 같은 위치에서 시작하는 합쳐지기 전 세그먼트의 블록이면 다시 읽음
+            try {
+                rows = segment.readBlock(block); // 압축 풀기는 캐시 잠금 밖에서
+            } catch (IOException e) {
+                throw new UncheckedIOException("대여 기록 보관소 읽기 중 오류 발생", e);
+            }
+            synchronized (cache) {
+                cache.put(key, rows);
+            }
+        }
+        lastBlock = rows;
+        return rows;
+    }
+
+    /**
+     * @return 보관소에 있는 세그먼트 수
+     */
+    public int getSegmentCount() {
+        return layout.segments.size();
+    }
+
+    /**
+     * @return 보관소로 옮겨진 행 수
+     */
+    public int getArchivedRowCount() {
+        return layout.archivedEnd;
+    }
+
+    // --- 보관(roll over)과 합치기(compaction) ---
+
+    /**
+     * 현재 구간의 앞부분 중 cutoff 이전에 대여되어 반납까지 끝난 기록을 달별 세그먼트로 보관소에 옮기고,
+     * 나머지 기록만으로 현재 구간을 다시 만듭니다.
+     * 세그먼트 쓰기와 남길 기록의 복사는 기록 추가와 함께 진행하고, 그동안 추가되거나 반납된 기록을 반영한 뒤
+     * 현재 구간을 교체하는 부분만 pause로 실행합니다.
+     * @param cutoff 이 시간(epoch 초) 이전의 기록만 옮김. 보통 이번 달 1일 0시
+     * @param pause 넘겨받은 작업을 기록 추가/반납을 멈춘 채 실행하는 방법 (예: RentalJournal::runExclusive.
+     *              다른 스레드와 공유하기 전이면 Runnable::run)
+     * @return 보관소로 옮긴 행 수
+     */
+    public synchronized int rollOver(long cutoff, Consumer<Runnable> pause) throws IOException {
+        closeRetired();
+        Layout l = layout;
+        MappedHistoryStore live = l.live;
+        int start = l.archivedEnd - live.getBaseRow(); // 현재 구간에서 아직 보관되지 않은 첫 행
+        int end = start;
+        while (end < live.size() && live.getRentalTime(end) < cutoff && !live.isOpen(end)) {
+            end++;
+        }
+        if (end == start) {
+            return 0;
+        }
+
+        // 1. 같은 달의 연속된 기록끼리 하나의 세그먼트로 기록 (반납이 끝난 기록은 바뀌지 않으므로 기록 추가를 멈추지 않음)
+        List<HistorySegment> segments = new ArrayList<>(l.segments);
+        int runStart = start;
+        YearMonth month = monthOf(live.getRentalTime(start));
+        for (int i = start + 1; i <= end; i++) {
+            YearMonth current = (i < end) ? monthOf(live.getRentalTime(i)) : null;
+            if (!month.equals(current)) {
+                int first = runStart;
+                segments.add(HistorySegment.write(archiveDir, live.getBaseRow() + first, i - first, n -> live.getRecord(first + n)));
+                runStart = i;
+                month = current;
+            }
+        }
+        int archivedEnd = live.getBaseRow() + end;
+
+        try {
+            rebuildLive(live, end, segments, archivedEnd, pause);
+        } catch (IOException e) {
+            for (int i = l.segments.size(); i < segments.size(); i++) {
+                segments.get(i).close(); // 파일은 남겨 둠 (다음에 같은 이름으로 다시 쓰거나, 다시 열 때 현재 구간과 겹친 보관분으로 사용)
+            }
+            throw e;
+        }
+        return end - start;
+    }
+
+    /**
+     * 현재 구간의 keepFrom 행부터만 담은 새 구간을 만들어 교체하고, 새 세그먼트 목록과 함께 공개합니다.
+     */
+    private void rebuildLive(MappedHistoryStore live, int keepFrom, List<HistorySegment> segments, int archivedEnd,
+                             Consumer<Runnable> pause) throws IOException {
+        File next = new File(directory, "live.new");
+        File old = new File(directory, "live.old");
+        deleteDirectory(next);
+
+        // 2. 지금까지의 기록을 복사. 대여 중이던 행은 교체 직전에 반납 여부를 다시 확인
+        MappedHistoryStore rebuilt = new MappedHistoryStore(next, live.getBaseRow() + keepFrom);
+        BitSet open = new BitSet();
+        int copied = copyRows(live, keepFrom, live.size(), rebuilt, open);
+        rebuilt.flush(); // 교체하는 동안 강제 기록할 양을 줄임
+
+        // 3. 기록 추가/반납을 멈추고, 그동안 바뀐 부분만 반영한 뒤 교체
+        try {
+            pause.accept(() -> {
+                try {
+                    copyRows(live, copied, live.size(), rebuilt, null);
+                    for (int i = open.nextSetBit(0); i >= 0; i = open.nextSetBit(i + 1)) {
+                        if (!live.isOpen(keepFrom + i)) {
+                            rebuilt.markReturned(i, live.getReturnTime(keepFrom + i));
+                        }
+                    }
+                    rebuilt.close(); // flush 포함
+                    if (!liveDir.renameTo(old)) {
+                        throw new IOException("대여 기록 현재 구간을 교체하지 못했습니다: " + liveDir);
+                    }
+                    if (!next.renameTo(liveDir)) {
+                        old.renameTo(liveDir);
+                        throw new IOException("대여 기록 현재 구간을 교체하지 못했습니다: " + liveDir);
+                    }
+                    layout = new Layout(new MappedHistoryStore(liveDir), segments, archivedEnd);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            rebuilt.close();
+            deleteDirectory(next);
+            throw e.getCause();
+        }
+        // 교체 전에 이전 목록을 읽기 시작한 조회가 있을 수 있으므로, 이전 구간을 닫고 지우는 것은 다음 번으로 미룸
+        // (그 전에 종료되면 다시 열 때 live.old를 지움)
+        retired.add(() -> {
+            live.close();
+            deleteDirectory(old);
+        });
+    }
+
+    /**
+     * 현재 구간의 [from, to) 행을 새 구간 뒤에 복사합니다.
+     * @param open null이 아니면 복사할 때 대여 중이던 행을 (from 기준 번호로) 표시
+     * @return to
+     */
+    private static int copyRows(MappedHistoryStore live, int from, int to, MappedHistoryStore rebuilt, BitSet open) {
+        for (int i = from; i < to; i++) {
+            int row = rebuilt.append(live.getUser(i), live.getItemName(i), live.getRentalTime(i));
+            if (!live.isOpen(i)) {
+                rebuilt.markReturned(row, live.getReturnTime(i));
+            } else if (open != null) {
+                open.set(i - from);
+            }
+        }
+        return to;
+    }
+
+    /**
+     * 같은 달의 이웃한 세그먼트, 또는 합쳐도 작은 이웃 세그먼트들을 하나로 합칩니다.
+     * 이전 형식(버전 1) 세그먼트는 블록 단위로 읽을 수 있도록 새 형식으로 다시 씁니다.
+     * @return 합친 뒤 줄어든 세그먼트 수
+     */
+    public synchronized int compact() throws IOException {
+        closeRetired();
+        Layout l = layout;
+        List<HistorySegment> result = new ArrayList<>();
+        List<HistorySegment> group = new ArrayList<>();
+        int groupRows = 0;
+        for (HistorySegment segment : l.segments) {
+            boolean sameMonth = !group.isEmpty() && group.get(0).getMonth().equals(segment.getMonth());
+            boolean small = groupRows + segment.getCount() <= SMALL_SEGMENT_ROWS;
+            if (!group.isEmpty() && !sameMonth && !small) {
+                result.add(mergeGroup(group));
+                group.clear();
+                groupRows = 0;
+            }
+            group.add(segment);
+            groupRows += segment.getCount();
+        }
+        if (!group.isEmpty()) {
+            result.add(mergeGroup(group));
+        }
+        layout = new Layout(l.live, result, l.archivedEnd);
+
+        // 새 목록을 공개한 뒤에 원본을 정리. 아직 이전 목록으로 읽는 조회가 있을 수 있으므로 닫는 것은 다음 번으로 미룸
+        for (HistorySegment part : l.segments) {
+            if (!result.contains(part)) {
+                retired.add(part::close);
+                if (result.stream().noneMatch(merged -> merged.getFile().equals(part.getFile()))) {
+                    part.getFile().delete();
+                }
+            }
+        }
+        return l.segments.size() - result.size();
+    }
+
+    private HistorySegment mergeGroup(List<HistorySegment> group) throws IOException {
+        if (group.size() == 1 && !group.get(0).isLegacyFormat()) {
+            return group.get(0);
+        }
+        return HistorySegment.merge(archiveDir, group);
+    }
+
+    /**
+     * 이전 rollOver()/compact()에서 목록에서 뺀 세그먼트와 교체된 현재 구간을 닫습니다. (그 사이에 이전 목록으로 읽던 조회는 끝났음)
+     */
+    private void closeRetired() {
+        for (Runnable close : retired) {
+            close.run();
+        }
+        retired.clear();
+    }
+
+    private static YearMonth monthOf(long epochSecond) {
+        return YearMonth.from(HistoryStore.toDateTime(epochSecond));
+    }
+
+    private static void deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
@@ -0,0 +1,216 @@
+// 파일 이름: PartitionedHistoryStoreTest.java
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PartitionedHistoryStore의 현재 구간 교체 복구와 보관(rollOver)을 확인하는 테스트입니다.
+ * 임시 디렉터리에 저장소를 만들어 확인하고 지웁니다.
+ *
+ * 사용법: java PartitionedHistoryStoreTest
+ *
+ * 확인하는 내용:
+ *  - 현재 구간을 교체하다 종료된 세 가지 경우를 다시 열 때 복구하는지
+ *    (live를 live.old로 옮긴 뒤: live.new 사용 / live.new를 만들던 중: live 유지 / 교체 후 live.old를 지우기 전: live 유지)
+ *  - 다른 스레드가 기록을 추가/반납하는 동안 rollOver()로 보관해도 모든 행이 그대로 남고, 다시 열어도 같은지
+ *    (여러 블록에 걸친 보관 행을 무작위 순서로 읽는 경우 포함)
+ * 실패한 항목을 출력하고, 하나라도 실패하면 종료 코드 1로 끝납니다.
+ */
+public class PartitionedHistoryStoreTest {
+
+    private static final User USER = new User("tester", "테스트", "Student", "1");
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("history-test");
+        try {
+            recoverFromLiveNew(dir.resolve("new").toFile());
+            discardPartialLiveNew(dir.resolve("partial").toFile());
+            discardLiveOld(dir.resolve("old").toFile());
+            rollOverWhileAppending(dir.resolve("roll").toFile());
+        } finally {
+            deleteRecursively(dir.toFile());
+        }
+        if (failures > 0) {
+            System.err.println("실패 " + failures + "건");
+            System.exit(1);
+        }
+        System.out.println("모든 확인을 통과했습니다.");
+    }
+
+    /**
+     * live를 live.old로 옮긴 직후 종료: 완성된 live.new를 현재 구간으로 사용합니다.
+     */
+    private static void recoverFromLiveNew(File dir) throws IOException {
+        createStore(dir, "이전", 3);
+        File live = new File(dir, "live");
+        writeLive(new File(dir, "live.new"), "새", 5);
+        check(live.renameTo(new File(dir, "live.old")), "live.old로 옮기기");
+
+        PartitionedHistoryStore store = new PartitionedHistoryStore(dir);
+        check(store.size() == 5 && store.getItemName(0).equals("새0"), "live.new를 현재 구간으로 사용: " + store.size() + "행");
+        store.close();
+        checkLeftovers(dir, "live.new 복구");
+    }
+
+    /**
+     * live.new를 만들던 중 종료: 만들다 만 live.new를 버리고 live를 그대로 사용합니다.
+     */
+    private static void discardPartialLiveNew(File dir) throws IOException {
+        createStore(dir, "이전", 3);
+        writeLive(new File(dir, "live.new"), "새", 5);
+
+        PartitionedHistoryStore store = new PartitionedHistoryStore(dir);
+        check(store.size() == 3 && store.getItemName(0).equals("이전0"), "live 유지: " + store.size() + "행");
+        store.close();
+        checkLeftovers(dir, "만들다 만 live.new");
+    }
+
+    /**
+     * 교체를 마쳤지만 live.old를 지우기 전에 종료: live를 사용하고 live.old를 지웁니다.
+     */
+    private static void discardLiveOld(File dir) throws IOException {
+        createStore(dir, "새", 4);
+        writeLive(new File(dir, "live.old"), "이전", 2);
+
+        PartitionedHistoryStore store = new PartitionedHistoryStore(dir);
+        check(store.size() == 4 && store.getItemName(0).equals("새0"), "교체된 live 사용: " + store.size() + "행");
+        store.close();
+        checkLeftovers(dir, "남은 live.old");
+    }
+
+    /**
+     * 다른 스레드가 저널의 변경 잠금을 잡고 기록을 추가/반납하는 동안 보관합니다.
+     * 보관 대상은 지난 달 이전의 반납된 기록이며, 그 사이에 반납되지 않은 행 하나가 있어 그 앞까지만 보관되어야 합니다.
+     */
+    private static void rollOverWhileAppending(File dir) throws Exception {
+        long old = HistoryStore.toEpochSecond(LocalDateTime.of(2024, 1, 1, 0, 0));
+        int oldRows = 3 * HistorySegment.BLOCK_ROWS + 100; // 보관 세그먼트가 여러 블록이 되도록
+        int openRow = oldRows - 50;                         // 반납되지 않은 지난 기록
+        PartitionedHistoryStore store = new PartitionedHistoryStore(dir);
+        for (int i = 0; i < oldRows; i++) {
+            int row = store.append(USER, "물품" + (i % 7), old + i * 60L);
+            if (i != openRow) {
+                store.markReturned(row, old + i * 60L + 30);
+            }
+        }
+
+        RentalJournal journal = new RentalJournal(new File(dir, "journal.log").getPath());
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger added = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            while (!stop.get()) {
+                journal.mutationLock().lock();
+                try {
+                    int row = store.append(USER, "새 물품", HistoryStore.now());
+                    if (row % 2 == 0) {
+                        store.markReturned(row, HistoryStore.now());
+                    }
+                    added.incrementAndGet();
+                } finally {
+                    journal.mutationLock().unlock();
+                }
+            }
+        }, "history-test-writer");
+        writer.start();
+        long cutoff = HistoryStore.toEpochSecond(LocalDate.now().withDayOfMonth(1).atStartOfDay());
+        int moved;
+        try {
+            Thread.sleep(20);
+            moved = store.rollOver(cutoff, journal::runExclusive);
+            Thread.sleep(20);
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+        check(moved == openRow, "보관한 행 수: " + moved);
+        check(store.getArchivedRowCount() == openRow, "보관된 행 수: " + store.getArchivedRowCount());
+        checkRows(store, old, oldRows, openRow, added.get(), "보관 직후");
+
+        // 교체된 이전 구간은 읽던 조회가 끝나도록 다음 보관/합치기나 닫을 때 지움
+        check(new File(dir, "live.old").exists(), "교체 직후 이전 구간 유지");
+        store.close();
+        journal.close();
+        checkLeftovers(dir, "닫은 뒤");
+        PartitionedHistoryStore reopened = new PartitionedHistoryStore(dir);
+        check(reopened.getArchivedRowCount() == openRow, "다시 연 뒤 보관된 행 수");
+        checkRows(reopened, old, oldRows, openRow, added.get(), "다시 연 뒤");
+        // 보관된 행을 블록을 오가며 읽어도 같은 값인지
+        for (int i = 0; i < 2000; i++) {
+            int row = (int) ((i * 7919L) % openRow);
+            check(reopened.getRentalTime(row) == old + row * 60L, "무작위 순서로 읽은 보관 행 " + row);
+        }
+        reopened.close();
+    }
+
+    private static void checkRows(PartitionedHistoryStore store, long old, int oldRows, int openRow, int added, String when) {
+        check(store.size() == oldRows + added, when + ": 전체 행 수 " + store.size() + " / " + (oldRows + added));
+        int bad = 0;
+        for (int row = 0; row < oldRows; row++) {
+            if (!store.getItemName(row).equals("물품" + (row % 7)) || store.getRentalTime(row) != old + row * 60L
+                    || store.isOpen(row) != (row == openRow)) {
+                bad++;
+            }
+        }
+        for (int row = oldRows; row < oldRows + added; row++) {
+            if (!store.getItemName(row).equals("새 물품") || store.isOpen(row) == (row % 2 == 0)) {
+                bad++;
+            }
+        }
+        check(bad == 0, when + ": 값이 다른 행 " + bad + "개");
+    }
+
+    // --- 도우미 ---
+
+    /**
+     * 현재 구간에 행 count개가 있는 저장소를 만들고 닫습니다.
+     */
+    private static void createStore(File dir, String prefix, int count) throws IOException {
+        PartitionedHistoryStore store = new PartitionedHistoryStore(dir);
+        for (int i = 0; i < count; i++) {
+            store.append(USER, prefix + i, HistoryStore.now());
+        }
+        store.close();
+    }
+
+    /**
+     * 현재 구간 형식(MappedHistoryStore)의 디렉터리를 만듭니다.
+     */
+    private static void writeLive(File dir, String prefix, int count) throws IOException {
+        MappedHistoryStore live = new MappedHistoryStore(dir, 0);
+        for (int i = 0; i < count; i++) {
+            live.append(USER, prefix + i, HistoryStore.now());
+        }
+        live.close();
+    }
+
+    private static void checkLeftovers(File dir, String name) {
+        check(!new File(dir, "live.new").exists() && !new File(dir, "live.old").exists(), name + ": 남은 임시 구간 삭제");
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            failures++;
+            System.err.println("실패: " + description);
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (!file.delete()) {
+            System.err.println("임시 파일 삭제 중 오류 발생: " + file);
+        }
+    }
+}
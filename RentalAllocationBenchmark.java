@@ -0,0 +1,77 @@
+// 파일 이름: RentalAllocationBenchmark.java
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 대여/반납 처리 경로의 메모리 할당량을 재는 벤치마크입니다.
+ * 한 스레드에서 RentalService로 대여와 반납을 번갈아 실행하고, 그동안 이 스레드가 할당한 바이트 수를
+ * 대여 한 건(대여 + 반납) 단위로 출력합니다. (com.sun.management.ThreadMXBean.getThreadAllocatedBytes() 사용)
+ *
+ * 사용법: java RentalAllocationBenchmark [측정할 대여 건수]
+ *  예) java RentalAllocationBenchmark 1000000
+ *
+ * 비교하는 두 가지:
+ *  - result code: RentalService가 반환하는 RentalResult만 확인 (키오스크 서버, 스크립트 실행처럼 메시지가 필요 없는 경우)
+ *  - with message: 결과마다 RentalResult.message()로 메시지를 만듦 (예전처럼 서비스가 매번 문자열을 만들던 경우와 같은 비용)
+ * 대여 기록은 메모리(ArrayHistoryStore)에만 두고, 저장소는 측정할 건수만큼 미리 크기를 잡아 배열을 늘리는 비용을 뺍니다.
+ * 저널과 이벤트 버스는 쓰지 않습니다. 예열(JIT 컴파일)을 먼저 한 뒤에 잽니다.
+ * (인터프리터로 실행되는 동안에는 옵저버 알림의 람다 등 JIT가 없애 주는 할당이 남아 있으므로, 예열이 짧으면 0이 아닐 수 있음)
+ */
+public class RentalAllocationBenchmark {
+
+    private static final int USER_COUNT = 8;
+    private static final int ITEM_COUNT = 8;
+    private static final int WARMUP_RENTALS = 1_000_000;
+
+    public static void main(String[] args) {
+        int rentals = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        User[] users = new User[USER_COUNT];
+        for (int i = 0; i < USER_COUNT; i++) {
+            users[i] = new User("bench" + i, "벤치마크" + i, "Student", "1234");
+        }
+        Item[] items = new Item[ITEM_COUNT];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items[i] = new Item("벤치마크 물품 " + i, USER_COUNT, 1000.0); // 모든 사용자가 동시에 빌려도 재고가 남음
+        }
+        // 예열 2번과 측정 2번에 추가될 대여 기록 행 수만큼 미리 잡음
+        RentalService rentalService = new RentalService(new ArrayHistoryStore(2 * (WARMUP_RENTALS + rentals)));
+        DiscountStrategy strategy = new StudentDiscountStrategy();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (boolean render : new boolean[]{false, true}) {
+            run(rentalService, users, items, strategy, WARMUP_RENTALS, render); // 예열
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            long checksum = run(rentalService, users, items, strategy, rentals, render);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            System.out.printf("%-13s 대여 %d건: %.0f건/초, %.2f바이트/건 (확인 값 %d)%n",
+                    render ? "with message" : "result code", rentals, rentals / elapsed,
+                    (double) allocated / rentals, checksum);
+        }
+    }
+
+    /**
+     * 대여와 반납을 번갈아 실행합니다. 사용자와 물품을 돌아가며 바꾸므로 모든 (사용자, 물품) 조합이 반복해서 쓰입니다.
+     * @param render true면 결과마다 메시지를 만듦
+     * @return 성공한 건수와 메시지 길이의 합 (JIT가 결과를 버리지 못하게 하기 위한 값)
+     */
+    private static long run(RentalService rentalService, User[] users, Item[] items, DiscountStrategy strategy,
+                            int rentals, boolean render) {
+        long checksum = 0;
+        for (int i = 0; i < rentals; i++) {
+            User user = users[i % USER_COUNT];
+            Item item = items[(i / USER_COUNT) % ITEM_COUNT];
+            RentalResult rented = rentalService.rentItem(user, item, strategy);
+            RentalResult returned = rentalService.returnItem(user, item);
+            if (render) {
+                checksum += rented.message(user, item).length() + returned.message(user, item).length();
+            } else if (rented.isSuccess() && returned.isSuccess()) {
+                checksum++;
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,313 @@
+// 파일 이름: RentalCommand.java
+
+/**
+ * 화면 없이(headless) 대여 시스템을 조작하는 명령 한 건입니다. (CommandProcessor에서 실행)
+ * 명령은 한 줄에 하나의 JSON 객체(JSONL)로 표현하며, 예는 다음과 같습니다.
+ *
+ *  {"op":"rent","user":"student1","item":"축구공"}
+ *  {"op":"return","user":"student1","item":"축구공"}       ("item" 대신 물품 번호 "itemId"도 사용 가능)
+ *  {"op":"addItem","name":"USB 허브","stock":5,"fee":1000}
+ *  {"op":"deleteItem","name":"USB 허브"}
+ *  {"op":"addUser","id":"student2","name":"이서연","type":"Student","password":"1234"}
+ *  {"op":"deleteUser","id":"student2"}
+ *
+ * 값은 문자열, 숫자, true/false/null만 허용하며(중첩된 객체/배열은 오류), 알 수 없는 키는 무시합니다.
+ * 초당 수십만 줄을 읽어야 하므로 JSON 라이브러리 없이 한 줄을 한 번만 훑어 필드에 바로 채웁니다.
+ */
+public class RentalCommand {
+
+    /**
+     * 명령 종류
+     */
+    public enum Op {
+        RENT("rent"), RETURN("return"), ADD_ITEM("addItem"), DELETE_ITEM("deleteItem"), ADD_USER("addUser"), DELETE_USER("deleteUser");
+
+        private final String label;
+
+        Op(String label) {
+            this.label = label;
+        }
+
+        /**
+         * JSON의 "op" 값으로 명령 종류를 찾습니다.
+         * @return 명령 종류. 알 수 없으면 null
+         */
+        static Op of(String label) {
+            for (Op op : values()) {
+                if (op.label.equals(label)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    // --- 필드 (명령 종류에 따라 일부만 사용) ---
+    long line;          // 입력의 줄 번호 (1부터). 결과에 그대로 기록됨
+    Op op;
+    String user;        // rent/return: 사용자 ID
+    String item;        // rent/return: 물품 이름
+    int itemId;         // rent/return: 물품 번호 (item이 없을 때 사용)
+    String id;          // addUser/deleteUser: 사용자 ID
+    String name;        // addItem/deleteItem: 물품 이름, addUser: 사용자 이름
+    String type;        // addUser: 사용자 타입
+    String password;    // addUser: 비밀번호
+    int stock;          // addItem: 최대 재고
+    double fee;         // addItem: 기본 요금
+    String error;       // 해석 오류 메시지 (없으면 null)
+
+    public long getLine() { return line; }
+    public Op getOp() { return op; }
+    public String getError() { return error; }
+
+    /**
+     * JSON 객체 한 줄을 명령으로 해석합니다. 해석에 실패하면 예외 대신 error 필드에 이유를 남깁니다.
+     * @param line 줄 번호
+     * @param json JSON 객체 한 줄
+     * @return 해석된 명령
+     */
+    public static RentalCommand parse(long line, String json) {
+        RentalCommand command = parseFields(json);
+        command.line = line;
+        if (command.error == null && command.op == null) {
+            command.error = "\"op\"가 없거나 알 수 없는 명령입니다.";
+        }
+        return command;
+    }
+
+    /**
+     * JSON 객체의 필드만 해석합니다. "op"가 없어도 오류로 보지 않습니다.
+     * (HTTP API처럼 명령 종류를 요청 경로로 정하고, 본문에는 인자만 담는 경우에 사용)
+     * @param json JSON 객체
+     * @return 해석된 명령. 해석에 실패하면 error 필드에 이유가 담김
+     */
+    static RentalCommand parseFields(String json) {
+        RentalCommand command = new RentalCommand();
+        try {
+            new Parser(json).readInto(command);
+        } catch (IllegalArgumentException e) {
+            command.error = e.getMessage();
+        }
+        return command;
+    }
+
+    /**
+     * 명령 종류를 정합니다. (parseFields()로 해석한 명령에 사용)
+     */
+    RentalCommand withOp(Op op) {
+        this.op = op;
+        return this;
+    }
+
+    /**
+     * 문자열을 JSON 문자열 값으로 기록합니다. (따옴표 포함)
+     */
+    static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * 평평한(flat) JSON 객체 하나를 읽는 간단한 파서
+     */
+    private static class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        void readInto(RentalCommand command) {
+            skipSpaces();
+            expect('{');
+            skipSpaces();
+            if (peek() == '}') {
+                pos++;
+                return;
+            }
+            while (true) {
+                skipSpaces();
+                String key = readString();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+                Object value = readValue();
+                set(command, key, value);
+                skipSpaces();
+                char c = next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("',' 또는 '}'가 필요합니다. (위치 " + (pos - 1) + ")");
+                }
+            }
+            skipSpaces();
+            if (pos < s.length()) {
+                throw new IllegalArgumentException("객체 뒤에 불필요한 내용이 있습니다. (위치 " + pos + ")");
+            }
+        }
+
+        private static void set(RentalCommand command, String key, Object value) {
+            switch (key) {
+                case "op": command.op = Op.of(asString(key, value)); break;
+                case "user": command.user = asString(key, value); break;
+                case "item": command.item = asString(key, value); break;
+                case "itemId": command.itemId = (int) asNumber(key, value); break;
+                case "id": command.id = asString(key, value); break;
+                case "name": command.name = asString(key, value); break;
+                case "type": command.type = asString(key, value); break;
+                case "password": command.password = asString(key, value); break;
+                case "stock": command.stock = (int) asNumber(key, value); break;
+                case "fee": command.fee = asNumber(key, value); break;
+                default: // 알 수 없는 키는 무시
+            }
+        }
+
+        private static String asString(String key, Object value) {
+            if (value != null && !(value instanceof String)) {
+                throw new IllegalArgumentException("\"" + key + "\"는 문자열이어야 합니다.");
+            }
+            return (String) value;
+        }
+
+        private static double asNumber(String key, Object value) {
+            if (!(value instanceof Double)) {
+                throw new IllegalArgumentException("\"" + key + "\"는 숫자여야 합니다.");
+            }
+            return (Double) value;
+        }
+
+        private Object readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return readNumber();
+            }
+            if (s.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            }
+            if (s.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            }
+            if (s.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            throw new IllegalArgumentException("지원하지 않는 값입니다. (위치 " + pos + ")");
+        }
+
+        private String readString() {
+            expect('"');
+            int start = pos;
+            // 이스케이프가 없는 흔한 경우는 substring 한 번으로 끝냄
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c == '"') {
+                    return s.substring(start, pos++);
+                }
+                if (c == '\\') {
+                    break;
+                }
+                pos++;
+            }
+            StringBuilder sb = new StringBuilder(s.substring(start, pos));
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char e = next();
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append(e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) {
+                            throw new IllegalArgumentException("잘못된 \\u 이스케이프입니다.");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw new IllegalArgumentException("잘못된 \\u 이스케이프입니다.");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("잘못된 이스케이프 문자입니다: \\" + e);
+                }
+            }
+            throw new IllegalArgumentException("문자열이 닫히지 않았습니다.");
+        }
+
+        private Double readNumber() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.parseDouble(s.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("잘못된 숫자입니다: " + s.substring(start, pos));
+            }
+        }
+
+        private void skipSpaces() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            if (pos >= s.length()) {
+                throw new IllegalArgumentException("줄이 예상보다 일찍 끝났습니다.");
+            }
+            return s.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw new IllegalArgumentException("'" + expected + "'가 필요합니다. (위치 " + (pos - 1) + ")");
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+// 파일 이름: RentalEvent.java
+
+/**
+ * 대여/반납으로 물품 재고가 바뀌었음을 알리는 이벤트 데이터 클래스입니다.
+ * RentalEventBus를 통해 비동기로 전달되며, 변경 전/후 재고 값을 함께 담고 있어
+ * 구독자가 Item 객체의 현재 상태를 다시 조회하지 않아도 변화를 알 수 있습니다.
+ * 모든 필드가 final인 불변(Immutable) 객체이므로 여러 스레드에서 안전하게 공유됩니다.
+ */
+public final class RentalEvent {
+
+    /**
+     * 이벤트 종류
+     */
+    public enum Type {
+        RENTED,   // 대여로 재고가 감소함
+        RETURNED  // 반납으로 재고가 증가함
+    }
+
+    // --- 필드(Fields) ---
+    private final Type type;         // 이벤트 종류
+    private final Item item;         // 재고가 변경된 물품
+    private final String userId;     // 대여/반납한 사용자 ID
+    private final int oldStock;      // 변경 전 재고
+    private final int newStock;      // 변경 후 재고
+    private final long timestamp;    // 발생 시각 (epoch milliseconds)
+
+    public RentalEvent(Type type, Item item, String userId, int oldStock, int newStock) {
+        this.type = type;
+        this.item = item;
+        this.userId = userId;
+        this.oldStock = oldStock;
+        this.newStock = newStock;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    // --- Getter 메소드 ---
+    public Type getType() { return type; }
+    public Item getItem() { return item; }
+    public String getUserId() { return userId; }
+    public int getOldStock() { return oldStock; }
+    public int getNewStock() { return newStock; }
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * 예: "RENTED 3단 우산 by student1 (10 -> 9)"
+     */
+    @Override
+    public String toString() {
+        return type + " " + item.getName() + " by " + userId + " (" + oldStock + " -> " + newStock + ")";
+    }
+}
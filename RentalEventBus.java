@@ -0,0 +1,225 @@
+// 파일 이름: RentalEventBus.java
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 대여/반납 이벤트(RentalEvent)를 구독자에게 비동기로 전달하는 이벤트 버스 클래스입니다.
+ * java.util.concurrent.Flow 표준(SubmissionPublisher)을 기반으로 하며,
+ * 구독자마다 크기가 제한된(bounded) 전용 큐를 두어 느린 구독자가 대여/반납 처리 속도에 영향을 주지 않게 합니다.
+ *
+ * 큐가 가득 찼을 때의 동작은 OverflowPolicy로 정합니다.
+ *  - BLOCK: 큐에 자리가 날 때까지 발행 스레드가 기다립니다. (이벤트 유실 없음, 배압 전달)
+ *  - DROP: 가득 찬 구독자에게는 해당 이벤트를 버리고 바로 반환합니다. (발행 지연 없음)
+ *
+ * 기존 Observer도 subscribe(Observer)로 등록하면 하나의 구독자로 동작합니다.
+ */
+public class RentalEventBus implements AutoCloseable {
+
+    /**
+     * 구독자 큐가 가득 찼을 때의 처리 정책
+     */
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
+    private final SubmissionPublisher<RentalEvent> publisher;
+    private final OverflowPolicy overflowPolicy;
+
+    // --- 전달 지표(Metrics) ---
+    private final LongAdder published = new LongAdder();                        // 발행된 이벤트 수
+    private final LongAdder dropped = new LongAdder();                          // 버려진 이벤트 수 (구독자 기준)
+    private final Map<String, LongAdder> delivered = new ConcurrentHashMap<>(); // 구독자 이름 → 전달된 이벤트 수
+    private final Map<String, LongAdder> droppedBy = new ConcurrentHashMap<>(); // 구독자 이름 → 버려진 이벤트 수
+
+    /**
+     * RentalEventBus 생성자
+     * @param bufferCapacity 구독자별 큐의 최대 크기
+     * @param overflowPolicy 큐가 가득 찼을 때의 처리 정책
+     */
+    public RentalEventBus(int bufferCapacity, OverflowPolicy overflowPolicy) {
+        // 구독자 콜백은 별도의 데몬 스레드에서 실행되므로 발행 스레드와 분리되고,
+        // 스레드 수가 고정되지 않아 느린 구독자가 다른 구독자의 전달을 막지 않음
+        this.publisher = new SubmissionPublisher<>(Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "rental-event-bus");
+            t.setDaemon(true);
+            return t;
+        }), bufferCapacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * 이벤트를 모든 구독자에게 발행합니다. 구독자 콜백은 다른 스레드에서 비동기로 실행됩니다.
+     * @param event 발행할 이벤트
+     */
+    public void publish(RentalEvent event) {
+        if (publisher.isClosed()) {
+            return;
+        }
+        published.increment();
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            publisher.submit(event);
+        } else {
+            publisher.offer(event, (subscriber, e) -> {
+                dropped.increment();
+                ((CountingSubscriber) subscriber).dropped.increment();
+                return false; // 다시 시도하지 않고 버림
+            });
+        }
+    }
+
+    /**
+     * Flow.Subscriber를 이름과 함께 구독자로 등록합니다.
+     * @param name 지표에 표시할 구독자 이름
+     * @param subscriber 등록할 구독자
+     * @return 구독 해제 핸들
+     */
+    public Subscription subscribe(String name, Flow.Subscriber<? super RentalEvent> subscriber) {
+        LongAdder counter = delivered.computeIfAbsent(name, n -> new LongAdder());
+        LongAdder dropCounter = droppedBy.computeIfAbsent(name, n -> new LongAdder());
+        CountingSubscriber counting = new CountingSubscriber(subscriber, counter, dropCounter);
+        publisher.subscribe(counting);
+        return counting::cancel;
+    }
+
+    /**
+     * 기존 Observer를 구독자로 등록합니다. 이벤트가 올 때마다 해당 물품으로 update()가 호출됩니다.
+     * @param name 지표에 표시할 구독자 이름
+     * @param observer 등록할 옵저버
+     * @return 구독 해제 핸들
+     */
+    public Subscription subscribe(String name, Observer observer) {
+        return subscribe(name, new Flow.Subscriber<RentalEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(RentalEvent event) {
+                observer.update(event.getItem());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                System.err.println("이벤트 전달 중 오류 발생: " + throwable.getMessage());
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    // --- 지표 조회 메소드 ---
+    public long getPublishedCount() { return published.sum(); }
+    public long getDroppedCount() { return dropped.sum(); }
+    public int getMaximumLag() { return publisher.estimateMaximumLag(); }
+
+    /**
+     * 구독자에게 전달된 이벤트 수를 반환합니다.
+     * @param name 구독자 이름
+     * @return 전달된 이벤트 수 (등록되지 않은 이름이면 0)
+     */
+    public long getDeliveredCount(String name) {
+        LongAdder counter = delivered.get(name);
+        return (counter == null) ? 0 : counter.sum();
+    }
+
+    /**
+     * 구독자의 큐가 가득 차서 버려진 이벤트 수를 반환합니다. (DROP 정책에서만 늘어남)
+     * 구독자는 이 값이 늘어난 것을 보고 놓친 변경을 다시 읽어 올 수 있습니다.
+     * @param name 구독자 이름
+     * @return 버려진 이벤트 수 (등록되지 않은 이름이면 0)
+     */
+    public long getDroppedCount(String name) {
+        LongAdder counter = droppedBy.get(name);
+        return (counter == null) ? 0 : counter.sum();
+    }
+
+    /**
+     * 전달 지표를 한 줄 문자열로 반환합니다.
+     * 예: "published=120, dropped=0, maxLag=3, delivered={ui=120}"
+     */
+    public String getMetricsSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("published=").append(getPublishedCount())
+          .append(", dropped=").append(getDroppedCount())
+          .append(", maxLag=").append(getMaximumLag())
+          .append(", delivered={");
+        String separator = "";
+        for (Map.Entry<String, LongAdder> entry : delivered.entrySet()) {
+            sb.append(separator).append(entry.getKey()).append('=').append(entry.getValue().sum());
+            long lost = getDroppedCount(entry.getKey());
+            if (lost > 0) {
+                sb.append(" (dropped ").append(lost).append(')');
+            }
+            separator = ", ";
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 발행을 종료하고, 구독자에게 큐에 남은 이벤트를 전달한 뒤 onComplete()를 알립니다.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+
+    /**
+     * 실제 구독자를 감싸서 전달된 이벤트 수를 세는 내부 구독자 클래스입니다.
+     */
+    private static class CountingSubscriber implements Flow.Subscriber<RentalEvent> {
+        private final Flow.Subscriber<? super RentalEvent> delegate;
+        private final LongAdder counter;
+        private final LongAdder dropped; // 이 구독자의 큐가 가득 차서 버려진 이벤트 수
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled = false; // onSubscribe 전에 해제된 경우를 처리하기 위한 표시
+
+        CountingSubscriber(Flow.Subscriber<? super RentalEvent> delegate, LongAdder counter, LongAdder dropped) {
+            this.delegate = delegate;
+            this.counter = counter;
+            this.dropped = dropped;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled) {
+                subscription.cancel();
+                return;
+            }
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(RentalEvent event) {
+            counter.increment();
+            delegate.onNext(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            delegate.onComplete();
+        }
+
+        void cancel() {
+            cancelled = true;
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+}
@@ -1,39 +1,58 @@
 // 파일 이름: RentalHistoryDialog.java
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.time.format.DateTimeParseException;
 
 /**
  * 시스템의 전체 대여 기록을 표(Table) 형태로 보여주는 다이얼로그(Dialog) 클래스입니다.
  * 이 창은 관리자 메뉴를 통해서만 접근할 수 있습니다.
+ * 기록이 많아도 바로 열리도록 HistoryTableModel이 화면에 보이는 행만 저장소에서 읽어 표시하며,
+ * 사용자/물품/대여 기간/대여 상태로 검색하고 열 제목을 클릭해 정렬할 수 있습니다.
+ * 검색과 정렬은 작업 스레드에서 처리되므로, 결과가 나올 때까지 창이 멈추지 않고 "검색 중..."을 표시합니다.
  */
 public class RentalHistoryDialog extends JDialog {
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final HistoryTableModel tableModel;                 // 대여 기록 테이블 모델
+    private final JTextField userField = new JTextField(8);     // 사용자 이름 검색어
+    private final JTextField itemField = new JTextField(8);     // 물품 이름 검색어
+    private final JTextField fromField = new JTextField(8);     // 대여 기간 시작 (yyyy-MM-dd)
+    private final JTextField toField = new JTextField(8);       // 대여 기간 끝 (yyyy-MM-dd, 포함)
+    private final JComboBox<HistoryTableModel.Status> statusBox = new JComboBox<>(HistoryTableModel.Status.values());
+    private final JLabel countLabel = new JLabel();             // 표시 중인 기록 수
+
+    /**
+     * RentalHistoryDialog 생성자 (검색할 때 전체 기록을 훑음)
+     * @param parent 부모 프레임 (MainAppFrame)
+     * @param history 표시할 전체 대여 기록 저장소
+     */
+    public RentalHistoryDialog(Frame parent, HistoryStore history) {
+        this(parent, history, null);
+    }
+
     /**
      * RentalHistoryDialog 생성자
      * @param parent 부모 프레임 (MainAppFrame)
-     * @param history 표시할 전체 대여 기록 데이터 리스트
+     * @param history 표시할 전체 대여 기록 저장소
+     * @param query history의 대여 기록 인덱스. 대여 중 상태나 기간으로 검색할 때 후보만 검사함 (null이면 전체를 훑음)
      */
-    public RentalHistoryDialog(Frame parent, List<RentalRecord> history) {
+    public RentalHistoryDialog(Frame parent, HistoryStore history, RentalHistoryQuery query) {
         // JDialog 생성자를 호출하여 부모, 타이틀, 모달(Modal) 여부 설정
         super(parent, "전체 대여 기록", true);
-        setSize(700, 500);
+        setSize(800, 550);
+        setLayout(new BorderLayout());
 
         // --- 1. 테이블 모델 및 테이블 생성 ---
-        String[] columnNames = {"사용자", "물품명", "대여시간", "반납시간"};
-        
-        // 테이블의 셀을 직접 편집할 수 없도록 isCellEditable 메소드를 오버라이드
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
+        // 저장소를 바로 읽는 모델: 모든 행을 미리 복사하지 않고, 화면에 보이는 셀만 그때그때 읽어 표시함
+        tableModel = new HistoryTableModel(history, query);
+        tableModel.addTableModelListener(e -> updateCount()); // 작업 스레드의 검색 결과가 반영될 때마다 건수 갱신
         JTable table = new JTable(tableModel);
 
         // --- 2. 테이블 UI 스타일 설정 ---
@@ -48,30 +67,84 @@ public class RentalHistoryDialog extends JDialog {
         header.setForeground(Color.BLACK);
         header.setFont(new Font("맑은 고딕", Font.BOLD, 14));
 
-        // --- 3. 테이블 데이터 채우기 ---
-        // 날짜/시간을 "yyyy-MM-dd HH:mm:ss" 형식의 문자열로 변환하기 위한 포매터
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-        // history 리스트의 모든 기록을 순회하며 테이블 행으로 추가
-        for (RentalRecord record : history) {
-            String userName = record.getUser().getName();
-            String itemName = record.getItemName();
-            String rentalTime = record.getRentalTime().format(formatter);
-            
-            // 반납 시간이 null이 아니면 포맷에 맞게 변환하고, null이면 "(대여 중)"으로 표시
-            String returnTime = (record.getReturnTime() != null) 
-                                ? record.getReturnTime().format(formatter) 
-                                : " (대여 중)";
-            
-            // 모델에 한 줄(row)의 데이터 추가
-            tableModel.addRow(new Object[]{userName, itemName, rentalTime, returnTime});
-        }
-        
+        // 헤더를 클릭하면 해당 열로 정렬 (같은 열을 다시 클릭하면 순서 반전)
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = header.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    tableModel.sortBy(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
+
+        // --- 3. 검색 조건 패널 ---
+        add(createFilterPanel(), BorderLayout.NORTH);
+
         // --- 4. 다이얼로그에 컴포넌트 추가 및 표시 ---
         // JScrollPane으로 테이블을 감싸서 내용이 많을 경우 스크롤이 가능하도록 함
-        add(new JScrollPane(table));
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(countLabel, BorderLayout.SOUTH);
+        updateCount();
         
         // 다이얼로그를 부모 창의 중앙에 위치시킴
         setLocationRelativeTo(parent);
     }
-}
\ No newline at end of file
+
+    /**
+     * 검색 조건 입력 패널을 생성합니다.
+     */
+    private JPanel createFilterPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        panel.add(new JLabel("사용자:"));
+        panel.add(userField);
+        panel.add(new JLabel("물품:"));
+        panel.add(itemField);
+        panel.add(new JLabel("기간:"));
+        panel.add(fromField);
+        panel.add(new JLabel("~"));
+        panel.add(toField);
+        panel.add(statusBox);
+
+        JButton searchButton = new JButton("검색");
+        searchButton.addActionListener(e -> applyFilter());
+        panel.add(searchButton);
+
+        JButton resetButton = new JButton("초기화");
+        resetButton.addActionListener(e -> {
+            userField.setText("");
+            itemField.setText("");
+            fromField.setText("");
+            toField.setText("");
+            statusBox.setSelectedItem(HistoryTableModel.Status.ALL);
+            applyFilter();
+        });
+        panel.add(resetButton);
+        return panel;
+    }
+
+    /**
+     * 입력된 검색 조건을 테이블에 적용합니다.
+     */
+    private void applyFilter() {
+        long from;
+        long to;
+        try {
+            from = fromField.getText().isBlank() ? Long.MIN_VALUE
+                    : HistoryStore.toEpochSecond(LocalDate.parse(fromField.getText().trim(), DATE_FORMAT).atStartOfDay());
+            // 끝 날짜는 그날 하루를 포함하도록 다음 날 0시 전까지로 처리
+            to = toField.getText().isBlank() ? Long.MAX_VALUE
+                    : HistoryStore.toEpochSecond(LocalDate.parse(toField.getText().trim(), DATE_FORMAT).plusDays(1).atStartOfDay());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "기간은 yyyy-MM-dd 형식으로 입력하세요.", "입력 오류", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        tableModel.setFilter(new HistoryTableModel.Filter(userField.getText(), itemField.getText(), from, to,
+                (HistoryTableModel.Status) statusBox.getSelectedItem()));
+        updateCount();
+    }
+
+    private void updateCount() {
+        countLabel.setText(tableModel.isLoading() ? " 검색 중..." : " " + tableModel.getRowCount() + "건");
+    }
+}
@@ -0,0 +1,319 @@
+// 파일 이름: RentalHistoryQuery.java
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 대여 기록을 사용자, 물품, 대여 시간, 대여 상태로 조회하기 위한 보조 인덱스(secondary index) 클래스입니다.
+ * "사용자 X가 3월에 빌린 물품", "물품 Y를 지금 빌려 간 사람", "연체 중인 대여" 같은 질의를
+ * 전체 대여 기록을 훑지 않고 결과 크기에 비례하는 시간에 처리합니다.
+ *
+ * 인덱스 구성:
+ *  - 사용자 ID → 행 번호 목록 (대여 순서)
+ *  - 물품 이름 → 행 번호 목록 (대여 순서)
+ *  - 대여 날짜(epoch 일) → 행 번호 목록 (NavigableMap, 기간 질의용)
+ *  - 대여 중인 행 목록 (대여 시간 순서) 및 물품별 대여 중인 행 목록 (대여 순서)
+ * 모든 목록은 행 번호를 int 배열에 담으며(RowList), 행 번호마다 객체를 만들지 않습니다.
+ *
+ * 인덱스는 대여/반납 경로에서 갱신하지 않고, 조회할 때 그동안 저장소에 추가된 행만 반영합니다. (처음 조회할 때는 전체를 훑음)
+ * 대여 기록은 뒤에 추가만 되므로 새 행은 목록 끝에 붙이면 되고, 반납된 행은 대여 중인 행 목록을 읽을 때
+ * (또는 목록이 가득 차서 늘리기 전에) 저장소의 반납 시간을 보고 걸러 냅니다.
+ * 따라서 RentalService는 인덱스를 알 필요가 없고, 대여/반납은 이 클래스의 잠금을 기다리지 않습니다.
+ * 모든 조회 메소드는 this 잠금으로 보호되며(조회끼리만 서로 기다림), 질의 결과는 결과 행 번호만 담은 Cursor로 반환되므로
+ * 잠금을 푼 뒤에 페이지 단위로 천천히 읽어도 됩니다.
+ */
+public class RentalHistoryQuery {
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final HistoryStore history;
+
+    private final Map<String, RowList> byUser = new HashMap<>();
+    private final Map<String, RowList> byItem = new HashMap<>();
+    private final NavigableMap<Long, RowList> byDay = new TreeMap<>();
+    private final RowList openRows = new RowList();                // 대여 중인 행 (대여 시간, 행 번호 순. 반납된 행이 남아 있을 수 있음)
+    private final Map<String, RowList> openByItem = new HashMap<>(); // 물품별 대여 중인 행 (행 번호 순. 반납된 행이 남아 있을 수 있음)
+
+    private int indexedRows; // 인덱스에 반영된 행 수 (0 ~ indexedRows-1)
+
+    /**
+     * @param history 인덱스를 만들 대여 기록 저장소
+     */
+    public RentalHistoryQuery(HistoryStore history) {
+        this.history = history;
+    }
+
+    // --- 인덱스 갱신 (조회할 때) ---
+
+    /**
+     * 아직 인덱스에 반영되지 않은 새 행을 반영합니다. (처음 조회할 때는 저장소 전체)
+     * 저장소의 size()까지 추가된 행만 읽으므로, 그동안 다른 스레드가 대여/반납해도 잠금을 주고받지 않습니다.
+     * 읽는 순간 대여 중이던 행은 대여 중 목록에 넣고, 나중에 반납되면 목록을 읽을 때 걸러 냅니다.
+     */
+    private void ensureIndexed() {
+        int size = history.size();
+        if (indexedRows >= size) {
+            return;
+        }
+        HistoryCursor cursor = history.cursor(indexedRows, size);
+        while (cursor.next()) {
+            int row = cursor.getRow();
+            String itemName = cursor.getItemName();
+            byUser.computeIfAbsent(cursor.getUserId(), id -> new RowList()).add(row);
+            byItem.computeIfAbsent(itemName, name -> new RowList()).add(row);
+            byDay.computeIfAbsent(dayOf(cursor.getRentalTime()), day -> new RowList()).add(row);
+            if (cursor.isOpen()) {
+                openRows.addOpen(row, history, true);
+                openByItem.computeIfAbsent(itemName, name -> new RowList()).addOpen(row, history, false);
+            }
+        }
+        indexedRows = size;
+    }
+
+    private static long dayOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    }
+
+    // --- 질의 ---
+
+    /**
+     * 사용자의 모든 대여 기록을 대여 순서대로 반환합니다.
+     */
+    public synchronized Cursor byUser(String userId) {
+        ensureIndexed();
+        RowList rows = byUser.get(userId);
+        return (rows == null) ? empty() : new Cursor(rows.values, rows.size);
+    }
+
+    /**
+     * 사용자가 [from, to) 기간에 대여한 기록을 반환합니다. (예: 3월에 빌린 물품)
+     * 해당 사용자의 기록만 훑으므로 전체 기록 수와 관계없습니다.
+     * @param from 시작 시간 (epoch 초, 포함)
+     * @param to 끝 시간 (epoch 초, 제외)
+     */
+    public synchronized Cursor byUser(String userId, long from, long to) {
+        ensureIndexed();
+        RowList rows = byUser.get(userId);
+        if (rows == null) {
+            return empty();
+        }
+        RowList result = new RowList();
+        for (int i = 0; i < rows.size; i++) {
+            long rentalTime = history.getRentalTime(rows.values[i]);
+            if (rentalTime >= from && rentalTime < to) {
+                result.add(rows.values[i]);
+            }
+        }
+        return new Cursor(result.values, result.size);
+    }
+
+    /**
+     * 물품의 모든 대여 기록을 대여 순서대로 반환합니다.
+     */
+    public synchronized Cursor byItem(String itemName) {
+        ensureIndexed();
+        RowList rows = byItem.get(itemName);
+        return (rows == null) ? empty() : new Cursor(rows.values, rows.size);
+    }
+
+    /**
+     * [from, to) 기간에 대여된 기록을 대여 날짜 순서대로 반환합니다.
+     * 기간에 걸친 날짜의 목록만 읽으며, 양 끝 날짜의 기록만 시간을 비교합니다.
+     * @param from 시작 시간 (epoch 초, 포함)
+     * @param to 끝 시간 (epoch 초, 제외)
+     */
+    public synchronized Cursor rentedBetween(long from, long to) {
+        ensureIndexed();
+        if (from >= to) {
+            return empty();
+        }
+        RowList result = new RowList();
+        for (RowList rows : byDay.subMap(dayOf(from), true, dayOf(to - 1), true).values()) {
+            for (int i = 0; i < rows.size; i++) {
+                long rentalTime = history.getRentalTime(rows.values[i]);
+                if (rentalTime >= from && rentalTime < to) {
+                    result.add(rows.values[i]);
+                }
+            }
+        }
+        return new Cursor(result.values, result.size);
+    }
+
+    /**
+     * 물품을 현재 대여 중인 기록(누가 가지고 있는지)을 대여 순서대로 반환합니다.
+     */
+    public synchronized Cursor openByItem(String itemName) {
+        ensureIndexed();
+        RowList rows = openByItem.get(itemName);
+        if (rows == null) {
+            return empty();
+        }
+        rows.removeReturned(history);
+        if (rows.size == 0) {
+            openByItem.remove(itemName);
+            return empty();
+        }
+        return copyOf(rows);
+    }
+
+    /**
+     * 현재 대여 중인 모든 기록을 대여 시간 순서대로 반환합니다.
+     */
+    public synchronized Cursor openRentals() {
+        ensureIndexed();
+        openRows.removeReturned(history);
+        return copyOf(openRows);
+    }
+
+    /**
+     * 기준 시간 이전에 대여되어 아직 반납되지 않은(연체된) 기록을 오래된 순서대로 반환합니다.
+     * @param dueBefore 이 시간(epoch 초) 이전에 대여된 기록을 연체로 봄. 예: 현재 시간 - 대여 기간
+     */
+    public synchronized Cursor overdue(long dueBefore) {
+        ensureIndexed();
+        openRows.removeReturned(history);
+        int count = 0;
+        while (count < openRows.size && history.getRentalTime(openRows.values[count]) < dueBefore) {
+            count++; // 대여 시간 순서이므로 처음으로 연체가 아닌 행에서 멈춤
+        }
+        return new Cursor(Arrays.copyOf(openRows.values, count), count);
+    }
+
+    /**
+     * 대여 중인 행 목록은 반납된 행을 걸러 내며 배열을 고쳐 쓰므로, 커서에는 복사본을 넘깁니다.
+     */
+    private Cursor copyOf(RowList rows) {
+        return new Cursor(Arrays.copyOf(rows.values, rows.size), rows.size);
+    }
+
+    private Cursor empty() {
+        return new Cursor(new int[0], 0);
+    }
+
+    /**
+     * 질의 결과를 한 행씩(HistoryCursor) 또는 페이지 단위로 읽는 커서입니다.
+     * 결과 행 번호를 담은 배열의 앞부분(count까지)만 사용하며, 배열은 수정하지 않습니다.
+     * 행의 값(반납 시간 등)은 읽는 시점에 저장소에서 읽습니다.
+     */
+    public class Cursor implements HistoryCursor {
+        private final int[] rows;
+        private final int count;
+        private int position = -1;
+
+        Cursor(int[] rows, int count) {
+            this.rows = rows;
+            this.count = count;
+        }
+
+        /**
+         * @return 전체 결과 수
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 다음 페이지의 행 번호를 반환하고 그만큼 이동합니다.
+         * @param pageSize 한 페이지의 최대 행 수
+         * @return 행 번호 배열. 더 읽을 행이 없으면 빈 배열
+         */
+        public int[] nextPage(int pageSize) {
+            int from = position + 1;
+            int to = Math.min(count, from + pageSize);
+            position = to - 1;
+            return Arrays.copyOfRange(rows, Math.min(from, to), to);
+        }
+
+        @Override
+        public boolean next() {
+            if (position + 1 >= count) {
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        @Override
+        public int getRow() {
+            return rows[position];
+        }
+
+        @Override
+        public String getUserId() {
+            return history.getUserId(rows[position]);
+        }
+
+        @Override
+        public String getUserName() {
+            return history.getUserName(rows[position]);
+        }
+
+        @Override
+        public String getItemName() {
+            return history.getItemName(rows[position]);
+        }
+
+        @Override
+        public long getRentalTime() {
+            return history.getRentalTime(rows[position]);
+        }
+
+        @Override
+        public long getReturnTime() {
+            return history.getReturnTime(rows[position]);
+        }
+    }
+
+    /**
+     * 크기가 늘어나는 행 번호 목록. add()로 뒤에 추가만 하는 목록은 배열을 바꾸기 전에 넘겨준 배열의 앞부분이 그대로 유지됩니다.
+     * 대여 중인 행 목록(addOpen(), removeReturned())은 배열을 고쳐 쓰므로 커서에 배열을 그대로 넘기면 안 됩니다.
+     */
+    private static class RowList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int row) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = row;
+        }
+
+        /**
+         * 대여 중인 행을 추가합니다. 배열이 가득 차면 늘리기 전에 반납된 행부터 걸러 내므로,
+         * 목록을 읽지 않는 동안에도 크기는 대여 중인 행 수의 두 배 정도를 넘지 않습니다.
+         * @param byRentalTime true면 (대여 시간, 행 번호) 순서를 유지. 행은 대체로 대여 시간 순서로 추가되므로 보통 끝에 붙음
+         */
+        void addOpen(int row, HistoryStore history, boolean byRentalTime) {
+            if (size == values.length) {
+                removeReturned(history);
+            }
+            add(row);
+            if (byRentalTime) {
+                long rentalTime = history.getRentalTime(row);
+                int i = size - 1;
+                while (i > 0 && history.getRentalTime(values[i - 1]) > rentalTime) { // 시계가 뒤로 간 경우에만 자리를 옮김
+                    values[i] = values[i - 1];
+                    i--;
+                }
+                values[i] = row;
+            }
+        }
+
+        /**
+         * 반납된 행을 순서를 유지한 채 걸러 냅니다.
+         */
+        void removeReturned(HistoryStore history) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (history.getReturnTime(values[i]) == HistoryStore.NOT_RETURNED) {
+                    values[kept++] = values[i];
+                }
+            }
+            size = kept;
+        }
+    }
+}
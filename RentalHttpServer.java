@@ -0,0 +1,421 @@
+// 파일 이름: RentalHttpServer.java
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 키오스크와 모바일 앱이 하나의 대여 시스템(재고, 대여 기록)을 함께 쓰도록 하는 내장 HTTP/JSON 서버입니다.
+ * JDK에 포함된 com.sun.net.httpserver만 사용하며, 요청은 CommandProcessor와 RentalService로 처리하므로
+ * GUI, headless 모드와 같은 규칙(재고 확인, 저널 기록)이 적용됩니다.
+ *
+ * API (요청/응답 본문은 모두 JSON):
+ *  POST /api/login      {"id":"student1","password":"1234"} → {"ok":true,"token":"...","user":{...}}
+ *  POST /api/logout     (토큰 필요)
+ *  GET  /api/items      ?q=검색어&limit=개수 → 물품 목록과 현재 재고 (q는 초성 검색 가능)
+ *  POST /api/rent       {"item":"축구공"} 또는 {"itemId":2} (토큰 필요)
+ *  POST /api/return     {"item":"축구공"} 또는 {"itemId":2} (토큰 필요)
+ *                       대여/반납 응답: {"ok":true,"result":"RENTED","message":"..."} (result는 RentalResult 값)
+ *  GET  /api/history    ?user=&item=&status=open&from=yyyy-MM-dd&to=yyyy-MM-dd&offset=&limit= (토큰 필요)
+ *                       관리자가 아니면 자신의 기록만 조회됩니다.
+ * 토큰은 로그인 응답의 token 값을 "Authorization: Bearer 토큰" 헤더로 보냅니다.
+ *
+ * 요청은 실행기(executor)의 스레드에서 처리됩니다. JDK 21 이상에서는 요청마다 가상 스레드(virtual thread)를 쓰고,
+ * 그보다 낮은 JDK에서는 고정 크기 스레드 풀을 씁니다. 연결을 받고 요청을 읽는 일은 HttpServer의 디스패처 스레드가 하며,
+ * 각 요청의 처리는 잠금 대기 외에는 막히지 않고 짧게 끝나므로, 연결이 수천 개여도 스레드 수는 풀 크기로 충분합니다.
+ */
+public class RentalHttpServer implements AutoCloseable {
+
+    // 가상 스레드를 쓸 수 없을 때의 요청 처리 스레드 수
+    private static final int POOL_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    // 한 번에 대기할 수 있는 연결 요청 수 (동시 연결 수천 개를 받기 위해 크게 잡음)
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_ITEM_LIMIT = 1000;
+    // 요청 본문의 최대 크기(바이트). 명령 하나의 JSON은 이보다 훨씬 작으므로, 넘으면 413으로 거절
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_HISTORY_LIMIT = 100;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    static {
+        // JDK HttpServer 설정 (서버를 처음 만들기 전에 읽히므로 여기서 정함. 실행 시 -D로 지정한 값이 있으면 그대로 둠)
+        // - nodelay: 작은 JSON 응답이 Nagle 알고리즘에 묶여 keep-alive 요청마다 수십 ms씩 늦어지지 않도록 함
+        // - maxIdleConnections: 기본값(200)을 넘는 keep-alive 연결은 요청 사이에 서버가 끊어 버리므로, 키오스크 수천 대가 연결을 유지하도록 늘림
+        setDefault("sun.net.httpserver.nodelay", "true");
+        setDefault("sun.net.httpserver.maxIdleConnections", String.valueOf(BACKLOG * 4));
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CommandProcessor processor;
+    private final UserDirectory users;
+    private final ItemCatalog items;
+    private final RentalHistoryQuery historyQuery;
+
+    // 로그인 토큰 → 사용자
+    private final Map<String, User> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 서버를 만들고 바로 요청을 받기 시작합니다.
+     * @param port 포트 번호 (0이면 빈 포트를 자동 선택)
+     * @param rentalService 대여/반납을 처리할 서비스
+     * @param users 전체 사용자 목록
+     * @param items 전체 물품 목록
+     * @param journal 변경 사항을 기록할 저널
+     */
+    public RentalHttpServer(int port, RentalService rentalService, UserDirectory users, ItemCatalog items,
+                            RentalJournal journal) throws IOException {
+        this.processor = new CommandProcessor(rentalService, users, items, journal);
+        this.users = users;
+        this.items = items;
+        this.historyQuery = rentalService.getHistoryQuery();
+
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.createContext("/api/login", exchange -> handle(exchange, "POST", false, this::login));
+        server.createContext("/api/logout", exchange -> handle(exchange, "POST", true, this::logout));
+        server.createContext("/api/items", exchange -> handle(exchange, "GET", false, this::listItems));
+        server.createContext("/api/rent", exchange -> handle(exchange, "POST", true,
+                (ex, user) -> rentOrReturn(ex, user, RentalCommand.Op.RENT)));
+        server.createContext("/api/return", exchange -> handle(exchange, "POST", true,
+                (ex, user) -> rentOrReturn(ex, user, RentalCommand.Op.RETURN)));
+        server.createContext("/api/history", exchange -> handle(exchange, "GET", true, this::queryHistory));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * 요청 처리용 실행기를 만듭니다. JDK 21 이상이면 요청마다 가상 스레드를 만드는 실행기를,
+     * 아니면 고정 크기 스레드 풀을 사용합니다. (JDK 17에서도 컴파일되도록 가상 스레드 실행기는 리플렉션으로 찾음)
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(POOL_THREADS, r -> {
+                Thread t = new Thread(r, "http-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * @return 서버가 요청을 받는 포트 번호
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 새 요청을 받지 않고, 처리 중인 요청이 끝나기를 최대 1초 기다린 뒤 서버를 멈춥니다.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- 공통 처리 ---
+
+    /**
+     * 요청 처리기. 응답은 JSON 문자열로 반환하며, 오류는 ApiException으로 알립니다.
+     */
+    @FunctionalInterface
+    private interface Handler {
+        String handle(HttpExchange exchange, User user) throws IOException;
+    }
+
+    /**
+     * HTTP 메소드와 로그인 여부를 확인한 뒤 처리기를 실행하고 응답을 보냅니다.
+     */
+    private void handle(HttpExchange exchange, String method, boolean authenticated, Handler handler) {
+        try (exchange) {
+            int status = 200;
+            String body;
+            try {
+                if (!method.equals(exchange.getRequestMethod())) {
+                    throw new ApiException(405, method + " 요청만 지원합니다.");
+                }
+                User user = null;
+                if (authenticated) {
+                    user = sessions.get(tokenOf(exchange));
+                    if (user == null) {
+                        throw new ApiException(401, "로그인이 필요합니다.");
+                    }
+                }
+                body = handler.handle(exchange, user);
+            } catch (ApiException e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("HTTP 요청 처리 중 오류 발생: " + e.getMessage());
+                status = 500;
+                body = error("서버 오류가 발생했습니다.");
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // 클라이언트가 응답을 받기 전에 연결을 끊은 경우 등
+            System.err.println("HTTP 응답 전송 중 오류 발생: " + e.getMessage());
+        }
+    }
+
+    private static String tokenOf(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return "";
+        }
+        return header.substring("Bearer ".length()).trim();
+    }
+
+    /**
+     * 요청 본문을 명령 필드로 해석합니다. 본문은 MAX_BODY_BYTES까지만 읽습니다.
+     */
+    private static RentalCommand readBody(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength.trim()) > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "요청 본문은 최대 " + MAX_BODY_BYTES + "바이트입니다.");
+                }
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Content-Length가 올바르지 않습니다.");
+            }
+        }
+        String json;
+        try (InputStream in = exchange.getRequestBody()) {
+            // Content-Length가 없는 경우(chunked)에도 한도보다 한 바이트만 더 읽어 넘는지 확인
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "요청 본문은 최대 " + MAX_BODY_BYTES + "바이트입니다.");
+            }
+            json = new String(body, StandardCharsets.UTF_8);
+        }
+        RentalCommand command = RentalCommand.parseFields(json.isBlank() ? "{}" : json);
+        if (command.getError() != null) {
+            throw new ApiException(400, command.getError());
+        }
+        return command;
+    }
+
+    /**
+     * 쿼리 문자열(?a=1&b=2)을 맵으로 만듭니다.
+     */
+    private static Map<String, String> queryOf(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "'" + name + "'는 숫자여야 합니다.");
+        }
+    }
+
+    private static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"ok\":false,\"error\":");
+        RentalCommand.appendJsonString(sb, message);
+        return sb.append('}').toString();
+    }
+
+    private static void appendUser(StringBuilder sb, User user) {
+        sb.append("{\"id\":");
+        RentalCommand.appendJsonString(sb, user.getId());
+        sb.append(",\"name\":");
+        RentalCommand.appendJsonString(sb, user.getName());
+        sb.append(",\"type\":");
+        RentalCommand.appendJsonString(sb, user.getType());
+        sb.append('}');
+    }
+
+    // --- API ---
+
+    private String login(HttpExchange exchange, User ignored) throws IOException {
+        RentalCommand command = readBody(exchange);
+        User user = users.authenticate(command.id, command.password).orElse(null);
+        if (user == null) {
+            throw new ApiException(401, "ID 또는 비밀번호가 올바르지 않습니다.");
+        }
+        String token = UUID.randomUUID().toString();
+        sessions.put(token, user);
+        StringBuilder sb = new StringBuilder("{\"ok\":true,\"token\":\"").append(token).append("\",\"user\":");
+        appendUser(sb, user);
+        return sb.append('}').toString();
+    }
+
+    private String logout(HttpExchange exchange, User user) {
+        sessions.remove(tokenOf(exchange));
+        return "{\"ok\":true}";
+    }
+
+    private String listItems(HttpExchange exchange, User ignored) {
+        Map<String, String> params = queryOf(exchange);
+        int limit = intParam(params, "limit", DEFAULT_ITEM_LIMIT);
+        String q = params.get("q");
+        List<Item> shown = (q == null || q.isBlank()) ? items.toList() : items.search(q, limit);
+        StringBuilder sb = new StringBuilder(64 + Math.min(shown.size(), limit) * 96);
+        sb.append("{\"ok\":true,\"total\":").append(shown.size()).append(",\"items\":[");
+        for (int i = 0; i < shown.size() && i < limit; i++) {
+            Item item = shown.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(item.getId()).append(",\"name\":");
+            RentalCommand.appendJsonString(sb, item.getName());
+            sb.append(",\"stock\":").append(item.getCurrentStock())
+              .append(",\"maxStock\":").append(item.getMaxStock())
+              .append(",\"fee\":").append(item.getBaseFee()).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private String rentOrReturn(HttpExchange exchange, User user, RentalCommand.Op op) throws IOException {
+        RentalCommand command = readBody(exchange).withOp(op);
+        command.user = user.getId(); // 본문의 사용자 값은 무시하고 로그인한 사용자로 처리
+        CommandProcessor.Result result = processor.execute(command);
+        StringBuilder sb = new StringBuilder("{\"ok\":").append(result.isOk());
+        if (result.getRentalResult() != null) {
+            sb.append(",\"result\":\"").append(result.getRentalResult().name()).append('"'); // 예: "OUT_OF_STOCK"
+        }
+        sb.append(",\"message\":");
+        RentalCommand.appendJsonString(sb, result.getMessage());
+        return sb.append('}').toString();
+    }
+
+    /**
+     * 대여 기록을 조회합니다. 조건 중 가장 좁은 인덱스(사용자 → 물품 → 대여 중 → 기간)로 후보를 찾고, 나머지 조건은 읽으면서 확인합니다.
+     */
+    private String queryHistory(HttpExchange exchange, User user) {
+        Map<String, String> params = queryOf(exchange);
+        String userId = "Admin".equals(user.getType()) ? params.get("user") : user.getId();
+        String itemName = params.get("item");
+        boolean openOnly = "open".equals(params.get("status"));
+        long from = parseDate(params.get("from"), Long.MIN_VALUE, 0);
+        long to = parseDate(params.get("to"), Long.MAX_VALUE, 1);
+        int offset = intParam(params, "offset", 0);
+        int limit = intParam(params, "limit", DEFAULT_HISTORY_LIMIT);
+
+        RentalHistoryQuery.Cursor cursor;
+        if (userId != null && !userId.isEmpty()) {
+            cursor = historyQuery.byUser(userId, from, to);
+        } else if (itemName != null && openOnly) {
+            cursor = historyQuery.openByItem(itemName);
+        } else if (itemName != null) {
+            cursor = historyQuery.byItem(itemName);
+        } else if (openOnly) {
+            cursor = historyQuery.openRentals();
+        } else {
+            cursor = historyQuery.rentedBetween(from, to);
+        }
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"ok\":true,\"records\":[");
+        int matched = 0;
+        int written = 0;
+        while (cursor.next()) {
+            long rentalTime = cursor.getRentalTime();
+            if ((itemName != null && !itemName.equals(cursor.getItemName())) || (openOnly && !cursor.isOpen())
+                    || rentalTime < from || rentalTime >= to) {
+                continue;
+            }
+            if (matched++ < offset || written >= limit) {
+                continue; // 전체 개수(total)는 끝까지 셈
+            }
+            if (written++ > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"row\":").append(cursor.getRow()).append(",\"user\":");
+            RentalCommand.appendJsonString(sb, cursor.getUserId());
+            sb.append(",\"userName\":");
+            RentalCommand.appendJsonString(sb, cursor.getUserName());
+            sb.append(",\"item\":");
+            RentalCommand.appendJsonString(sb, cursor.getItemName());
+            sb.append(",\"rentalTime\":\"").append(HistoryStore.toDateTime(rentalTime)).append('"');
+            sb.append(",\"returnTime\":");
+            if (cursor.isOpen()) {
+                sb.append("null");
+            } else {
+                sb.append('"').append(HistoryStore.toDateTime(cursor.getReturnTime())).append('"');
+            }
+            sb.append('}');
+        }
+        return sb.append("],\"total\":").append(matched).append('}').toString();
+    }
+
+    /**
+     * yyyy-MM-dd 날짜를 그날 0시(plusDays=0) 또는 다음 날 0시(plusDays=1)의 epoch 초로 바꿉니다.
+     */
+    private static long parseDate(String value, long defaultValue, int plusDays) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return HistoryStore.toEpochSecond(LocalDate.parse(value.trim(), DATE_FORMAT).plusDays(plusDays).atStartOfDay());
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "날짜는 yyyy-MM-dd 형식이어야 합니다: " + value);
+        }
+    }
+
+    /**
+     * HTTP 상태 코드와 함께 요청을 거절할 때 사용하는 예외
+     */
+    private static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
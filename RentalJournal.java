@@ -0,0 +1,798 @@
+// 파일 이름: RentalJournal.java
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntConsumer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * 대여/반납 및 관리자 작업을 한 건씩 기록하는 추가 전용(Append-only) 저널 클래스입니다.
+ * 전체 데이터를 매번 다시 쓰는 스냅샷(saveData)과 달리, 변경 사항 하나당 작은 레코드 하나만 파일 끝에 덧붙입니다.
+ *
+ * 레코드는 메모리 버퍼에 모였다가 한 번의 write + fsync로 기록됩니다. 기록을 요청한 쪽은 log*()가 돌려준 번호로
+ * awaitDurable()을 호출해 그 레코드가 디스크에 기록될 때까지 기다리며, 그동안 다른 스레드가 추가한 레코드도
+ * 같은 fsync로 함께 기록됩니다. (그룹 커밋) 기다리는 쪽이 없는 레코드는 백그라운드 스레드가 주기적으로 기록합니다.
+ * 쓰기나 fsync에 실패하면 레코드를 버리지 않고 버퍼에 되돌려 두며, 파일을 마지막으로 기록이 끝난 길이로 되돌린 뒤 다시 씁니다.
+ * 프로그램 시작 시에는 마지막 스냅샷을 불러온 뒤 replay()로 저널의 나머지 기록을 다시 적용하여 상태를 복원합니다.
+ *
+ * 저널은 세대(generation)별 파일로 나뉩니다. 0세대는 'journal.log', n세대는 'journal.log.n' 파일에 기록되며,
+ * 체크포인트(스냅샷 저장) 직전에 rotate()로 새 세대 파일로 넘어갑니다. 스냅샷 파일에는 자신이 반영한 세대가 함께 저장되므로,
+ * 복원 시에는 그 세대 이후의 파일만 다시 적용하고, 모든 스냅샷에 반영된 이전 세대 파일은 discardBefore()로 지웁니다.
+ *
+ * 레코드 형식: [길이(int)][CRC32(int)][본문]
+ * 본문: [타입(byte)][타입별 필드...]
+ * 마지막 레코드가 쓰다가 잘린 경우(비정상 종료) 길이나 CRC가 맞지 않으므로 그 지점에서 복원을 멈춥니다.
+ * 그런 파일에 그대로 덧붙이면 이후 레코드가 모두 복원되지 않으므로, 세대 파일을 열 때 마지막 온전한 레코드 뒤를 잘라 냅니다.
+ */
+public class RentalJournal implements Closeable {
+
+    // --- 레코드 타입 상수 ---
+    private static final byte RENT = 1;         // 대여
+    private static final byte RETURN = 2;       // 반납
+    private static final byte ADD_USER = 3;     // 사용자 추가
+    private static final byte DELETE_USER = 4;  // 사용자 삭제
+    private static final byte ADD_ITEM = 5;     // 물품 추가
+    private static final byte DELETE_ITEM = 6;  // 물품 삭제
+    private static final byte RENT_BATCH = 7;   // 묶음 대여 (여러 물품을 하나의 레코드로)
+    private static final byte RETURN_BATCH = 8; // 묶음 반납
+
+    // 백그라운드 기록 주기(ms). 기다리는 쪽이 없는 레코드도 이 시간 안에 디스크에 기록됩니다.
+    private static final long GROUP_COMMIT_MILLIS = 50;
+    // 버퍼가 이 크기를 넘으면 주기를 기다리지 않고 바로 기록합니다.
+    private static final int MAX_PENDING_BYTES = 64 * 1024;
+    // 레코드 본문의 최대 크기. 기록(append)과 복원(readFrame) 모두 이 값으로 검사합니다.
+    // 문자열 필드는 writeUTF의 제한(64KB) 이하이고 묶음은 RentalService.MAX_BASKET_SIZE개 이하이므로, 가장 큰 묶음 레코드도 이 안에 들어갑니다.
+    static final int MAX_RECORD_BYTES = 8 * 1024 * 1024;
+
+    private final Path basePath;                                        // 0세대 저널 파일 경로
+    private Path path;                                                  // 현재 세대 저널 파일 경로 (fileLock으로 보호)
+    private int generation;                                             // 현재 세대 번호 (fileLock으로 보호)
+    private long recordsSinceRotate = 0;                                // 현재 세대에 추가된 레코드 수 (this 잠금으로 보호)
+    private long appendedSeq = 0;                                       // 마지막으로 버퍼에 추가된 레코드 번호 (this 잠금으로 보호)
+    private long durableSeq = 0;                                        // 디스크에 기록이 끝난 마지막 레코드 번호 (this 잠금으로 보호)
+    private long usersVersion = 0, itemsVersion = 0, historyVersion = 0; // 컬렉션별 버전 (this 잠금으로 보호)
+    private FileChannel channel;                                        // 저널 파일 채널 (열기 실패 시 null)
+    private long segmentSize;                                           // 현재 세대 파일에 온전히 기록된 길이 (fileLock으로 보호, 모르면 -1)
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(); // 아직 기록되지 않은 레코드 버퍼
+    private final ScheduledExecutorService flusher;
+    // 파일 쓰기/비우기 순서를 보장하는 잠금. 버퍼(this) 잠금과 분리하여 디스크 기록 중에도 append가 막히지 않게 합니다.
+    private final Object fileLock = new Object();
+    // 체크포인트 잠금. 상태 변경 + 기록은 읽기 잠금, 세대 교체 + 스냅샷 복사는 쓰기 잠금으로 수행하여
+    // 스냅샷에 반영된 변경과 새 세대에 기록된 변경이 겹치거나 빠지지 않도록 합니다.
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    /**
+     * RentalJournal 생성자. 가장 최근 세대의 저널 파일을 추가 모드로 열고 그룹 커밋 스레드를 시작합니다.
+     * @param fileName 0세대 저널 파일 이름 (이후 세대는 뒤에 ".세대번호"가 붙음)
+     */
+    public RentalJournal(String fileName) {
+        this.basePath = Paths.get(fileName).toAbsolutePath();
+        List<Integer> generations = listGenerations();
+        this.generation = generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+        openSegment(generation);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rental-journal-flusher");
+            t.setDaemon(true); // 프로그램 종료를 막지 않도록 데몬 스레드로 실행
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, GROUP_COMMIT_MILLIS, GROUP_COMMIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 세대 번호에 해당하는 저널 파일 경로를 반환합니다.
+     */
+    private Path segmentPath(int gen) {
+        return (gen == 0) ? basePath : basePath.resolveSibling(basePath.getFileName() + "." + gen);
+    }
+
+    /**
+     * 디스크에 있는 저널 파일들의 세대 번호를 오름차순으로 반환합니다.
+     */
+    private List<Integer> listGenerations() {
+        List<Integer> generations = new ArrayList<>();
+        String baseName = basePath.getFileName().toString();
+        File[] files = basePath.getParent().toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.equals(baseName)) {
+                    generations.add(0);
+                } else if (name.startsWith(baseName + ".")) {
+                    try {
+                        generations.add(Integer.parseInt(name.substring(baseName.length() + 1)));
+                    } catch (NumberFormatException e) {
+                        // 저널 파일이 아닌 이름(예: journal.log.bak)은 무시
+                    }
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    /**
+     * 세대 파일을 추가 모드로 엽니다. 비정상 종료로 끝에 잘린 레코드가 남아 있으면 마지막 온전한 레코드 뒤를 잘라 낸 뒤 이어 씁니다.
+     */
+    private void openSegment(int gen) {
+        this.path = segmentPath(gen);
+        FileChannel opened = null;
+        try {
+            opened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            long size = opened.size();
+            long valid = (size == 0) ? 0 : validLength(path.toFile());
+            if (valid < size) {
+                System.err.println("저널 끝의 손상된 기록을 잘라냅니다: " + path.getFileName() + " (" + (size - valid) + "바이트)");
+                opened.truncate(valid);
+                opened.force(false);
+            }
+            this.segmentSize = valid;
+            this.channel = opened;
+        } catch (IOException e) {
+            closeQuietly(opened);
+            this.channel = null;
+            this.segmentSize = -1; // 다시 열 때 온전한 길이를 새로 구함
+            System.err.println("저널 파일 열기 중 오류 발생: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        if (ch != null) {
+            try {
+                ch.close();
+            } catch (IOException e) {
+                // 열기에 실패한 채널이므로 무시
+            }
+        }
+    }
+
+    // --- 체크포인트 지원 ---
+
+    /**
+     * 상태 변경과 저널 기록을 하나로 묶기 위한 잠금을 반환합니다. (여러 스레드가 동시에 잡을 수 있는 읽기 잠금)
+     * 데이터를 바꾸고 log*() 메소드로 기록하는 동안 이 잠금을 잡고 있어야, 체크포인트 스냅샷과 저널 세대가 정확히 나뉩니다.
+     * @return 변경 작업용 잠금
+     */
+    public Lock mutationLock() {
+        return checkpointLock.readLock();
+    }
+
+    /**
+     * 현재 세대의 남은 레코드를 기록한 뒤 새 세대 파일로 넘어가고, 그 사이에 snapshot 작업을 실행합니다.
+     * 세대 교체와 snapshot 실행 동안에는 모든 변경 작업(mutationLock)이 잠시 멈추므로,
+     * snapshot이 복사한 상태에는 이전 세대까지의 변경만 정확히 반영됩니다.
+     * snapshot은 메모리 복사처럼 짧은 작업이어야 하며, 파일 쓰기는 이 메소드가 반환된 뒤에 수행합니다.
+     * @param snapshot 상태를 복사하는 작업. 새 세대 번호를 전달받음
+     * @return 새 세대 번호 (복사된 스냅샷은 이 세대부터의 기록을 다시 적용하면 최신 상태가 됨)
+     * @throws UncheckedIOException 남은 레코드를 디스크에 쓰지 못한 경우 (세대를 넘기지 않음)
+     */
+    public int rotate(IntConsumer snapshot) {
+        checkpointLock.writeLock().lock();
+        try {
+            // 남은 레코드를 기록하지 못한 채 넘어가면 그 레코드가 새 세대에 기록되어 스냅샷과 겹치므로 세대를 넘기지 않음
+            if (!flush()) {
+                throw new UncheckedIOException(new IOException("저널의 남은 기록을 디스크에 쓰지 못했습니다."));
+            }
+            int newGeneration;
+            synchronized (fileLock) {
+                closeChannel();
+                newGeneration = ++generation;
+                openSegment(newGeneration);
+                synchronized (this) {
+                    recordsSinceRotate = 0;
+                }
+            }
+            snapshot.accept(newGeneration);
+            return newGeneration;
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 모든 변경 작업(mutationLock)을 잠시 멈춘 채 action을 실행합니다. rotate()와 달리 저널 세대는 넘기지 않습니다.
+     * 변경 작업과 겹치면 안 되는 짧은 교체 작업(대여 기록 저장소의 현재 구간 교체 등)에 사용합니다.
+     * @param action 실행할 작업
+     */
+    public void runExclusive(Runnable action) {
+        checkpointLock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 모든 스냅샷에 반영된 이전 세대 저널 파일을 삭제합니다.
+     * @param gen 이 세대 미만의 파일을 삭제
+     */
+    public void discardBefore(int gen) {
+        synchronized (fileLock) {
+            for (int old : listGenerations()) {
+                if (old < gen && old < generation) {
+                    try {
+                        Files.deleteIfExists(segmentPath(old));
+                    } catch (IOException e) {
+                        System.err.println("이전 저널 삭제 중 오류 발생: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 현재 세대가 gen보다 낮으면 gen 세대로 넘어갑니다.
+     * 스냅샷보다 오래된 세대에 새 기록이 추가되어 복원 시 무시되는 일이 없도록, 스냅샷을 불러온 뒤 호출합니다.
+     */
+    public void advanceTo(int gen) {
+        synchronized (fileLock) {
+            if (generation >= gen) {
+                return;
+            }
+            flush();
+            closeChannel();
+            generation = gen;
+            openSegment(generation);
+        }
+    }
+
+    /**
+     * @return 마지막 세대 교체 이후 기록된 레코드 수 (체크포인트 시점 판단용)
+     */
+    public synchronized long getRecordsSinceRotate() {
+        return recordsSinceRotate;
+    }
+
+    // --- 컬렉션별 버전 ---
+    // 레코드가 기록될 때마다 그 레코드가 바꾸는 컬렉션의 버전이 1씩 오릅니다. (this 잠금으로 보호)
+    // 저장하는 쪽은 마지막으로 저장한 버전과 비교하여 바뀐 컬렉션만 다시 쓸 수 있습니다.
+
+    /**
+     * 레코드 타입에 따라 바뀌는 컬렉션의 버전을 올립니다. this 잠금을 잡은 상태에서 호출합니다.
+     */
+    private void bumpVersion(byte type) {
+        switch (type) {
+            case ADD_USER:
+            case DELETE_USER:
+                usersVersion++;
+                break;
+            case RENT:
+            case RETURN:
+            case RENT_BATCH:
+            case RETURN_BATCH:
+                itemsVersion++;   // 물품의 대여자/재고
+                historyVersion++; // 대여 기록
+                break;
+            default: // ADD_ITEM, DELETE_ITEM
+                itemsVersion++;
+        }
+    }
+
+    /**
+     * @return 사용자 목록의 버전 (사용자 추가/삭제 시 증가)
+     */
+    public synchronized long getUsersVersion() {
+        return usersVersion;
+    }
+
+    /**
+     * @return 물품 목록의 버전 (대여/반납, 물품 추가/삭제 시 증가)
+     */
+    public synchronized long getItemsVersion() {
+        return itemsVersion;
+    }
+
+    /**
+     * @return 대여 기록의 버전 (대여/반납 시 증가)
+     */
+    public synchronized long getHistoryVersion() {
+        return historyVersion;
+    }
+
+    // --- 기록(append) 메소드 ---
+    // log*() 메소드는 레코드를 버퍼에 추가하고 레코드 번호를 반환합니다. 디스크에 기록될 때까지 기다리려면
+    // 변경 잠금(mutationLock)과 물품 잠금을 푼 뒤 그 번호로 awaitDurable()을 호출합니다.
+
+    /**
+     * 대여를 기록합니다.
+     * @param row 대여 기록 저장소에 추가된 행 번호
+     * @param rentalTime 대여 시간 (epoch 초)
+     */
+    public long logRent(User user, String itemName, int row, long rentalTime) {
+        return append(RENT, out -> {
+            out.writeUTF(user.getId());
+            out.writeUTF(itemName);
+            out.writeInt(row);
+            out.writeLong(rentalTime);
+        });
+    }
+
+    /**
+     * 반납을 기록합니다.
+     * @param row 반납 처리된 대여 기록의 행 번호
+     * @param returnTime 반납 시간 (epoch 초)
+     */
+    public long logReturn(User user, String itemName, int row, long returnTime) {
+        return append(RETURN, out -> {
+            out.writeUTF(user.getId());
+            out.writeUTF(itemName);
+            out.writeInt(row);
+            out.writeLong(returnTime);
+        });
+    }
+
+    /**
+     * 묶음 대여를 레코드 하나로 기록합니다. 레코드 단위로 CRC를 확인하므로, 비정상 종료 시에도 묶음의 일부만 복원되지 않습니다.
+     * @param itemNames 대여한 물품 이름 (한 개당 하나씩)
+     * @param rows 대여 기록 저장소에 추가된 행 번호 (itemNames와 같은 순서)
+     * @param rentalTime 대여 시간 (epoch 초)
+     */
+    public long logRentAll(User user, List<String> itemNames, int[] rows, long rentalTime) {
+        return append(RENT_BATCH, out -> writeBatch(out, user, itemNames, rows, rentalTime));
+    }
+
+    /**
+     * 묶음 반납을 레코드 하나로 기록합니다.
+     * @param itemNames 반납한 물품 이름 (한 개당 하나씩)
+     * @param rows 반납 처리된 대여 기록의 행 번호 (itemNames와 같은 순서)
+     * @param returnTime 반납 시간 (epoch 초)
+     */
+    public long logReturnAll(User user, List<String> itemNames, int[] rows, long returnTime) {
+        return append(RETURN_BATCH, out -> writeBatch(out, user, itemNames, rows, returnTime));
+    }
+
+    private static void writeBatch(DataOutputStream out, User user, List<String> itemNames, int[] rows, long time)
+            throws IOException {
+        out.writeUTF(user.getId());
+        out.writeLong(time);
+        out.writeInt(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            out.writeUTF(itemNames.get(i));
+            out.writeInt(rows[i]);
+        }
+    }
+
+    public long logAddUser(User user) {
+        return append(ADD_USER, out -> {
+            out.writeUTF(user.getId());
+            out.writeUTF(user.getName());
+            out.writeUTF(user.getType());
+            out.writeUTF(user.getPassword());
+        });
+    }
+
+    public long logDeleteUser(String userId) {
+        return append(DELETE_USER, out -> {
+            out.writeUTF(userId);
+        });
+    }
+
+    public long logAddItem(Item item) {
+        return append(ADD_ITEM, out -> {
+            out.writeUTF(item.getName());
+            out.writeInt(item.getMaxStock());
+            out.writeDouble(item.getBaseFee());
+            out.writeInt(item.getId()); // 물품 번호 (이전 저널에는 없음)
+        });
+    }
+
+    public long logDeleteItem(String itemName) {
+        return append(DELETE_ITEM, out -> {
+            out.writeUTF(itemName);
+        });
+    }
+
+    /**
+     * 레코드 본문을 직렬화한 뒤 [길이][CRC] 헤더를 붙여 대기 버퍼에 추가하고, 해당 컬렉션의 버전을 올립니다.
+     * @return 추가한 레코드의 번호 (awaitDurable()에 전달)
+     * @throws IllegalArgumentException 본문이 MAX_RECORD_BYTES보다 크거나 직렬화할 수 없는 경우
+     */
+    private long append(byte type, RecordWriter writer) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+            DataOutputStream bodyOut = new DataOutputStream(body);
+            bodyOut.writeByte(type);
+            writer.write(bodyOut);
+            byte[] bytes = body.toByteArray();
+            if (bytes.length > MAX_RECORD_BYTES) {
+                // 복원할 때 손상된 레코드로 취급되어 이후 기록까지 모두 버려지므로 기록하지 않음
+                throw new IllegalArgumentException("저널 레코드가 너무 큽니다: " + bytes.length + "바이트 (최대 " + MAX_RECORD_BYTES + ")");
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            long seq;
+            boolean flushNow;
+            synchronized (this) {
+                DataOutputStream out = new DataOutputStream(pending);
+                out.writeInt(bytes.length);
+                out.writeInt((int) crc.getValue());
+                out.write(bytes);
+                seq = ++appendedSeq;
+                recordsSinceRotate++;
+                bumpVersion(type);
+                flushNow = pending.size() >= MAX_PENDING_BYTES;
+            }
+            if (flushNow) {
+                flush();
+            }
+            return seq;
+        } catch (IOException e) {
+            // 메모리 버퍼에 쓰는 것이므로 직렬화 오류만 해당함 (예: writeUTF의 최대 길이를 넘는 문자열)
+            throw new IllegalArgumentException("저널 레코드를 만들 수 없습니다: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * seq번 레코드까지 디스크에 기록될 때까지 기다립니다. 아직 기록되지 않았으면 버퍼에 모인 레코드를 직접 기록합니다.
+     * 여러 스레드가 동시에 기다리면 먼저 들어온 스레드가 파일에 쓰는 동안 나머지의 레코드가 버퍼에 모이고,
+     * 다음 스레드가 그것들을 한 번에 기록하므로 fsync는 기다리는 스레드 수보다 적게 일어납니다.
+     * 잠금(mutationLock, 물품 잠금)을 잡은 채 호출하지 않습니다.
+     * @param seq log*()가 반환한 레코드 번호
+     * @return 디스크에 기록되었으면 true, 쓰기에 실패했으면 false (레코드는 버퍼에 남아 다음 기록 때 다시 씀)
+     */
+    public boolean awaitDurable(long seq) {
+        synchronized (this) {
+            if (durableSeq >= seq) {
+                return true;
+            }
+        }
+        flush();
+        synchronized (this) {
+            return durableSeq >= seq;
+        }
+    }
+
+    /**
+     * 지금까지 추가된 모든 레코드가 디스크에 기록될 때까지 기다립니다.
+     * @return 디스크에 기록되었으면 true
+     */
+    public boolean sync() {
+        long seq;
+        synchronized (this) {
+            seq = appendedSeq;
+        }
+        return awaitDurable(seq);
+    }
+
+    /**
+     * 대기 버퍼에 모인 레코드를 한 번에 파일에 쓰고 디스크에 강제 기록(fsync)합니다.
+     * 실패하면 레코드를 버퍼 앞쪽에 되돌려 두고 채널을 닫습니다. 다음 호출에서 파일을 마지막으로 기록이 끝난 길이(segmentSize)로
+     * 되돌린 뒤 다시 씁니다. (일부만 쓰였거나 fsync가 실패한 기록 뒤에 덧붙이지 않기 위함)
+     * @return 버퍼의 레코드를 모두 기록했으면(또는 기록할 것이 없으면) true
+     */
+    public boolean flush() {
+        synchronized (fileLock) {
+            byte[] batch;
+            long batchSeq;
+            synchronized (this) {
+                if (pending.size() == 0) {
+                    return true;
+                }
+                batch = pending.toByteArray();
+                batchSeq = appendedSeq;
+                pending = new ByteArrayOutputStream();
+            }
+            try {
+                if (channel == null) {
+                    reopenChannel();
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                segmentSize += batch.length;
+                synchronized (this) {
+                    durableSeq = batchSeq;
+                }
+                return true;
+            } catch (IOException e) {
+                System.err.println("저널 플러시 중 오류 발생: " + e.getMessage());
+                closeChannel();
+                synchronized (this) {
+                    // 실패한 묶음을 그사이 추가된 레코드 앞에 되돌림
+                    ByteArrayOutputStream retry = new ByteArrayOutputStream(batch.length + pending.size());
+                    retry.write(batch, 0, batch.length);
+                    retry.write(pending.toByteArray(), 0, pending.size());
+                    pending = retry;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 쓰기에 실패해 닫은 현재 세대 파일을 다시 열고, 마지막으로 기록이 끝난 길이 뒤의 내용을 잘라 냅니다. fileLock을 잡은 상태에서 호출합니다.
+     */
+    private void reopenChannel() throws IOException {
+        FileChannel reopened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            long keep = (segmentSize >= 0) ? segmentSize : validLength(path.toFile());
+            if (reopened.size() > keep) {
+                reopened.truncate(keep);
+            }
+            segmentSize = keep;
+        } catch (IOException e) {
+            closeQuietly(reopened);
+            throw e;
+        }
+        channel = reopened;
+    }
+
+    /**
+     * 남은 레코드를 기록하고 저널 파일과 그룹 커밋 스레드를 닫습니다.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flush();
+        synchronized (fileLock) {
+            closeChannel();
+        }
+    }
+
+    /**
+     * 현재 저널 파일 채널을 닫습니다. fileLock을 잡은 상태에서 호출합니다.
+     */
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("저널 닫기 중 오류 발생: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    // --- 복원(replay) ---
+
+    /**
+     * 저널에 기록된 작업을 다시 적용하여, 마지막 스냅샷 이후의 상태를 복원합니다.
+     * replayUsers()와 replayData()를 모든 세대에 대해 차례로 호출하는 것과 같습니다.
+     * @param users 스냅샷에서 불러온 사용자 목록 (복원 결과가 반영됨)
+     * @param items 스냅샷에서 불러온 물품 목록 (복원 결과가 반영됨)
+     * @param history 대여 기록 저장소 (복원 결과가 반영됨)
+     * @return 다시 적용한 레코드 수
+     */
+    public int replay(UserDirectory users, ItemCatalog items, HistoryStore history) {
+        Map<String, User> journalUsers = new HashMap<>();
+        int applied = replayUsers(users, journalUsers, 0);
+        return applied + replayData(journalUsers, items, history, 0);
+    }
+
+    /**
+     * 저널의 사용자 추가/삭제 기록만 다시 적용합니다.
+     * 로그인에는 사용자 목록만 필요하므로, 프로그램 시작 시 물품/대여 기록보다 먼저 복원할 수 있도록 분리되어 있습니다.
+     * 사용자 기록과 대여/물품 기록은 서로의 결과에 영향을 주지 않으므로 나누어 적용해도 결과가 같습니다.
+     * (단, 저널 도중 삭제된 사용자의 대여 기록도 복원할 수 있도록 삭제된 사용자도 journalUsers에 남겨 둡니다.)
+     * @param users 스냅샷에서 불러온 사용자 목록 (복원 결과가 반영됨)
+     * @param journalUsers 저널 복원 중 한 번이라도 존재했던 사용자 (ID → 사용자). replayData()에 전달
+     * @param fromGeneration 사용자 스냅샷이 반영한 세대 (이 세대부터 다시 적용)
+     * @return 다시 적용한 레코드 수
+     */
+    public int replayUsers(UserDirectory users, Map<String, User> journalUsers, int fromGeneration) {
+        users.toList().forEach(u -> journalUsers.put(u.getId(), u));
+        return readRecords(fromGeneration, (type, rec) -> {
+            switch (type) {
+                case ADD_USER: {
+                    User user = new User(rec.readUTF(), rec.readUTF(), rec.readUTF(), rec.readUTF());
+                    if (users.add(user)) { // 이미 있는 ID면 추가되지 않음
+                        journalUsers.put(user.getId(), user);
+                    }
+                    return true;
+                }
+                case DELETE_USER: {
+                    users.remove(rec.readUTF()); // 삭제된 사용자는 journalUsers에는 남음
+                    return true;
+                }
+                default:
+                    return false;
+            }
+        });
+    }
+
+    /**
+     * 저널의 대여/반납 및 물품 추가/삭제 기록을 다시 적용합니다. replayUsers() 이후에 호출합니다.
+     * @param journalUsers replayUsers()가 채운 사용자 맵
+     * @param items 스냅샷에서 불러온 물품 목록 (복원 결과가 반영됨)
+     * @param history 대여 기록 저장소 (복원 결과가 반영됨)
+     * @param fromGeneration 물품 스냅샷이 반영한 세대 (이 세대부터 다시 적용)
+     * @return 다시 적용한 레코드 수
+     */
+    public int replayData(Map<String, User> journalUsers, ItemCatalog items, HistoryStore history, int fromGeneration) {
+        // 저장소에 이미 있던 행 수. 이보다 작은 행 번호는 저장소에 남아 있고, 그 이상은 다시 추가해야 함
+        // (대여는 물품별 잠금 안에서 행 추가와 저널 기록을 하므로, 저널 순서가 행 번호 순서와 다를 수 있음.
+        //  따라서 복원 도중 늘어나는 size()가 아니라 복원 전의 행 수로 판단함)
+        int savedRows = history.size();
+        // 저널에 기록된 행 번호 → 다시 추가한 행 번호
+        Map<Integer, Integer> rowMap = new HashMap<>();
+
+        return readRecords(fromGeneration, (type, rec) -> {
+            switch (type) {
+                case RENT: {
+                    User user = journalUsers.get(rec.readUTF());
+                    Item item = items.find(rec.readUTF());
+                    int row = rec.readInt();
+                    replayRent(user, item, row, rec.readLong(), history, savedRows, rowMap);
+                    return true;
+                }
+                case RETURN: {
+                    User user = journalUsers.get(rec.readUTF());
+                    Item item = items.find(rec.readUTF());
+                    int row = rec.readInt();
+                    replayReturn(user, item, row, rec.readLong(), history, savedRows, rowMap);
+                    return true;
+                }
+                case RENT_BATCH:
+                case RETURN_BATCH: {
+                    User user = journalUsers.get(rec.readUTF());
+                    long time = rec.readLong();
+                    int count = rec.readInt();
+                    for (int i = 0; i < count; i++) {
+                        Item item = items.find(rec.readUTF());
+                        int row = rec.readInt();
+                        if (type == RENT_BATCH) {
+                            replayRent(user, item, row, time, history, savedRows, rowMap);
+                        } else {
+                            replayReturn(user, item, row, time, history, savedRows, rowMap);
+                        }
+                    }
+                    return true;
+                }
+                case ADD_ITEM: {
+                    Item item = new Item(rec.readUTF(), rec.readInt(), rec.readDouble());
+                    if (rec.available() > 0) {
+                        item.assignId(rec.readInt()); // 기록 당시 부여된 번호를 그대로 복원
+                    }
+                    items.add(item); // 이미 있는 이름이면 추가되지 않음
+                    return true;
+                }
+                case DELETE_ITEM: {
+                    items.remove(rec.readUTF());
+                    return true;
+                }
+                default:
+                    return false;
+            }
+        });
+    }
+
+    private static void replayRent(User user, Item item, int row, long rentalTime, HistoryStore history,
+                                   int savedRows, Map<Integer, Integer> rowMap) {
+        if (user != null && item != null && item.rentTo(user)) {
+            // 대여 기록 저장소는 추가 즉시 파일에 반영되므로, 이미 있는 행이면 물품 상태만 복원
+            if (row >= savedRows) {
+                rowMap.put(row, history.append(user, item.getName(), rentalTime));
+            }
+        }
+    }
+
+    private static void replayReturn(User user, Item item, int loggedRow, long returnTime, HistoryStore history,
+                                     int savedRows, Map<Integer, Integer> rowMap) {
+        Integer added = rowMap.get(loggedRow);
+        // 다시 추가한 행이면 그 행, 저장소에 남아 있던 행이면 기록된 행 번호 그대로 (둘 다 아니면 기록 행 없음)
+        int row = (added != null) ? added : (loggedRow < savedRows ? loggedRow : -1);
+        if (user != null && item != null && item.returnBy(user)) {
+            // 같은 반납 시간을 다시 쓰는 것이므로 이미 반영된 행이어도 안전함
+            if (row >= 0) {
+                history.markReturned(row, returnTime);
+            }
+        }
+    }
+
+    /**
+     * fromGeneration 이후 세대의 저널 파일을 세대 순서대로 읽어 레코드를 handler에 전달합니다.
+     * @return handler가 처리했다고 응답한(true) 레코드 수
+     */
+    private int readRecords(int fromGeneration, RecordHandler handler) {
+        int applied = 0;
+        for (int gen : listGenerations()) {
+            if (gen >= fromGeneration) {
+                applied += readSegment(segmentPath(gen).toFile(), handler);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * 저널 파일 하나의 레코드를 처음부터 순서대로 읽어 handler에 전달합니다.
+     */
+    private static int readSegment(File file, RecordHandler handler) {
+        if (!file.exists() || file.length() == 0) {
+            return 0;
+        }
+        int applied = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                byte[] bytes = readFrame(in);
+                if (bytes == null) {
+                    break; // 파일 끝이거나 잘린 레코드
+                }
+                DataInputStream rec = new DataInputStream(new ByteArrayInputStream(bytes));
+                byte type = rec.readByte();
+                if (type < RENT || type > RETURN_BATCH) {
+                    System.err.println("알 수 없는 저널 레코드를 건너뜁니다.");
+                } else if (handler.handle(type, rec)) {
+                    applied++;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("저널 복원 중 오류 발생: " + e.getMessage());
+        }
+        return applied;
+    }
+
+    /**
+     * 저널 파일 앞부분에서 온전한 레코드들이 차지하는 길이를 구합니다. (첫 손상된 레코드의 시작 위치)
+     */
+    static long validLength(File file) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] bytes;
+            while ((bytes = readFrame(in)) != null) {
+                valid += 8 + bytes.length; // [길이][CRC] 헤더 + 본문
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * [길이][CRC][본문] 형식의 레코드 하나를 읽습니다.
+     * @return 레코드 본문. 파일 끝이거나 레코드가 손상된 경우 null
+     */
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        try {
+            int expectedCrc = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            return ((int) crc.getValue() == expectedCrc) ? bytes : null;
+        } catch (EOFException e) {
+            return null; // 기록 도중 잘린 마지막 레코드
+        }
+    }
+
+    /**
+     * 레코드 본문을 스트림에 쓰는 함수형 인터페이스
+     */
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * 복원 시 레코드 하나를 처리하는 함수형 인터페이스
+     * 처리한 레코드면 true, 이 단계에서 다루지 않는 타입이면 false를 반환합니다.
+     */
+    private interface RecordHandler {
+        boolean handle(byte type, DataInputStream rec) throws IOException;
+    }
+}
@@ -0,0 +1,276 @@
+// 파일 이름: RentalJournalTest.java
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RentalJournal의 기록과 복원(replay)을 확인하는 테스트입니다. 임시 디렉터리에 저널을 만들어 확인하고 지웁니다.
+ *
+ * 사용법: java RentalJournalTest
+ *
+ * 확인하는 내용:
+ *  - 사용자/물품/대여/반납/묶음 기록을 저널에 쓰고 다시 적용하면 같은 상태가 되는지 (세대를 넘긴 경우 포함)
+ *  - 서로 다른 물품의 대여가 행 번호와 다른 순서로 저널에 기록된 경우에도 행을 빠뜨리거나 다른 행을 반납 처리하지 않는지
+ *  - 마지막 레코드가 쓰다가 잘린 파일(헤더만 일부, 본문 일부, CRC 불일치)을 다시 열면 그 뒤를 잘라 내고,
+ *    이후에 덧붙인 레코드가 복원되는지
+ *  - MAX_RECORD_BYTES보다 큰 레코드는 기록을 거부하고 저널은 계속 쓸 수 있는지, 복원 시에도 그런 길이는 손상으로 보는지
+ * 실패한 항목을 출력하고, 하나라도 실패하면 종료 코드 1로 끝납니다.
+ */
+public class RentalJournalTest {
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("journal-test");
+        try {
+            roundTrip(dir.resolve("round").toFile());
+            outOfOrderRows(dir.resolve("order").toFile());
+            tornHeader(dir.resolve("header").toFile());
+            tornBody(dir.resolve("body").toFile());
+            badCrc(dir.resolve("crc").toFile());
+            oversizedRecord(dir.resolve("oversized").toFile());
+        } finally {
+            deleteRecursively(dir.toFile());
+        }
+        if (failures > 0) {
+            System.err.println("실패 " + failures + "건");
+            System.exit(1);
+        }
+        System.out.println("모든 확인을 통과했습니다.");
+    }
+
+    /**
+     * 기록한 작업을 빈 상태에 다시 적용하면 같은 사용자, 재고, 대여 기록이 되는지 확인합니다.
+     */
+    private static void roundTrip(File dir) {
+        String path = journalPath(dir);
+        RentalJournal journal = new RentalJournal(path);
+        User alice = new User("alice", "앨리스", "Student", "1");
+        User bob = new User("bob", "밥", "Student", "2");
+        Item umbrella = new Item("우산", 3, 1000.0);
+        Item charger = new Item("보조배터리", 2, 2000.0);
+        journal.logAddUser(alice);
+        journal.logAddUser(bob);
+        journal.logAddItem(umbrella);
+        journal.logAddItem(charger);
+
+        ArrayHistoryStore history = new ArrayHistoryStore();
+        RentalService rentalService = new RentalService(history, journal);
+        DiscountStrategy strategy = new StudentDiscountStrategy();
+        check(rentalService.rentItem(alice, umbrella, strategy).isSuccess(), "대여");
+        check(rentalService.rentItems(bob, List.of(umbrella, charger), strategy).isSuccess(), "묶음 대여");
+        journal.rotate(gen -> { });
+        check(rentalService.returnItem(alice, umbrella).isSuccess(), "반납 (세대를 넘긴 뒤)");
+        check(rentalService.returnItems(bob, List.of(charger)).isSuccess(), "묶음 반납");
+        journal.logDeleteUser("alice");
+        check(journal.sync(), "sync");
+        journal.close();
+
+        UserDirectory users = new UserDirectory();
+        ItemCatalog items = new ItemCatalog();
+        ArrayHistoryStore replayed = new ArrayHistoryStore();
+        int applied = new RentalJournal(path).replay(users, items, replayed);
+        check(applied == 9, "다시 적용한 레코드 수: " + applied);
+        check(!users.contains("alice") && users.contains("bob"), "사용자 추가/삭제 복원");
+        check(items.find("우산") != null && items.find("우산").getCurrentStock() == umbrella.getCurrentStock(),
+                "우산 재고 복원");
+        check(items.find("보조배터리") != null && items.find("보조배터리").getCurrentStock() == charger.getCurrentStock(),
+                "보조배터리 재고 복원");
+        check(replayed.size() == history.size(), "대여 기록 수: " + replayed.size() + " / " + history.size());
+        for (int row = 0; row < Math.min(replayed.size(), history.size()); row++) {
+            check(replayed.getUserId(row).equals(history.getUserId(row))
+                    && replayed.getItemName(row).equals(history.getItemName(row))
+                    && replayed.getRentalTime(row) == history.getRentalTime(row)
+                    && replayed.getReturnTime(row) == history.getReturnTime(row), "대여 기록 " + row + "행");
+        }
+    }
+
+    /**
+     * 대여 기록 행 번호와 저널 순서가 다른 경우를 확인합니다.
+     * 대여는 물품별 잠금 안에서 행을 추가하고 저널에 기록하므로, 다른 물품의 대여는 행 번호가 큰 쪽이 먼저 기록될 수 있습니다.
+     */
+    private static void outOfOrderRows(File dir) {
+        String path = journalPath(dir);
+        RentalJournal journal = new RentalJournal(path);
+        User a = new User("a", "가", "Student", "1");
+        User b = new User("b", "나", "Student", "2");
+        User c = new User("c", "다", "Student", "3");
+        journal.logAddUser(a);
+        journal.logAddUser(b);
+        journal.logAddUser(c);
+        journal.logAddItem(new Item("X", 1, 1000.0));
+        journal.logAddItem(new Item("Y", 1, 1000.0));
+        journal.logAddItem(new Item("Z", 1, 1000.0));
+        // 행 0: a X, 행 1: b Y, 행 2: c Z 순서로 추가되었지만 저널에는 2, 0, 1 순서로 기록됨
+        journal.logRent(c, "Z", 2, 300);
+        journal.logRent(a, "X", 0, 100);
+        journal.logRent(b, "Y", 1, 200);
+        journal.logReturn(c, "Z", 2, 400);
+        journal.logReturn(a, "X", 0, 500);
+        check(journal.sync(), "sync");
+        journal.close();
+
+        // 저장소가 비어 있는 경우: 모든 행을 저널 순서대로 다시 추가
+        ItemCatalog items = new ItemCatalog();
+        ArrayHistoryStore empty = new ArrayHistoryStore();
+        new RentalJournal(path).replay(new UserDirectory(), items, empty);
+        check(empty.size() == 3, "순서가 다른 행: 전체 행 수 " + empty.size());
+        check(matches(empty, 0, "c", "Z", 300, 400) && matches(empty, 1, "a", "X", 100, 500)
+                && matches(empty, 2, "b", "Y", 200, HistoryStore.NOT_RETURNED), "순서가 다른 행: 빈 저장소에 다시 추가");
+        check(items.find("X").getCurrentStock() == 1 && items.find("Y").getCurrentStock() == 0
+                && items.find("Z").getCurrentStock() == 1, "순서가 다른 행: 재고 복원");
+
+        // 저장소에 행 0만 남아 있는 경우: 행 0은 그대로 두고 행 2, 1을 다시 추가
+        ArrayHistoryStore saved = new ArrayHistoryStore();
+        saved.append(a, "X", 100);
+        new RentalJournal(path).replay(new UserDirectory(), new ItemCatalog(), saved);
+        check(saved.size() == 3, "앞부분이 남은 저장소: 전체 행 수 " + saved.size());
+        check(matches(saved, 0, "a", "X", 100, 500) && matches(saved, 1, "c", "Z", 300, 400)
+                && matches(saved, 2, "b", "Y", 200, HistoryStore.NOT_RETURNED), "앞부분이 남은 저장소: 나머지 행 다시 추가");
+    }
+
+    private static boolean matches(HistoryStore history, int row, String userId, String itemName,
+                                   long rentalTime, long returnTime) {
+        return history.getUserId(row).equals(userId) && history.getItemName(row).equals(itemName)
+                && history.getRentalTime(row) == rentalTime && history.getReturnTime(row) == returnTime;
+    }
+
+    /**
+     * 마지막 레코드의 헤더가 일부만 기록된 경우
+     */
+    private static void tornHeader(File dir) throws IOException {
+        String path = journalPath(dir);
+        writeUsers(path, "u1", "u2");
+        appendBytes(path, new byte[]{0, 0, 0, 20, 1, 2}); // 길이 20, CRC 2바이트에서 잘림
+        checkRecoversAfterTear(path, "잘린 헤더", "u1", "u2");
+    }
+
+    /**
+     * 마지막 레코드의 본문이 일부만 기록된 경우
+     */
+    private static void tornBody(File dir) throws IOException {
+        String path = journalPath(dir);
+        writeUsers(path, "u1", "u2");
+        truncate(path, new File(path).length() - 3);
+        checkRecoversAfterTear(path, "잘린 본문", "u1");
+    }
+
+    /**
+     * 마지막 레코드의 본문이 바뀌어 CRC가 맞지 않는 경우
+     */
+    private static void badCrc(File dir) throws IOException {
+        String path = journalPath(dir);
+        writeUsers(path, "u1", "u2");
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+        checkRecoversAfterTear(path, "CRC 불일치", "u1");
+    }
+
+    /**
+     * 손상된 파일을 다시 열고 레코드를 덧붙인 뒤, 온전했던 레코드와 덧붙인 레코드가 모두 복원되는지 확인합니다.
+     * @param expected 손상되기 전의 레코드 중 복원되어야 하는 사용자 ID
+     */
+    private static void checkRecoversAfterTear(String path, String name, String... expected) {
+        long damaged = new File(path).length();
+        RentalJournal journal = new RentalJournal(path); // 여기서 손상된 끝을 잘라 냄
+        check(new File(path).length() < damaged, name + ": 손상된 끝을 잘라 냄");
+        journal.logAddUser(new User("after", "덧붙임", "Student", "1"));
+        journal.close();
+
+        UserDirectory users = new UserDirectory();
+        int applied = new RentalJournal(path).replay(users, new ItemCatalog(), new ArrayHistoryStore());
+        check(applied == expected.length + 1, name + ": 다시 적용한 레코드 수 " + applied);
+        for (String id : expected) {
+            check(users.contains(id), name + ": " + id + " 복원");
+        }
+        check(users.contains("after"), name + ": 손상된 레코드 뒤에 덧붙인 레코드 복원");
+    }
+
+    /**
+     * 최대 크기를 넘는 레코드는 기록하지 않고, 저널은 계속 쓸 수 있는지 확인합니다.
+     */
+    private static void oversizedRecord(File dir) throws IOException {
+        String path = journalPath(dir);
+        RentalJournal journal = new RentalJournal(path);
+        // 물품 하나당 이름(2+1바이트)과 행 번호(4바이트)이므로 최대 크기를 넘을 만큼 만듦
+        int count = RentalJournal.MAX_RECORD_BYTES / 7 + 1;
+        List<String> names = Collections.nCopies(count, "x");
+        int[] rows = new int[count];
+        boolean rejected = false;
+        try {
+            journal.logRentAll(new User("big", "큰 묶음", "Student", "1"), new ArrayList<>(names), rows, 0);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        check(rejected, "최대 크기를 넘는 레코드 거부");
+        journal.logAddUser(new User("u1", "사용자", "Student", "1"));
+        check(journal.sync(), "거부한 뒤에도 기록 가능");
+        journal.close();
+
+        // 복원할 때도 최대 크기를 넘는 길이는 손상으로 보고 멈춤
+        appendBytes(path, new byte[]{(byte) 0x7F, 0, 0, 0, 0, 0, 0, 0});
+        check(RentalJournal.validLength(new File(path)) < new File(path).length(), "최대 크기를 넘는 길이는 손상으로 판단");
+        UserDirectory users = new UserDirectory();
+        int applied = new RentalJournal(path).replay(users, new ItemCatalog(), new ArrayHistoryStore());
+        check(applied == 1 && users.contains("u1"), "최대 크기를 넘는 길이 앞의 레코드 복원: " + applied);
+    }
+
+    // --- 도우미 ---
+
+    private static String journalPath(File dir) {
+        if (!dir.mkdirs()) {
+            throw new IllegalStateException("테스트 디렉터리를 만들 수 없습니다: " + dir);
+        }
+        return new File(dir, "journal.log").getPath();
+    }
+
+    private static void writeUsers(String path, String... ids) {
+        RentalJournal journal = new RentalJournal(path);
+        for (String id : ids) {
+            journal.logAddUser(new User(id, id, "Student", "1"));
+        }
+        journal.close();
+    }
+
+    private static void appendBytes(String path, byte[] bytes) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.seek(file.length());
+            file.write(bytes);
+        }
+    }
+
+    private static void truncate(String path, long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.setLength(length);
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            failures++;
+            System.err.println("실패: " + description);
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (!file.delete()) {
+            System.err.println("임시 파일 삭제 중 오류 발생: " + file);
+        }
+    }
+}
@@ -17,7 +17,7 @@ public class RentalRecord implements Serializable {
     private final User user;                // 대여한 사용자
     private final String itemName;          // 대여한 물품의 이름
     private final LocalDateTime rentalTime; // 대여가 발생한 시간
-    private LocalDateTime returnTime;       // 반납이 발생한 시간 (반납 전까지는 null)
+    private volatile LocalDateTime returnTime; // 반납이 발생한 시간 (반납 전까지는 null, 다른 스레드에서도 바로 보이도록 volatile)
 
     /**
      * 새로운 대여 기록을 생성하는 생성자입니다.
@@ -32,12 +32,34 @@ public class RentalRecord implements Serializable {
         this.returnTime = null;                // 처음에는 반납 시간이 없으므로 null로 초기화
     }
 
+    /**
+     * 저장된 기록(저널 등)으로부터 대여 기록을 복원할 때 사용하는 생성자입니다.
+     * @param user 대여한 사용자 객체
+     * @param itemName 대여한 물품의 이름
+     * @param rentalTime 대여 시간
+     * @param returnTime 반납 시간 (대여 중이면 null)
+     */
+    public RentalRecord(User user, String itemName, LocalDateTime rentalTime, LocalDateTime returnTime) {
+        this.user = user;
+        this.itemName = itemName;
+        this.rentalTime = rentalTime;
+        this.returnTime = returnTime;
+    }
+
     /**
      * 이 대여 기록을 '반납 완료' 상태로 변경합니다.
      * 메소드가 호출되는 시점을 반납 시간으로 기록합니다.
      */
     public void markAsReturned() {
-        this.returnTime = LocalDateTime.now();
+        markAsReturned(LocalDateTime.now());
+    }
+
+    /**
+     * 지정한 시간을 반납 시간으로 기록합니다. (저널 복원 시 사용)
+     * @param returnTime 반납 시간
+     */
+    public void markAsReturned(LocalDateTime returnTime) {
+        this.returnTime = returnTime;
     }
 
     // --- Getter 메소드 ---
@@ -0,0 +1,55 @@
+// 파일 이름: RentalResult.java
+
+/**
+ * 대여/반납 처리 결과를 나타내는 결과 코드입니다. (RentalService.rentItem(), returnItem()의 반환 값)
+ * 결과는 상수 하나이므로 대여/반납할 때마다 메시지 문자열을 만들지 않습니다.
+ * 화면에 보여 줄 문구는 필요한 곳(로그 창, 명령 처리 결과 등)에서 message()로 그때 만듭니다.
+ */
+public enum RentalResult {
+    RENTED(true),        // 대여 성공
+    RETURNED(true),      // 반납 성공
+    OUT_OF_STOCK(false), // 재고가 없어 대여 실패
+    NOT_RENTED(false),   // 대여 중이 아니어서 반납 실패
+    UNKNOWN_ITEM(false), // 없는 물품
+    NOT_SAVED(false);    // 대여/반납은 반영되었지만 저널을 디스크에 기록하지 못함 (저널이 다시 기록을 시도함)
+
+    private final boolean success;
+
+    RentalResult(boolean success) {
+        this.success = success;
+    }
+
+    /**
+     * @return 대여/반납에 성공했으면 true
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * 결과를 화면에 표시할 문구로 바꿉니다. 예: "[대여 성공] 홍길동 -> 3단 우산"
+     * @param userName 대여/반납한 사용자 이름
+     * @param itemName 물품 이름
+     * @return 처리 결과 메시지
+     */
+    public String message(String userName, String itemName) {
+        switch (this) {
+            case RENTED: return "[대여 성공] " + userName + " -> " + itemName;
+            case RETURNED: return "[반납 성공] " + userName + " <- " + itemName;
+            case OUT_OF_STOCK: return "[대여 실패] " + itemName + " 재고가 없습니다.";
+            case NOT_RENTED: return "[반납 실패] " + userName + "님은 " + itemName + "을(를) 대여하지 않았습니다.";
+            case NOT_SAVED: return "[저장 실패] " + userName + " / " + itemName + " 처리 내용을 디스크에 기록하지 못했습니다. 관리자에게 문의하세요.";
+            default: return "물품을 찾을 수 없습니다: " + itemName;
+        }
+    }
+
+    /**
+     * 결과를 화면에 표시할 문구로 바꿉니다.
+     * @param user 대여/반납한 사용자
+     * @param item 물품
+     * @return 처리 결과 메시지
+     */
+    public String message(User user, Item item) {
+        return message(user.getName(), item.getName());
+    }
+}
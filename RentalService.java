@@ -1,24 +1,81 @@
 // 파일 이름: RentalService.java
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * 물품의 대여 및 반납과 관련된 핵심 비즈니스 로직을 처리하는 서비스 클래스입니다.
  * 이 클래스는 실제 데이터(Item, User)를 조작하고, 그 결과를 기록(RentalRecord)하며,
- * 처리 결과를 문자열 메시지로 반환하는 역할을 담당합니다.
+ * 처리 결과를 결과 코드(RentalResult)로 반환하는 역할을 담당합니다.
+ * 결과 메시지 문자열은 화면 등 필요한 곳에서 RentalResult.message()로 만들므로, 대여/반납 자체는 메시지를 만들지 않습니다.
+ *
+ * 여러 스레드에서 동시에 호출할 수 있습니다. 한 물품에 대한 대여/반납은 그 Item 객체의 잠금으로 직렬화되고,
+ * 서로 다른 물품에 대한 작업은 서로 다른 잠금을 사용하므로 병렬로 진행됩니다.
+ * 옵저버 알림과 이벤트 발행은 모든 잠금을 푼 뒤에 하므로, 옵저버가 느려도 다른 대여/반납을 막지 않습니다.
+ * 대여 기록은 HistoryStore에 행 단위로 추가되며, 반납 시에는 해당 행의 반납 시간만 기록합니다.
+ * 여러 물품을 한 번에 대여/반납하는 묶음 처리(rentItems(), returnItems())는 묶음의 물품 잠금을 모두 잡고 전부 처리하거나
+ * 하나도 처리하지 않습니다. 잠금은 항상 물품 번호 순서로 잡으므로 겹치는 묶음끼리도 교착 상태가 생기지 않습니다.
+ *
+ * 저널이 있으면 잠금을 모두 푼 뒤 저널 레코드가 디스크에 기록될 때까지 기다렸다가 결과를 반환합니다. (RentalJournal.awaitDurable())
+ * 기록에 실패하면 메모리의 변경은 그대로 두고(저널이 기록을 다시 시도함) NOT_SAVED를 반환합니다.
  */
 public class RentalService {
 
-    // 애플리케이션의 전체 대여/반납 기록을 저장하는 리스트
-    private final List<RentalRecord> rentalHistory;
+    // 한 번에 대여/반납할 수 있는 최대 물품 수 (묶음 하나를 저널 레코드 하나로 기록하므로 크기를 제한함)
+    public static final int MAX_BASKET_SIZE = 100;
+
+    // 묶음의 물품 잠금을 잡는 순서: 물품 번호 순, 번호가 같으면(목록에 추가되지 않은 물품) 이름 순
+    // 번호와 이름이 모두 같은 서로 다른 물품 객체는 순서가 정해지지 않으므로 한 묶음에 함께 넣을 수 없습니다. (Basket에서 거부)
+    private static final Comparator<Item> LOCK_ORDER = Comparator.comparingInt(Item::getId).thenComparing(Item::getName);
+
+    // 애플리케이션의 전체 대여/반납 기록을 저장하는 저장소
+    private final HistoryStore rentalHistory;
+    // 대여/반납 발생 시 한 건씩 기록하는 저널 (null이면 기록하지 않음)
+    private final RentalJournal journal;
+    // 대여 중인 기록을 (사용자 ID, 물품 이름)으로 바로 찾기 위한 인덱스
+    private final ActiveRentalIndex activeRentals;
+    // 사용자/물품/기간/상태별 대여 기록 조회용 보조 인덱스 (조회할 때 새 행을 반영하므로 대여/반납 중에는 건드리지 않음)
+    private final RentalHistoryQuery historyQuery;
+    // 대여/반납 이벤트를 비동기로 전달할 이벤트 버스 (null이면 발행하지 않음)
+    private final RentalEventBus eventBus;
+    // 상태 변경과 저널 기록을 체크포인트와 겹치지 않게 묶는 잠금 (여러 스레드가 동시에 잡을 수 있음)
+    private final Lock mutationLock;
+
+    /**
+     * RentalService 생성자 (저널 기록 없음)
+     * @param rentalHistory 대여 기록을 저장하고 공유하기 위한 HistoryStore 객체
+     */
+    public RentalService(HistoryStore rentalHistory) {
+        this(rentalHistory, null);
+    }
+
+    /**
+     * RentalService 생성자
+     * @param rentalHistory 대여 기록을 저장하고 공유하기 위한 HistoryStore 객체
+     * @param journal 대여/반납을 기록할 저널
+     */
+    public RentalService(HistoryStore rentalHistory, RentalJournal journal) {
+        this(rentalHistory, journal, null);
+    }
 
     /**
      * RentalService 생성자
-     * @param rentalHistory 대여 기록을 저장하고 공유하기 위한 List<RentalRecord> 객체
+     * @param rentalHistory 대여 기록을 저장하고 공유하기 위한 HistoryStore 객체
+     * @param journal 대여/반납을 기록할 저널
+     * @param eventBus 대여/반납 이벤트를 발행할 이벤트 버스
      */
-    public RentalService(List<RentalRecord> rentalHistory) {
+    public RentalService(HistoryStore rentalHistory, RentalJournal journal, RentalEventBus eventBus) {
         this.rentalHistory = rentalHistory;
+        this.journal = journal;
+        this.eventBus = eventBus;
+        this.mutationLock = (journal != null) ? journal.mutationLock() : new ReentrantReadWriteLock().readLock();
+        this.activeRentals = new ActiveRentalIndex(rentalHistory); // 불러온 기록으로부터 인덱스 재구성
+        this.historyQuery = new RentalHistoryQuery(rentalHistory);
     }
 
     /**
@@ -26,45 +83,311 @@ public class RentalService {
      * @param user 대여를 시도하는 사용자
      * @param item 대여할 물품
      * @param strategy 적용할 할인 정책 (현재 버전에서는 요금 계산이 없어 직접 사용되진 않음)
-     * @return 처리 결과에 대한 성공 또는 실패 메시지 문자열
+     * @return 처리 결과 (RENTED, OUT_OF_STOCK 또는 NOT_SAVED)
+     */
+    public RentalResult rentItem(User user, Item item, DiscountStrategy strategy) {
+        return rentItem(user, item, strategy, true);
+    }
+
+    /**
+     * rentItem()과 같지만, awaitSaved가 false면 저널 레코드가 디스크에 기록될 때까지 기다리지 않습니다.
+     * 여러 건을 연달아 처리한 뒤 awaitSaved()로 한 번에 확인하는 쪽(CommandProcessor.run())에서 사용합니다.
      */
-    public String rentItem(User user, Item item, DiscountStrategy strategy) {
-        // 1. Item 객체에 대여를 요청하고, 성공 여부를 반환받음 (재고 확인 포함)
-        if (item.rentTo(user)) {
-            // 2. 대여에 성공하면, 새로운 대여 기록(RentalRecord)을 생성하여 history에 추가
-            rentalHistory.add(new RentalRecord(user, item.getName()));
-            return String.format("[대여 성공] %s -> %s", user.getName(), item.getName());
-        } else {
-            // 3. 재고가 없어 대여에 실패하면, 실패 메시지를 반환
-            return "[대여 실패] " + item.getName() + " 재고가 없습니다.";
+    RentalResult rentItem(User user, Item item, DiscountStrategy strategy, boolean awaitSaved) {
+        int oldStock;
+        long seq = 0;
+        mutationLock.lock();
+        try {
+            synchronized (item) { // 물품 단위 잠금: 재고 변경, 기록 추가, 인덱스 갱신을 한 번에 처리
+                oldStock = item.getCurrentStock();
+                // 1. Item 객체에 대여를 요청하고, 성공 여부를 반환받음 (재고 확인 포함, 옵저버 알림은 잠금을 푼 뒤에)
+                if (!item.rentWithoutNotify(user, 1)) {
+                    // 재고가 없어 대여에 실패하면, 실패 결과를 반환
+                    return RentalResult.OUT_OF_STOCK;
+                }
+                // 2. 대여에 성공하면, 새로운 대여 기록을 저장소에 추가
+                long rentalTime = HistoryStore.now();
+                int row = rentalHistory.append(user, item.getName(), rentalTime);
+                activeRentals.add(user.getId(), item.getName(), row);
+                if (journal != null) {
+                    seq = journal.logRent(user, item.getName(), row, rentalTime);
+                }
+            }
+        } finally {
+            mutationLock.unlock();
         }
+        // 3. 잠금을 푼 뒤 옵저버 알림과 이벤트 발행 (화면 갱신이나 가득 찬 구독자 큐를 기다리더라도 다른 대여를 막지 않음)
+        item.notifyObservers();
+        publish(RentalEvent.Type.RENTED, item, user, oldStock, oldStock - 1);
+        // 4. 저널 레코드가 디스크에 기록될 때까지 기다림 (기다리는 동안 다른 대여는 같은 fsync에 함께 기록됨)
+        return saved(seq, awaitSaved) ? RentalResult.RENTED : RentalResult.NOT_SAVED;
     }
 
     /**
      * 특정 사용자가 물품을 반납하는 로직을 처리합니다.
      * @param user 반납을 시도하는 사용자
      * @param item 반납할 물품
-     * @return 처리 결과에 대한 성공 또는 실패 메시지 문자열
+     * @return 처리 결과 (RETURNED, NOT_RENTED 또는 NOT_SAVED)
+     */
+    public RentalResult returnItem(User user, Item item) {
+        return returnItem(user, item, true);
+    }
+
+    /**
+     * returnItem()과 같지만, awaitSaved가 false면 저널 레코드가 디스크에 기록될 때까지 기다리지 않습니다.
      */
-    public String returnItem(User user, Item item) {
-        // 1. rentalHistory에서 '해당 사용자'가 '해당 물품'을 빌리고 '아직 반납하지 않은' 기록을 찾음
-        Optional<RentalRecord> activeRecord = rentalHistory.stream()
-                .filter(r -> r.getUser().equals(user) &&
-                             r.getItemName().equals(item.getName()) &&
-                             r.getReturnTime() == null) // 반납 시간이 null인 기록 = 대여 중인 기록
-                .findFirst();
-
-        // 2. 대여 중인 기록이 존재하는 경우
-        if (activeRecord.isPresent()) {
-            // 3. Item 객체에 반납 처리를 요청
-            if (item.returnBy(user)) {
-                // 4. 반납에 성공하면, 찾아둔 대여 기록(activeRecord)에 반납 시간을 기록
-                activeRecord.get().markAsReturned();
-                return String.format("[반납 성공] %s <- %s", user.getName(), item.getName());
+    RentalResult returnItem(User user, Item item, boolean awaitSaved) {
+        int oldStock;
+        long seq = 0;
+        boolean returned = false;
+        mutationLock.lock();
+        try {
+            synchronized (item) { // 물품 단위 잠금
+                oldStock = item.getCurrentStock();
+                // 1. 인덱스에서 '해당 사용자'가 '해당 물품'을 빌리고 '아직 반납하지 않은' 기록을 찾음 (O(1))
+                int activeRow = activeRentals.find(user.getId(), item.getName());
+
+                // 2. 대여 중인 기록이 존재하는 경우
+                if (activeRow >= 0) {
+                    // 3. Item 객체에 반납 처리를 요청 (옵저버 알림은 잠금을 푼 뒤에)
+                    if (item.returnWithoutNotify(user, 1)) {
+                        // 4. 반납에 성공하면, 찾아둔 대여 기록(activeRow)에 반납 시간을 기록하고 인덱스에서 제거
+                        long returnTime = HistoryStore.now();
+                        rentalHistory.markReturned(activeRow, returnTime);
+                        activeRentals.remove(user.getId(), item.getName());
+                        if (journal != null) {
+                            seq = journal.logReturn(user, item.getName(), activeRow, returnTime);
+                        }
+                        returned = true;
+                    }
+                }
             }
+        } finally {
+            mutationLock.unlock();
+        }
+
+        if (returned) {
+            item.notifyObservers();
+            publish(RentalEvent.Type.RETURNED, item, user, oldStock, oldStock + 1);
+            return saved(seq, awaitSaved) ? RentalResult.RETURNED : RentalResult.NOT_SAVED;
+        }
+        // 5. 대여 기록이 없거나, 기타 이유로 반납에 실패한 경우 실패 결과를 반환
+        return RentalResult.NOT_RENTED;
+    }
+
+    /**
+     * 여러 물품을 한 번에 대여합니다. 묶음 전체를 대여하거나, 하나라도 재고가 모자라면 아무것도 대여하지 않습니다.
+     * 대여 기록은 한 번에 추가하고(HistoryStore.appendAll()) 저널에도 레코드 하나로 남깁니다.
+     * 묶음 전체가 반영된 뒤 옵저버마다 한 번(Observer.updateAll()) 알리고, 이벤트 버스에는 물품마다 이벤트 하나를 발행합니다.
+     * (같은 물품을 여러 개 빌려도 이벤트는 하나이며, 재고 변화량에 수량이 반영됨)
+     * @param user 대여를 시도하는 사용자
+     * @param basket 대여할 물품 목록 (같은 물품을 여러 번 넣으면 그 수만큼 대여)
+     * @param strategy 적용할 할인 정책 (현재 버전에서는 요금 계산이 없어 직접 사용되진 않음)
+     * @return 처리 결과 (RENTED, OUT_OF_STOCK과 재고가 모자란 물품, 또는 NOT_SAVED)
+     * @throws IllegalArgumentException 묶음의 물품이 MAX_BASKET_SIZE개보다 많거나, 번호와 이름이 같은 서로 다른 물품 객체가 있는 경우
+     */
+    public CheckoutResult rentItems(User user, List<Item> basket, DiscountStrategy strategy) {
+        if (basket.isEmpty()) {
+            return new CheckoutResult(RentalResult.RENTED, basket, null); // 처리할 것이 없음
+        }
+        Basket locked = new Basket(basket);
+        Item failed;
+        mutationLock.lock();
+        try {
+            failed = locked.runLocked(0, () -> {
+                // 1. 모든 물품의 재고를 먼저 확인 (하나라도 모자라면 아무것도 바꾸지 않음)
+                for (int i = 0; i < locked.items.length; i++) {
+                    if (locked.items[i].getCurrentStock() < locked.counts[i]) {
+                        return locked.items[i];
+                    }
+                }
+                // 2. 재고 변경 (알림은 잠금을 푼 뒤에 한 번씩)
+                for (int i = 0; i < locked.items.length; i++) {
+                    locked.oldStocks[i] = locked.items[i].getCurrentStock();
+                    locked.items[i].rentWithoutNotify(user, locked.counts[i]);
+                }
+                // 3. 대여 기록을 한 번에 추가하고 인덱스 갱신, 저널에는 레코드 하나로 기록
+                long rentalTime = HistoryStore.now();
+                int[] rows = rentalHistory.appendAll(user, locked.names, rentalTime);
+                for (int i = 0; i < rows.length; i++) {
+                    activeRentals.add(user.getId(), locked.names.get(i), rows[i]);
+                }
+                if (journal != null) {
+                    locked.seq = journal.logRentAll(user, locked.names, rows, rentalTime);
+                }
+                return null;
+            });
+        } finally {
+            mutationLock.unlock();
+        }
+        if (failed != null) {
+            return new CheckoutResult(RentalResult.OUT_OF_STOCK, basket, failed);
+        }
+        locked.notifyChanged(RentalEvent.Type.RENTED, user);
+        return new CheckoutResult(saved(locked.seq, true) ? RentalResult.RENTED : RentalResult.NOT_SAVED, basket, null);
+    }
+
+    /**
+     * 여러 물품을 한 번에 반납합니다. 묶음 전체를 반납하거나, 하나라도 대여 중이 아니면 아무것도 반납하지 않습니다.
+     * 반납 시간은 한 번에 기록하고(HistoryStore.markReturnedAll()) 저널에도 레코드 하나로 남깁니다.
+     * @param user 반납을 시도하는 사용자
+     * @param basket 반납할 물품 목록 (같은 물품을 여러 번 넣으면 그 수만큼 반납)
+     * @return 처리 결과 (RETURNED, NOT_RENTED와 대여 중이 아닌 물품, 또는 NOT_SAVED)
+     * @throws IllegalArgumentException 묶음의 물품이 MAX_BASKET_SIZE개보다 많거나, 번호와 이름이 같은 서로 다른 물품 객체가 있는 경우
+     */
+    public CheckoutResult returnItems(User user, List<Item> basket) {
+        if (basket.isEmpty()) {
+            return new CheckoutResult(RentalResult.RETURNED, basket, null); // 처리할 것이 없음
+        }
+        Basket locked = new Basket(basket);
+        Item failed;
+        mutationLock.lock();
+        try {
+            failed = locked.runLocked(0, () -> {
+                // 1. 모든 물품을 요청한 수만큼 대여 중인지 먼저 확인
+                for (int i = 0; i < locked.items.length; i++) {
+                    Item item = locked.items[i];
+                    if (activeRentals.count(user.getId(), item.getName()) < locked.counts[i]
+                            || item.getRentedCountBy(user.getId()) < locked.counts[i]) {
+                        return item;
+                    }
+                }
+                // 2. 물품마다 가장 오래된 대여 기록부터 꺼내고 재고 변경
+                int[] rows = new int[locked.names.size()];
+                int next = 0;
+                for (int i = 0; i < locked.items.length; i++) {
+                    Item item = locked.items[i];
+                    locked.oldStocks[i] = item.getCurrentStock();
+                    for (int c = 0; c < locked.counts[i]; c++) {
+                        rows[next++] = activeRentals.find(user.getId(), item.getName());
+                        activeRentals.remove(user.getId(), item.getName());
+                    }
+                    item.returnWithoutNotify(user, locked.counts[i]);
+                }
+                // 3. 반납 시간을 한 번에 기록하고 저널에는 레코드 하나로 기록
+                long returnTime = HistoryStore.now();
+                rentalHistory.markReturnedAll(rows, returnTime);
+                if (journal != null) {
+                    locked.seq = journal.logReturnAll(user, locked.names, rows, returnTime);
+                }
+                return null;
+            });
+        } finally {
+            mutationLock.unlock();
         }
-        
-        // 5. 대여 기록이 없거나, 기타 이유로 반납에 실패한 경우 실패 메시지를 반환
-        return String.format("[반납 실패] %s님은 %s을(를) 대여하지 않았습니다.", user.getName(), item.getName());
+        if (failed != null) {
+            return new CheckoutResult(RentalResult.NOT_RENTED, basket, failed);
+        }
+        locked.notifyChanged(RentalEvent.Type.RETURNED, user);
+        return new CheckoutResult(saved(locked.seq, true) ? RentalResult.RETURNED : RentalResult.NOT_SAVED, basket, null);
+    }
+
+    /**
+     * 묶음 처리용으로 정리한 물품 목록. 같은 물품은 하나로 합쳐 수량을 세고, 잠금 순서(LOCK_ORDER)로 정렬합니다.
+     */
+    private class Basket {
+        final Item[] items;          // 서로 다른 물품 (잠금 순서)
+        final int[] counts;          // 물품별 수량
+        final int[] oldStocks;       // 변경 전 재고 (이벤트 발행용)
+        final List<String> names;    // 물품 한 개당 이름 하나 (items 순서, 대여 기록의 행 순서)
+        long seq;                    // 묶음을 기록한 저널 레코드 번호
+
+        Basket(List<Item> basket) {
+            if (basket.size() > MAX_BASKET_SIZE) {
+                throw new IllegalArgumentException("한 번에 처리할 수 있는 물품은 최대 " + MAX_BASKET_SIZE + "개입니다: " + basket.size());
+            }
+            Item[] sorted = basket.toArray(new Item[0]);
+            Arrays.sort(sorted, LOCK_ORDER);
+            Item[] distinct = new Item[sorted.length];
+            int[] quantity = new int[sorted.length];
+            int size = 0;
+            for (Item item : sorted) {
+                if (size > 0 && distinct[size - 1] == item) {
+                    quantity[size - 1]++;
+                } else if (size > 0 && LOCK_ORDER.compare(distinct[size - 1], item) == 0) {
+                    // 잠금 순서가 같은 두 객체를 스레드마다 다른 순서로 잠그면 교착 상태가 생길 수 있음
+                    throw new IllegalArgumentException("번호와 이름이 같은 서로 다른 물품을 한 묶음에 넣을 수 없습니다: " + item.getName());
+                } else {
+                    distinct[size] = item;
+                    quantity[size++] = 1;
+                }
+            }
+            this.items = Arrays.copyOf(distinct, size);
+            this.counts = Arrays.copyOf(quantity, size);
+            this.oldStocks = new int[size];
+            this.names = new ArrayList<>(sorted.length);
+            for (int i = 0; i < size; i++) {
+                for (int c = 0; c < counts[i]; c++) {
+                    names.add(items[i].getName());
+                }
+            }
+        }
+
+        /**
+         * index번째 물품부터 차례로 잠금을 잡은 뒤 작업을 실행합니다. (잠금은 역순으로 풀림)
+         * @return 작업의 결과 (실패한 물품, 성공이면 null)
+         */
+        Item runLocked(int index, Supplier<Item> action) {
+            if (index == items.length) {
+                return action.get();
+            }
+            synchronized (items[index]) {
+                return runLocked(index + 1, action);
+            }
+        }
+
+        /**
+         * 잠금을 푼 뒤 옵저버에게 묶음 전체를 한 번에 알리고(Item.notifyObservers(List)), 이벤트는 물품마다 하나씩 발행합니다.
+         */
+        void notifyChanged(RentalEvent.Type type, User user) {
+            Item.notifyObservers(Arrays.asList(items));
+            for (int i = 0; i < items.length; i++) {
+                int delta = (type == RentalEvent.Type.RENTED) ? -counts[i] : counts[i];
+                publish(type, items[i], user, oldStocks[i], oldStocks[i] + delta);
+            }
+        }
+    }
+
+    /**
+     * 저널 레코드가 디스크에 기록되었는지 확인합니다. await가 false이거나 저널이 없으면 바로 true를 반환합니다.
+     * 잠금을 모두 푼 뒤에 호출합니다.
+     */
+    private boolean saved(long seq, boolean await) {
+        return !await || journal == null || journal.awaitDurable(seq);
+    }
+
+    /**
+     * 지금까지 이 서비스(와 같은 저널)로 처리한 변경이 모두 디스크에 기록될 때까지 기다립니다.
+     * 기다리지 않고 처리한 대여/반납(awaitSaved가 false)을 한꺼번에 확인할 때 사용합니다.
+     * @return 모두 기록되었으면(또는 저널이 없으면) true
+     */
+    public boolean awaitSaved() {
+        return journal == null || journal.sync();
+    }
+
+    /**
+     * 대여/반납 이벤트를 이벤트 버스에 발행합니다. 버스가 없으면 아무것도 하지 않습니다.
+     */
+    private void publish(RentalEvent.Type type, Item item, User user, int oldStock, int newStock) {
+        if (eventBus != null) {
+            eventBus.publish(new RentalEvent(type, item, user.getId(), oldStock, newStock));
+        }
+    }
+
+    /**
+     * 대여 기록을 사용자, 물품, 기간, 대여 상태로 조회하는 질의 객체를 반환합니다.
+     * 대여/반납한 내용은 그 뒤의 조회에 반영됩니다. (인덱스는 조회할 때 저장소에서 새 행과 반납 여부를 읽음)
+     * @return 대여 기록 질의 객체
+     */
+    public RentalHistoryQuery getHistoryQuery() {
+        return historyQuery;
+    }
+
+    /**
+     * 이 서비스가 대여/반납 이벤트를 발행하는 이벤트 버스를 반환합니다.
+     * @return 이벤트 버스 (설정되지 않았으면 null)
+     */
+    public RentalEventBus getEventBus() {
+        return eventBus;
     }
 }
\ No newline at end of file
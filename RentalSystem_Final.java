@@ -1,20 +1,51 @@
 // 파일 이름: RentalSystem_Final.java
 
 import javax.swing.*;
-import java.util.List;
+import java.awt.Frame;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 물품 대여 시스템 애플리케이션을 시작하는 메인 클래스입니다.
  * 프로그램의 진입점(main method) 역할을 하며, 초기 데이터 로딩,
  * 로그인 창 표시, 그리고 메인 애플리케이션 창을 실행하는 전체적인 흐름을 관리합니다.
+ *
+ * 시작 과정은 단계별로 나뉘어 있습니다. 로그인에 필요한 사용자 데이터만 먼저 불러와 로그인 창을 바로 띄우고,
+ * 물품과 대여 기록은 로그인하는 동안 백그라운드에서 불러옵니다. 각 단계에 걸린 시간은 메인 화면이 뜬 뒤 StartupTimer가 한 줄로 출력합니다.
  */
 public class RentalSystem_Final {
 
     /**
      * 애플리케이션의 시작점(Entry Point)입니다.
-     * @param args 커맨드 라인 인자 (사용되지 않음)
+     * @param args 커맨드 라인 인자. "--headless [명령 파일]"이면 화면 없이 JSONL 명령을 실행 (파일이 없거나 "-"면 표준 입력),
+     *             "--server [포트]"이면 화면 없이 HTTP API 서버를 실행 (기본 포트 8080),
+     *             "--kiosk-server [포트]"이면 화면 없이 키오스크 이진 프로토콜 서버를 실행 (기본 포트 9090),
+     *             "--kiosk 호스트:포트"이면 로컬 데이터 대신 키오스크 서버에 접속하는 화면을 실행
      */
     public static void main(String[] args) {
+        if (args.length > 0 && "--headless".equals(args[0])) {
+            runHeadless(args.length > 1 ? args[1] : "-");
+            return;
+        }
+        if (args.length > 0 && "--server".equals(args[0])) {
+            runServer(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+            return;
+        }
+        if (args.length > 0 && "--kiosk-server".equals(args[0])) {
+            runKioskServer(args.length > 1 ? Integer.parseInt(args[1]) : 9090);
+            return;
+        }
+        if (args.length > 1 && "--kiosk".equals(args[0])) {
+            runKioskClient(args[1]);
+            return;
+        }
+
         // --- 1. UI 룩앤필(Look and Feel) 설정 ---
         // 프로그램의 GUI가 실행되는 운영체제(Windows, macOS 등)의 기본 스타일과 유사하게 보이도록 설정합니다.
         try {
@@ -24,22 +55,259 @@ public class RentalSystem_Final {
         }
 
         // --- 2. 핵심 객체 초기화 및 데이터 로딩 ---
+        // 각 시작 단계에 걸린 시간을 측정하여 출력합니다.
+        StartupTimer timer = new StartupTimer();
         DataManager dataManager = new DataManager();
 
-        // 파일로부터 사용자, 물품, 대여 기록 데이터를 불러옵니다.
-        List<User> users = dataManager.loadUsers();
-        List<Item> items = dataManager.loadItems();
-        List<RentalRecord> rentalHistory = dataManager.loadHistory();
+        // 로그인에는 사용자 목록만 필요하므로 사용자 데이터를 먼저 불러오고,
+        // 저널에 남아 있는 사용자 추가/삭제까지 반영하여 바로 로그인 창을 띄울 수 있게 합니다.
+        UserDirectory users = timer.time("사용자 로딩", dataManager::loadUsers);
+        seedDefaultUsers(users);
+        Map<String, User> journalUsers = timer.time("사용자 저널 복원", () -> dataManager.replayUserJournal(users));
+
+        // --- 3. 물품/대여 기록 백그라운드 로딩 ---
+        // 물품과 대여 기록은 로그인 창이 떠 있는 동안 백그라운드 스레드에서 동시에 불러옵니다.
+        // 로그인하지 않고 종료해도 불러오기를 끝낸 뒤 파일을 닫을 수 있도록 데몬이 아닌 스레드로 실행 (끝나면 바로 종료됨)
+        ExecutorService loader = Executors.newFixedThreadPool(2, r -> new Thread(r, "startup-loader"));
+        CompletableFuture<ItemCatalog> itemsFuture = CompletableFuture.supplyAsync(() -> {
+            ItemCatalog items = timer.time("물품 로딩", dataManager::loadItems);
+            seedDefaultItems(items);
+            return items;
+        }, loader);
+        CompletableFuture<HistoryStore> historyFuture = CompletableFuture.supplyAsync(
+                () -> timer.time("대여 기록 열기", dataManager::openHistory), loader);
+
+        // 둘 다 준비되면, 마지막 저장(스냅샷) 이후 저널에 남아 있는 대여/반납 및 물품 변경 사항을 다시 적용합니다.
+        // 기본 물품을 참조하는 기록이 있을 수 있으므로 초기 데이터 생성 후에 수행합니다.
+        CompletableFuture<Void> dataReady = itemsFuture.thenAcceptBoth(historyFuture, (items, rentalHistory) ->
+                timer.run("저널 복원", () -> dataManager.replayJournal(journalUsers, items, rentalHistory)));
+        dataReady.whenComplete((result, error) -> {
+            loader.shutdown();
+            timer.mark("데이터 준비 완료");
+        });
+        // 한쪽이 실패해도 다른 쪽 불러오기는 계속될 수 있으므로, 파일을 닫을 때는 모두 끝나기를 기다림
+        CompletableFuture<Void> loadersDone = CompletableFuture.allOf(itemsFuture, historyFuture, dataReady);
+
+        // --- 4. 로그인 절차 진행 ---
+        // 대여/반납 이벤트를 비동기로 전달할 이벤트 버스 (구독자별 큐 256개, 가득 차면 해당 구독자에게는 버림)
+        RentalEventBus eventBus = new RentalEventBus(256, RentalEventBus.OverflowPolicy.DROP);
+
+        // 로그인 다이얼로그를 생성하고 화면에 표시. 사용자가 로그인하거나 창을 닫을 때까지 여기서 대기.
+        // (백그라운드 로딩 진행 상태가 다이얼로그 하단에 표시됨)
+        LoginDialog loginDialogInstance = new LoginDialog(null, users, dataReady);
+        timer.mark("로그인 창 표시");
+        loginDialogInstance.setVisible(true);
+
+        // 로그인 다이얼로그가 닫힌 후, 로그인 결과를 가져옴
+        User loggedInUser = loginDialogInstance.getLoggedInUser();
+
+        // --- 5. 로그인 결과에 따른 분기 처리 ---
+        if (loggedInUser == null) {
+            // 로그인에 실패하거나 사용자가 '종료'를 선택했다면, 불러오기를 기다리지 않고 바로 창 없이 끝냄
+            // (백그라운드 불러오기가 진행 중이면 그 스레드가 끝난 뒤 파일을 닫음)
+            System.out.println("로그인하지 않거나 종료를 선택하여 프로그램을 종료합니다.");
+            eventBus.close();
+            loadersDone.whenComplete((result, error) -> dataManager.close());
+            return;
+        }
+
+        // 메인 프레임을 만들기 직전에만 백그라운드 로딩이 끝나기를 기다립니다. (대부분 로그인하는 동안 이미 끝나 있음)
+        ItemCatalog items;
+        HistoryStore rentalHistory;
+        try {
+            awaitLoading(dataReady);
+            items = itemsFuture.join();
+            rentalHistory = historyFuture.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            System.err.println("데이터 불러오기 중 오류 발생: " + cause);
+            JOptionPane.showMessageDialog(null, "데이터를 불러오지 못해 프로그램을 종료합니다.\n" + cause.getMessage(),
+                    "시작 오류", JOptionPane.ERROR_MESSAGE);
+            eventBus.close();
+            loadersDone.whenComplete((result, error) -> dataManager.close());
+            return;
+        }
+
+        // 대여/반납 로직을 처리할 서비스 객체 생성 (대여/반납은 저널에 한 건씩 기록되고 이벤트로 발행됨)
+        RentalService rentalService = new RentalService(rentalHistory, dataManager.getJournal(), eventBus);
+        // 변경 사항이 쌓이면 백그라운드에서 스냅샷을 저장하는 체크포인트 서비스 시작
+        dataManager.startCheckpoints(users, items, rentalHistory);
 
-        // --- 3. 초기 데이터 생성 (프로그램 최초 실행 시) ---
-        // 만약 저장된 사용자 데이터가 없다면, 기본 관리자/학생/교직원 계정을 생성합니다.
+        // Swing GUI는 이벤트 디스패치 스레드(EDT)에서 실행하는 것이 안전하므로,
+        // SwingUtilities.invokeLater을 사용하여 메인 프레임을 실행합니다.
+        SwingUtilities.invokeLater(() -> {
+            MainAppFrame mainFrame = new MainAppFrame(dataManager, rentalService, loggedInUser, users, items, rentalHistory);
+            mainFrame.setVisible(true); // 메인 애플리케이션 창을 화면에 표시
+            timer.mark("메인 화면 표시");
+            System.out.println(timer.getSummary());
+        });
+    }
+
+    /**
+     * 화면 없이 JSONL 명령을 실행합니다. 결과는 표준 출력에 JSONL로, 처리량/지연 시간 요약은 표준 오류에 출력합니다.
+     * 데이터는 GUI 실행과 같은 파일과 저널을 사용하므로, 실행 결과가 다음 GUI 실행에도 그대로 반영됩니다.
+     * @param commandFile 명령 파일 경로 ("-"면 표준 입력)
+     */
+    private static void runHeadless(String commandFile) {
+        // 표준 출력은 결과 전용으로 쓰고, 데이터 로딩/저장 안내 등 다른 출력은 표준 오류로 보냄
+        PrintStream results = System.out;
+        System.setOut(System.err);
+
+        DataManager dataManager = new DataManager();
+        HeadlessData data = loadHeadless(dataManager);
+        CommandProcessor processor = new CommandProcessor(data.rentalService, data.users, data.items, dataManager.getJournal());
+
+        InputStream source = System.in;
+        try {
+            if (!"-".equals(commandFile)) {
+                source = new FileInputStream(commandFile);
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8), 1 << 16);
+            Writer out = new BufferedWriter(new OutputStreamWriter(results, StandardCharsets.UTF_8), 1 << 16);
+            CommandProcessor.Stats stats = processor.run(in, out);
+            System.err.println(stats.summary());
+        } catch (IOException e) {
+            System.err.println("명령 처리 중 오류 발생: " + e.getMessage());
+        } finally {
+            if (source != System.in) {
+                try {
+                    source.close();
+                } catch (IOException e) {
+                    System.err.println("명령 파일 닫기 중 오류 발생: " + e.getMessage());
+                }
+            }
+            dataManager.close(); // 처리한 명령은 저널에 기록되어 있으므로 남은 기록만 디스크에 씀
+        }
+    }
+
+    /**
+     * 화면 없이 HTTP API 서버를 실행합니다. (키오스크, 모바일 앱용. API는 RentalHttpServer 참고)
+     * 프로세스가 종료 신호(Ctrl+C 등)를 받으면 서버를 멈추고 저널을 닫습니다.
+     * @param port 포트 번호
+     */
+    private static void runServer(int port) {
+        DataManager dataManager = new DataManager();
+        HeadlessData data = loadHeadless(dataManager);
+        RentalHttpServer server;
+        try {
+            server = new RentalHttpServer(port, data.rentalService, data.users, data.items, dataManager.getJournal());
+        } catch (IOException e) {
+            System.err.println("HTTP 서버 시작 중 오류 발생: " + e.getMessage());
+            dataManager.close();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            dataManager.close(); // 처리한 요청은 저널에 기록되어 있으므로 남은 기록만 디스크에 씀
+        }, "http-shutdown"));
+        System.out.println("HTTP 서버가 시작되었습니다: http://localhost:" + server.getPort() + "/api/items");
+    }
+
+    /**
+     * 화면 없이 키오스크 이진 프로토콜 서버를 실행합니다. (API는 KioskProtocol 참고)
+     * 프로세스가 종료 신호(Ctrl+C 등)를 받으면 서버를 멈추고 저널을 닫습니다.
+     * @param port 포트 번호
+     */
+    private static void runKioskServer(int port) {
+        DataManager dataManager = new DataManager();
+        HeadlessData data = loadHeadless(dataManager);
+        KioskServer server = new KioskServer(data.rentalService, data.users, data.items);
+        try {
+            server.start(port);
+        } catch (IOException e) {
+            System.err.println("키오스크 서버 시작 중 오류 발생: " + e.getMessage());
+            server.close();
+            dataManager.close();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            dataManager.close();
+        }, "kiosk-shutdown"));
+        System.out.println("키오스크 서버가 시작되었습니다: 포트 " + server.getPort());
+    }
+
+    /**
+     * 키오스크 서버에 접속하여 로그인 창과 메인 화면을 띄웁니다. 물품과 재고는 서버에서 받아 표시합니다.
+     * @param address "호스트:포트" 형식의 서버 주소
+     */
+    private static void runKioskClient(String address) {
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        int colon = address.lastIndexOf(':');
+        KioskClient client;
+        try {
+            client = new KioskClient(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("키오스크 서버 접속 중 오류 발생: " + e.getMessage());
+            JOptionPane.showMessageDialog(null, "키오스크 서버(" + address + ")에 접속할 수 없습니다.", "접속 실패", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        LoginDialog loginDialogInstance = new LoginDialog(null, client::login);
+        loginDialogInstance.setVisible(true);
+        User loggedInUser = loginDialogInstance.getLoggedInUser();
+        if (loggedInUser == null) {
+            System.out.println("로그인하지 않거나 종료를 선택하여 프로그램을 종료합니다.");
+            client.close();
+            return;
+        }
+        try {
+            client.subscribe(); // 물품 목록을 받아 온 뒤 화면을 만듦
+        } catch (IOException e) {
+            System.err.println("키오스크 물품 목록 수신 중 오류 발생: " + e.getMessage());
+            client.close();
+            return;
+        }
+        SwingUtilities.invokeLater(() -> new MainAppFrame(client, loggedInUser).setVisible(true));
+    }
+
+    /**
+     * 화면 없이 실행할 때 필요한 데이터 (로그인 창 없이 한 번에 불러옴)
+     */
+    private static class HeadlessData {
+        UserDirectory users;
+        ItemCatalog items;
+        RentalService rentalService;
+    }
+
+    /**
+     * 사용자, 물품, 대여 기록을 불러오고 저널을 복원한 뒤 체크포인트를 시작합니다. (headless/server 모드용)
+     * 데이터는 GUI 실행과 같은 파일과 저널을 사용하므로, 실행 결과가 다음 GUI 실행에도 그대로 반영됩니다.
+     */
+    private static HeadlessData loadHeadless(DataManager dataManager) {
+        HeadlessData data = new HeadlessData();
+        data.users = dataManager.loadUsers();
+        seedDefaultUsers(data.users);
+        Map<String, User> journalUsers = dataManager.replayUserJournal(data.users);
+        data.items = dataManager.loadItems();
+        seedDefaultItems(data.items);
+        HistoryStore rentalHistory = dataManager.openHistory();
+        dataManager.replayJournal(journalUsers, data.items, rentalHistory);
+
+        data.rentalService = new RentalService(rentalHistory, dataManager.getJournal());
+        dataManager.startCheckpoints(data.users, data.items, rentalHistory);
+        return data;
+    }
+
+    /**
+     * 기본 관리자/학생/교직원 계정을 생성합니다. (저장된 사용자 데이터가 없을 때, 즉 프로그램 최초 실행 시)
+     */
+    private static void seedDefaultUsers(UserDirectory users) {
         if (users.isEmpty()) {
             users.add(new User("admin", "관리자", "Admin", "admin123"));
             users.add(new User("student1", "김민준", "Student", "1234"));
             users.add(new User("staff1", "박선우", "Staff", "abcd"));
         }
+    }
 
-        // 만약 저장된 물품 데이터가 없다면, 기본 대여 물품들을 생성합니다.
+    /**
+     * 기본 대여 물품들을 생성합니다. (저장된 물품 데이터가 없을 때, 즉 프로그램 최초 실행 시)
+     */
+    private static void seedDefaultItems(ItemCatalog items) {
         if (items.isEmpty()) {
             items.add(new Item("3단 우산", 10, 1000.0));
             items.add(new Item("축구공", 5, 2000.0));
@@ -47,31 +315,30 @@ public class RentalSystem_Final {
             items.add(new Item("C타입 충전기", 20, 500.0));
             items.add(new Item("8핀 충전기", 20, 500.0));
         }
+    }
 
-        // --- 4. 로그인 절차 진행 ---
-        // 대여/반납 로직을 처리할 서비스 객체 생성
-        RentalService rentalService = new RentalService(rentalHistory);
-
-        // 로그인 다이얼로그를 생성하고 화면에 표시. 사용자가 로그인하거나 창을 닫을 때까지 여기서 대기.
-        LoginDialog loginDialogInstance = new LoginDialog(null, users);
-        loginDialogInstance.setVisible(true);
-
-        // 로그인 다이얼로그가 닫힌 후, 로그인 결과를 가져옴
-        User loggedInUser = loginDialogInstance.getLoggedInUser();
+    /**
+     * 백그라운드 로딩이 끝날 때까지 기다립니다. 아직 끝나지 않았다면 진행 표시 창을 띄웁니다.
+     */
+    private static void awaitLoading(CompletableFuture<?> loading) {
+        if (loading.isDone()) {
+            loading.join();
+            return;
+        }
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("데이터를 불러오는 중입니다...");
 
-        // --- 5. 로그인 결과에 따른 분기 처리 ---
-        // 로그인에 성공했다면 (loggedInUser 객체가 null이 아니라면)
-        if (loggedInUser != null) {
-            // Swing GUI는 이벤트 디스패치 스레드(EDT)에서 실행하는 것이 안전하므로,
-            // SwingUtilities.invokeLater을 사용하여 메인 프레임을 실행합니다.
-            SwingUtilities.invokeLater(() -> {
-                MainAppFrame mainFrame = new MainAppFrame(dataManager, rentalService, loggedInUser, users, items, rentalHistory);
-                mainFrame.setVisible(true); // 메인 애플리케이션 창을 화면에 표시
-            });
-        } else {
-            // 로그인에 실패하거나 사용자가 '종료'를 선택했다면
-            System.out.println("로그인하지 않거나 종료를 선택하여 프로그램을 종료합니다.");
-            // 별도의 동작 없이 main 메소드가 종료되면서 프로그램이 끝남.
+        JDialog waitDialog = new JDialog((Frame) null, "물품 대여 시스템", false);
+        waitDialog.add(progressBar);
+        waitDialog.setSize(300, 70);
+        waitDialog.setLocationRelativeTo(null);
+        waitDialog.setVisible(true);
+        try {
+            loading.join();
+        } finally {
+            waitDialog.dispose();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+// 파일 이름: StartupTimer.java
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 프로그램 시작 과정의 각 단계에 걸린 시간을 측정하고 보고하는 클래스입니다.
+ * 여러 로딩 스레드에서 동시에 단계를 기록할 수 있으며, 기록한 시간은 getSummary()로 한 줄에 모아 보고합니다.
+ * 단계가 끝날 때마다 출력하려면 -Drental.startup.verbose=true로 실행합니다. (시작 과정을 조사할 때)
+ * 모든 시간은 이 객체가 생성된 시점(프로그램 시작)을 기준으로 합니다.
+ */
+public class StartupTimer {
+
+    private static final String VERBOSE_PROPERTY = "rental.startup.verbose"; // 단계마다 출력할지 여부 (시스템 속성)
+
+    private final long startNanos = System.nanoTime();
+    // 단계 이름 → 걸린 시간(ms). 기록된 순서대로 보고하기 위해 LinkedHashMap 사용 (this 잠금으로 보호)
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final boolean verbose = Boolean.getBoolean(VERBOSE_PROPERTY);
+
+    /**
+     * 작업 하나를 실행하고 걸린 시간을 단계 이름으로 기록합니다.
+     * @param phase 단계 이름
+     * @param task 실행할 작업
+     * @return 작업의 결과
+     */
+    public <T> T time(String phase, Supplier<T> task) {
+        long begin = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            record(phase, (System.nanoTime() - begin) / 1_000_000);
+        }
+    }
+
+    /**
+     * 결과가 없는 작업을 실행하고 걸린 시간을 기록합니다.
+     */
+    public void run(String phase, Runnable task) {
+        time(phase, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 프로그램 시작 후 지금까지의 시간을 단계 이름으로 기록합니다. (예: "로그인 창 표시")
+     */
+    public void mark(String phase) {
+        record(phase, elapsedMillis());
+    }
+
+    /**
+     * @return 프로그램 시작 후 지난 시간(ms)
+     */
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private void record(String phase, long millis) {
+        synchronized (this) {
+            phases.put(phase, millis);
+        }
+        if (verbose) {
+            System.out.println("[시작 단계] " + phase + ": " + millis + "ms (" + Thread.currentThread().getName() + ")");
+        }
+    }
+
+    /**
+     * 지금까지 기록된 모든 단계의 시간을 한 줄로 요약합니다.
+     */
+    public synchronized String getSummary() {
+        StringBuilder sb = new StringBuilder("[시작 시간 요약]");
+        phases.forEach((phase, millis) -> sb.append(' ').append(phase).append('=').append(millis).append("ms"));
+        sb.append(" 전체=").append(elapsedMillis()).append("ms");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,16 @@
+// 파일 이름: Subscription.java
+
+/**
+ * 옵저버 등록(구독)을 나타내는 핸들 인터페이스입니다.
+ * Item.subscribe()와 ItemCatalog.subscribe()가 반환하며, unsubscribe()를 호출하면 해당 옵저버가 더 이상 알림을 받지 않습니다.
+ *
+ * 창(MainAppFrame)이 닫힐 때 자신이 등록한 구독을 모두 해제하여,
+ * 로그아웃/재로그인을 반복해도 닫힌 창이 Item의 옵저버 목록에 남아 계속 알림을 받는 일을 막습니다.
+ */
+public interface Subscription {
+
+    /**
+     * 구독을 해제합니다. 여러 번 호출해도 안전합니다.
+     */
+    void unsubscribe();
+}
@@ -0,0 +1,139 @@
+// 파일 이름: UserDirectory.java
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 전체 사용자 목록을 관리하는 클래스입니다.
+ * 사용자 ID와 사용자 타입으로 해시 인덱스를 유지하므로, 로그인 인증, ID 중복 검사, 추가, 삭제를
+ * 사용자 수와 관계없이 상수 시간(O(1))에 처리합니다. (기존 List&lt;User&gt;는 매번 전체를 훑어야 했음)
+ *
+ * 관리자 창의 입력 중 검색(search())을 위해 사용자 ID와 이름의 검색 인덱스(NameSearchIndex)도 함께 갱신합니다.
+ * 사용자는 추가된 순서를 유지하므로, 목록을 표시하거나 파일에 저장할 때 기존과 같은 순서로 나옵니다.
+ * 로그인 창(EDT), 관리자 창(EDT), 체크포인트 스레드에서 함께 사용하므로 모든 메소드는 this 잠금으로 동기화되어 있습니다.
+ */
+public class UserDirectory {
+
+    // 사용자 ID → 사용자 (추가된 순서 유지)
+    private final Map<String, User> byId = new LinkedHashMap<>();
+    // 사용자 타입 → (사용자 ID → 사용자)
+    private final Map<String, Map<String, User>> byType = new HashMap<>();
+    // ID와 이름의 앞부분/부분/초성 검색용 인덱스
+    private final NameSearchIndex<User> searchIndex = new NameSearchIndex<>();
+
+    /**
+     * 빈 사용자 목록을 생성합니다.
+     */
+    public UserDirectory() {
+    }
+
+    /**
+     * 주어진 사용자들로 목록을 생성합니다. ID가 중복되면 먼저 나온 사용자만 추가됩니다.
+     * @param users 초기 사용자 목록 (파일에서 불러온 목록 등)
+     */
+    public UserDirectory(Collection<User> users) {
+        for (User user : users) {
+            add(user);
+        }
+    }
+
+    /**
+     * 사용자를 추가합니다.
+     * @param user 추가할 사용자
+     * @return 추가했으면 true, 같은 ID의 사용자가 이미 있으면 false
+     */
+    public synchronized boolean add(User user) {
+        if (byId.putIfAbsent(user.getId(), user) != null) {
+            return false;
+        }
+        byType.computeIfAbsent(user.getType(), type -> new LinkedHashMap<>()).put(user.getId(), user);
+        searchIndex.add(user, user.getId(), user.getName());
+        return true;
+    }
+
+    /**
+     * 사용자를 삭제합니다.
+     * @param userId 삭제할 사용자 ID
+     * @return 삭제된 사용자. 없으면 null
+     */
+    public synchronized User remove(String userId) {
+        User user = byId.remove(userId);
+        if (user != null) {
+            Map<String, User> sameType = byType.get(user.getType());
+            sameType.remove(userId);
+            if (sameType.isEmpty()) {
+                byType.remove(user.getType());
+            }
+            searchIndex.remove(user);
+        }
+        return user;
+    }
+
+    /**
+     * ID로 사용자를 찾습니다.
+     * @return 사용자. 없으면 null
+     */
+    public synchronized User find(String userId) {
+        return byId.get(userId);
+    }
+
+    /**
+     * 해당 ID의 사용자가 있는지 확인합니다. (관리자 창의 ID 중복 검사용)
+     */
+    public synchronized boolean contains(String userId) {
+        return byId.containsKey(userId);
+    }
+
+    /**
+     * ID와 비밀번호가 일치하는 사용자를 찾습니다. (로그인 인증용)
+     * @param userId 입력된 ID
+     * @param password 입력된 비밀번호
+     * @return 일치하는 사용자. 없거나 비밀번호가 다르면 빈 Optional
+     */
+    public Optional<User> authenticate(String userId, String password) {
+        User user = find(userId);
+        return (user != null && user.getPassword().equals(password)) ? Optional.of(user) : Optional.empty();
+    }
+
+    /**
+     * ID 또는 이름으로 사용자를 검색합니다. (입력 중 검색용. 앞부분/부분/초성 일치, 예: "ㄱㅁ" → "김민준")
+     * @param query 검색어. 비어 있으면 추가된 순서대로 반환
+     * @param limit 최대 결과 수
+     * @return 앞부분이 일치하는 사용자가 먼저 나오는 검색 결과
+     */
+    public synchronized List<User> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * 해당 타입의 사용자 목록을 반환합니다. (추가된 순서)
+     * @param type 사용자 타입 (예: "Student", "Staff", "Admin")
+     * @return 사용자 목록의 복사본. 없으면 빈 목록
+     */
+    public synchronized List<User> byType(String type) {
+        Map<String, User> sameType = byType.get(type);
+        return (sameType == null) ? Collections.emptyList() : new ArrayList<>(sameType.values());
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    /**
+     * 전체 사용자 목록을 추가된 순서대로 복사하여 반환합니다. (화면 표시, 파일 저장용)
+     * 반환된 목록을 수정해도 이 객체에는 반영되지 않습니다.
+     */
+    public synchronized List<User> toList() {
+        return new ArrayList<>(byId.values());
+    }
+}